@@ -21,14 +21,21 @@ public class DatabaseEndpointConfigurer extends PropertyConfigurerSupport implem
     public boolean configure(CamelContext camelContext, Object obj, String name, Object value, boolean ignoreCase) {
         DatabaseEndpoint target = (DatabaseEndpoint) obj;
         switch (ignoreCase ? name.toLowerCase() : name) {
-        case "bridgeerrorhandler":
-        case "bridgeErrorHandler": target.setBridgeErrorHandler(property(camelContext, boolean.class, value)); return true;
-        case "exceptionhandler":
-        case "exceptionHandler": target.setExceptionHandler(property(camelContext, org.apache.camel.spi.ExceptionHandler.class, value)); return true;
-        case "exchangepattern":
-        case "exchangePattern": target.setExchangePattern(property(camelContext, org.apache.camel.ExchangePattern.class, value)); return true;
+        case "batch": target.setBatch(property(camelContext, boolean.class, value)); return true;
+        case "fetchsize":
+        case "fetchSize": target.setFetchSize(property(camelContext, int.class, value)); return true;
         case "lazystartproducer":
         case "lazyStartProducer": target.setLazyStartProducer(property(camelContext, boolean.class, value)); return true;
+        case "outputtype":
+        case "outputType": target.setOutputType(property(camelContext, java.lang.String.class, value)); return true;
+        case "resultcachemaxsize":
+        case "resultCacheMaxSize": target.setResultCacheMaxSize(property(camelContext, int.class, value)); return true;
+        case "resultcachettlseconds":
+        case "resultCacheTtlSeconds": target.setResultCacheTtlSeconds(property(camelContext, int.class, value)); return true;
+        case "useheadersasparameters":
+        case "useHeadersAsParameters": target.setUseHeadersAsParameters(property(camelContext, boolean.class, value)); return true;
+        case "usereplicas":
+        case "useReplicas": target.setUseReplicas(property(camelContext, boolean.class, value)); return true;
         default: return false;
         }
     }
@@ -36,14 +43,21 @@ public class DatabaseEndpointConfigurer extends PropertyConfigurerSupport implem
     @Override
     public Class<?> getOptionType(String name, boolean ignoreCase) {
         switch (ignoreCase ? name.toLowerCase() : name) {
-        case "bridgeerrorhandler":
-        case "bridgeErrorHandler": return boolean.class;
-        case "exceptionhandler":
-        case "exceptionHandler": return org.apache.camel.spi.ExceptionHandler.class;
-        case "exchangepattern":
-        case "exchangePattern": return org.apache.camel.ExchangePattern.class;
+        case "batch": return boolean.class;
+        case "fetchsize":
+        case "fetchSize": return int.class;
         case "lazystartproducer":
         case "lazyStartProducer": return boolean.class;
+        case "outputtype":
+        case "outputType": return java.lang.String.class;
+        case "resultcachemaxsize":
+        case "resultCacheMaxSize": return int.class;
+        case "resultcachettlseconds":
+        case "resultCacheTtlSeconds": return int.class;
+        case "useheadersasparameters":
+        case "useHeadersAsParameters": return boolean.class;
+        case "usereplicas":
+        case "useReplicas": return boolean.class;
         default: return null;
         }
     }
@@ -52,14 +66,21 @@ public class DatabaseEndpointConfigurer extends PropertyConfigurerSupport implem
     public Object getOptionValue(Object obj, String name, boolean ignoreCase) {
         DatabaseEndpoint target = (DatabaseEndpoint) obj;
         switch (ignoreCase ? name.toLowerCase() : name) {
-        case "bridgeerrorhandler":
-        case "bridgeErrorHandler": return target.isBridgeErrorHandler();
-        case "exceptionhandler":
-        case "exceptionHandler": return target.getExceptionHandler();
-        case "exchangepattern":
-        case "exchangePattern": return target.getExchangePattern();
+        case "batch": return target.isBatch();
+        case "fetchsize":
+        case "fetchSize": return target.getFetchSize();
         case "lazystartproducer":
         case "lazyStartProducer": return target.isLazyStartProducer();
+        case "outputtype":
+        case "outputType": return target.getOutputType();
+        case "resultcachemaxsize":
+        case "resultCacheMaxSize": return target.getResultCacheMaxSize();
+        case "resultcachettlseconds":
+        case "resultCacheTtlSeconds": return target.getResultCacheTtlSeconds();
+        case "useheadersasparameters":
+        case "useHeadersAsParameters": return target.isUseHeadersAsParameters();
+        case "usereplicas":
+        case "useReplicas": return target.isUseReplicas();
         default: return null;
         }
     }
@@ -21,12 +21,16 @@ public class DatabaseEndpointUriFactory extends org.apache.camel.support.compone
     private static final Set<String> SECRET_PROPERTY_NAMES;
     private static final Set<String> MULTI_VALUE_PREFIXES;
     static {
-        Set<String> props = new HashSet<>(5);
-        props.add("bridgeErrorHandler");
-        props.add("exceptionHandler");
-        props.add("exchangePattern");
+        Set<String> props = new HashSet<>(9);
+        props.add("batch");
+        props.add("fetchSize");
         props.add("lazyStartProducer");
         props.add("name");
+        props.add("outputType");
+        props.add("resultCacheMaxSize");
+        props.add("resultCacheTtlSeconds");
+        props.add("useHeadersAsParameters");
+        props.add("useReplicas");
         PROPERTY_NAMES = Collections.unmodifiableSet(props);
         SECRET_PROPERTY_NAMES = Collections.emptySet();
         MULTI_VALUE_PREFIXES = Collections.emptySet();
@@ -23,7 +23,8 @@ public class DatabaseComponent extends DefaultComponent {
 
     @Override
     protected Endpoint createEndpoint(String uri, String remaining, Map<String, Object> parameters) throws Exception {
-        // proxy to jdbc component
-        return getCamelContext().getEndpoint("jdbc:" + remaining, parameters);
+        DatabaseEndpoint endpoint = new DatabaseEndpoint(uri, remaining, this);
+        setProperties(endpoint, parameters);
+        return endpoint;
     }
 }
@@ -0,0 +1,24 @@
+package ch.elca.rovl.databasecomponent;
+
+/**
+ * Headers set by the database producer. Names are the ones of the camel-jdbc
+ * component, which this component used to proxy.
+ */
+public final class DatabaseConstants {
+
+    /**
+     * Number of rows returned by a query.
+     */
+    public static final String ROW_COUNT = "CamelJdbcRowCount";
+    /**
+     * Number of rows modified by an update.
+     */
+    public static final String UPDATE_COUNT = "CamelJdbcUpdateCount";
+    /**
+     * Names of the columns returned by a query.
+     */
+    public static final String COLUMN_NAMES = "CamelJdbcColumnNames";
+
+    private DatabaseConstants() {
+    }
+}
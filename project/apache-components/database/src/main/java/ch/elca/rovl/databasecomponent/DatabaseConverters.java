@@ -0,0 +1,27 @@
+package ch.elca.rovl.databasecomponent;
+
+import java.io.IOException;
+
+import org.apache.camel.Converter;
+
+/**
+ * Type converters of streamed query results.
+ */
+@Converter(generateLoader = true)
+public final class DatabaseConverters {
+
+    private DatabaseConverters() {
+    }
+
+    /**
+     * Reads the remaining rows as newline-delimited JSON, one object per row, and
+     * closes the iterator.
+     */
+    @Converter
+    public static String toString(ResultSetIterator rows) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        rows.writeNdjson(sb);
+        return sb.toString();
+    }
+
+}
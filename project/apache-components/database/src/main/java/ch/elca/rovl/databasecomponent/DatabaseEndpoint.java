@@ -1,24 +1,74 @@
 package ch.elca.rovl.databasecomponent;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
 import org.apache.camel.Category;
 import org.apache.camel.Consumer;
 import org.apache.camel.Processor;
 import org.apache.camel.Producer;
+import org.apache.camel.spi.PropertiesComponent;
 import org.apache.camel.support.DefaultEndpoint;
+
+import ch.elca.rovl.databasecomponent.cache.ResultCache;
+import ch.elca.rovl.databasecomponent.pool.DatabaseConfig;
+import ch.elca.rovl.databasecomponent.util.NamedQuery;
+import ch.elca.rovl.databasecomponent.util.PropertyResolver;
+import ch.elca.rovl.databasecomponent.util.ReadOnlyQueries;
+
 import org.apache.camel.spi.Metadata;
 import org.apache.camel.spi.UriEndpoint;
+import org.apache.camel.spi.UriParam;
 import org.apache.camel.spi.UriPath;
 
 /**
- * Placeholder database endpoint. Not Used.
- *
+ * Database endpoint used to run SQL queries against a database, through a
+ * connection pool shared by all the endpoints of the same database.
  */
-@UriEndpoint(firstVersion = "1.0.0", scheme = "database", title = "database", syntax="database:name",
-             category = {Category.CLOUD})
+@UriEndpoint(firstVersion = "1.0.0", scheme = "database", title = "database", syntax = "database:name",
+        producerOnly = true, category = { Category.CLOUD })
 public class DatabaseEndpoint extends DefaultEndpoint {
-    @UriPath @Metadata(required = true)
+
+    static final String OUTPUT_SELECT_LIST = "SelectList";
+    static final String OUTPUT_STREAM_LIST = "StreamList";
+    static final int DEFAULT_FETCH_SIZE = 1000;
+    static final int DEFAULT_RESULT_CACHE_MAX_SIZE = 1000;
+
+    @UriPath
+    @Metadata(required = true)
     private String name;
 
+    @UriParam(defaultValue = "false", description = "Uses the message headers as values of the named parameters of the query, given with the ':?name' syntax")
+    private boolean useHeadersAsParameters;
+
+    @UriParam(defaultValue = "false", description = "Runs the queries of a list body, or of a list of aggregated exchanges, as one batch within a single transaction")
+    private boolean batch;
+
+    @UriParam(defaultValue = "SelectList", enums = "SelectList,StreamList", description = "Whether query results are read into a list (SelectList) or streamed through a cursor as an iterator (StreamList)")
+    private String outputType = OUTPUT_SELECT_LIST;
+
+    @UriParam(defaultValue = "1000", description = "Number of rows fetched from the database at a time when streaming query results")
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    @UriParam(defaultValue = "true", description = "Sends read-only queries to the read replicas of the database, if it has any")
+    private boolean useReplicas = true;
+
+    @UriParam(defaultValue = "0", description = "Time in seconds during which the results of read-only queries are cached, 0 disables the cache")
+    private int resultCacheTtlSeconds;
+
+    @UriParam(defaultValue = "1000", description = "Max number of query results cached by the endpoint")
+    private int resultCacheMaxSize = DEFAULT_RESULT_CACHE_MAX_SIZE;
+
+    private String databaseName;
+    // parsed queries with named parameters, by query
+    private final Map<String, NamedQuery> queries = new ConcurrentHashMap<>();
+    // whether queries are read-only, by query
+    private final Map<String, Boolean> readOnlyQueries = new ConcurrentHashMap<>();
+    private int maxCachedQueries = DatabaseConfig.DEFAULT_STATEMENT_CACHE_SIZE;
+    private ResultCache resultCache;
+
     public DatabaseEndpoint() {
     }
 
@@ -26,18 +76,109 @@ public class DatabaseEndpoint extends DefaultEndpoint {
         super(uri, component);
     }
 
+    public DatabaseEndpoint(String uri, String remaining, DatabaseComponent component) {
+        super(uri, component);
+        this.databaseName = remaining;
+    }
+
+    /**
+     * Creates a database producer.
+     */
     @Override
     public Producer createProducer() throws Exception {
-        throw new UnsupportedOperationException("Not used. Dummy class.");
+        DatabaseConfig config = resolveDatabaseConfig();
+        maxCachedQueries = config.getStatementCacheSize();
+        if (resultCacheTtlSeconds > 0 && resultCache == null)
+            resultCache = new ResultCache(resultCacheMaxSize, resultCacheTtlSeconds);
+        return new DatabaseProducer(this, config);
     }
 
     @Override
     public Consumer createConsumer(Processor processor) throws Exception {
-        throw new UnsupportedOperationException("Not used. Dummy class.");
+        throw new UnsupportedOperationException("Database endpoints do not support consumers.");
+    }
+
+    /**
+     * Loads the connection and pool configuration from the properties
+     * "database.&lt;name&gt;.*", using defaults for missing pool values.
+     */
+    private DatabaseConfig resolveDatabaseConfig() {
+        PropertiesComponent properties = getCamelContext().getPropertiesComponent();
+        String prefix = String.format("database.%s.", databaseName);
+        DatabaseConfig config = new DatabaseConfig();
+
+        properties.resolveProperty(prefix + "url").ifPresent(config::setUrl);
+        properties.resolveProperty(prefix + "readUrls")
+                .map(urls -> Arrays.stream(urls.split(",")).map(String::trim).filter(url -> !url.isEmpty())
+                        .collect(Collectors.toList()))
+                .ifPresent(config::setReadUrls);
+        properties.resolveProperty(prefix + "username").ifPresent(config::setUsername);
+        properties.resolveProperty(prefix + "password").ifPresent(config::setPassword);
+        properties.resolveProperty(prefix + "sslmode").ifPresent(config::setSslMode);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "pool.minIdle"))
+                .ifPresent(config::setMinIdle);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "pool.maxSize"))
+                .ifPresent(config::setMaxSize);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "pool.replicaMaxSize"))
+                .ifPresent(config::setReplicaMaxSize);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "pool.acquisitionTimeoutMs"))
+                .ifPresent(config::setAcquisitionTimeoutMs);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "pool.idleTimeoutSeconds"))
+                .ifPresent(config::setIdleTimeoutSeconds);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "pool.maxLifetimeSeconds"))
+                .ifPresent(config::setMaxLifetimeSeconds);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "statementCacheSize"))
+                .ifPresent(config::setStatementCacheSize);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "prepareThreshold"))
+                .ifPresent(config::setPrepareThreshold);
+        PropertyResolver.getBoolean(properties.resolveProperty(prefix + "rewriteBatchedInserts"))
+                .ifPresent(config::setRewriteBatchedInserts);
+
+        return config;
     }
 
     /**
-     * Some description of this option, and what it does
+     * Returns the parsed query, parsing it only the first time it is seen. Queries
+     * are not cached anymore once the cache is full.
+     */
+    NamedQuery parseQuery(String query) {
+        NamedQuery parsed = queries.get(query);
+        if (parsed != null)
+            return parsed;
+
+        parsed = NamedQuery.parse(query);
+        if (queries.size() < maxCachedQueries)
+            queries.putIfAbsent(query, parsed);
+        return parsed;
+    }
+
+    /**
+     * Whether the query only reads data, see {@link ReadOnlyQueries}.
+     */
+    boolean isReadOnly(String query) {
+        Boolean readOnly = readOnlyQueries.get(query);
+        if (readOnly != null)
+            return readOnly;
+
+        readOnly = ReadOnlyQueries.isReadOnly(query);
+        if (readOnlyQueries.size() < maxCachedQueries)
+            readOnlyQueries.putIfAbsent(query, readOnly);
+        return readOnly;
+    }
+
+    /**
+     * Cache of the results of read-only queries, or null if disabled.
+     */
+    ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    /**
+     * Name of the database.
      */
     public void setName(String name) {
         this.name = name;
@@ -46,4 +187,104 @@ public class DatabaseEndpoint extends DefaultEndpoint {
     public String getName() {
         return name;
     }
+
+    /**
+     * Uses the message headers as values of the named parameters of the query,
+     * given with the ':?name' syntax.
+     */
+    public void setUseHeadersAsParameters(boolean useHeadersAsParameters) {
+        this.useHeadersAsParameters = useHeadersAsParameters;
+    }
+
+    public boolean isUseHeadersAsParameters() {
+        return useHeadersAsParameters;
+    }
+
+    /**
+     * Runs the queries of a list body, or of a list of aggregated exchanges, as
+     * one batch within a single transaction.
+     */
+    public void setBatch(boolean batch) {
+        this.batch = batch;
+    }
+
+    public boolean isBatch() {
+        return batch;
+    }
+
+    /**
+     * Whether query results are read into a list (SelectList) or streamed through
+     * a cursor as an iterator (StreamList).
+     */
+    public void setOutputType(String outputType) {
+        if (!OUTPUT_SELECT_LIST.equals(outputType) && !OUTPUT_STREAM_LIST.equals(outputType))
+            throw new IllegalArgumentException(String.format(
+                    "Unknown output type '%s', expected '%s' or '%s'.", outputType, OUTPUT_SELECT_LIST,
+                    OUTPUT_STREAM_LIST));
+        this.outputType = outputType;
+    }
+
+    public String getOutputType() {
+        return outputType;
+    }
+
+    public boolean isStreamList() {
+        return OUTPUT_STREAM_LIST.equals(outputType);
+    }
+
+    /**
+     * Number of rows fetched from the database at a time when streaming query
+     * results.
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 1)
+            throw new IllegalArgumentException("Fetch size must be positive, got: " + fetchSize);
+        this.fetchSize = fetchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Sends read-only queries to the read replicas of the database, if it has any.
+     * Replicas lag slightly behind the primary, disable it for reads that must see
+     * the writes made just before them.
+     */
+    public void setUseReplicas(boolean useReplicas) {
+        this.useReplicas = useReplicas;
+    }
+
+    public boolean isUseReplicas() {
+        return useReplicas;
+    }
+
+    /**
+     * Time in seconds during which the results of read-only queries are cached, 0
+     * disables the cache.
+     */
+    public void setResultCacheTtlSeconds(int resultCacheTtlSeconds) {
+        if (resultCacheTtlSeconds < 0)
+            throw new IllegalArgumentException(
+                    "Result cache TTL must not be negative, got: " + resultCacheTtlSeconds);
+        this.resultCacheTtlSeconds = resultCacheTtlSeconds;
+    }
+
+    public int getResultCacheTtlSeconds() {
+        return resultCacheTtlSeconds;
+    }
+
+    /**
+     * Max number of query results cached by the endpoint.
+     */
+    public void setResultCacheMaxSize(int resultCacheMaxSize) {
+        if (resultCacheMaxSize < 1)
+            throw new IllegalArgumentException(
+                    "Result cache size must be positive, got: " + resultCacheMaxSize);
+        this.resultCacheMaxSize = resultCacheMaxSize;
+    }
+
+    public int getResultCacheMaxSize() {
+        return resultCacheMaxSize;
+    }
 }
@@ -0,0 +1,387 @@
+package ch.elca.rovl.databasecomponent;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.support.DefaultProducer;
+import org.apache.camel.support.SynchronizationAdapter;
+
+import ch.elca.rovl.databasecomponent.cache.ResultCache;
+import ch.elca.rovl.databasecomponent.pool.DatabaseConfig;
+import ch.elca.rovl.databasecomponent.pool.DatabaseConnectionPool;
+import ch.elca.rovl.databasecomponent.util.NamedQuery;
+
+/**
+ * Database producer running the SQL query in the body of the exchange.
+ * <p>
+ * The result of a query is set as body, as a list of rows mapped by column
+ * name. The number of modified rows of an update is set in the
+ * {@link DatabaseConstants#UPDATE_COUNT} header.
+ * <p>
+ * With the StreamList output type, the result of a query is set as body as a
+ * {@link ResultSetIterator}, reading the rows from the database a fetch size at
+ * a time as they are consumed.
+ * <p>
+ * Read-only queries are sent to the read replicas of the database, if it has
+ * any, and their results are cached if the endpoint has a result cache. Other
+ * queries are sent to the primary instance and invalidate the cached results.
+ * <p>
+ * In batch mode, the body is a list of queries, or of exchanges (or messages)
+ * aggregated together, each holding a query and the headers of its parameters.
+ * Consecutive items are sent to the database as one JDBC batch, and all the
+ * items are run in a single transaction. The number of modified rows of each
+ * item is set as body, in the order of the items, and in the
+ * {@link DatabaseConstants#UPDATE_COUNT} header of the aggregated exchanges.
+ */
+public class DatabaseProducer extends DefaultProducer {
+
+    private final DatabaseEndpoint endpoint;
+    private final DatabaseConfig config;
+    private DatabaseConnectionPool pool;
+
+    public DatabaseProducer(DatabaseEndpoint endpoint, DatabaseConfig config) {
+        super(endpoint);
+        this.endpoint = endpoint;
+        this.config = config;
+    }
+
+    @Override
+    public void doStart() {
+        pool = DatabaseConnectionPool.acquire(endpoint.getDatabaseName(), config);
+    }
+
+    @Override
+    public void doStop() {
+        if (endpoint.getResultCache() != null)
+            endpoint.getResultCache().logStats();
+        if (pool != null) {
+            pool.release();
+            pool = null;
+        }
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        if (endpoint.isBatch()) {
+            processBatch(exchange);
+            return;
+        }
+
+        if (endpoint.isStreamList()) {
+            processStream(exchange);
+            return;
+        }
+
+        String query = exchange.getIn().getMandatoryBody(String.class);
+        boolean readOnly = endpoint.isReadOnly(query);
+
+        // read-only results may be served from the cache
+        ResultCache cache = readOnly ? endpoint.getResultCache() : null;
+        List<Object> parameters = null;
+        long writeGeneration = pool.getWriteGeneration();
+        if (cache != null) {
+            parameters = parameterValues(query, exchange);
+            ResultCache.Result cached = cache.get(query, parameters, writeGeneration);
+            if (cached != null) {
+                setRows(exchange, cached.getRows(), cached.getColumnNames());
+                return;
+            }
+        }
+
+        try (Connection connection = connection(readOnly);
+                Statement statement = createStatement(connection, query, exchange)) {
+            boolean hasResultSet = execute(statement, query);
+            if (!readOnly)
+                pool.markWrite();
+
+            if (!hasResultSet) {
+                exchange.getMessage().setHeader(DatabaseConstants.UPDATE_COUNT, statement.getUpdateCount());
+                return;
+            }
+
+            try (ResultSet rs = statement.getResultSet()) {
+                Set<String> columnNames = columnNames(rs);
+                List<Map<String, Object>> rows = readRows(rs);
+                if (cache != null)
+                    cache.put(query, parameters, writeGeneration, rows, columnNames);
+                setRows(exchange, rows, columnNames);
+            }
+        }
+    }
+
+    /**
+     * Returns a connection to a read replica for read-only queries, if enabled, or
+     * to the primary instance otherwise.
+     */
+    private Connection connection(boolean readOnly) throws SQLException {
+        if (readOnly && endpoint.isUseReplicas())
+            return pool.getReadConnection();
+        return pool.getConnection();
+    }
+
+    /**
+     * Values of the named parameters of the query, empty if it is run without
+     * parameters.
+     */
+    private List<Object> parameterValues(String query, Exchange exchange) {
+        if (!endpoint.isUseHeadersAsParameters())
+            return List.of();
+        NamedQuery namedQuery = endpoint.parseQuery(query);
+        return namedQuery.hasParameters() ? namedQuery.values(exchange.getIn().getHeaders()) : List.of();
+    }
+
+    /**
+     * Runs the query within a read transaction, so that the driver fetches its
+     * rows through a cursor, and sets an iterator over the rows as body. The
+     * connection is held by the iterator until it is closed.
+     */
+    private void processStream(Exchange exchange) throws Exception {
+        String query = exchange.getIn().getMandatoryBody(String.class);
+        boolean readOnly = endpoint.isReadOnly(query);
+
+        Connection connection = connection(readOnly);
+        Statement statement = null;
+        try {
+            // the postgres driver only uses a cursor outside of auto-commit
+            connection.setAutoCommit(false);
+            statement = createStatement(connection, query, exchange);
+            statement.setFetchSize(endpoint.getFetchSize());
+
+            boolean hasResultSet = execute(statement, query);
+            if (!readOnly)
+                pool.markWrite();
+
+            if (!hasResultSet) {
+                exchange.getMessage().setHeader(DatabaseConstants.UPDATE_COUNT, statement.getUpdateCount());
+                statement.close();
+                connection.commit();
+                connection.setAutoCommit(true);
+                connection.close();
+                return;
+            }
+
+            ResultSetIterator rows = new ResultSetIterator(connection, statement, statement.getResultSet());
+            exchange.getMessage().setHeader(DatabaseConstants.COLUMN_NAMES,
+                    new LinkedHashSet<>(rows.getColumnNames()));
+            exchange.getMessage().setBody(rows);
+            exchange.getExchangeExtension().addOnCompletion(new SynchronizationAdapter() {
+                @Override
+                public void onDone(Exchange exchange) {
+                    // rows not read by the end of the exchange would hold the connection
+                    rows.close();
+                }
+            });
+        } catch (Exception e) {
+            try {
+                if (statement != null)
+                    statement.close();
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException suppressed) {
+                e.addSuppressed(suppressed);
+            } finally {
+                connection.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a prepared statement bound to the headers of the exchange if the
+     * query has named parameters, or a plain statement otherwise.
+     */
+    private Statement createStatement(Connection connection, String query, Exchange exchange)
+            throws SQLException {
+        if (endpoint.isUseHeadersAsParameters()) {
+            NamedQuery namedQuery = endpoint.parseQuery(query);
+            if (namedQuery.hasParameters()) {
+                PreparedStatement statement = connection.prepareStatement(namedQuery.getSql());
+                try {
+                    namedQuery.bind(statement, exchange.getIn().getHeaders());
+                } catch (RuntimeException | SQLException e) {
+                    statement.close();
+                    throw e;
+                }
+                return statement;
+            }
+        }
+        return connection.createStatement();
+    }
+
+    private static boolean execute(Statement statement, String query) throws SQLException {
+        if (statement instanceof PreparedStatement)
+            return ((PreparedStatement) statement).execute();
+        return statement.execute(query);
+    }
+
+    /**
+     * Runs the items of the body as JDBC batches within one transaction.
+     */
+    private void processBatch(Exchange exchange) throws Exception {
+        List<?> body = exchange.getIn().getMandatoryBody(List.class);
+        List<BatchItem> items = new ArrayList<>(body.size());
+        for (Object item : body) {
+            items.add(batchItem(item, exchange));
+        }
+
+        int[] counts = new int[items.size()];
+        if (!items.isEmpty()) {
+            try (Connection connection = pool.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    // consecutive items sharing a statement are sent as one batch
+                    int start = 0;
+                    while (start < items.size()) {
+                        int end = start + 1;
+                        while (end < items.size() && items.get(start).sameStatement(items.get(end)))
+                            end++;
+                        executeBatch(connection, items.subList(start, end), counts, start);
+                        start = end;
+                    }
+                    connection.commit();
+                    pool.markWrite();
+                } catch (Exception e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            }
+        }
+
+        // map the results back to the items
+        List<Integer> results = new ArrayList<>(counts.length);
+        int total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            results.add(counts[i]);
+            if (counts[i] > 0)
+                total += counts[i];
+            if (items.get(i).source() != null)
+                items.get(i).source().setHeader(DatabaseConstants.UPDATE_COUNT, counts[i]);
+        }
+        exchange.getMessage().setHeader(DatabaseConstants.UPDATE_COUNT, total);
+        exchange.getMessage().setBody(results);
+    }
+
+    private void executeBatch(Connection connection, List<BatchItem> batch, int[] counts, int offset)
+            throws SQLException {
+        NamedQuery query = batch.get(0).query();
+        int[] batchCounts;
+        if (query != null) {
+            try (PreparedStatement statement = connection.prepareStatement(query.getSql())) {
+                for (BatchItem item : batch) {
+                    query.bind(statement, item.source().getHeaders());
+                    statement.addBatch();
+                }
+                batchCounts = statement.executeBatch();
+            }
+        } else {
+            try (Statement statement = connection.createStatement()) {
+                for (BatchItem item : batch) {
+                    statement.addBatch(item.sql());
+                }
+                batchCounts = statement.executeBatch();
+            }
+        }
+        System.arraycopy(batchCounts, 0, counts, offset, batchCounts.length);
+    }
+
+    /**
+     * Reads the query of an item of the batch, and its parameters if named
+     * parameters are enabled.
+     */
+    private BatchItem batchItem(Object item, Exchange exchange) {
+        Message source;
+        if (item instanceof Exchange)
+            source = ((Exchange) item).getMessage();
+        else if (item instanceof Message)
+            source = (Message) item;
+        else
+            source = null;
+
+        String sql = source == null
+                ? exchange.getContext().getTypeConverter().convertTo(String.class, exchange, item)
+                : source.getBody(String.class);
+        if (sql == null)
+            throw new IllegalArgumentException("Batch items must hold a query, got: " + item);
+
+        NamedQuery query = null;
+        if (endpoint.isUseHeadersAsParameters()) {
+            NamedQuery parsed = endpoint.parseQuery(sql);
+            if (parsed.hasParameters()) {
+                if (source == null)
+                    throw new IllegalArgumentException(String.format(
+                            "Query '%s' has parameters, it must be given by an exchange with their headers", sql));
+                query = parsed;
+            }
+        }
+        return new BatchItem(sql, query, source);
+    }
+
+    /**
+     * Query of a batch, with its parsed parameters if it is run as a prepared
+     * statement and the message it comes from, if any.
+     */
+    private record BatchItem(String sql, NamedQuery query, Message source) {
+
+        /**
+         * Whether both items can be sent in the same batch. Queries without
+         * parameters are all sent through the same statement.
+         */
+        boolean sameStatement(BatchItem other) {
+            if (query == null || other.query == null)
+                return query == other.query;
+            return query.getSql().equals(other.query.getSql());
+        }
+    }
+
+    private static Set<String> columnNames(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        Set<String> columnNames = new LinkedHashSet<>();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            columnNames.add(meta.getColumnLabel(i));
+        }
+        return columnNames;
+    }
+
+    private static List<Map<String, Object>> readRows(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columnCount = meta.getColumnCount();
+        String[] labels = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = meta.getColumnLabel(i + 1);
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        while (rs.next()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            // columns are read by index, the last one wins for duplicate labels
+            for (int i = 0; i < columnCount; i++) {
+                row.put(labels[i], rs.getObject(i + 1));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static void setRows(Exchange exchange, List<Map<String, Object>> rows, Set<String> columnNames) {
+        Message message = exchange.getMessage();
+        message.setHeader(DatabaseConstants.COLUMN_NAMES, columnNames);
+        message.setHeader(DatabaseConstants.ROW_COUNT, rows.size());
+        message.setBody(rows);
+    }
+
+}
@@ -0,0 +1,193 @@
+package ch.elca.rovl.databasecomponent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rows of a query read through a database cursor, a batch of rows of the
+ * configured fetch size at a time.
+ * <p>
+ * The iterator holds a pooled connection until it is closed. It is closed when
+ * the last row is read, when reading fails, or at the latest when the exchange
+ * carrying it ends.
+ */
+public class ResultSetIterator implements Iterator<Map<String, Object>>, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResultSetIterator.class);
+
+    private final Connection connection;
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final List<String> columnNames;
+
+    private boolean closed = false;
+    private boolean hasNext;
+
+    ResultSetIterator(Connection connection, Statement statement, ResultSet resultSet)
+            throws SQLException {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+
+        ResultSetMetaData meta = resultSet.getMetaData();
+        List<String> names = new ArrayList<>(meta.getColumnCount());
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            names.add(meta.getColumnLabel(i));
+        }
+        this.columnNames = Collections.unmodifiableList(names);
+        this.hasNext = advance();
+    }
+
+    /**
+     * Names of the columns, in the order of the query.
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!hasNext)
+            throw new NoSuchElementException();
+
+        try {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columnNames.size(); i++) {
+                row.put(columnNames.get(i), resultSet.getObject(i + 1));
+            }
+            hasNext = advance();
+            return row;
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException("Failed to read row of query result.", e);
+        }
+    }
+
+    private boolean advance() throws SQLException {
+        if (closed)
+            return false;
+
+        boolean more = resultSet.next();
+        if (!more)
+            close();
+        return more;
+    }
+
+    /**
+     * Ends the read transaction and gives the connection back to the pool.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        hasNext = false;
+
+        try {
+            resultSet.close();
+            statement.close();
+            connection.commit();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            LOG.warn("Failed to close the cursor of a streamed query.", e);
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOG.warn("Failed to give back the connection of a streamed query.", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the remaining rows as newline-delimited JSON objects, then closes
+     * the iterator. Rows are written one at a time, so that memory does not grow
+     * with the number of rows.
+     *
+     * @param out where to write the rows
+     * @throws IOException
+     */
+    public void writeNdjson(Appendable out) throws IOException {
+        try {
+            while (hasNext()) {
+                Map<String, Object> row = next();
+                out.append('{');
+                boolean first = true;
+                for (Map.Entry<String, Object> column : row.entrySet()) {
+                    if (!first)
+                        out.append(',');
+                    first = false;
+                    writeJsonString(out, column.getKey());
+                    out.append(':');
+                    writeJsonValue(out, column.getValue());
+                }
+                out.append("}\n");
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private static void writeJsonValue(Appendable out, Object value) throws IOException {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Boolean) {
+            out.append(value.toString());
+        } else if (value instanceof Number && !(value instanceof Double && !Double.isFinite((Double) value))
+                && !(value instanceof Float && !Float.isFinite((Float) value))) {
+            out.append(value.toString());
+        } else {
+            writeJsonString(out, value.toString());
+        }
+    }
+
+    private static void writeJsonString(Appendable out, String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        out.append(String.format("\\u%04x", (int) c));
+                    else
+                        out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,140 @@
+package ch.elca.rovl.databasecomponent.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Size-bounded cache of the results of read-only queries, keyed by query and
+ * parameter values.
+ * <p>
+ * Entries expire after a fixed time to live, which bounds how stale a result
+ * can be with respect to writes made by other function instances. Writes made
+ * through the same connection pool invalidate all the entries cached before
+ * them, see {@link #get(String, List, long)}.
+ */
+public final class ResultCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResultCache.class);
+    private static final int STATS_LOG_INTERVAL = 1000;
+
+    private final Cache<Key, Result> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize    max number of cached results
+     * @param ttlSeconds time after which a result is read again from the database
+     */
+    public ResultCache(int maxSize, int ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns a copy of the cached result of the query, or null if it is not
+     * cached or was cached before the last write to the database.
+     *
+     * @param sql             query
+     * @param parameters      values of the parameters of the query
+     * @param writeGeneration number of writes made to the database so far
+     */
+    public Result get(String sql, List<Object> parameters, long writeGeneration) {
+        Key key = new Key(sql, parameters);
+        Result result = cache.getIfPresent(key);
+        if (result != null && result.writeGeneration != writeGeneration) {
+            cache.invalidate(key);
+            result = null;
+        }
+
+        if (result == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        if (hits.sum() % STATS_LOG_INTERVAL == 0)
+            logStats();
+        return result.copy();
+    }
+
+    /**
+     * Caches a copy of the result of the query.
+     *
+     * @param writeGeneration number of writes made to the database before the
+     *                        query was run
+     */
+    public void put(String sql, List<Object> parameters, long writeGeneration, List<Map<String, Object>> rows,
+            Set<String> columnNames) {
+        cache.put(new Key(sql, parameters), new Result(rows, columnNames, writeGeneration).copy());
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public void logStats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        LOG.info(String.format("Result cache: hits=%d, misses=%d, hit rate=%.1f%%, size=%d, evictions=%d", h, m,
+                h + m == 0 ? 0.0 : 100.0 * h / (h + m), cache.estimatedSize(), getEvictionCount()));
+    }
+
+    private record Key(String sql, List<Object> parameters) {
+    }
+
+    /**
+     * Rows of a cached query result, mapped by column name.
+     */
+    public static final class Result {
+
+        private final List<Map<String, Object>> rows;
+        private final Set<String> columnNames;
+        private final long writeGeneration;
+
+        private Result(List<Map<String, Object>> rows, Set<String> columnNames, long writeGeneration) {
+            this.rows = rows;
+            this.columnNames = columnNames;
+            this.writeGeneration = writeGeneration;
+        }
+
+        public List<Map<String, Object>> getRows() {
+            return rows;
+        }
+
+        public Set<String> getColumnNames() {
+            return columnNames;
+        }
+
+        // rows are copied in and out of the cache, as routes may modify them
+        private Result copy() {
+            List<Map<String, Object>> copiedRows = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                copiedRows.add(new LinkedHashMap<>(row));
+            }
+            return new Result(copiedRows, new LinkedHashSet<>(columnNames), writeGeneration);
+        }
+    }
+}
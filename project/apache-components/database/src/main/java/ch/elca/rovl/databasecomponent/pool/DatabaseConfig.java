@@ -0,0 +1,225 @@
+package ch.elca.rovl.databasecomponent.pool;
+
+import java.util.List;
+
+/**
+ * Configuration of the connection pool towards a database.
+ * <p>
+ * Values are loaded from the properties "database.&lt;name&gt;.*" by the
+ * database component. Missing pool properties fall back to the defaults below,
+ * the connection url is mandatory.
+ */
+public class DatabaseConfig {
+
+    public static final String DRIVER_CLASS_NAME = "org.postgresql.Driver";
+
+    public static final int DEFAULT_MIN_IDLE = 1;
+    public static final int DEFAULT_MAX_SIZE = 10;
+    public static final int DEFAULT_ACQUISITION_TIMEOUT_MS = 5000;
+    public static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 300;
+    public static final int DEFAULT_MAX_LIFETIME_SECONDS = 1800;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 256;
+    public static final int DEFAULT_PREPARE_THRESHOLD = 1;
+    public static final boolean DEFAULT_REWRITE_BATCHED_INSERTS = false;
+
+    private String url;
+    private List<String> readUrls = List.of();
+    private String username;
+    private String password;
+    private String sslMode;
+    private int minIdle = DEFAULT_MIN_IDLE;
+    private int maxSize = DEFAULT_MAX_SIZE;
+    // 0 sizes the replica pools like the primary one
+    private int replicaMaxSize = 0;
+    private int acquisitionTimeoutMs = DEFAULT_ACQUISITION_TIMEOUT_MS;
+    private int idleTimeoutSeconds = DEFAULT_IDLE_TIMEOUT_SECONDS;
+    private int maxLifetimeSeconds = DEFAULT_MAX_LIFETIME_SECONDS;
+    private int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+    private int prepareThreshold = DEFAULT_PREPARE_THRESHOLD;
+    private boolean rewriteBatchedInserts = DEFAULT_REWRITE_BATCHED_INSERTS;
+
+    /**
+     * JDBC url of the database.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    /**
+     * JDBC urls of the read replicas of the database, empty if it has none.
+     * Replicas use the same credentials and pool configuration as the primary.
+     */
+    public List<String> getReadUrls() {
+        return readUrls;
+    }
+
+    public void setReadUrls(List<String> readUrls) {
+        this.readUrls = List.copyOf(readUrls);
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * SSL mode of the connections (e.g. "require"), the driver default is used if null.
+     */
+    public String getSslMode() {
+        return sslMode;
+    }
+
+    public void setSslMode(String sslMode) {
+        this.sslMode = sslMode;
+    }
+
+    /**
+     * Number of connections the pool keeps open when idle.
+     */
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    /**
+     * Max number of connections held by the pool.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Max number of connections held by the pool of each read replica, the max
+     * size of the primary pool unless set.
+     */
+    public int getReplicaMaxSize() {
+        return replicaMaxSize > 0 ? replicaMaxSize : maxSize;
+    }
+
+    public void setReplicaMaxSize(int replicaMaxSize) {
+        this.replicaMaxSize = replicaMaxSize;
+    }
+
+    /**
+     * Time to wait for a connection when all of them are in use before failing.
+     */
+    public int getAcquisitionTimeoutMs() {
+        return acquisitionTimeoutMs;
+    }
+
+    public void setAcquisitionTimeoutMs(int acquisitionTimeoutMs) {
+        this.acquisitionTimeoutMs = acquisitionTimeoutMs;
+    }
+
+    /**
+     * Time after which connections above the min idle count are closed when unused.
+     */
+    public int getIdleTimeoutSeconds() {
+        return idleTimeoutSeconds;
+    }
+
+    public void setIdleTimeoutSeconds(int idleTimeoutSeconds) {
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+    }
+
+    /**
+     * Time after which connections are replaced, even if in regular use.
+     */
+    public int getMaxLifetimeSeconds() {
+        return maxLifetimeSeconds;
+    }
+
+    public void setMaxLifetimeSeconds(int maxLifetimeSeconds) {
+        this.maxLifetimeSeconds = maxLifetimeSeconds;
+    }
+
+    /**
+     * Number of prepared statements cached by each connection.
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * Number of executions after which a query is prepared on the server. A low
+     * value lets short-lived function instances benefit from prepared statements.
+     */
+    public int getPrepareThreshold() {
+        return prepareThreshold;
+    }
+
+    public void setPrepareThreshold(int prepareThreshold) {
+        this.prepareThreshold = prepareThreshold;
+    }
+
+    /**
+     * Whether batches of inserts are rewritten by the driver into multi-row
+     * inserts. Faster for bulk inserts, but the number of inserted rows is not
+     * reported for each item of the batch anymore.
+     */
+    public boolean isRewriteBatchedInserts() {
+        return rewriteBatchedInserts;
+    }
+
+    public void setRewriteBatchedInserts(boolean rewriteBatchedInserts) {
+        this.rewriteBatchedInserts = rewriteBatchedInserts;
+    }
+
+    /**
+     * Checks that the configuration can be used to create a pool.
+     *
+     * @param databaseName name of the database, used in error messages
+     */
+    public void validate(String databaseName) {
+        if (url == null || url.isBlank())
+            throw new IllegalStateException(String.format(
+                    "Missing configuration 'database.%s.url'.", databaseName));
+        if (minIdle < 0 || maxSize < 1 || minIdle > maxSize)
+            throw new IllegalArgumentException(String.format(
+                    "Invalid pool size for database '%s': minIdle=%d, maxSize=%d.",
+                    databaseName, minIdle, maxSize));
+        if (replicaMaxSize < 0)
+            throw new IllegalArgumentException(String.format(
+                    "Invalid replica pool size for database '%s': replicaMaxSize=%d.",
+                    databaseName, replicaMaxSize));
+        if (statementCacheSize < 0 || prepareThreshold < 0)
+            throw new IllegalArgumentException(String.format(
+                    "Invalid statement cache for database '%s': size=%d, prepareThreshold=%d.",
+                    databaseName, statementCacheSize, prepareThreshold));
+    }
+
+    @Override
+    public String toString() {
+        // credentials are not printed
+        return String.format(
+                "DatabaseConfig[url=%s, readUrls=%s, minIdle=%d, maxSize=%d, replicaMaxSize=%d, acquisitionTimeout=%dms, idleTimeout=%ds, maxLifetime=%ds, statementCache=%d, prepareThreshold=%d, rewriteBatchedInserts=%b]",
+                url, readUrls, minIdle, maxSize, getReplicaMaxSize(), acquisitionTimeoutMs, idleTimeoutSeconds, maxLifetimeSeconds,
+                statementCacheSize, prepareThreshold, rewriteBatchedInserts);
+    }
+}
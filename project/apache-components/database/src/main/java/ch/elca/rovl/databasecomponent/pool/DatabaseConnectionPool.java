@@ -0,0 +1,293 @@
+package ch.elca.rovl.databasecomponent.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
+import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import io.agroal.api.security.NamePrincipal;
+import io.agroal.api.security.SimplePassword;
+
+/**
+ * Pool of JDBC connections towards a database.
+ * <p>
+ * Pools are shared by all the endpoints using the same database within the
+ * function instance, so that warm invocations reuse the connections opened by
+ * previous ones instead of paying a new handshake for every query. The
+ * underlying data source is opened on the first query, and a pool is closed
+ * when the last producer using it is stopped.
+ * <p>
+ * If the database has read replicas, the pool holds a data source per replica,
+ * sized by {@link DatabaseConfig#getReplicaMaxSize()}, and hands out replica
+ * connections in turn for read-only queries. A replica that cannot be reached
+ * is skipped for a while, reads fall back to the primary if no replica is left.
+ */
+public final class DatabaseConnectionPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DatabaseConnectionPool.class);
+    private static final int STATS_LOG_INTERVAL = 1000;
+    private static final long REPLICA_BACKOFF_NANOS = Duration.ofSeconds(30).toNanos();
+
+    private static final Map<String, DatabaseConnectionPool> POOLS = new HashMap<>();
+
+    private final String databaseName;
+    private final DatabaseConfig config;
+    private volatile AgroalDataSource dataSource;
+    // data sources of the read replicas, by index of their url
+    private final AgroalDataSource[] replicas;
+    // time from which failed replicas are tried again, 0 if available
+    private final AtomicLongArray replicaRetryAt;
+    private int references = 0;
+    // set once the pool is released, data sources are not opened anymore
+    private boolean closed = false;
+
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private DatabaseConnectionPool(String databaseName, DatabaseConfig config) {
+        this.databaseName = databaseName;
+        this.config = config;
+        this.replicas = new AgroalDataSource[config.getReadUrls().size()];
+        this.replicaRetryAt = new AtomicLongArray(replicas.length);
+    }
+
+    /**
+     * Returns the pool for the given database, creating it with the given
+     * configuration if it does not exist yet. Every call must be matched by a
+     * call to {@link #release()}.
+     *
+     * @param databaseName name of the database
+     * @param config       configuration used if the pool has to be created
+     * @return the connection pool
+     */
+    public static DatabaseConnectionPool acquire(String databaseName, DatabaseConfig config) {
+        synchronized (POOLS) {
+            DatabaseConnectionPool pool = POOLS.get(databaseName);
+            if (pool == null) {
+                config.validate(databaseName);
+                pool = new DatabaseConnectionPool(databaseName, config);
+                POOLS.put(databaseName, pool);
+                LOG.info(String.format("Created connection pool for database %s with %s", databaseName,
+                        config));
+            }
+            pool.references++;
+            return pool;
+        }
+    }
+
+    /**
+     * Releases the pool. The pool is closed when it is not used by any producer
+     * anymore.
+     */
+    public void release() {
+        synchronized (POOLS) {
+            references--;
+            if (references > 0)
+                return;
+            POOLS.remove(databaseName);
+        }
+
+        logStats();
+        synchronized (this) {
+            closed = true;
+            close();
+        }
+    }
+
+    /**
+     * Closes the connections of all the pools, they are opened again by the next
+     * query. Used when the function instance is snapshotted, as connections opened
+     * before the snapshot cannot be used after it is restored.
+     */
+    public static void closeConnections() {
+        synchronized (POOLS) {
+            for (DatabaseConnectionPool pool : POOLS.values()) {
+                pool.close();
+            }
+        }
+    }
+
+    /**
+     * Returns a connection from the pool, it must be closed to be given back.
+     *
+     * @throws SQLException if no connection is available within the acquisition
+     *                      timeout
+     */
+    public Connection getConnection() throws SQLException {
+        Connection connection = dataSource().getConnection();
+        if (acquisitions.incrementAndGet() % STATS_LOG_INTERVAL == 0)
+            logStats();
+        return connection;
+    }
+
+    /**
+     * Returns a connection to one of the read replicas, in turn, or to the primary
+     * instance if the database has no replicas or none of them can be reached.
+     * The connection is read-only, and must be closed to be given back.
+     *
+     * @throws SQLException if no connection is available within the acquisition
+     *                      timeout
+     */
+    public Connection getReadConnection() throws SQLException {
+        for (int i = 0; i < replicas.length; i++) {
+            int replica = Math.floorMod(nextReplica.getAndIncrement(), replicas.length);
+            long retryAt = replicaRetryAt.get(replica);
+            if (retryAt != 0 && System.nanoTime() - retryAt < 0)
+                continue;
+
+            Connection connection;
+            try {
+                connection = replica(replica).getConnection();
+            } catch (SQLException e) {
+                // skip the replica, instead of waiting for the acquisition timeout on every read
+                replicaRetryAt.set(replica, System.nanoTime() + REPLICA_BACKOFF_NANOS);
+                LOG.warn(String.format("Read replica %d of database %s is not available, skipping it for %ds.",
+                        replica, databaseName, Duration.ofNanos(REPLICA_BACKOFF_NANOS).toSeconds()), e);
+                continue;
+            }
+            replicaRetryAt.set(replica, 0);
+            if (acquisitions.incrementAndGet() % STATS_LOG_INTERVAL == 0)
+                logStats();
+            connection.setReadOnly(true);
+            return connection;
+        }
+        return getConnection();
+    }
+
+    public boolean hasReplicas() {
+        return replicas.length > 0;
+    }
+
+    /**
+     * Records that a query which may modify data was run, so that results cached
+     * before it are not used anymore.
+     */
+    public void markWrite() {
+        writes.incrementAndGet();
+    }
+
+    /**
+     * Number of queries which may have modified data run through this pool.
+     */
+    public long getWriteGeneration() {
+        return writes.get();
+    }
+
+    public DatabaseConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Metrics of the pool, or null if no query has been run yet.
+     */
+    public AgroalDataSourceMetrics getMetrics() {
+        AgroalDataSource ds = dataSource;
+        return ds == null ? null : ds.getMetrics();
+    }
+
+    public void logStats() {
+        logStats("Database pool " + databaseName, getMetrics());
+        for (int i = 0; i < replicas.length; i++) {
+            AgroalDataSource replica = replicas[i];
+            if (replica != null)
+                logStats(String.format("Database pool %s, replica %d", databaseName, i), replica.getMetrics());
+        }
+    }
+
+    private void logStats(String pool, AgroalDataSourceMetrics metrics) {
+        if (metrics == null)
+            return;
+
+        LOG.info(String.format(
+                "%s: acquired=%d, created=%d, active=%d, available=%d, max used=%d, awaiting=%d, wait avg=%dms max=%dms",
+                pool, acquisitions.get(), metrics.creationCount(), metrics.activeCount(),
+                metrics.availableCount(), metrics.maxUsedCount(), metrics.awaitingCount(),
+                metrics.blockingTimeAverage().toMillis(), metrics.blockingTimeMax().toMillis()));
+    }
+
+    private AgroalDataSource dataSource() throws SQLException {
+        AgroalDataSource ds = dataSource;
+        if (ds != null)
+            return ds;
+
+        synchronized (this) {
+            checkNotClosed();
+            if (dataSource == null)
+                dataSource = AgroalDataSource.from(dataSourceConfiguration(config.getUrl(), config.getMaxSize()));
+            return dataSource;
+        }
+    }
+
+    private synchronized AgroalDataSource replica(int index) throws SQLException {
+        checkNotClosed();
+        if (replicas[index] == null)
+            replicas[index] = AgroalDataSource.from(dataSourceConfiguration(config.getReadUrls().get(index),
+                    config.getReplicaMaxSize()));
+        return replicas[index];
+    }
+
+    private void checkNotClosed() throws SQLException {
+        if (closed)
+            throw new SQLException(String.format("Connection pool of database %s is closed.", databaseName));
+    }
+
+    private synchronized void close() {
+        List<AgroalDataSource> opened = new ArrayList<>();
+        opened.add(dataSource);
+        for (int i = 0; i < replicas.length; i++) {
+            opened.add(replicas[i]);
+            replicas[i] = null;
+        }
+        dataSource = null;
+
+        for (AgroalDataSource ds : opened) {
+            if (ds != null)
+                ds.close();
+        }
+    }
+
+    private AgroalDataSourceConfigurationSupplier dataSourceConfiguration(String url, int maxSize) {
+        int minIdle = Math.min(config.getMinIdle(), maxSize);
+        return new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled(true)
+                .connectionPoolConfiguration(pool -> pool
+                        .initialSize(minIdle)
+                        .minSize(minIdle)
+                        .maxSize(maxSize)
+                        .acquisitionTimeout(Duration.ofMillis(config.getAcquisitionTimeoutMs()))
+                        .reapTimeout(Duration.ofSeconds(config.getIdleTimeoutSeconds()))
+                        .maxLifetime(Duration.ofSeconds(config.getMaxLifetimeSeconds()))
+                        .connectionFactoryConfiguration(factory -> {
+                            factory.connectionProviderClassName(DatabaseConfig.DRIVER_CLASS_NAME)
+                                    .jdbcUrl(url)
+                                    // statements are prepared on the server and cached by each connection
+                                    .jdbcProperty("prepareThreshold",
+                                            String.valueOf(config.getPrepareThreshold()))
+                                    .jdbcProperty("preparedStatementCacheQueries",
+                                            String.valueOf(config.getStatementCacheSize()))
+                                    .jdbcProperty("reWriteBatchedInserts",
+                                            String.valueOf(config.isRewriteBatchedInserts()));
+                            if (config.getUsername() != null)
+                                factory.principal(new NamePrincipal(config.getUsername()));
+                            if (config.getPassword() != null)
+                                factory.credential(new SimplePassword(config.getPassword()));
+                            if (config.getSslMode() != null)
+                                factory.jdbcProperty("sslmode", config.getSslMode());
+                            return factory;
+                        }));
+    }
+
+}
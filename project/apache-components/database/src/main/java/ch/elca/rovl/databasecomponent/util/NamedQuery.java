@@ -0,0 +1,121 @@
+package ch.elca.rovl.databasecomponent.util;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query whose parameters are given by name with the ":?name" syntax, e.g.
+ * "UPDATE votes SET count = count + 1 WHERE name = :?vote".
+ * <p>
+ * The named parameters are replaced by JDBC placeholders, so that the query can
+ * be run as a prepared statement with the values of the matching message
+ * headers. Parameters inside quoted literals are left untouched.
+ */
+public final class NamedQuery {
+
+    private final String sql;
+    private final List<String> parameters;
+
+    private NamedQuery(String sql, List<String> parameters) {
+        this.sql = sql;
+        this.parameters = Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * Parses the given query.
+     *
+     * @param query query with named parameters
+     * @return the parsed query
+     */
+    public static NamedQuery parse(String query) {
+        StringBuilder sql = new StringBuilder(query.length());
+        List<String> parameters = new ArrayList<>();
+        boolean inLiteral = false;
+
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            } else if (!inLiteral && c == ':' && i + 1 < query.length() && query.charAt(i + 1) == '?') {
+                int end = i + 2;
+                while (end < query.length() && isNameChar(query.charAt(end)))
+                    end++;
+                if (end == i + 2)
+                    throw new IllegalArgumentException(String.format(
+                            "Missing parameter name at position %d of query '%s'", i, query));
+
+                parameters.add(query.substring(i + 2, end));
+                sql.append('?');
+                i = end;
+                continue;
+            }
+            sql.append(c);
+            i++;
+        }
+
+        return new NamedQuery(sql.toString(), parameters);
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-';
+    }
+
+    /**
+     * Query with JDBC placeholders.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Names of the parameters, in the order of the placeholders.
+     */
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    public boolean hasParameters() {
+        return !parameters.isEmpty();
+    }
+
+    /**
+     * Returns the values of the parameters, in the order of the placeholders.
+     *
+     * @param values values by parameter name, e.g. the message headers
+     * @return the values of the parameters
+     */
+    public List<Object> values(Map<String, Object> values) {
+        List<Object> result = new ArrayList<>(parameters.size());
+        for (String name : parameters) {
+            if (!values.containsKey(name))
+                throw new IllegalArgumentException(String.format(
+                        "Missing header '%s' for parameter of query '%s'", name, sql));
+            result.add(values.get(name));
+        }
+        return result;
+    }
+
+    /**
+     * Sets the parameters of the statement from the given values.
+     *
+     * @param statement statement prepared with {@link #getSql()}
+     * @param values    values by parameter name, e.g. the message headers
+     * @throws SQLException
+     */
+    public void bind(PreparedStatement statement, Map<String, Object> values) throws SQLException {
+        List<Object> parameterValues = values(values);
+        for (int i = 0; i < parameterValues.size(); i++) {
+            Object value = parameterValues.get(i);
+            if (value == null)
+                statement.setNull(i + 1, Types.NULL);
+            else
+                statement.setObject(i + 1, value);
+        }
+    }
+}
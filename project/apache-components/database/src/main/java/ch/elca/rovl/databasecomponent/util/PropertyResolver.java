@@ -16,6 +16,34 @@ public class PropertyResolver {
         } else {
             return null;
         }
-    } 
-}
+    }
+
+    public static Optional<Integer> getInt(Optional<String> prop) {
+        if (prop.isPresent()) {
+            try {
+                return Optional.of(Integer.parseInt(prop.get().trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(
+                        "PropertyResolver: Expected integer value but got '" + prop.get() + "'");
+            }
+        } else {
+            return Optional.empty();
+        }
+    }
 
+    public static Optional<Boolean> getBoolean(Optional<String> prop) {
+        if (prop.isPresent()) {
+            switch (prop.get().trim().toLowerCase()) {
+                case "true":
+                    return Optional.of(true);
+                case "false":
+                    return Optional.of(false);
+                default:
+                    throw new IllegalArgumentException(
+                            "PropertyResolver: Expected boolean value but got '" + prop.get() + "'");
+            }
+        } else {
+            return Optional.empty();
+        }
+    }
+}
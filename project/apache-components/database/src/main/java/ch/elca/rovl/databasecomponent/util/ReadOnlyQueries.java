@@ -0,0 +1,98 @@
+package ch.elca.rovl.databasecomponent.util;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Tells apart the queries that only read data, which can be sent to read
+ * replicas and whose results can be cached.
+ * <p>
+ * The check is conservative: a query is read-only if it is a single SELECT,
+ * WITH, VALUES, TABLE or SHOW statement without any keyword that modifies data
+ * or takes row locks. Functions called by a query are not inspected, queries
+ * calling functions that write must be run on an endpoint with
+ * useReplicas=false.
+ */
+public final class ReadOnlyQueries {
+
+    private static final Set<String> READ_STATEMENTS = Set.of("SELECT", "WITH", "VALUES", "TABLE", "SHOW");
+    // keywords of data modifications (also in CTEs), SELECT INTO, row locks and sequences
+    private static final Set<String> WRITE_KEYWORDS = Set.of("INSERT", "UPDATE", "DELETE", "MERGE", "INTO",
+            "SHARE", "LOCK", "CALL", "NEXTVAL", "SETVAL");
+
+    private ReadOnlyQueries() {
+    }
+
+    /**
+     * Whether the given query only reads data.
+     *
+     * @param query SQL query, with or without named parameters
+     * @return true if the query can run on a read replica
+     */
+    public static boolean isReadOnly(String query) {
+        boolean first = true;
+        boolean ended = false;
+
+        int i = 0;
+        int length = query.length();
+        while (i < length) {
+            char c = query.charAt(i);
+
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (c == '-' && i + 1 < length && query.charAt(i + 1) == '-') {
+                // line comment
+                while (i < length && query.charAt(i) != '\n')
+                    i++;
+            } else if (c == '/' && i + 1 < length && query.charAt(i + 1) == '*') {
+                // block comment
+                int end = query.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '\'' || c == '"') {
+                // literal or quoted identifier, doubled quotes are escapes
+                i++;
+                while (i < length) {
+                    if (query.charAt(i) == c) {
+                        if (i + 1 < length && query.charAt(i + 1) == c) {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+            } else if (c == ';') {
+                ended = true;
+                i++;
+            } else {
+                // anything after the end of the first statement is another statement
+                if (ended)
+                    return false;
+
+                if (Character.isLetter(c) || c == '_') {
+                    int end = i;
+                    while (end < length
+                            && (Character.isLetterOrDigit(query.charAt(end)) || query.charAt(end) == '_'))
+                        end++;
+                    String word = query.substring(i, end).toUpperCase(Locale.ROOT);
+                    if (first && !READ_STATEMENTS.contains(word))
+                        return false;
+                    if (WRITE_KEYWORDS.contains(word))
+                        return false;
+                    first = false;
+                    i = end;
+                } else {
+                    // dollar-quoted bodies are only used by statements that are not read-only
+                    if (c == '$' && i + 1 < length && !Character.isDigit(query.charAt(i + 1)))
+                        return false;
+                    if (first)
+                        return false;
+                    i++;
+                }
+            }
+        }
+
+        return !first;
+    }
+}
@@ -21,8 +21,10 @@ public class FunctionEndpointUriFactory extends org.apache.camel.support.compone
     private static final Set<String> SECRET_PROPERTY_NAMES;
     private static final Set<String> MULTI_VALUE_PREFIXES;
     static {
-        Set<String> props = new HashSet<>(5);
+        Set<String> props = new HashSet<>(7);
+        props.add("async");
         props.add("bridgeErrorHandler");
+        props.add("codec");
         props.add("exceptionHandler");
         props.add("exchangePattern");
         props.add("lazyStartProducer");
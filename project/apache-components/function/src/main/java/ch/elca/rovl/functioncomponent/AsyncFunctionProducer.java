@@ -0,0 +1,37 @@
+package ch.elca.rovl.functioncomponent;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.DefaultAsyncProducer;
+import ch.elca.rovl.functioncomponent.client.AsyncSendClient;
+import ch.elca.rovl.functioncomponent.client.HttpClientConfig;
+import ch.elca.rovl.functioncomponent.util.ExchangeCodec;
+import ch.elca.rovl.functioncomponent.util.TargetProvider;
+
+/**
+ * Function producer used to send events to cloud functions without blocking the
+ * route thread while the target function executes.
+ */
+public class AsyncFunctionProducer extends DefaultAsyncProducer {
+
+    private final AsyncSendClient client;
+
+    public AsyncFunctionProducer(Endpoint endpoint, String functionName, TargetProvider provider,
+            HttpClientConfig httpConfig, ExchangeCodec codec) {
+        super(endpoint);
+        // get client for the platform the function is provisioned on
+        this.client = FunctionClientFactory.createAsyncSendClient(functionName, provider, httpConfig, codec);
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        return client.send(exchange, callback);
+    }
+
+    @Override
+    public void doStop() {
+        client.stop();
+    }
+
+}
@@ -10,7 +10,8 @@ import org.apache.camel.support.DefaultProducer;
 public class DirectFunctionProducer extends DefaultProducer {
 
     private final FunctionEndpoint endpoint;
-    private DirectFunctionConsumer consumer;
+    // resolved on the first exchange, then reused
+    private volatile DirectFunctionConsumer consumer;
 
     public DirectFunctionProducer(FunctionEndpoint endpoint) {
         super(endpoint);
@@ -20,11 +21,15 @@ public class DirectFunctionProducer extends DefaultProducer {
     @Override
     public void process(Exchange exchange) throws Exception {
         // get the corresponding consumer and hand the exchange to it
-        consumer = endpoint.getConsumer();
-        if (consumer == null) {
-            throw new IllegalStateException("Couldn't get the consumer.");
+        DirectFunctionConsumer c = consumer;
+        if (c == null) {
+            c = endpoint.getConsumer();
+            if (c == null) {
+                throw new IllegalStateException("Couldn't get the consumer.");
+            }
+            consumer = c;
         }
-        consumer.getProcessor().process(exchange);
+        c.getProcessor().process(exchange);
     }
 
 }
@@ -1,20 +1,42 @@
 package ch.elca.rovl.functioncomponent;
 
+import ch.elca.rovl.functioncomponent.client.AsyncHttpSendClient;
+import ch.elca.rovl.functioncomponent.client.AsyncSendClient;
+import ch.elca.rovl.functioncomponent.client.HttpClientConfig;
 import ch.elca.rovl.functioncomponent.client.HttpSendClient;
 import ch.elca.rovl.functioncomponent.client.SendClient;
+import ch.elca.rovl.functioncomponent.util.ExchangeCodec;
+import ch.elca.rovl.functioncomponent.util.ExchangeCodecs;
 import ch.elca.rovl.functioncomponent.util.TargetProvider;
 
 public class FunctionClientFactory {
 
     public static SendClient createSendClient(String functionName, TargetProvider provider) {
+        return createSendClient(functionName, provider, new HttpClientConfig(), ExchangeCodecs.JSON);
+    }
+
+    public static SendClient createSendClient(String functionName, TargetProvider provider,
+            HttpClientConfig httpConfig, ExchangeCodec codec) {
+        switch(provider){
+            case AZURE:
+            case AWS: {
+                return new HttpSendClient(functionName, httpConfig, codec);
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported provider!");
+        }
+    }
+
+    public static AsyncSendClient createAsyncSendClient(String functionName, TargetProvider provider,
+            HttpClientConfig httpConfig, ExchangeCodec codec) {
         switch(provider){
             case AZURE:
             case AWS: {
-                return new HttpSendClient(functionName);
+                return new AsyncHttpSendClient(functionName, httpConfig, codec);
             }
             default:
                 throw new IllegalArgumentException("Unsupported provider!");
         }
     }
 
-}
\ No newline at end of file
+}
@@ -3,8 +3,12 @@ package ch.elca.rovl.functioncomponent;
 import java.io.IOException;
 import java.net.DatagramSocket;
 import java.net.ServerSocket;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.Optional;
 import java.util.Random;
 
@@ -29,7 +33,7 @@ public class FunctionComponent extends DefaultComponent {
     private static final int MIN_PORT_NUMBER = 49152;
     private static final int MAX_PORT_NUMBER = 65534;
 
-    private final Map<String, DirectFunctionConsumer> consumers = new HashMap<>();
+    private final Map<String, CompletableFuture<DirectFunctionConsumer>> consumers = new ConcurrentHashMap<>();
     private final Random rng = new Random();
 
     public FunctionComponent() {
@@ -99,13 +103,10 @@ public class FunctionComponent extends DefaultComponent {
      * @param consumer
      */
     public void addConsumer(String functionName, DirectFunctionConsumer consumer) {
-        synchronized (consumers) {
-            if (consumers.putIfAbsent(functionName, consumer) != null) {
-                throw new IllegalArgumentException(String.format(
-                        "Cannot add a second consumer to the same endpoint for function '%s'", functionName));
-            }
-
-            consumers.notifyAll();
+        // completing the future releases the producers waiting for the consumer
+        if (!consumerFuture(functionName).complete(consumer)) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot add a second consumer to the same endpoint for function '%s'", functionName));
         }
     }
 
@@ -118,23 +119,29 @@ public class FunctionComponent extends DefaultComponent {
      * @throws InterruptedException
      */
     public DirectFunctionConsumer getConsumer(String functionName) throws InterruptedException {
-        synchronized (consumers) {
-            DirectFunctionConsumer consumer = consumers.get(functionName);
-            if (consumer == null) {
-                // try a second time after a while
-                consumers.wait(1000);
-                consumer = consumers.get(functionName);
-
-                if (consumer == null) {
-                    throw new IllegalStateException(String.format(
-                            "Failed to retrieve direct consumer for function '%s'", functionName));
-                }
-            }
-
+        CompletableFuture<DirectFunctionConsumer> future = consumerFuture(functionName);
+        DirectFunctionConsumer consumer = future.getNow(null);
+        if (consumer != null)
             return consumer;
+
+        // consumer not started yet, wait for it for a while
+        try {
+            return future.get(1, TimeUnit.SECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            throw new IllegalStateException(String.format(
+                    "Failed to retrieve direct consumer for function '%s'", functionName));
         }
     }
 
+    /**
+     * Returns the future completed with the consumer of the given function, creating
+     * it if no consumer nor producer has asked for it yet.
+     */
+    private CompletableFuture<DirectFunctionConsumer> consumerFuture(String functionName) {
+        CompletableFuture<DirectFunctionConsumer> future = consumers.get(functionName);
+        return future != null ? future : consumers.computeIfAbsent(functionName, k -> new CompletableFuture<>());
+    }
+
     /**
      * Checks whether the given port is available.
      *
@@ -4,12 +4,18 @@ import org.apache.camel.Category;
 import org.apache.camel.Consumer;
 import org.apache.camel.Processor;
 import org.apache.camel.Producer;
+import org.apache.camel.spi.PropertiesComponent;
 import org.apache.camel.support.DefaultEndpoint;
+
+import ch.elca.rovl.functioncomponent.client.HttpClientConfig;
+import ch.elca.rovl.functioncomponent.util.ExchangeCodec;
+import ch.elca.rovl.functioncomponent.util.ExchangeCodecs;
 import ch.elca.rovl.functioncomponent.util.PropertyResolver;
 import ch.elca.rovl.functioncomponent.util.TargetProvider;
 
 import org.apache.camel.spi.Metadata;
 import org.apache.camel.spi.UriEndpoint;
+import org.apache.camel.spi.UriParam;
 import org.apache.camel.spi.UriPath;
 
 /**
@@ -23,6 +29,12 @@ public class FunctionEndpoint extends DefaultEndpoint {
     @Metadata(required = true)
     private String name;
 
+    @UriParam(defaultValue = "false", description = "Sends events without blocking the route thread until the target function answers")
+    private boolean async;
+
+    @UriParam(defaultValue = "json", enums = "json,binary", description = "Codec used to encode the events sent to the target function")
+    private String codec = "json";
+
     private FunctionComponent component;
     private String functionName;
 
@@ -56,10 +68,42 @@ public class FunctionEndpoint extends DefaultEndpoint {
                     getCamelContext().getPropertiesComponent().resolveProperty(
                             providerProperty));
 
-            return new FunctionProducer(this, functionName, provider);
+            HttpClientConfig httpConfig = resolveHttpClientConfig();
+            ExchangeCodec exchangeCodec = ExchangeCodecs.forName(codec);
+            if (async) {
+                return new AsyncFunctionProducer(this, functionName, provider, httpConfig, exchangeCodec);
+            }
+            return new FunctionProducer(this, functionName, provider, httpConfig, exchangeCodec);
         }
     }
 
+    /**
+     * Loads the configuration of the HTTP connection pool from the properties
+     * "function.&lt;name&gt;.http.*", using defaults for missing values.
+     */
+    private HttpClientConfig resolveHttpClientConfig() {
+        PropertiesComponent properties = getCamelContext().getPropertiesComponent();
+        String prefix = String.format("function.%s.http.", functionName);
+        HttpClientConfig config = new HttpClientConfig();
+
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "maxPerRoute"))
+                .ifPresent(config::setMaxPerRoute);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "maxTotal"))
+                .ifPresent(config::setMaxTotal);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "idleEvictionSeconds"))
+                .ifPresent(config::setIdleEvictionSeconds);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "connectionTtlSeconds"))
+                .ifPresent(config::setConnectionTtlSeconds);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "keepAliveSeconds"))
+                .ifPresent(config::setKeepAliveSeconds);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "tokenTtlSeconds"))
+                .ifPresent(config::setTokenTtlSeconds);
+        PropertyResolver.getInt(properties.resolveProperty(prefix + "tokenRefreshSeconds"))
+                .ifPresent(config::setTokenRefreshSeconds);
+
+        return config;
+    }
+
     /**
      * Creates a consumer. The consumer is used locally to receive events from the
      * function handler and push them to the Camel route.
@@ -85,4 +129,27 @@ public class FunctionEndpoint extends DefaultEndpoint {
         return name;
     }
 
+    /**
+     * Whether the producer completes exchanges asynchronously when the target
+     * function answers, instead of blocking the route thread.
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Name of the codec used to encode the events sent to the target function.
+     */
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
 }
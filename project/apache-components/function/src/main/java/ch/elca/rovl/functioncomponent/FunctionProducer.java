@@ -3,7 +3,10 @@ package ch.elca.rovl.functioncomponent;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
 import org.apache.camel.support.DefaultProducer;
+import ch.elca.rovl.functioncomponent.client.HttpClientConfig;
 import ch.elca.rovl.functioncomponent.client.SendClient;
+import ch.elca.rovl.functioncomponent.util.ExchangeCodec;
+import ch.elca.rovl.functioncomponent.util.ExchangeCodecs;
 import ch.elca.rovl.functioncomponent.util.TargetProvider;
 
 /**
@@ -14,9 +17,14 @@ public class FunctionProducer extends DefaultProducer {
     private final SendClient client;
 
     public FunctionProducer(Endpoint endpoint, String functionName, TargetProvider provider) {
+        this(endpoint, functionName, provider, new HttpClientConfig(), ExchangeCodecs.JSON);
+    }
+
+    public FunctionProducer(Endpoint endpoint, String functionName, TargetProvider provider,
+            HttpClientConfig httpConfig, ExchangeCodec codec) {
         super(endpoint);
         // get client for the platform the function is provisioned on
-        this.client = FunctionClientFactory.createSendClient(functionName, provider);
+        this.client = FunctionClientFactory.createSendClient(functionName, provider, httpConfig, codec);
     }
 
     @Override
@@ -0,0 +1,207 @@
+package ch.elca.rovl.functioncomponent.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.elca.rovl.functioncomponent.util.ExchangeCodec;
+import ch.elca.rovl.functioncomponent.util.SpillBuffer;
+
+/**
+ * Client that sends Exchanges through HTTP without blocking the calling thread.
+ * <p>
+ * Requests are multiplexed by a non-blocking I/O reactor over a pool of
+ * keep-alive connections, so a single route thread can have many invocations
+ * of the target function in flight. The Exchange is completed when the
+ * function answers. Exchanges larger than the {@link SpillBuffer} threshold
+ * are streamed from a temporary file. The non-blocking client is shared with
+ * the other clients of the same {@link HttpConnectionPool}.
+ */
+public class AsyncHttpSendClient implements AsyncSendClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncHttpSendClient.class);
+
+    private final HttpConnectionPool pool;
+    private final CloseableHttpAsyncClient httpClient;
+    private final String targetUrl;
+    private final JwtTokenProvider tokenProvider;
+    private final ExchangeCodec codec;
+    private final ContentType contentType;
+
+    public AsyncHttpSendClient(String functionName, HttpClientConfig config, ExchangeCodec codec) {
+        // get url of the target function from environment
+        this.targetUrl = System.getenv("FUNCTION_URL_" + functionName);
+        if (targetUrl == null)
+            throw new IllegalStateException(String.format(
+                    "Could not load URL of target function '%s'", functionName));
+        this.tokenProvider = new JwtTokenProvider(functionName, config);
+        this.codec = codec;
+        this.contentType = codec.isText()
+                ? ContentType.create(codec.getContentType(), StandardCharsets.UTF_8)
+                : ContentType.create(codec.getContentType());
+
+        // share keep-alive connections with the other clients of the same target
+        this.pool = HttpConnectionPool.acquire(targetUrl, config);
+        this.httpClient = pool.getAsyncHttpClient();
+    }
+
+    @Override
+    public boolean send(Exchange exchange, AsyncCallback callback) {
+        // encode exchange, large exchanges are spilled to a temporary file
+        SpillBuffer encodedExchange = new SpillBuffer();
+        try {
+            codec.encode(exchange, encodedExchange);
+            encodedExchange.close();
+        } catch (IOException e) {
+            encodedExchange.release();
+            LOG.error("Failed to encode Exchange! Dropping message", e);
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        try {
+            // create post request with auth token and encoded exchange
+            AsyncRequestProducer post = AsyncRequestBuilder.post(targetUrl)
+                    .setHeader("authorization", "Bearer " + tokenProvider.getToken())
+                    .setEntity(encodedExchange.isInMemory()
+                            ? new BufferEntityProducer(ByteBuffer.wrap(
+                                    encodedExchange.getBuffer(), 0, (int) encodedExchange.size()), contentType)
+                            : AsyncEntityProducers.create(encodedExchange.getFile().toFile(), contentType))
+                    .build();
+
+            // send request, the exchange is completed by the I/O reactor once the
+            // target function answers
+            httpClient.execute(post, SimpleResponseConsumer.create(), new FutureCallback<SimpleHttpResponse>() {
+                @Override
+                public void completed(SimpleHttpResponse response) {
+                    encodedExchange.release();
+                    // set error if answer is not successful
+                    if (response.getCode() / 100 == 4 || response.getCode() / 100 == 5) {
+                        LOG.info(String.format(
+                                "HTTP post error: [%d] %s", response.getCode(), response.getReasonPhrase()));
+                        exchange.setException(new RuntimeException("HTTP post error."));
+                    } else {
+                        LOG.info("HTTP post successful with code " + response.getCode());
+                    }
+                    callback.done(false);
+                }
+
+                @Override
+                public void failed(Exception exc) {
+                    encodedExchange.release();
+                    LOG.info(String.format("HTTP post error: %s", exc.getMessage()));
+                    exchange.setException(new RuntimeException(exc.getMessage()));
+                    callback.done(false);
+                }
+
+                @Override
+                public void cancelled() {
+                    encodedExchange.release();
+                    exchange.setException(new RuntimeException("HTTP post cancelled."));
+                    callback.done(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // the request could not be sent, e.g. no token, complete the exchange here
+            encodedExchange.release();
+            LOG.error("Failed to send HTTP post", e);
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public void stop() {
+        // the underlying client is closed once no other client uses the pool
+        pool.release();
+    }
+
+    /**
+     * Entity producer sending the content of a buffer, without copying it.
+     */
+    static class BufferEntityProducer implements AsyncEntityProducer {
+        private final ByteBuffer content;
+        private final String contentType;
+        private volatile ByteBuffer buffer;
+
+        BufferEntityProducer(ByteBuffer content, ContentType contentType) {
+            this.content = content.asReadOnlyBuffer();
+            this.contentType = contentType.toString();
+            this.buffer = this.content.duplicate();
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return content.remaining();
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return null;
+        }
+
+        @Override
+        public boolean isChunked() {
+            return false;
+        }
+
+        @Override
+        public Set<String> getTrailerNames() {
+            return null;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public void produce(DataStreamChannel channel) throws IOException {
+            if (buffer.hasRemaining())
+                channel.write(buffer);
+            if (!buffer.hasRemaining())
+                channel.endStream();
+        }
+
+        @Override
+        public void failed(Exception cause) {
+        }
+
+        @Override
+        public void releaseResources() {
+            // rewind, so that the request can be sent again
+            buffer = content.duplicate();
+        }
+    }
+
+}
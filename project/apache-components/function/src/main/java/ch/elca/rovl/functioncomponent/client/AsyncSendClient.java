@@ -0,0 +1,25 @@
+package ch.elca.rovl.functioncomponent.client;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+
+/**
+ * Interface for clients used to send events to cloud functions without
+ * blocking the calling thread.
+ */
+public interface AsyncSendClient {
+    /**
+     * Sends the given Exchange to the cloud function. Failures are set on the
+     * Exchange, and the callback is notified once the function answered.
+     * 
+     * @param e        exchange
+     * @param callback callback to notify on completion
+     * @return true if the exchange was completed synchronously
+     */
+    public boolean send(Exchange e, AsyncCallback callback);
+
+    /**
+     * Stops the client.
+     */
+    public void stop();
+}
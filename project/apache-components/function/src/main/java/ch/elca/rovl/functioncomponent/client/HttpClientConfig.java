@@ -0,0 +1,113 @@
+package ch.elca.rovl.functioncomponent.client;
+
+/**
+ * Configuration of the pooled HTTP client used to send Exchanges to other
+ * functions.
+ * <p>
+ * Values are loaded from the properties "function.&lt;name&gt;.http.*" by the
+ * function endpoint. Missing properties fall back to the defaults below.
+ */
+public class HttpClientConfig {
+
+    public static final int DEFAULT_MAX_PER_ROUTE = 50;
+    public static final int DEFAULT_MAX_TOTAL = 200;
+    public static final int DEFAULT_IDLE_EVICTION_SECONDS = 30;
+    public static final int DEFAULT_CONNECTION_TTL_SECONDS = 300;
+    public static final int DEFAULT_KEEP_ALIVE_SECONDS = 60;
+    public static final int DEFAULT_TOKEN_TTL_SECONDS = 300;
+    public static final int DEFAULT_TOKEN_REFRESH_SECONDS = 60;
+
+    private int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+    private int maxTotal = DEFAULT_MAX_TOTAL;
+    private int idleEvictionSeconds = DEFAULT_IDLE_EVICTION_SECONDS;
+    private int connectionTtlSeconds = DEFAULT_CONNECTION_TTL_SECONDS;
+    private int keepAliveSeconds = DEFAULT_KEEP_ALIVE_SECONDS;
+    private int tokenTtlSeconds = DEFAULT_TOKEN_TTL_SECONDS;
+    private int tokenRefreshSeconds = DEFAULT_TOKEN_REFRESH_SECONDS;
+
+    /**
+     * Max number of concurrent connections to the target function.
+     */
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    /**
+     * Max number of connections held by the pool.
+     */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    /**
+     * Time after which idle connections are evicted from the pool.
+     */
+    public int getIdleEvictionSeconds() {
+        return idleEvictionSeconds;
+    }
+
+    public void setIdleEvictionSeconds(int idleEvictionSeconds) {
+        this.idleEvictionSeconds = idleEvictionSeconds;
+    }
+
+    /**
+     * Total time to live of a pooled connection, independently of its activity.
+     */
+    public int getConnectionTtlSeconds() {
+        return connectionTtlSeconds;
+    }
+
+    public void setConnectionTtlSeconds(int connectionTtlSeconds) {
+        this.connectionTtlSeconds = connectionTtlSeconds;
+    }
+
+    /**
+     * Max time a connection is kept alive between two requests. A shorter
+     * keep-alive sent by the target function takes precedence.
+     */
+    public int getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    public void setKeepAliveSeconds(int keepAliveSeconds) {
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    /**
+     * Validity of the authorization tokens signed by the client.
+     */
+    public int getTokenTtlSeconds() {
+        return tokenTtlSeconds;
+    }
+
+    public void setTokenTtlSeconds(int tokenTtlSeconds) {
+        this.tokenTtlSeconds = tokenTtlSeconds;
+    }
+
+    /**
+     * Time before expiration at which a cached token is replaced by a new one.
+     */
+    public int getTokenRefreshSeconds() {
+        return tokenRefreshSeconds;
+    }
+
+    public void setTokenRefreshSeconds(int tokenRefreshSeconds) {
+        this.tokenRefreshSeconds = tokenRefreshSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "HttpClientConfig[maxPerRoute=%d, maxTotal=%d, idleEviction=%ds, ttl=%ds, keepAlive=%ds, tokenTtl=%ds, tokenRefresh=%ds]",
+                maxPerRoute, maxTotal, idleEvictionSeconds, connectionTtlSeconds, keepAliveSeconds,
+                tokenTtlSeconds, tokenRefreshSeconds);
+    }
+}
@@ -0,0 +1,298 @@
+package ch.elca.rovl.functioncomponent.client;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.nio.AsyncConnectionEndpoint;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of keep-alive HTTP connections towards a target function.
+ * <p>
+ * Pools are shared by all the clients sending to the same URL within the
+ * function instance, so that warm invocations reuse the TCP/TLS connections
+ * opened by previous ones instead of paying a new handshake for every event.
+ * A pool is closed when the last client using it is stopped.
+ * <p>
+ * Asynchronous clients use a separate non-blocking client, created on first
+ * use, whose connections are counted in the same statistics.
+ */
+public final class HttpConnectionPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpConnectionPool.class);
+    private static final int STATS_LOG_INTERVAL = 1000;
+
+    private static final Map<String, HttpConnectionPool> POOLS = new HashMap<>();
+
+    private final String targetUrl;
+    private final HttpClientConfig config;
+    private final InstrumentedConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private InstrumentedAsyncConnectionManager asyncConnectionManager;
+    private CloseableHttpAsyncClient asyncHttpClient;
+    private int references = 0;
+
+    // lease statistics
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong reusedLeases = new AtomicLong();
+    private final AtomicLong totalLeaseWaitNanos = new AtomicLong();
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+
+    private HttpConnectionPool(String targetUrl, HttpClientConfig config) {
+        this.targetUrl = targetUrl;
+        this.config = config;
+
+        this.connectionManager = new InstrumentedConnectionManager();
+        connectionManager.setMaxTotal(config.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setTimeToLive(TimeValue.ofSeconds(config.getConnectionTtlSeconds()))
+                .build());
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy(config))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(config.getIdleEvictionSeconds()))
+                .build();
+    }
+
+    /**
+     * Returns a keep-alive strategy honoring a shorter keep-alive sent by the
+     * server, and capping it to the configured value otherwise.
+     */
+    static ConnectionKeepAliveStrategy keepAliveStrategy(HttpClientConfig config) {
+        TimeValue maxKeepAlive = TimeValue.ofSeconds(config.getKeepAliveSeconds());
+        return (response, context) -> {
+            TimeValue serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+                    .getKeepAliveDuration(response, context);
+            return TimeValue.isPositive(serverKeepAlive) && serverKeepAlive.compareTo(maxKeepAlive) < 0
+                    ? serverKeepAlive
+                    : maxKeepAlive;
+        };
+    }
+
+    /**
+     * Returns the pool for the given target URL, creating it with the given
+     * configuration if it does not exist yet. Every call must be matched by a
+     * call to {@link #release()}.
+     *
+     * @param targetUrl url of the target function
+     * @param config    configuration used if the pool has to be created
+     * @return the connection pool
+     */
+    public static HttpConnectionPool acquire(String targetUrl, HttpClientConfig config) {
+        synchronized (POOLS) {
+            HttpConnectionPool pool = POOLS.get(targetUrl);
+            if (pool == null) {
+                pool = new HttpConnectionPool(targetUrl, config);
+                POOLS.put(targetUrl, pool);
+                LOG.info(String.format("Created HTTP connection pool for %s with %s", targetUrl, config));
+            }
+            pool.references++;
+            return pool;
+        }
+    }
+
+    /**
+     * Releases the pool. The pool is closed when it is not used by any client
+     * anymore.
+     */
+    public void release() {
+        synchronized (POOLS) {
+            references--;
+            if (references > 0)
+                return;
+            POOLS.remove(targetUrl);
+        }
+
+        logStats();
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close http client of pool for " + targetUrl, e);
+            connectionManager.close(CloseMode.IMMEDIATE);
+        }
+        synchronized (this) {
+            if (asyncHttpClient != null)
+                asyncHttpClient.close(CloseMode.GRACEFUL);
+        }
+    }
+
+    /**
+     * Closes the idle connections of all the pools. Used when the function
+     * instance is snapshotted, as connections opened before the snapshot cannot
+     * be used after it is restored.
+     */
+    public static void closeIdleConnections() {
+        synchronized (POOLS) {
+            for (HttpConnectionPool pool : POOLS.values()) {
+                pool.connectionManager.closeIdle(TimeValue.ZERO_MILLISECONDS);
+                synchronized (pool) {
+                    if (pool.asyncConnectionManager != null)
+                        pool.asyncConnectionManager.closeIdle(TimeValue.ZERO_MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Returns the non-blocking client of the pool, creating and starting it on
+     * first use.
+     */
+    public synchronized CloseableHttpAsyncClient getAsyncHttpClient() {
+        if (asyncHttpClient == null) {
+            asyncConnectionManager = new InstrumentedAsyncConnectionManager();
+            asyncConnectionManager.setMaxTotal(config.getMaxTotal());
+            asyncConnectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+            asyncConnectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setTimeToLive(TimeValue.ofSeconds(config.getConnectionTtlSeconds()))
+                    .build());
+
+            asyncHttpClient = HttpAsyncClients.custom()
+                    .setConnectionManager(asyncConnectionManager)
+                    .setKeepAliveStrategy(keepAliveStrategy(config))
+                    .evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.ofSeconds(config.getIdleEvictionSeconds()))
+                    .build();
+            asyncHttpClient.start();
+        }
+        return asyncHttpClient;
+    }
+
+    public HttpClientConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Fraction of leases that were served with an already open connection.
+     */
+    public double getHitRate() {
+        long total = leases.get();
+        return total == 0 ? 0 : (double) reusedLeases.get() / total;
+    }
+
+    /**
+     * Average time spent waiting for a connection from the pool, in milliseconds.
+     */
+    public double getAverageLeaseWaitMillis() {
+        long total = leases.get();
+        return total == 0 ? 0 : totalLeaseWaitNanos.get() / 1e6 / total;
+    }
+
+    /**
+     * Longest time spent waiting for a connection from the pool, in milliseconds.
+     */
+    public double getMaxLeaseWaitMillis() {
+        return maxLeaseWaitNanos.get() / 1e6;
+    }
+
+    public void logStats() {
+        String asyncStats;
+        synchronized (this) {
+            asyncStats = asyncConnectionManager == null ? ""
+                    : ", async " + asyncConnectionManager.getTotalStats();
+        }
+        LOG.info(String.format(
+                "HTTP pool %s: leases=%d, hit rate=%.1f%%, lease wait avg=%.3fms max=%.3fms, %s%s",
+                targetUrl, leases.get(), getHitRate() * 100, getAverageLeaseWaitMillis(),
+                getMaxLeaseWaitMillis(), connectionManager.getTotalStats(), asyncStats));
+    }
+
+    private void recordLease(long waitNanos, boolean reused) {
+        totalLeaseWaitNanos.addAndGet(waitNanos);
+        maxLeaseWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        if (reused)
+            reusedLeases.incrementAndGet();
+        if (leases.incrementAndGet() % STATS_LOG_INTERVAL == 0)
+            logStats();
+    }
+
+    /**
+     * Connection manager that measures lease wait times and whether leased
+     * connections were already open.
+     */
+    private class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            final long start = System.nanoTime();
+            final LeaseRequest request = super.lease(id, route, requestTimeout, state);
+
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    ConnectionEndpoint endpoint = request.get(timeout);
+                    recordLease(System.nanoTime() - start, endpoint.isConnected());
+                    return endpoint;
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+    }
+
+    /**
+     * Non-blocking connection manager that measures lease wait times and whether
+     * leased connections were already open.
+     */
+    private class InstrumentedAsyncConnectionManager extends PoolingAsyncClientConnectionManager {
+
+        @Override
+        public Future<AsyncConnectionEndpoint> lease(String id, HttpRoute route, Object state,
+                Timeout requestTimeout, FutureCallback<AsyncConnectionEndpoint> callback) {
+            final long start = System.nanoTime();
+            return super.lease(id, route, state, requestTimeout, new FutureCallback<AsyncConnectionEndpoint>() {
+                @Override
+                public void completed(AsyncConnectionEndpoint endpoint) {
+                    recordLease(System.nanoTime() - start, endpoint.isConnected());
+                    if (callback != null)
+                        callback.completed(endpoint);
+                }
+
+                @Override
+                public void failed(Exception ex) {
+                    if (callback != null)
+                        callback.failed(ex);
+                }
+
+                @Override
+                public void cancelled() {
+                    if (callback != null)
+                        callback.cancelled();
+                }
+            });
+        }
+    }
+
+}
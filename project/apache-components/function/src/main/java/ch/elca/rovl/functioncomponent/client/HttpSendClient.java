@@ -1,72 +1,98 @@
 package ch.elca.rovl.functioncomponent.client;
 
 import java.io.IOException;
-import java.util.Base64;
-
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.camel.Exchange;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.FileEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ch.elca.rovl.functioncomponent.util.ExchangeSerializer;
-import io.jsonwebtoken.Jwts;
+import ch.elca.rovl.functioncomponent.util.ExchangeCodec;
+import ch.elca.rovl.functioncomponent.util.ExchangeCodecs;
+import ch.elca.rovl.functioncomponent.util.SpillBuffer;
 
 /**
  * Client that sends Exchanges through HTTP.
  * <p>
  * The client includes a JWT in the request so that the receiving function can
- * authorize access.
+ * authorize access. Requests are sent through a pooled keep-alive HTTP client
+ * shared by all the clients targeting the same function.
+ * <p>
+ * Exchanges are encoded straight into the request entity. Exchanges larger
+ * than the {@link SpillBuffer} threshold are streamed from a temporary file.
  */
 public class HttpSendClient implements SendClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(HttpSendClient.class);
 
+    private final HttpConnectionPool pool;
     private final CloseableHttpClient httpClient;
-    private final String functionName;
     private final String targetUrl;
+    private final JwtTokenProvider tokenProvider;
+    private final ExchangeCodec codec;
+    private final ContentType contentType;
 
     public HttpSendClient(String functionName) {
-        this.httpClient = HttpClients.createDefault();
-        this.functionName = functionName;
+        this(functionName, new HttpClientConfig(), ExchangeCodecs.JSON);
+    }
+
+    public HttpSendClient(String functionName, HttpClientConfig config, ExchangeCodec codec) {
         // get url of the target function from environment
         this.targetUrl = System.getenv("FUNCTION_URL_" + functionName);
         if (targetUrl == null)
             throw new IllegalStateException(String.format(
                     "Could not load URL of target function '%s'", functionName));
+        this.pool = HttpConnectionPool.acquire(targetUrl, config);
+        this.httpClient = pool.getHttpClient();
+        this.tokenProvider = new JwtTokenProvider(functionName, config);
+        this.codec = codec;
+        this.contentType = codec.isText()
+                ? ContentType.create(codec.getContentType(), StandardCharsets.UTF_8)
+                : ContentType.create(codec.getContentType());
     }
 
     @Override
     public void send(Exchange exchange) {
-        // serialize exchange
-        String jsonedExchange;
+        // encode exchange, large exchanges are spilled to a temporary file
+        SpillBuffer encodedExchange = new SpillBuffer();
         try {
-            jsonedExchange = ExchangeSerializer.serialize(exchange);
+            codec.encode(exchange, encodedExchange);
+            encodedExchange.close();
         } catch (IOException e) {
-            LOG.error("Failed to create JSON for Exchange! Dropping message", e);
+            encodedExchange.release();
+            LOG.error("Failed to encode Exchange! Dropping message", e);
             return;
         }
 
-        // get shared key to sign authorization token
-        String secretKeyStr = System.getenv("JWT_KEY_" + functionName);
-        if (secretKeyStr == null) {
-            LOG.error("Missing JWT key for communication with function '" + functionName + "'");
-            throw new IllegalStateException("Missing JWT key.");
+        try {
+            post(encodedExchange);
+        } finally {
+            encodedExchange.release();
         }
+    }
 
-        // generate jws
-        byte[] decodedKey = Base64.getDecoder().decode(secretKeyStr);
-        SecretKey key = new SecretKeySpec(decodedKey, 0, decodedKey.length, "HmacSHA256");
-        String jws = Jwts.builder().subject(functionName).signWith(key).compact();
+    /**
+     * Posts the encoded exchange to the target function, streaming it from memory
+     * or from its spill file.
+     */
+    private void post(SpillBuffer encodedExchange) {
+        // get authorization token
+        String jws = tokenProvider.getToken();
 
-        // create post request with auth token and serialized exchange
+        // create post request with auth token and encoded exchange, the content type
+        // tells the receiver which codec to use
         HttpPost post = new HttpPost(targetUrl);
-        post.setEntity(new StringEntity(jsonedExchange));
+        if (encodedExchange.isInMemory()) {
+            post.setEntity(new ByteArrayEntity(
+                    encodedExchange.getBuffer(), 0, (int) encodedExchange.size(), contentType));
+        } else {
+            post.setEntity(new FileEntity(encodedExchange.getFile().toFile(), contentType));
+        }
         post.setHeader("authorization", "Bearer " + jws);
 
         // send request and wait for answer
@@ -96,12 +122,8 @@ public class HttpSendClient implements SendClient {
 
     @Override
     public void stop() {
-        try {
-            httpClient.close();
-        } catch (IOException e) {
-            LOG.warn("Failed to close http client at shutdown!");
-            e.printStackTrace();
-        }
+        // the underlying client is closed once no other client uses the pool
+        pool.release();
     }
 
     /**
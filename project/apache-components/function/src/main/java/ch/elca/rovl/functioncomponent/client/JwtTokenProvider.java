@@ -0,0 +1,93 @@
+package ch.elca.rovl.functioncomponent.client;
+
+import java.util.Base64;
+import java.util.Date;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.jsonwebtoken.Jwts;
+
+/**
+ * Provides the JWT included in requests to a target function so that it can
+ * authorize access.
+ * <p>
+ * The signing key is decoded once, and the signed token is cached and replaced
+ * shortly before it expires.
+ */
+public class JwtTokenProvider {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JwtTokenProvider.class);
+
+    private final String functionName;
+    private final long tokenTtlMillis;
+    private final long tokenRefreshMillis;
+
+    // signing key and last signed token, created on first use
+    private SecretKey key;
+    private volatile SignedToken token;
+
+    public JwtTokenProvider(String functionName, HttpClientConfig config) {
+        this.functionName = functionName;
+        this.tokenTtlMillis = config.getTokenTtlSeconds() * 1000L;
+        // refresh halfway through the validity if the margin is not shorter than it
+        long refreshMillis = config.getTokenRefreshSeconds() * 1000L;
+        this.tokenRefreshMillis = refreshMillis < tokenTtlMillis ? refreshMillis : tokenTtlMillis / 2;
+    }
+
+    /**
+     * Returns the cached authorization token, signing a new one if it is about to
+     * expire.
+     */
+    public String getToken() {
+        long now = System.currentTimeMillis();
+        SignedToken current = token;
+        if (current != null && now < current.refreshAt)
+            return current.jws;
+
+        synchronized (this) {
+            current = token;
+            if (current != null && now < current.refreshAt)
+                return current.jws;
+
+            if (key == null) {
+                // get shared key to sign authorization token
+                String secretKeyStr = System.getenv("JWT_KEY_" + functionName);
+                if (secretKeyStr == null) {
+                    LOG.error("Missing JWT key for communication with function '" + functionName + "'");
+                    throw new IllegalStateException("Missing JWT key.");
+                }
+                byte[] decodedKey = Base64.getDecoder().decode(secretKeyStr);
+                key = new SecretKeySpec(decodedKey, 0, decodedKey.length, "HmacSHA256");
+            }
+
+            // generate jws
+            String jws = Jwts.builder()
+                    .subject(functionName)
+                    .issuedAt(new Date(now))
+                    .expiration(new Date(now + tokenTtlMillis))
+                    .signWith(key)
+                    .compact();
+            token = new SignedToken(jws, now + tokenTtlMillis - tokenRefreshMillis);
+            return jws;
+        }
+    }
+
+    /**
+     * Utility data structure to contain a signed token and the time at which it
+     * has to be replaced
+     */
+    static class SignedToken {
+        final String jws;
+        final long refreshAt;
+
+        SignedToken(String jws, long refreshAt) {
+            this.jws = jws;
+            this.refreshAt = refreshAt;
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package ch.elca.rovl.functioncomponent.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.camel.Exchange;
+
+/**
+ * Registry of the available Exchange codecs.
+ * <p>
+ * The receiving side selects the codec from the content type attached to the
+ * message. If it is missing, the codec is detected from the data itself, so
+ * that messages sent by older functions are still decoded as JSON.
+ * <p>
+ * On transports that only carry strings, data of binary codecs is sent base64
+ * encoded.
+ */
+public final class ExchangeCodecs {
+
+    public static final ExchangeCodec JSON = new JsonExchangeCodec();
+    public static final ExchangeCodec BINARY = new BinaryExchangeCodec();
+
+    private static final Map<String, ExchangeCodec> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        register(JSON);
+        register(BINARY);
+    }
+
+    private ExchangeCodecs() {
+    }
+
+    /**
+     * Registers a codec, making it available by name and content type.
+     */
+    public static void register(ExchangeCodec codec) {
+        CODECS.put(codec.getName().toLowerCase(), codec);
+        CODECS.put(codec.getContentType().toLowerCase(), codec);
+    }
+
+    /**
+     * Returns the codec with the given name. Returns the JSON codec if the name is
+     * null.
+     */
+    public static ExchangeCodec forName(String name) {
+        if (name == null)
+            return JSON;
+        ExchangeCodec codec = CODECS.get(name.toLowerCase());
+        if (codec == null)
+            throw new IllegalArgumentException("Unsupported exchange codec '" + name + "'");
+        return codec;
+    }
+
+    /**
+     * Returns the codec for the given content type, ignoring its parameters, or
+     * null if it is unknown.
+     */
+    public static ExchangeCodec forContentType(String contentType) {
+        if (contentType == null)
+            return null;
+        int paramsStart = contentType.indexOf(';');
+        String mimeType = paramsStart < 0 ? contentType : contentType.substring(0, paramsStart);
+        return CODECS.get(mimeType.trim().toLowerCase());
+    }
+
+    /**
+     * Decodes the given data into the Exchange, with the codec of the given
+     * content type or, if unknown, the codec detected from the data.
+     */
+    public static void decode(Exchange ex, byte[] data, String contentType) throws IOException {
+        ExchangeCodec codec = forContentType(contentType);
+        if (codec == null)
+            codec = BinaryExchangeCodec.matches(data) ? BINARY : JSON;
+        codec.decode(ex, data);
+    }
+
+    /**
+     * Encodes the Exchange as a string, base64 encoding the data of binary codecs.
+     */
+    public static String encodeText(ExchangeCodec codec, Exchange e) throws IOException {
+        byte[] data = codec.encode(e);
+        return toText(codec, data);
+    }
+
+    /**
+     * Returns the given encoded data as a string, base64 encoding the data of
+     * binary codecs.
+     */
+    public static String toText(ExchangeCodec codec, byte[] data) {
+        return codec.isText()
+                ? new String(data, StandardCharsets.UTF_8)
+                : Base64.getEncoder().encodeToString(data);
+    }
+
+    /**
+     * Decodes an Exchange received as a string, with the codec of the given
+     * content type or, if unknown, the codec detected from the data.
+     */
+    public static void decodeText(Exchange ex, String text, String contentType) throws IOException {
+        ExchangeCodec codec = forContentType(contentType);
+        if (codec == null)
+            // JSON envelopes are objects, anything else is base64 encoded binary data
+            codec = text.trim().startsWith("{") ? JSON : BINARY;
+
+        byte[] data;
+        try {
+            data = codec.isText()
+                    ? text.getBytes(StandardCharsets.UTF_8)
+                    : Base64.getDecoder().decode(text.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Exchange data is not valid base64.", e);
+        }
+        codec.decode(ex, data);
+    }
+
+}
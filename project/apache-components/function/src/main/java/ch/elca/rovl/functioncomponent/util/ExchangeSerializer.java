@@ -1,29 +1,80 @@
 package ch.elca.rovl.functioncomponent.util;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.camel.Exchange;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.jr.ob.JSON;
 import com.fasterxml.jackson.jr.ob.JSONComposer;
 import com.fasterxml.jackson.jr.ob.JSONObjectException;
 import com.fasterxml.jackson.jr.ob.comp.ObjectComposer;
 
+/**
+ * Utility class to serialize and deserialize Exchanges.
+ * <p>
+ * Serialization is used to fit all Exchange data in the body of requests to
+ * other functions, so that all info in the Exchange can reach any supported
+ * function independently of the platform event format standard.
+ * <p>
+ * Binary bodies (byte arrays, ByteBuffers and InputStreams) are base64 encoded,
+ * which is marked by the "bodyEncoding" field, and are deserialized as byte
+ * arrays.
+ * <p>
+ * NOTE serialization is not the correct term. All it does is translating the
+ * Exchange from/to a JSON string.
+ */
 public class ExchangeSerializer {
-    
+
+    public static final String BASE64_ENCODING = "base64";
+
+    /**
+     * Serializes an Exchange. Returns a JSON containing all headers and properties
+     * and the body of the Exchange.
+     * 
+     * @param e exchange
+     * @return JSON string containing the serialized Exchange
+     * @throws JSONObjectException
+     * @throws JsonProcessingException
+     * @throws IOException
+     */
     public static String serialize(Exchange e) throws JSONObjectException, JsonProcessingException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        serialize(e, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Serializes an Exchange into the given stream, as UTF-8 encoded JSON. The
+     * stream is not closed.
+     *
+     * @param e   exchange
+     * @param out stream the JSON is written to
+     * @throws JSONObjectException
+     * @throws JsonProcessingException
+     * @throws IOException
+     */
+    public static void serialize(Exchange e, OutputStream out)
+            throws JSONObjectException, JsonProcessingException, IOException {
+        // get exchange data
         Map<String, Object> headers = e.getIn().getHeaders();
         headers = headers == null ? new HashMap<>() : headers;
         Map<String, Object> properties = e.getProperties();
         properties = properties == null ? new HashMap<>() : properties;
-        String body = e.getIn().getBody(String.class);
-        body = body == null ? "" : body;
 
-        ObjectComposer<ObjectComposer<JSONComposer<String>>> composer = JSON.std.with(JSON.Feature.PRETTY_PRINT_OUTPUT)
-                .composeString()
+        // write compact JSON straight to the stream
+        JsonGenerator generator = JSON.std.getStreamingFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        ObjectComposer<ObjectComposer<JSONComposer<OutputStream>>> composer = JSON.std
+                .composeUsing(generator)
                 .startObject()
                 .startObjectField("properties");
 
@@ -38,9 +89,70 @@ public class ExchangeSerializer {
             composer = composer.putObject(key, headers.get(key));
         }
 
-        return composer.end()
-                .put("body", body)
-                .end()
-                .finish();
+        ObjectComposer<JSONComposer<OutputStream>> root = composer.end();
+
+        // JSON only carries text, binary bodies are base64 encoded
+        Object rawBody = e.getIn().getBody();
+        if (ExchangeBodies.isBinary(rawBody)) {
+            root = root.put("bodyEncoding", BASE64_ENCODING)
+                    .put("body", Base64.getEncoder().encodeToString(ExchangeBodies.toByteArray(rawBody)));
+        } else {
+            String body = e.getIn().getBody(String.class);
+            root = root.put("body", body == null ? "" : body);
+        }
+
+        root.end().finish();
+    }
+
+    /**
+     * Deserializes a JSON string into the given Exchange.
+     * 
+     * @param ex Exchange to be filled with the serialized data
+     * @param serialized JSON string of the serialized Exchange
+     * @throws JSONObjectException
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public static void deserializeExchange(Exchange ex, String serialized) throws JSONObjectException, IOException {
+        fillExchange(ex, JSON.std.beanFrom(HashMap.class, serialized));
+    }
+
+    /**
+     * Deserializes the UTF-8 encoded JSON read from the given stream into the
+     * given Exchange.
+     *
+     * @param ex Exchange to be filled with the serialized data
+     * @param in stream of the serialized Exchange
+     * @throws JSONObjectException
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public static void deserializeExchange(Exchange ex, InputStream in) throws JSONObjectException, IOException {
+        fillExchange(ex, JSON.std.beanFrom(HashMap.class, in));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void fillExchange(Exchange ex, Map<String, Object> content) throws IOException {
+        // get data
+        String body = (String) content.get("body");
+        Map<String, Object> properties = (Map<String, Object>) content.get("properties");
+        Map<String, Object> headers = (Map<String, Object>) content.get("headers");
+
+        // fill exchange
+        if (BASE64_ENCODING.equals(content.get("bodyEncoding"))) {
+            try {
+                ex.getIn().setBody(Base64.getDecoder().decode(body));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Exchange body is not valid base64.", e);
+            }
+        } else {
+            ex.getIn().setBody(body);
+        }
+        for (String key : properties.keySet()) {
+            ex.setProperty(key, properties.get(key));
+        }
+        for (String key : headers.keySet()) {
+            ex.getIn().setHeader(key, headers.get(key));
+        }
     }
 }
@@ -37,4 +37,17 @@ public class PropertyResolver {
             return null;
         }
     }
+
+    public static Optional<Integer> getInt(Optional<String> prop) {
+        if (prop.isPresent()) {
+            try {
+                return Optional.of(Integer.parseInt(prop.get().trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(
+                        "PropertyResolver: Expected integer value but got '" + prop.get() + "'");
+            }
+        } else {
+            return Optional.empty();
+        }
+    }
 }
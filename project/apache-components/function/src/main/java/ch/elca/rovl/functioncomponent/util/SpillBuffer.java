@@ -0,0 +1,198 @@
+package ch.elca.rovl.functioncomponent.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Output stream that keeps the written data in memory up to a threshold, and
+ * moves it to a temporary file once the threshold is exceeded.
+ * <p>
+ * It is used to hold large encoded Exchanges and bodies without keeping them
+ * on the heap. The threshold defaults to 1 MB and can be changed with the
+ * environment variable EXCHANGE_SPILL_THRESHOLD (in bytes).
+ */
+public class SpillBuffer extends OutputStream {
+
+    public static final int DEFAULT_THRESHOLD = resolveDefaultThreshold();
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int threshold;
+    private byte[] buffer;
+    private long size = 0;
+    private Path file;
+    private OutputStream fileOut;
+
+    public SpillBuffer() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public SpillBuffer(int threshold) {
+        this.threshold = threshold;
+        this.buffer = new byte[Math.min(INITIAL_CAPACITY, Math.max(threshold, 1))];
+    }
+
+    private static int resolveDefaultThreshold() {
+        String threshold = System.getenv("EXCHANGE_SPILL_THRESHOLD");
+        if (threshold == null)
+            return 1024 * 1024;
+        try {
+            return Integer.parseInt(threshold);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid EXCHANGE_SPILL_THRESHOLD '" + threshold + "'");
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (file == null && size + 1 > threshold)
+            spill();
+
+        if (file != null) {
+            fileOut.write(b);
+        } else {
+            ensureCapacity(1);
+            buffer[(int) size] = (byte) b;
+        }
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (file == null && size + len > threshold)
+            spill();
+
+        if (file != null) {
+            fileOut.write(b, off, len);
+        } else {
+            ensureCapacity(len);
+            System.arraycopy(b, off, buffer, (int) size, len);
+        }
+        size += len;
+    }
+
+    /**
+     * Grows the in-memory buffer so that it fits the given number of additional
+     * bytes, without exceeding the threshold.
+     */
+    private void ensureCapacity(int len) {
+        if (size + len > buffer.length)
+            buffer = Arrays.copyOf(buffer, (int) Math.min(threshold, Math.max(buffer.length * 2L, size + len)));
+    }
+
+    /**
+     * Moves the data written so far to a temporary file.
+     */
+    private void spill() throws IOException {
+        file = Files.createTempFile("rovl-exchange-", ".bin");
+        fileOut = new BufferedOutputStream(Files.newOutputStream(file));
+        fileOut.write(buffer, 0, (int) size);
+        buffer = null;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileOut != null)
+            fileOut.flush();
+    }
+
+    /**
+     * Completes writing. The data can be read only after the buffer is closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (fileOut != null)
+            fileOut.close();
+    }
+
+    /**
+     * Number of bytes written to the buffer.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Whether the data is held in memory, or in a file otherwise.
+     */
+    public boolean isInMemory() {
+        return file == null;
+    }
+
+    /**
+     * Returns the array holding the data, valid up to {@link #size()} bytes. Only
+     * available if the data is in memory.
+     */
+    public byte[] getBuffer() {
+        if (!isInMemory())
+            throw new IllegalStateException("Data has been spilled to a file.");
+        return buffer;
+    }
+
+    /**
+     * Returns the file holding the data. Only available if the data has been
+     * spilled.
+     */
+    public Path getFile() {
+        if (isInMemory())
+            throw new IllegalStateException("Data is held in memory.");
+        return file;
+    }
+
+    /**
+     * Returns the data as byte array, without copying it if the internal array
+     * has the exact size. Only available if the data is in memory.
+     */
+    public byte[] toByteArray() {
+        byte[] b = getBuffer();
+        return b.length == size ? b : Arrays.copyOf(b, (int) size);
+    }
+
+    /**
+     * Returns a stream over the data. The stream takes ownership of the spill
+     * file, which is deleted when the stream is closed.
+     */
+    public InputStream toInputStream() throws IOException {
+        if (isInMemory())
+            return new ByteArrayInputStream(buffer, 0, (int) size);
+
+        InputStream in = Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE);
+        file = null;
+        buffer = new byte[0];
+        size = 0;
+        return in;
+    }
+
+    /**
+     * Returns the data as byte array if it is held in memory, or as a stream over
+     * the spill file otherwise. Used to set large bodies on Exchanges.
+     */
+    public Object toBody() throws IOException {
+        return isInMemory() ? toByteArray() : toInputStream();
+    }
+
+    /**
+     * Deletes the spill file, if any.
+     */
+    public void release() {
+        if (file == null)
+            return;
+        try {
+            fileOut.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+        file = null;
+        buffer = new byte[0];
+        size = 0;
+    }
+
+}
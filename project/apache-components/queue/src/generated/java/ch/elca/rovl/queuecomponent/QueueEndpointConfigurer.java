@@ -21,14 +21,21 @@ public class QueueEndpointConfigurer extends PropertyConfigurerSupport implement
     public boolean configure(CamelContext camelContext, Object obj, String name, Object value, boolean ignoreCase) {
         QueueEndpoint target = (QueueEndpoint) obj;
         switch (ignoreCase ? name.toLowerCase() : name) {
+        case "batchmaxbytes":
+        case "batchMaxBytes": target.setBatchMaxBytes(property(camelContext, long.class, value)); return true;
+        case "batchsize":
+        case "batchSize": target.setBatchSize(property(camelContext, int.class, value)); return true;
         case "bridgeerrorhandler":
         case "bridgeErrorHandler": target.setBridgeErrorHandler(property(camelContext, boolean.class, value)); return true;
+        case "codec": target.setCodec(property(camelContext, java.lang.String.class, value)); return true;
         case "exceptionhandler":
         case "exceptionHandler": target.setExceptionHandler(property(camelContext, org.apache.camel.spi.ExceptionHandler.class, value)); return true;
         case "exchangepattern":
         case "exchangePattern": target.setExchangePattern(property(camelContext, org.apache.camel.ExchangePattern.class, value)); return true;
         case "lazystartproducer":
         case "lazyStartProducer": target.setLazyStartProducer(property(camelContext, boolean.class, value)); return true;
+        case "lingerms":
+        case "lingerMs": target.setLingerMs(property(camelContext, long.class, value)); return true;
         case "usedirectproducer":
         case "useDirectProducer": target.setUseDirectProducer(property(camelContext, boolean.class, value)); return true;
         default: return false;
@@ -38,14 +45,21 @@ public class QueueEndpointConfigurer extends PropertyConfigurerSupport implement
     @Override
     public Class<?> getOptionType(String name, boolean ignoreCase) {
         switch (ignoreCase ? name.toLowerCase() : name) {
+        case "batchmaxbytes":
+        case "batchMaxBytes": return long.class;
+        case "batchsize":
+        case "batchSize": return int.class;
         case "bridgeerrorhandler":
         case "bridgeErrorHandler": return boolean.class;
+        case "codec": return java.lang.String.class;
         case "exceptionhandler":
         case "exceptionHandler": return org.apache.camel.spi.ExceptionHandler.class;
         case "exchangepattern":
         case "exchangePattern": return org.apache.camel.ExchangePattern.class;
         case "lazystartproducer":
         case "lazyStartProducer": return boolean.class;
+        case "lingerms":
+        case "lingerMs": return long.class;
         case "usedirectproducer":
         case "useDirectProducer": return boolean.class;
         default: return null;
@@ -56,14 +70,21 @@ public class QueueEndpointConfigurer extends PropertyConfigurerSupport implement
     public Object getOptionValue(Object obj, String name, boolean ignoreCase) {
         QueueEndpoint target = (QueueEndpoint) obj;
         switch (ignoreCase ? name.toLowerCase() : name) {
+        case "batchmaxbytes":
+        case "batchMaxBytes": return target.getBatchMaxBytes();
+        case "batchsize":
+        case "batchSize": return target.getBatchSize();
         case "bridgeerrorhandler":
         case "bridgeErrorHandler": return target.isBridgeErrorHandler();
+        case "codec": return target.getCodec();
         case "exceptionhandler":
         case "exceptionHandler": return target.getExceptionHandler();
         case "exchangepattern":
         case "exchangePattern": return target.getExchangePattern();
         case "lazystartproducer":
         case "lazyStartProducer": return target.isLazyStartProducer();
+        case "lingerms":
+        case "lingerMs": return target.getLingerMs();
         case "usedirectproducer":
         case "useDirectProducer": return target.isUseDirectProducer();
         default: return null;
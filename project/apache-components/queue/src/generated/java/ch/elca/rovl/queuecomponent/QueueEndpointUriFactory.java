@@ -21,11 +21,15 @@ public class QueueEndpointUriFactory extends org.apache.camel.support.component.
     private static final Set<String> SECRET_PROPERTY_NAMES;
     private static final Set<String> MULTI_VALUE_PREFIXES;
     static {
-        Set<String> props = new HashSet<>(6);
+        Set<String> props = new HashSet<>(10);
+        props.add("batchMaxBytes");
+        props.add("batchSize");
         props.add("bridgeErrorHandler");
+        props.add("codec");
         props.add("exceptionHandler");
         props.add("exchangePattern");
         props.add("lazyStartProducer");
+        props.add("lingerMs");
         props.add("name");
         props.add("useDirectProducer");
         PROPERTY_NAMES = Collections.unmodifiableSet(props);
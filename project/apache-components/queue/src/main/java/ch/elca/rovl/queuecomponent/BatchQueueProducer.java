@@ -0,0 +1,66 @@
+package ch.elca.rovl.queuecomponent;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.DefaultAsyncProducer;
+import ch.elca.rovl.queuecomponent.claimcheck.ClaimCheck;
+import ch.elca.rovl.queuecomponent.client.QueueClientFactory;
+import ch.elca.rovl.queuecomponent.client.send.BatchingQueueSenderClient;
+import ch.elca.rovl.queuecomponent.util.ExchangeCodec;
+import ch.elca.rovl.queuecomponent.util.TargetProvider;
+
+/**
+ * Queue producer that pushes Exchanges to the cloud queue in batches. Exchanges
+ * are completed once the batch they belong to has been sent.
+ */
+public class BatchQueueProducer extends DefaultAsyncProducer {
+
+    private final ScheduledExecutorService executor;
+    private final BatchingQueueSenderClient client;
+    private final ClaimCheck claimCheck;
+
+    public BatchQueueProducer(QueueEndpoint endpoint, String queueName, TargetProvider provider,
+            ExchangeCodec codec, ClaimCheck claimCheck) {
+        super(endpoint);
+        // thread flushing the batches
+        this.executor = endpoint.getCamelContext().getExecutorServiceManager()
+                .newSingleThreadScheduledExecutor(this, "QueueBatch-" + queueName);
+        // get client for the platform the queue is provisioned on
+        this.client = QueueClientFactory.createBatchingSenderClient(queueName, provider, codec, executor,
+                endpoint.getBatchSize(), endpoint.getBatchMaxBytes(), endpoint.getLingerMs());
+        this.claimCheck = claimCheck;
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        if (claimCheck == null)
+            return client.send(exchange, callback);
+
+        // offload large bodies, and send only their reference
+        Object body;
+        try {
+            body = claimCheck.offload(exchange);
+        } catch (IOException e) {
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+        if (body == null)
+            return client.send(exchange, callback);
+
+        return client.send(exchange, doneSync -> {
+            claimCheck.restore(exchange, body);
+            callback.done(doneSync);
+        });
+    }
+
+    @Override
+    public void doStop() {
+        client.stop();
+        getEndpoint().getCamelContext().getExecutorServiceManager().shutdown(executor);
+    }
+
+}
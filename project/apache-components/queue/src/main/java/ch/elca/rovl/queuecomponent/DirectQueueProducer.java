@@ -11,7 +11,8 @@ import org.apache.camel.support.DefaultProducer;
 public class DirectQueueProducer extends DefaultProducer {
 
     QueueEndpoint endpoint;
-    private DirectQueueConsumer consumer;
+    // resolved on the first exchange, then reused
+    private volatile DirectQueueConsumer consumer;
 
     public DirectQueueProducer(QueueEndpoint endpoint) {
         super(endpoint);
@@ -21,11 +22,15 @@ public class DirectQueueProducer extends DefaultProducer {
     @Override
     public void process(Exchange exchange) throws Exception {
         // get the corresponding consumer and let the consumer process the exchange
-        consumer = endpoint.getConsumer();
-        if (consumer == null) {
-            throw new IllegalStateException("Couldn't get the consumer");
+        DirectQueueConsumer c = consumer;
+        if (c == null) {
+            c = endpoint.getConsumer();
+            if (c == null) {
+                throw new IllegalStateException("Couldn't get the consumer");
+            }
+            consumer = c;
         }
-        consumer.getProcessor().process(exchange);
+        c.getProcessor().process(exchange);
     }
 
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package ch.elca.rovl.queuecomponent;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
@@ -19,7 +23,7 @@ import ch.elca.rovl.queuecomponent.util.TargetProvider;
 public class QueueComponent extends DefaultComponent {
 
 
-    Map<String, DirectQueueConsumer> consumers = new HashMap<>();
+    Map<String, CompletableFuture<DirectQueueConsumer>> consumers = new ConcurrentHashMap<>();
 
     public QueueComponent() {
     }
@@ -57,13 +61,10 @@ public class QueueComponent extends DefaultComponent {
      * @param consumer
      */
     public void addConsumer(String queueName, DirectQueueConsumer consumer) {
-        synchronized (consumers) {
-            if (consumers.putIfAbsent(queueName, consumer) != null) {
-                throw new IllegalArgumentException(String.format(
-                        "Cannot add a second consumer to the same endpoint for queue '%s'", queueName));
-            }
-
-            consumers.notifyAll();
+        // completing the future releases the producers waiting for the consumer
+        if (!consumerFuture(queueName).complete(consumer)) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot add a second consumer to the same endpoint for queue '%s'", queueName));
         }
     }
 
@@ -76,22 +77,27 @@ public class QueueComponent extends DefaultComponent {
      * @throws InterruptedException
      */
     public DirectQueueConsumer getConsumer(String queueName) throws InterruptedException {
-        synchronized (consumers) {
-            DirectQueueConsumer consumer = consumers.get(queueName);
-
-            if (consumer == null) {
-                // try a second time after a while
-                consumers.wait(1000);
-                consumer = consumers.get(queueName);
-
-                if (consumer == null) {
-                    throw new IllegalStateException(String.format(
-                            "Failed to retrieve direct consumer for queue '%s", queueName));
-                }
-            }
-
+        CompletableFuture<DirectQueueConsumer> future = consumerFuture(queueName);
+        DirectQueueConsumer consumer = future.getNow(null);
+        if (consumer != null)
             return consumer;
+
+        // consumer not started yet, wait for it for a while
+        try {
+            return future.get(1, TimeUnit.SECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            throw new IllegalStateException(String.format(
+                    "Failed to retrieve direct consumer for queue '%s'", queueName));
         }
     }
 
+    /**
+     * Returns the future completed with the consumer of the given queue, creating
+     * it if no consumer nor producer has asked for it yet.
+     */
+    private CompletableFuture<DirectQueueConsumer> consumerFuture(String queueName) {
+        CompletableFuture<DirectQueueConsumer> future = consumers.get(queueName);
+        return future != null ? future : consumers.computeIfAbsent(queueName, k -> new CompletableFuture<>());
+    }
+
 }
@@ -4,6 +4,11 @@ import org.apache.camel.Category;
 import org.apache.camel.Consumer;
 import org.apache.camel.Processor;
 import org.apache.camel.Producer;
+import ch.elca.rovl.queuecomponent.claimcheck.BlobStore;
+import ch.elca.rovl.queuecomponent.claimcheck.BlobStores;
+import ch.elca.rovl.queuecomponent.claimcheck.ClaimCheck;
+import ch.elca.rovl.queuecomponent.util.ExchangeCodec;
+import ch.elca.rovl.queuecomponent.util.ExchangeCodecs;
 import ch.elca.rovl.queuecomponent.util.PropertyResolver;
 import ch.elca.rovl.queuecomponent.util.TargetProvider;
 
@@ -27,6 +32,18 @@ public class QueueEndpoint extends DefaultEndpoint {
     @UriParam(defaultValue = "false", description = "Used by funciton handlers to use a direct-like component")
     boolean useDirectProducer;
 
+    @UriParam(label = "producer", defaultValue = "json", enums = "json,binary", description = "Codec used to encode the messages pushed to the queue")
+    private String codec = "json";
+
+    @UriParam(label = "producer", defaultValue = "1", description = "Max number of messages pushed to the queue with a single request. Batching is disabled with 1")
+    private int batchSize = 1;
+
+    @UriParam(label = "producer", defaultValue = "262144", description = "Max size in bytes of the messages pushed to the queue with a single request")
+    private long batchMaxBytes = 256 * 1024;
+
+    @UriParam(label = "producer", defaultValue = "20", description = "Max time in milliseconds a message waits for its batch to fill up")
+    private long lingerMs = 20;
+
     private QueueComponent component;
     private String queueName;
 
@@ -58,10 +75,34 @@ public class QueueEndpoint extends DefaultEndpoint {
             TargetProvider provider = PropertyResolver.getTargetProvider(
                     getCamelContext().getPropertiesComponent().resolveProperty(
                             providerProperty));
-            return new QueueProducer(this, queueName, provider);
+            ExchangeCodec exchangeCodec = ExchangeCodecs.forName(codec);
+            ClaimCheck claimCheck = resolveClaimCheck();
+            if (batchSize > 1) {
+                return new BatchQueueProducer(this, queueName, provider, exchangeCodec, claimCheck);
+            }
+            return new QueueProducer(this, queueName, provider, exchangeCodec, claimCheck);
         }
     }
 
+    /**
+     * Loads the claim-check configuration of the queue from the property
+     * "queue.&lt;name&gt;.claimCheckThreshold". Returns null if claim-check is not
+     * enabled for the queue.
+     */
+    private ClaimCheck resolveClaimCheck() {
+        String thresholdProperty = String.format("queue.%s.claimCheckThreshold", queueName);
+        Long threshold = PropertyResolver.getLong(
+                getCamelContext().getPropertiesComponent().resolveProperty(thresholdProperty))
+                .orElse(null);
+        if (threshold == null)
+            return null;
+
+        BlobStore store = BlobStores.forQueue(queueName);
+        if (store == null)
+            throw new IllegalStateException("Could not load claim-check store of queue " + queueName);
+        return new ClaimCheck(store, threshold);
+    }
+
     /**
      * Creates a queue consumer. The consumer works locally, receives events from
      * the function handler and makes them available in the Camle route.
@@ -85,6 +126,38 @@ public class QueueEndpoint extends DefaultEndpoint {
         return this.useDirectProducer;
     }
 
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+
+    public void setBatchMaxBytes(long batchMaxBytes) {
+        this.batchMaxBytes = batchMaxBytes;
+    }
+
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public void setLingerMs(long lingerMs) {
+        this.lingerMs = lingerMs;
+    }
+
     /**
      * Some description of this option, and what it does
      */
@@ -3,8 +3,11 @@ package ch.elca.rovl.queuecomponent;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
 import org.apache.camel.support.DefaultProducer;
+import ch.elca.rovl.queuecomponent.claimcheck.ClaimCheck;
 import ch.elca.rovl.queuecomponent.client.QueueClientFactory;
 import ch.elca.rovl.queuecomponent.client.send.QueueSenderClient;
+import ch.elca.rovl.queuecomponent.util.ExchangeCodec;
+import ch.elca.rovl.queuecomponent.util.ExchangeCodecs;
 import ch.elca.rovl.queuecomponent.util.TargetProvider;
 
 /**
@@ -13,16 +16,39 @@ import ch.elca.rovl.queuecomponent.util.TargetProvider;
 public class QueueProducer extends DefaultProducer {
     
     private final QueueSenderClient client;
+    private final ClaimCheck claimCheck;
 
     public QueueProducer(Endpoint endpoint, String queueName, TargetProvider provider) {
+        this(endpoint, queueName, provider, ExchangeCodecs.JSON, null);
+    }
+
+    public QueueProducer(Endpoint endpoint, String queueName, TargetProvider provider, ExchangeCodec codec,
+            ClaimCheck claimCheck) {
         super(endpoint);
         // get client for the platform the queue is provisioned on
-        this.client = QueueClientFactory.createSenderClient(queueName, provider);
+        this.client = QueueClientFactory.createSenderClient(queueName, provider, codec);
+        this.claimCheck = claimCheck;
     }
 
     @Override
     public void process(Exchange exchange) throws Exception {
-        client.send(exchange);
+        if (claimCheck == null) {
+            client.send(exchange);
+            return;
+        }
+
+        // offload large bodies, and send only their reference
+        Object body = claimCheck.offload(exchange);
+        try {
+            client.send(exchange);
+        } catch (Exception e) {
+            // let restore delete the blob of the message that was not sent
+            exchange.setException(e);
+            throw e;
+        } finally {
+            if (body != null)
+                claimCheck.restore(exchange, body);
+        }
     }
 
 }
@@ -0,0 +1,63 @@
+package ch.elca.rovl.queuecomponent.claimcheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.azure.core.exception.AzureException;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobContainerClientBuilder;
+
+/**
+ * Blob store keeping blobs in a container of an Azure storage account.
+ */
+public class AzureBlobStore implements BlobStore {
+
+    private static final String SCHEME = "azblob://";
+
+    private final BlobContainerClient client;
+    private final String container;
+
+    public AzureBlobStore(String connString, String container) {
+        this.container = container;
+        this.client = new BlobContainerClientBuilder()
+            .connectionString(connString)
+            .containerName(container)
+            .buildClient();
+    }
+
+    @Override
+    public String put(String key, InputStream data, long length) throws IOException {
+        try {
+            client.getBlobClient(key).upload(data, length, true);
+        } catch (AzureException e) {
+            throw new IOException("Failed to store claim-check blob in container " + container, e);
+        }
+        return SCHEME + container + "/" + key;
+    }
+
+    @Override
+    public InputStream get(String reference) throws IOException {
+        try {
+            return client.getBlobClient(keyOf(reference)).openInputStream();
+        } catch (AzureException e) {
+            throw new IOException("Failed to load claim-check blob " + reference, e);
+        }
+    }
+
+    @Override
+    public void delete(String reference) throws IOException {
+        try {
+            client.getBlobClient(keyOf(reference)).deleteIfExists();
+        } catch (AzureException e) {
+            throw new IOException("Failed to delete claim-check blob " + reference, e);
+        }
+    }
+
+    private String keyOf(String reference) {
+        String prefix = SCHEME + container + "/";
+        if (!reference.startsWith(prefix))
+            throw new IllegalArgumentException("Not a blob reference of container " + container + ": " + reference);
+        return reference.substring(prefix.length());
+    }
+
+}
@@ -0,0 +1,39 @@
+package ch.elca.rovl.queuecomponent.claimcheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Store holding the bodies of queue messages offloaded with the claim-check
+ * pattern. Only the reference returned by the store travels in the message.
+ */
+public interface BlobStore {
+
+    /**
+     * Stores the given data under the given key.
+     *
+     * @param key    unique key of the blob
+     * @param data   stream of the data to store, read until its end
+     * @param length number of bytes of the data
+     * @return reference to the stored blob
+     * @throws IOException
+     */
+    public String put(String key, InputStream data, long length) throws IOException;
+
+    /**
+     * Opens a stream over the blob with the given reference.
+     *
+     * @param reference reference returned when the blob was stored
+     * @return stream of the blob data
+     * @throws IOException
+     */
+    public InputStream get(String reference) throws IOException;
+
+    /**
+     * Deletes the blob with the given reference, if it exists.
+     *
+     * @param reference reference returned when the blob was stored
+     * @throws IOException
+     */
+    public void delete(String reference) throws IOException;
+}
@@ -0,0 +1,63 @@
+package ch.elca.rovl.queuecomponent.claimcheck;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the blob store used for the claim-check messages of a queue.
+ * <p>
+ * The store is configured through environment variables:
+ * <ul>
+ * <li>CLAIM_CHECK_DIR_&lt;queue&gt;: directory of a local file store</li>
+ * <li>CLAIM_CHECK_BUCKET_&lt;queue&gt;: AWS S3 bucket</li>
+ * <li>CLAIM_CHECK_CONN_STRING_&lt;queue&gt; and
+ * CLAIM_CHECK_CONTAINER_&lt;queue&gt;: Azure storage account and blob
+ * container</li>
+ * </ul>
+ * Stores are created once per queue and shared.
+ */
+public final class BlobStores {
+
+    private static final Map<String, Optional<BlobStore>> STORES = new ConcurrentHashMap<>();
+
+    private BlobStores() {
+    }
+
+    /**
+     * Returns the blob store of the given queue, or null if the queue has no
+     * claim-check store configured.
+     */
+    public static BlobStore forQueue(String queueName) {
+        return STORES.computeIfAbsent(queueName, BlobStores::create).orElse(null);
+    }
+
+    private static Optional<BlobStore> create(String queueName) {
+        String dir = System.getenv("CLAIM_CHECK_DIR_" + queueName);
+        if (dir != null) {
+            try {
+                return Optional.of(new FileBlobStore(Path.of(dir)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create claim-check directory " + dir, e);
+            }
+        }
+
+        String bucket = System.getenv("CLAIM_CHECK_BUCKET_" + queueName);
+        if (bucket != null)
+            return Optional.of(new S3BlobStore(bucket));
+
+        String connString = System.getenv("CLAIM_CHECK_CONN_STRING_" + queueName);
+        if (connString != null) {
+            String container = System.getenv("CLAIM_CHECK_CONTAINER_" + queueName);
+            if (container == null)
+                throw new IllegalStateException("Could not load claim-check container of queue " + queueName);
+            return Optional.of(new AzureBlobStore(connString, container));
+        }
+
+        return Optional.empty();
+    }
+
+}
@@ -0,0 +1,226 @@
+package ch.elca.rovl.queuecomponent.claimcheck;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.elca.rovl.queuecomponent.util.ExchangeBodies;
+import ch.elca.rovl.queuecomponent.util.SpillBuffer;
+
+/**
+ * Claim-check support for queue messages.
+ * <p>
+ * On the sending side, bodies larger than the threshold of the queue are moved
+ * to the blob store of the queue, and only a reference to the blob travels in
+ * the message, in the {@link #HEADER} header. On the receiving side, the body
+ * is replaced by a stream that loads the blob only when it is first read.
+ */
+public class ClaimCheck {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClaimCheck.class);
+
+    /**
+     * Header containing the reference to the offloaded body.
+     */
+    public static final String HEADER = "RovlClaimCheck";
+
+    /**
+     * Exchange property keeping the reference of a rehydrated body until it is
+     * released.
+     */
+    public static final String PROPERTY = "RovlClaimCheckReference";
+
+    private final BlobStore store;
+    private final long threshold;
+
+    public ClaimCheck(BlobStore store, long threshold) {
+        this.store = store;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Moves the body of the Exchange to the blob store if it exceeds the
+     * threshold, and replaces it with a reference to the blob.
+     *
+     * @param exchange exchange to be pushed to the queue
+     * @return the original body, to be restored with
+     *         {@link #restore(Exchange, Object)} once the message has been sent,
+     *         or null if the body was not offloaded
+     * @throws IOException
+     */
+    public Object offload(Exchange exchange) throws IOException {
+        // a reference received with the exchange does not belong to this message
+        exchange.getIn().removeHeader(HEADER);
+
+        Object body = exchange.getIn().getBody();
+        if (body == null)
+            return null;
+
+        if (body instanceof InputStream) {
+            // the size of a stream is only known once read
+            SpillBuffer buffer = new SpillBuffer();
+            try {
+                ExchangeBodies.writeTo(body, buffer);
+                buffer.close();
+                if (buffer.size() <= threshold) {
+                    exchange.getIn().setBody(buffer.toBody());
+                    return null;
+                }
+                if (buffer.isInMemory()) {
+                    byte[] data = buffer.toByteArray();
+                    return replace(exchange, data, store(new ByteArrayInputStream(data), data.length));
+                }
+                String reference;
+                try (InputStream in = Files.newInputStream(buffer.getFile())) {
+                    reference = store(in, buffer.size());
+                }
+                return replace(exchange, buffer.toInputStream(), reference);
+            } catch (IOException e) {
+                buffer.release();
+                throw e;
+            }
+        }
+
+        byte[] data;
+        if (ExchangeBodies.isBinary(body)) {
+            if (ExchangeBodies.length(body) <= threshold)
+                return null;
+            data = ExchangeBodies.toByteArray(body);
+        } else {
+            String str = exchange.getIn().getBody(String.class);
+            // an UTF-8 char takes at most 3 bytes, avoid encoding small bodies
+            if (str == null || (long) str.length() * 3 <= threshold)
+                return null;
+            data = str.getBytes(StandardCharsets.UTF_8);
+            if (data.length <= threshold)
+                return null;
+        }
+        return replace(exchange, body, store(new ByteArrayInputStream(data), data.length));
+    }
+
+    /**
+     * Restores the body replaced by {@link #offload(Exchange)}. If the message
+     * could not be sent, the blob is deleted.
+     *
+     * @param exchange exchange pushed to the queue
+     * @param body     original body returned by {@link #offload(Exchange)}
+     */
+    public void restore(Exchange exchange, Object body) {
+        String reference = exchange.getIn().getHeader(HEADER, String.class);
+        exchange.getIn().removeHeader(HEADER);
+        exchange.getIn().setBody(body);
+
+        if (exchange.getException() != null && reference != null)
+            delete(store, reference);
+    }
+
+    private String store(InputStream data, long length) throws IOException {
+        String reference = store.put(UUID.randomUUID().toString(), data, length);
+        LOG.info(String.format("Offloaded body of %d bytes to %s", length, reference));
+        return reference;
+    }
+
+    private static Object replace(Exchange exchange, Object originalBody, String reference) {
+        exchange.getIn().setHeader(HEADER, reference);
+        exchange.getIn().setBody("");
+        return originalBody;
+    }
+
+    /**
+     * Replaces the claim-check reference of a received Exchange, if any, with a
+     * stream that loads the offloaded body from the blob store of the queue when
+     * it is first read. The header is removed, so that it is not forwarded to
+     * other queues, and the reference is kept in the {@link #PROPERTY} property
+     * for {@link #release(Exchange, String)}.
+     *
+     * @param exchange  exchange received from the queue
+     * @param queueName name of the queue
+     */
+    public static void rehydrate(Exchange exchange, String queueName) {
+        String reference = exchange.getIn().getHeader(HEADER, String.class);
+        if (reference == null)
+            return;
+        exchange.getIn().removeHeader(HEADER);
+
+        BlobStore store = BlobStores.forQueue(queueName);
+        if (store == null)
+            throw new IllegalStateException("Could not load claim-check store of queue " + queueName);
+        exchange.setProperty(PROPERTY, reference);
+        exchange.getIn().setBody(new LazyBlobInputStream(store, reference));
+    }
+
+    /**
+     * Deletes the offloaded body of a received Exchange, if any, once it has been
+     * processed successfully. Failed messages keep their blob, so that they can be
+     * delivered again.
+     *
+     * @param exchange  exchange received from the queue
+     * @param queueName name of the queue
+     */
+    public static void release(Exchange exchange, String queueName) {
+        String reference = exchange.getProperty(PROPERTY, String.class);
+        if (reference == null || exchange.isFailed())
+            return;
+
+        BlobStore store = BlobStores.forQueue(queueName);
+        if (store != null)
+            delete(store, reference);
+    }
+
+    private static void delete(BlobStore store, String reference) {
+        try {
+            store.delete(reference);
+        } catch (IOException e) {
+            LOG.warn("Failed to delete claim-check blob " + reference, e);
+        }
+    }
+
+    /**
+     * Stream over a blob, opened on first read.
+     */
+    static class LazyBlobInputStream extends InputStream {
+        private final BlobStore store;
+        private final String reference;
+        private InputStream in;
+
+        LazyBlobInputStream(BlobStore store, String reference) {
+            this.store = store;
+            this.reference = reference;
+        }
+
+        private InputStream stream() throws IOException {
+            if (in == null)
+                in = store.get(reference);
+            return in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return stream().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return stream().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in == null ? 0 : in.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null)
+                in.close();
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package ch.elca.rovl.queuecomponent.claimcheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Blob store keeping blobs as files in a local directory. Used to run and test
+ * functions locally.
+ */
+public class FileBlobStore implements BlobStore {
+
+    private static final String SCHEME = "file:";
+
+    private final Path dir;
+
+    public FileBlobStore(Path dir) throws IOException {
+        this.dir = Files.createDirectories(dir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String put(String key, InputStream data, long length) throws IOException {
+        Path file = resolveKey(key);
+        Files.copy(data, file, StandardCopyOption.REPLACE_EXISTING);
+        return SCHEME + key;
+    }
+
+    @Override
+    public InputStream get(String reference) throws IOException {
+        return Files.newInputStream(resolve(reference));
+    }
+
+    @Override
+    public void delete(String reference) throws IOException {
+        Files.deleteIfExists(resolve(reference));
+    }
+
+    private Path resolve(String reference) {
+        if (!reference.startsWith(SCHEME))
+            throw new IllegalArgumentException("Not a file blob reference: " + reference);
+        return resolveKey(reference.substring(SCHEME.length()));
+    }
+
+    // references come from messages, keys must not escape the directory
+    private Path resolveKey(String key) {
+        Path file = dir.resolve(key).normalize();
+        if (!file.startsWith(dir) || file.equals(dir))
+            throw new IllegalArgumentException("Blob key outside of the store directory: " + key);
+        return file;
+    }
+
+}
@@ -0,0 +1,70 @@
+package ch.elca.rovl.queuecomponent.claimcheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+
+/**
+ * Blob store keeping blobs in an AWS S3 bucket.
+ * <p>
+ * NOTE supports buckets only in region EU_CENTRAL_1, like the SQS client
+ */
+public class S3BlobStore implements BlobStore {
+
+    private static final String SCHEME = "s3://";
+
+    private final AmazonS3 client;
+    private final String bucket;
+
+    public S3BlobStore(String bucket) {
+        this.bucket = bucket;
+        this.client = AmazonS3ClientBuilder
+            .standard()
+            .withRegion(Regions.EU_CENTRAL_1)
+            .build();
+    }
+
+    @Override
+    public String put(String key, InputStream data, long length) throws IOException {
+        // the length lets the client stream the data instead of buffering it
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(length);
+        try {
+            client.putObject(bucket, key, data, metadata);
+        } catch (AmazonClientException e) {
+            throw new IOException("Failed to store claim-check blob in bucket " + bucket, e);
+        }
+        return SCHEME + bucket + "/" + key;
+    }
+
+    @Override
+    public InputStream get(String reference) throws IOException {
+        try {
+            return client.getObject(bucket, keyOf(reference)).getObjectContent();
+        } catch (AmazonClientException e) {
+            throw new IOException("Failed to load claim-check blob " + reference, e);
+        }
+    }
+
+    @Override
+    public void delete(String reference) throws IOException {
+        try {
+            client.deleteObject(bucket, keyOf(reference));
+        } catch (AmazonClientException e) {
+            throw new IOException("Failed to delete claim-check blob " + reference, e);
+        }
+    }
+
+    private String keyOf(String reference) {
+        String prefix = SCHEME + bucket + "/";
+        if (!reference.startsWith(prefix))
+            throw new IllegalArgumentException("Not a blob reference of bucket " + bucket + ": " + reference);
+        return reference.substring(prefix.length());
+    }
+
+}
@@ -1,8 +1,14 @@
 package ch.elca.rovl.queuecomponent.client;
 
+import java.util.concurrent.ScheduledExecutorService;
+
 import ch.elca.rovl.queuecomponent.client.send.AWSQueueSenderClient;
 import ch.elca.rovl.queuecomponent.client.send.AzureQueueSenderClient;
+import ch.elca.rovl.queuecomponent.client.send.BatchQueueSenderClient;
+import ch.elca.rovl.queuecomponent.client.send.BatchingQueueSenderClient;
 import ch.elca.rovl.queuecomponent.client.send.QueueSenderClient;
+import ch.elca.rovl.queuecomponent.util.ExchangeCodec;
+import ch.elca.rovl.queuecomponent.util.ExchangeCodecs;
 import ch.elca.rovl.queuecomponent.util.TargetProvider;
 
 /**
@@ -11,14 +17,40 @@ import ch.elca.rovl.queuecomponent.util.TargetProvider;
 public class QueueClientFactory {
 
     public static QueueSenderClient createSenderClient(String queueName, TargetProvider provider) {
+        return createSenderClient(queueName, provider, ExchangeCodecs.JSON);
+    }
+
+    public static QueueSenderClient createSenderClient(String queueName, TargetProvider provider,
+            ExchangeCodec codec) {
+        switch (provider) {
+            case AZURE:
+                return new AzureQueueSenderClient(queueName, codec);
+            case AWS:
+                return new AWSQueueSenderClient(queueName, codec);
+            default:
+                throw new IllegalArgumentException("Unsupported provider!");
+        }
+    }
+
+    /**
+     * Returns a client accumulating messages and pushing them in batches to the
+     * queue on the given provider.
+     */
+    public static BatchingQueueSenderClient createBatchingSenderClient(String queueName,
+            TargetProvider provider, ExchangeCodec codec, ScheduledExecutorService executor,
+            int batchSize, long batchMaxBytes, long lingerMs) {
+        BatchQueueSenderClient client;
         switch (provider) {
             case AZURE:
-                return new AzureQueueSenderClient(queueName);
+                client = new AzureQueueSenderClient(queueName, codec);
+                break;
             case AWS:
-                return new AWSQueueSenderClient(queueName);
+                client = new AWSQueueSenderClient(queueName, codec);
+                break;
             default:
                 throw new IllegalArgumentException("Unsupported provider!");
         }
+        return new BatchingQueueSenderClient(client, executor, batchSize, batchMaxBytes, lingerMs);
     }
 
-}
\ No newline at end of file
+}
@@ -1,32 +1,60 @@
 package ch.elca.rovl.queuecomponent.client.send;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.camel.Exchange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.AmazonSQSClientBuilder;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
 
-import ch.elca.rovl.queuecomponent.util.ExchangeSerializer;
+import ch.elca.rovl.queuecomponent.util.ExchangeCodec;
+import ch.elca.rovl.queuecomponent.util.ExchangeCodecs;
 
 /**
  * Client used to push messages to a queue provisioned on AWS SQS.
  * <p>
+ * SQS messages only carry text, so data of binary codecs is base64 encoded. The
+ * content type of the codec is sent as message attribute.
+ * <p>
  * NOTE supports queues only in region EU_CENTRAL_1
  * TODO get region from properties or env var, or extract from queue url
  */
-public class AWSQueueSenderClient implements QueueSenderClient {
+public class AWSQueueSenderClient implements BatchQueueSenderClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(AWSQueueSenderClient.class);
 
+    // limits of a single SendMessageBatch request
+    private static final int MAX_BATCH_ENTRIES = 10;
+    private static final int MAX_BATCH_BYTES = 256 * 1024;
+
+    // message attribute with the content type of the encoded exchange
+    public static final String CONTENT_TYPE_ATTRIBUTE = "contentType";
+
     private final AmazonSQS client;
     private final String queueUrl;
+    private final ExchangeCodec codec;
+    private final Map<String, MessageAttributeValue> attributes;
 
     public AWSQueueSenderClient(String queueName) {
+        this(queueName, ExchangeCodecs.JSON);
+    }
+
+    public AWSQueueSenderClient(String queueName, ExchangeCodec codec) {
         // init client
         this.client = AmazonSQSClientBuilder
             .standard()
@@ -38,16 +66,27 @@ public class AWSQueueSenderClient implements QueueSenderClient {
         if (this.queueUrl == null) {
             throw new IllegalStateException("Could not load url of queue " + queueName);
         }
+
+        this.codec = codec;
+        this.attributes = Map.of(CONTENT_TYPE_ATTRIBUTE, new MessageAttributeValue()
+            .withDataType("String")
+            .withStringValue(codec.getContentType()));
+    }
+
+    @Override
+    public ExchangeCodec getCodec() {
+        return codec;
     }
 
     @Override
     public void send(Exchange exchange) {
-        // serialize exchange
-        String jsonedExchange;
+        // encode exchange
+        String encodedExchange;
         try {
-            jsonedExchange = ExchangeSerializer.serialize(exchange);
+            encodedExchange = ExchangeCodecs.encodeText(codec, exchange);
         } catch (IOException e) {
-            LOG.error("Failed to create JSON for Exchange! Dropping message", e);
+            LOG.error("Failed to encode Exchange! Dropping message", e);
+            exchange.setException(e);
             return;
         }
 
@@ -55,11 +94,55 @@ public class AWSQueueSenderClient implements QueueSenderClient {
         LOG.info("Sending SQS message.");
         SendMessageRequest msg = new SendMessageRequest()
             .withQueueUrl(queueUrl)
-            .withMessageBody(jsonedExchange);
+            .withMessageBody(encodedExchange)
+            .withMessageAttributes(attributes);
         client.sendMessage(msg);
         LOG.info("Message sent.");
     }
 
+    @Override
+    public List<Exception> sendBatch(List<byte[]> messages) {
+        List<Exception> failures = new ArrayList<>(Collections.nCopies(messages.size(), null));
+
+        int start = 0;
+        while (start < messages.size()) {
+            // fill a request up to the max number of entries or the max payload size
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+            int bytes = 0;
+            int end = start;
+            while (end < messages.size() && entries.size() < MAX_BATCH_ENTRIES) {
+                String body = ExchangeCodecs.toText(codec, messages.get(end));
+                int size = body.getBytes(StandardCharsets.UTF_8).length;
+                if (!entries.isEmpty() && bytes + size > MAX_BATCH_BYTES)
+                    break;
+                // the entry id is the index of the message, to map failures back
+                entries.add(new SendMessageBatchRequestEntry(String.valueOf(end), body)
+                    .withMessageAttributes(attributes));
+                bytes += size;
+                end++;
+            }
+
+            // send batch to AWS SQS queue
+            LOG.info(String.format("Sending batch of %d SQS messages.", entries.size()));
+            try {
+                SendMessageBatchResult result = client.sendMessageBatch(
+                        new SendMessageBatchRequest(queueUrl, entries));
+                for (BatchResultErrorEntry error : result.getFailed()) {
+                    failures.set(Integer.parseInt(error.getId()), new RuntimeException(String.format(
+                            "SQS rejected message: [%s] %s", error.getCode(), error.getMessage())));
+                }
+            } catch (AmazonClientException e) {
+                LOG.error("Failed to send SQS message batch.", e);
+                for (int i = start; i < end; i++) {
+                    failures.set(i, e);
+                }
+            }
+            start = end;
+        }
+
+        return failures;
+    }
+
     @Override
     public void stop() {
         client.shutdown();
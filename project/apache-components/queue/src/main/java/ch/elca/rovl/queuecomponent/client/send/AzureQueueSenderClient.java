@@ -1,6 +1,10 @@
 package ch.elca.rovl.queuecomponent.client.send;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.camel.Exchange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,20 +12,33 @@ import org.slf4j.LoggerFactory;
 import com.azure.core.amqp.AmqpTransportType;
 import com.azure.messaging.servicebus.ServiceBusClientBuilder;
 import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusMessageBatch;
 import com.azure.messaging.servicebus.ServiceBusSenderClient;
-import ch.elca.rovl.queuecomponent.util.ExchangeSerializer;
+import ch.elca.rovl.queuecomponent.util.ExchangeCodec;
+import ch.elca.rovl.queuecomponent.util.ExchangeCodecs;
 
 /**
  * Client used to push messages to a queue provisioned on Azure Service Bus.
+ * <p>
+ * Service Bus messages carry bytes, so encoded Exchanges are sent as they are,
+ * without base64 encoding the data of binary codecs. The content type of the
+ * codec is set on the message.
  */
-public class AzureQueueSenderClient implements QueueSenderClient {
+public class AzureQueueSenderClient implements BatchQueueSenderClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(AzureQueueSenderClient.class);
 
     private final String connString;
     private final ServiceBusSenderClient senderClient;
+    private final ExchangeCodec codec;
 
     public AzureQueueSenderClient(String queueName) {
+        this(queueName, ExchangeCodecs.JSON);
+    }
+
+    public AzureQueueSenderClient(String queueName, ExchangeCodec codec) {
+        this.codec = codec;
+
         // get connection string for the Service Bus queue 
         this.connString = System.getenv("CONN_STRING_" + queueName);
         if (this.connString == null) {
@@ -39,22 +56,68 @@ public class AzureQueueSenderClient implements QueueSenderClient {
 
     @Override
     public void send(Exchange exchange) {
-        // serialize exchange
-        String jsonedExchange;
+        // encode exchange
+        byte[] encodedExchange;
         try {
-            jsonedExchange = ExchangeSerializer.serialize(exchange);
+            encodedExchange = codec.encode(exchange);
         } catch (IOException e) {
-            LOG.error("Failed to create JSON for Exchange! Dropping message", e);
+            LOG.error("Failed to encode Exchange! Dropping message", e);
+            exchange.setException(e);
             return;
         }
 
         // send message to Service Bus queue
         LOG.info("Sending Service Bus message.");
-        ServiceBusMessage msg = new ServiceBusMessage(jsonedExchange);
+        ServiceBusMessage msg = new ServiceBusMessage(encodedExchange)
+            .setContentType(codec.getContentType());
         senderClient.sendMessage(msg);
         LOG.info("Message sent.");
     }
 
+    @Override
+    public ExchangeCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public List<Exception> sendBatch(List<byte[]> messages) {
+        List<Exception> failures = new ArrayList<>(Collections.nCopies(messages.size(), null));
+
+        int start = 0;
+        while (start < messages.size()) {
+            // fill a batch until it reaches the max size allowed by Service Bus
+            ServiceBusMessageBatch batch = senderClient.createMessageBatch();
+            int end = start;
+            while (end < messages.size() && batch.tryAddMessage(
+                    new ServiceBusMessage(messages.get(end))
+                        .setContentType(codec.getContentType()))) {
+                end++;
+            }
+
+            if (end == start) {
+                // the message does not fit in an empty batch
+                failures.set(start, new IllegalArgumentException(
+                        "Message exceeds the max size of a Service Bus batch."));
+                start++;
+                continue;
+            }
+
+            // send batch to Service Bus queue
+            LOG.info(String.format("Sending batch of %d Service Bus messages.", batch.getCount()));
+            try {
+                senderClient.sendMessages(batch);
+            } catch (RuntimeException e) {
+                LOG.error("Failed to send Service Bus message batch.", e);
+                for (int i = start; i < end; i++) {
+                    failures.set(i, e);
+                }
+            }
+            start = end;
+        }
+
+        return failures;
+    }
+
     @Override
     public void stop() {
         senderClient.close();
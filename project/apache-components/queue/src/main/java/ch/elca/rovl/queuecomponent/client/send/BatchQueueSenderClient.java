@@ -0,0 +1,26 @@
+package ch.elca.rovl.queuecomponent.client.send;
+
+import java.util.List;
+
+import ch.elca.rovl.queuecomponent.util.ExchangeCodec;
+
+/**
+ * Queue client able to push several messages to the cloud queue with a single
+ * request.
+ */
+public interface BatchQueueSenderClient extends QueueSenderClient {
+    /**
+     * Returns the codec used to encode the messages sent by this client.
+     */
+    public ExchangeCodec getCodec();
+
+    /**
+     * Pushes the given encoded messages to the cloud queue, using as few
+     * requests as the platform allows.
+     *
+     * @param messages messages encoded with the codec of this client
+     * @return for each message, the error that prevented it from being sent, or
+     *         null if it was sent successfully
+     */
+    public List<Exception> sendBatch(List<byte[]> messages);
+}
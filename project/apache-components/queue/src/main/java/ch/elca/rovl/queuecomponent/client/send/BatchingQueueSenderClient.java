@@ -0,0 +1,191 @@
+package ch.elca.rovl.queuecomponent.client.send;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queue client that accumulates Exchanges and pushes them to the cloud queue in
+ * batches.
+ * <p>
+ * A batch is flushed when it holds the configured number of messages or bytes,
+ * or when its oldest message waited for the configured linger time. Failures of
+ * single entries are set on the Exchange they originate from.
+ */
+public class BatchingQueueSenderClient implements QueueSenderClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchingQueueSenderClient.class);
+
+    private final BatchQueueSenderClient delegate;
+    private final ScheduledExecutorService executor;
+    private final int batchSize;
+    private final long batchMaxBytes;
+    private final long lingerMs;
+
+    // messages waiting for the next flush
+    private final List<PendingMessage> pending = new ArrayList<>();
+    private long pendingBytes = 0;
+    private ScheduledFuture<?> lingerTask;
+
+    public BatchingQueueSenderClient(BatchQueueSenderClient delegate, ScheduledExecutorService executor,
+            int batchSize, long batchMaxBytes, long lingerMs) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.batchMaxBytes = batchMaxBytes;
+        this.lingerMs = lingerMs;
+    }
+
+    /**
+     * Adds the given Exchange to the current batch, and notifies the callback once
+     * the batch has been sent.
+     *
+     * @param exchange exchange
+     * @param callback callback to notify on completion
+     * @return true if the exchange was completed synchronously
+     */
+    public boolean send(Exchange exchange, AsyncCallback callback) {
+        // encode exchange
+        byte[] encodedExchange;
+        try {
+            encodedExchange = delegate.getCodec().encode(exchange);
+        } catch (IOException e) {
+            LOG.error("Failed to encode Exchange! Dropping message", e);
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        PendingMessage msg = new PendingMessage(exchange, encodedExchange, callback);
+        synchronized (this) {
+            pending.add(msg);
+            pendingBytes += msg.data.length;
+
+            if (pending.size() >= batchSize || pendingBytes >= batchMaxBytes) {
+                executor.execute(this::flush);
+            } else if (lingerTask == null) {
+                lingerTask = executor.schedule(this::flush, lingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the given Exchange to the current batch and waits until the batch has
+     * been sent.
+     */
+    @Override
+    public void send(Exchange exchange) {
+        CountDownLatch sent = new CountDownLatch(1);
+        send(exchange, doneSync -> sent.countDown());
+        try {
+            sent.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.setException(e);
+        }
+    }
+
+    /**
+     * Sends the oldest pending messages, at most one batch. Messages added while
+     * the batch is taken are left for the next flush.
+     *
+     * @return whether messages are still pending
+     */
+    private boolean flush() {
+        List<PendingMessage> batch;
+        boolean remaining;
+        synchronized (this) {
+            if (lingerTask != null) {
+                lingerTask.cancel(false);
+                lingerTask = null;
+            }
+            if (pending.isEmpty())
+                return false;
+            List<PendingMessage> head = pending.subList(0, Math.min(batchSize, pending.size()));
+            batch = new ArrayList<>(head);
+            head.clear();
+            for (PendingMessage msg : batch) {
+                pendingBytes -= msg.data.length;
+            }
+
+            // schedule the next flush for the messages left
+            remaining = !pending.isEmpty();
+            if (pending.size() >= batchSize || pendingBytes >= batchMaxBytes) {
+                executor.execute(this::flush);
+            } else if (remaining) {
+                lingerTask = executor.schedule(this::flush, lingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        List<byte[]> messages = new ArrayList<>(batch.size());
+        for (PendingMessage msg : batch) {
+            messages.add(msg.data);
+        }
+
+        List<Exception> failures;
+        try {
+            failures = delegate.sendBatch(messages);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to send batch of " + batch.size() + " messages.", e);
+            failures = Collections.nCopies(batch.size(), e);
+        }
+
+        // map results back to the originating exchanges
+        int failed = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMessage msg = batch.get(i);
+            Exception failure = failures.get(i);
+            if (failure != null) {
+                msg.exchange.setException(failure);
+                failed++;
+            }
+            msg.callback.done(false);
+        }
+        LOG.info(String.format("Batch of %d messages sent, %d failed.", batch.size(), failed));
+        return remaining;
+    }
+
+    /**
+     * Sends the pending messages and stops the client.
+     */
+    @Override
+    public void stop() {
+        try {
+            // a flush sends at most one batch
+            boolean remaining;
+            do {
+                remaining = executor.submit(this::flush).get();
+            } while (remaining);
+        } catch (Exception e) {
+            LOG.warn("Failed to flush pending messages at shutdown!", e);
+        }
+        delegate.stop();
+    }
+
+    /**
+     * Utility data structure to contain a message waiting to be sent
+     */
+    static class PendingMessage {
+        final Exchange exchange;
+        final byte[] data;
+        final AsyncCallback callback;
+
+        PendingMessage(Exchange exchange, byte[] data, AsyncCallback callback) {
+            this.exchange = exchange;
+            this.data = data;
+            this.callback = callback;
+        }
+    }
+
+}
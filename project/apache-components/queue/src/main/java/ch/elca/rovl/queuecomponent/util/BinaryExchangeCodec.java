@@ -0,0 +1,291 @@
+package ch.elca.rovl.queuecomponent.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.apache.camel.Exchange;
+
+/**
+ * Codec encoding Exchanges in a compact binary format.
+ * <p>
+ * The data starts with a magic number and a format version, followed by the
+ * properties, the headers and the body of the Exchange. Maps are encoded as a
+ * count followed by key/value pairs, strings and byte arrays are length
+ * prefixed, and values carry a type tag so that numbers, booleans and byte
+ * arrays keep their type. Values of other types are sent as strings.
+ * <p>
+ * Binary bodies are written to the stream as they are read: byte arrays and
+ * ByteBuffers with their length, InputStreams as a sequence of length prefixed
+ * chunks. On decoding, bodies larger than the {@link SpillBuffer} threshold are
+ * moved to a temporary file and set on the Exchange as an InputStream.
+ */
+public class BinaryExchangeCodec implements ExchangeCodec {
+
+    public static final String NAME = "binary";
+    public static final String CONTENT_TYPE = "application/vnd.rovl.exchange";
+
+    static final byte MAGIC_0 = 'R';
+    static final byte MAGIC_1 = 'X';
+    static final byte VERSION = 1;
+
+    // value type tags
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BYTES = 6;
+    private static final byte STREAM = 7;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    // max length of the strings and byte arrays read into memory
+    private static final int MAX_VALUE_LENGTH = 256 * 1024 * 1024;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public boolean isText() {
+        return false;
+    }
+
+    /**
+     * Whether the given data starts with the magic number of this format.
+     */
+    public static boolean matches(byte[] data) {
+        return data.length > 2 && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    @Override
+    public void encode(Exchange e, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+
+        out.writeByte(MAGIC_0);
+        out.writeByte(MAGIC_1);
+        out.writeByte(VERSION);
+
+        writeMap(out, e.getProperties());
+        writeMap(out, e.getIn().getHeaders());
+
+        // keep binary bodies as they are, convert anything else to string
+        Object body = e.getIn().getBody();
+        if (body instanceof InputStream) {
+            writeStream(out, (InputStream) body);
+        } else if (ExchangeBodies.isBinary(body)) {
+            out.writeByte(BYTES);
+            writeVarInt(out, (int) ExchangeBodies.length(body));
+            ExchangeBodies.writeTo(body, out);
+        } else {
+            String str = e.getIn().getBody(String.class);
+            writeValue(out, str == null ? "" : str);
+        }
+
+        out.flush();
+    }
+
+    @Override
+    public void decode(Exchange ex, InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        byte[] header = new byte[3];
+        if (in.readNBytes(header, 0, 3) < 3 || !matches(header))
+            throw new IOException("Data is not a binary encoded Exchange.");
+        if (header[2] != VERSION)
+            throw new IOException("Unsupported binary Exchange format version " + header[2]);
+
+        int count = readLength(in, Integer.MAX_VALUE);
+        for (int i = 0; i < count; i++) {
+            ex.setProperty(readString(in), readValue(in));
+        }
+        count = readLength(in, Integer.MAX_VALUE);
+        for (int i = 0; i < count; i++) {
+            ex.getIn().setHeader(readString(in), readValue(in));
+        }
+        ex.getIn().setBody(readBody(in));
+    }
+
+    /**
+     * Writes a stream body as chunks, so that its length does not need to be known
+     * in advance. The stream is closed.
+     */
+    private static void writeStream(DataOutputStream out, InputStream body) throws IOException {
+        out.writeByte(STREAM);
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try (InputStream in = body) {
+            int read;
+            while ((read = in.readNBytes(chunk, 0, chunk.length)) > 0) {
+                writeVarInt(out, read);
+                out.write(chunk, 0, read);
+            }
+        }
+        writeVarInt(out, 0);
+    }
+
+    /**
+     * Reads the body, moving binary bodies larger than the spill threshold to a
+     * temporary file.
+     */
+    private static Object readBody(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        if (type == BYTES) {
+            int length = readLength(in, Integer.MAX_VALUE);
+            if (length <= SpillBuffer.DEFAULT_THRESHOLD) {
+                byte[] b = new byte[length];
+                in.readFully(b);
+                return b;
+            }
+            SpillBuffer buffer = new SpillBuffer();
+            copy(in, buffer, length);
+            buffer.close();
+            return buffer.toBody();
+        } else if (type == STREAM) {
+            SpillBuffer buffer = new SpillBuffer();
+            int length;
+            while ((length = readLength(in, Integer.MAX_VALUE)) > 0) {
+                copy(in, buffer, length);
+            }
+            buffer.close();
+            return buffer.toBody();
+        }
+        return readValue(in, type);
+    }
+
+    private static void copy(DataInputStream in, OutputStream out, int length) throws IOException {
+        byte[] chunk = new byte[Math.min(length, CHUNK_SIZE)];
+        int remaining = length;
+        while (remaining > 0) {
+            int read = Math.min(remaining, chunk.length);
+            in.readFully(chunk, 0, read);
+            out.write(chunk, 0, read);
+            remaining -= read;
+        }
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, Object> map) throws IOException {
+        if (map == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof byte[]) {
+            byte[] b = (byte[]) value;
+            out.writeByte(BYTES);
+            writeVarInt(out, b.length);
+            out.write(b);
+        } else {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        return readValue(in, in.readByte());
+    }
+
+    private static Object readValue(DataInputStream in, byte type) throws IOException {
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case BYTES:
+                return readBytes(in);
+            default:
+                throw new IOException("Unknown value type " + type + " in binary Exchange.");
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] b = str.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = readLength(in, MAX_VALUE_LENGTH);
+        // the array grows as data is read, a corrupt length does not allocate it upfront
+        byte[] b = in.readNBytes(length);
+        if (b.length < length)
+            throw new EOFException("Truncated value in binary Exchange.");
+        return b;
+    }
+
+    /**
+     * Reads a length or count, rejecting negative values and values above max.
+     */
+    private static int readLength(DataInputStream in, int max) throws IOException {
+        int length = readVarInt(in);
+        if (length < 0 || length > max)
+            throw new IOException("Invalid length " + length + " in binary Exchange.");
+        return length;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed length in binary Exchange.");
+    }
+
+}
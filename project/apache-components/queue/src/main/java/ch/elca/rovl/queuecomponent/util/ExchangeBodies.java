@@ -0,0 +1,91 @@
+package ch.elca.rovl.queuecomponent.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+/**
+ * Utility methods to handle binary Exchange bodies without converting them to
+ * strings.
+ * <p>
+ * Supported binary bodies are byte arrays, ByteBuffers and InputStreams. Bodies
+ * of any other type are converted to strings by the codecs.
+ */
+public final class ExchangeBodies {
+
+    private ExchangeBodies() {
+    }
+
+    /**
+     * Whether the given body is binary.
+     */
+    public static boolean isBinary(Object body) {
+        return body instanceof byte[] || body instanceof ByteBuffer || body instanceof InputStream;
+    }
+
+    /**
+     * Returns the number of bytes of the given binary body, or -1 if it is only
+     * known once the body has been read.
+     */
+    public static long length(Object body) {
+        if (body instanceof byte[])
+            return ((byte[]) body).length;
+        if (body instanceof ByteBuffer)
+            return ((ByteBuffer) body).remaining();
+        return -1;
+    }
+
+    /**
+     * Writes the given binary body to the stream, without intermediate copies for
+     * arrays and heap buffers. Streams are consumed and closed, buffers are left
+     * untouched.
+     */
+    public static void writeTo(Object body, OutputStream out) throws IOException {
+        if (body instanceof byte[]) {
+            out.write((byte[]) body);
+        } else if (body instanceof ByteBuffer) {
+            ByteBuffer buf = (ByteBuffer) body;
+            if (buf.hasArray()) {
+                out.write(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+            } else {
+                Channels.newChannel(out).write(buf.duplicate());
+            }
+        } else if (body instanceof InputStream) {
+            try (InputStream in = (InputStream) body) {
+                in.transferTo(out);
+            }
+        } else {
+            throw new IllegalArgumentException("Body of type " + body.getClass().getName() + " is not binary.");
+        }
+    }
+
+    /**
+     * Returns the given binary body as a byte array, without copying arrays.
+     */
+    public static byte[] toByteArray(Object body) throws IOException {
+        if (body instanceof byte[])
+            return (byte[]) body;
+        if (body instanceof ByteBuffer) {
+            ByteBuffer buf = (ByteBuffer) body;
+            if (buf.hasArray() && buf.arrayOffset() == 0 && buf.position() == 0
+                    && buf.remaining() == buf.array().length)
+                return buf.array();
+            if (buf.hasArray())
+                return Arrays.copyOfRange(buf.array(), buf.arrayOffset() + buf.position(),
+                        buf.arrayOffset() + buf.limit());
+            byte[] b = new byte[buf.remaining()];
+            buf.duplicate().get(b);
+            return b;
+        }
+        if (body instanceof InputStream) {
+            try (InputStream in = (InputStream) body) {
+                return in.readAllBytes();
+            }
+        }
+        throw new IllegalArgumentException("Body of type " + body.getClass().getName() + " is not binary.");
+    }
+
+}
@@ -0,0 +1,77 @@
+package ch.elca.rovl.queuecomponent.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.camel.Exchange;
+
+/**
+ * Wire format used to carry Exchanges between functions.
+ * <p>
+ * Codecs are registered in {@link ExchangeCodecs}, selected by name on the
+ * sending side and identified by their content type on the receiving side.
+ */
+public interface ExchangeCodec {
+
+    /**
+     * Name used to select the codec in the endpoint configuration.
+     */
+    public String getName();
+
+    /**
+     * Content type identifying data encoded with this codec.
+     */
+    public String getContentType();
+
+    /**
+     * Whether the encoded data is text, and can be sent as is on transports that
+     * only accept strings.
+     */
+    public boolean isText();
+
+    /**
+     * Encodes the headers, properties and body of the given Exchange into the
+     * given stream. Binary bodies are written to the stream as they are read.
+     *
+     * @param e   exchange
+     * @param out stream the encoded exchange is written to
+     * @throws IOException
+     */
+    public void encode(Exchange e, OutputStream out) throws IOException;
+
+    /**
+     * Decodes the data read from the given stream into the given Exchange.
+     *
+     * @param ex Exchange to be filled with the encoded data
+     * @param in stream of the encoded exchange
+     * @throws IOException
+     */
+    public void decode(Exchange ex, InputStream in) throws IOException;
+
+    /**
+     * Encodes the headers, properties and body of the given Exchange.
+     *
+     * @param e exchange
+     * @return the encoded exchange
+     * @throws IOException
+     */
+    public default byte[] encode(Exchange e) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        encode(e, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes the given data into the given Exchange.
+     *
+     * @param ex   Exchange to be filled with the encoded data
+     * @param data encoded exchange
+     * @throws IOException
+     */
+    public default void decode(Exchange ex, byte[] data) throws IOException {
+        decode(ex, new ByteArrayInputStream(data));
+    }
+}
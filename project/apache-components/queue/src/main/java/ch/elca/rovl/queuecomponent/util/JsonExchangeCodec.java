@@ -0,0 +1,44 @@
+package ch.elca.rovl.queuecomponent.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.camel.Exchange;
+
+/**
+ * Codec encoding Exchanges as the JSON envelope produced by
+ * {@link ExchangeSerializer}. It is the default codec, understood by all
+ * function handlers.
+ */
+public class JsonExchangeCodec implements ExchangeCodec {
+
+    public static final String NAME = "json";
+    public static final String CONTENT_TYPE = "application/json";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public boolean isText() {
+        return true;
+    }
+
+    @Override
+    public void encode(Exchange e, OutputStream out) throws IOException {
+        ExchangeSerializer.serialize(e, out);
+    }
+
+    @Override
+    public void decode(Exchange ex, InputStream in) throws IOException {
+        ExchangeSerializer.deserializeExchange(ex, in);
+    }
+
+}
@@ -27,4 +27,17 @@ public class PropertyResolver {
             return null;
         }
     }
+
+    public static Optional<Long> getLong(Optional<String> prop) {
+        if (prop.isPresent()) {
+            try {
+                return Optional.of(Long.parseLong(prop.get().trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(
+                        "PropertyResolver: Expected integer value but got '" + prop.get() + "'");
+            }
+        } else {
+            return Optional.empty();
+        }
+    }
 }
\ No newline at end of file
@@ -13,8 +13,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ch.elca.rovl.dsl.PlatformResourcesDefinition;
 import ch.elca.rovl.dsl.pipeline.debugging.DebuggingEngine;
+import ch.elca.rovl.dsl.pipeline.deployment.BuildCache;
 import ch.elca.rovl.dsl.pipeline.deployment.DeploymentEngine;
 import ch.elca.rovl.dsl.pipeline.deployment.accessinfo.function.FunctionAccess;
+import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedDatabase;
 import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedFunction;
 import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedResource;
 import ch.elca.rovl.dsl.pipeline.infraparsing.InfraParsingEngine;
@@ -23,9 +25,12 @@ import ch.elca.rovl.dsl.pipeline.infraparsing.resource.DslFunction;
 import ch.elca.rovl.dsl.pipeline.infraparsing.resource.DslQueue;
 import ch.elca.rovl.dsl.pipeline.linking.LinkerEngine;
 import ch.elca.rovl.dsl.pipeline.linking.resource.LinkedResource;
+import ch.elca.rovl.dsl.pipeline.templating.TemplatingConstants;
 import ch.elca.rovl.dsl.pipeline.templating.TemplatingEngine;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableResource;
+import ch.elca.rovl.dsl.pipeline.tuning.TuningEngine;
 import ch.elca.rovl.dsl.pipeline.util.Constants;
+import ch.elca.rovl.dsl.pipeline.util.RequiredData;
 import ch.elca.rovl.dsl.pipeline.util.ResourceType;
 import ch.elca.rovl.dsl.pipeline.util.RunTarget;
 
@@ -80,6 +85,9 @@ public class PipelineEngine {
             } else if (args[0].equals("-deploy")) {
                 LOG.info("Exec for deployment.");
                 mode = RunTarget.DEPLOY;
+            } else if (args[0].equals("-tune")) {
+                LOG.info("Exec for deployment and memory tuning.");
+                mode = RunTarget.TUNE;
             } else {
                 LOG.error(String.format("Parameter '%s' is not recognized.", args[0]));
                 return;
@@ -120,7 +128,8 @@ public class PipelineEngine {
         LinkerEngine le = runActionAndCatch(
                 () -> new LinkerEngine(Constants.PROVIDERS_FILENAME, ipe.getFunctions(),
                         ipe.getQueues(), ipe.getDatabases()),
-                Map.of(URISyntaxException.class, "Failed to create linker engine."));
+                Map.of(URISyntaxException.class, "Failed to create linker engine.",
+                        IOException.class, "Failed to create linker engine."));
 
         runActionAndCatch(() -> {
             le.matchToProvider(mode == RunTarget.DEBUG);
@@ -132,7 +141,8 @@ public class PipelineEngine {
         runActionAndCatch(() -> {
             le.deduceLinks();
             return null;
-        }, Map.of(IOException.class, "Failed to deduce links!"));
+        }, Map.of(IOException.class, "Failed to deduce links!",
+                IllegalStateException.class, "Failed to deduce links!"));
 
         LOG.info("Linking resources together...");
         Map<String, LinkedResource> linkedResources = le.linkResources();
@@ -189,32 +199,11 @@ public class PipelineEngine {
         DeploymentEngine de = runActionAndCatch(() -> new DeploymentEngine(deployableResources),
                 Map.of(IOException.class, "Failed to parse memory file"));
 
-        runActionAndCatch(() -> {
-            de.deployDatabases();
-            return null;
-        }, Map.of(IOException.class, "Failed to deploy databases!", URISyntaxException.class,
-                "Failed to deploy databases!", InterruptedException.class,
-                "Failed to deploy databases!"));
-
-        runActionAndCatch(() -> {
-            de.deployQueues();
-            return null;
-        }, Map.of(IOException.class, "Failed to deploy queues!", URISyntaxException.class,
-                "Failed to deploy queues!"));
-
-        runActionAndCatch(() -> {
-            de.deployFunctions();
-            return null;
-        }, Map.of(InterruptedException.class, "Failed to deploy functions!", IOException.class,
-                "Failed to deploy functions!", URISyntaxException.class,
-                "Failed to deploy functions!"));
-
-        LOG.info("Configuring resources...");
         Map<ResourceType, List<DeployedResource>> finalResources = runActionAndCatch(
-                () -> de.configureDeployedResources(),
-                Map.of(InterruptedException.class, "Failed to configure deployed resources!",
-                        IOException.class, "Failed to configure deployed resources!",
-                        URISyntaxException.class, "Failed to configure deployed resources!"));
+                () -> de.deploy(),
+                Map.of(InterruptedException.class, "Failed to deploy resources!",
+                        IllegalStateException.class, "Failed to deploy resources!",
+                        IOException.class, "Failed to deploy resources!"));
 
         LOG.info("");
         LOG.info("###");
@@ -228,6 +217,14 @@ public class PipelineEngine {
                 for (DeployedResource dr : resources) {
                     LOG.info(String.format("\t\t- %s (cloud resource name: %s)", dr.getName(),
                             dr.getCloudName()));
+                    if (!dr.getReadinessWait().isZero()) {
+                        LOG.info(String.format("\t\t\twaited for readiness: %.1fs",
+                                dr.getReadinessWait().toMillis() / 1000.0));
+                    }
+                    if (type == ResourceType.DATABASE) {
+                        logDatabaseConnections((DeployedDatabase) dr,
+                                finalResources.get(ResourceType.FUNCTION));
+                    }
                     if (type == ResourceType.FUNCTION) {
                         DeployedFunction dfn = (DeployedFunction) dr;
                         if (dfn.getFunction().getFunction().getTrigger() != null) {
@@ -240,6 +237,20 @@ public class PipelineEngine {
                 }
             }
         }
+
+        BuildCache buildCache = de.getBuildCache();
+        LOG.info(String.format("Build cache: %d hit(s), %d miss(es).", buildCache.getHits(),
+                buildCache.getMisses()));
+
+        /* TUNING STEP */
+
+        if (mode == RunTarget.TUNE) {
+            LOG.info("Measuring functions at several memory sizes...");
+            runActionAndCatch(() -> {
+                new TuningEngine(finalResources.get(ResourceType.FUNCTION)).run();
+                return null;
+            }, Map.of(IOException.class, "Failed to tune functions!"));
+        }
     }
 
     /**
@@ -282,6 +293,36 @@ public class PipelineEngine {
         }
     }
 
+    /**
+     * Logs how functions connect to the given database, and how many connections each of their
+     * instances may open.
+     */
+    private static void logDatabaseConnections(DeployedDatabase db, List<DeployedResource> functions) {
+        int connectedFunctions = 0;
+        for (DeployedResource fn : functions) {
+            for (RequiredData rd : ((DeployedFunction) fn).getRequiredData()) {
+                if (rd.getType() == RequiredData.Type.DATABASE_CONNECTION
+                        && rd.getResourceName().equals(db.getName())) {
+                    connectedFunctions++;
+                    break;
+                }
+            }
+        }
+
+        int poolSize = TemplatingConstants.DATABASE_POOL_SIZE;
+        if (db.getProxyEndpoint() != null) {
+            poolSize = TemplatingConstants.DATABASE_PROXY_POOL_SIZE;
+            LOG.info(String.format("\t\t\tconnection proxy: %s:%d", db.getProxyEndpoint(),
+                    db.getProxyPort()));
+        }
+        if (!db.getReplicaEndpoints().isEmpty())
+            LOG.info(String.format("\t\t\tread replicas: %d", db.getReplicaEndpoints().size()));
+        LOG.info(String.format(
+                "\t\t\tconnections: %d function(s), up to %d connection(s) per function instance%s",
+                connectedFunctions, poolSize,
+                db.getReplicaEndpoints().isEmpty() ? "" : " and replica"));
+    }
+
     private static void printElapsedTime(Instant start, String msg) {
         long totalSeconds = Instant.now().getEpochSecond() - start.getEpochSecond();
         long minutes = totalSeconds / 60 % 60;
@@ -173,6 +173,7 @@ public final class DebuggingEngine {
 
                 if (insideGeneratedBlock && (line.contains("function.name") ||
                         line.contains("function.trigger") ||
+                        line.startsWith("database.") ||
                         line.contains("quarkus.datasource") ||
                         line.contains("# GENERATED - DO NOT EDIT") ||
                         line.contains("# END GENERATED"))) {
@@ -207,17 +208,15 @@ public final class DebuggingEngine {
             if (fn.hasDatabaseOutput()) {
                 for (LinkedResource lr : fn.getOutput()) {
                     if (lr instanceof LinkedDatabase) {
-                        String kind = String.format("quarkus.datasource.%s.db-kind=postgresql", lr.getName());
-                        String username = String.format("quarkus.datasource.%s.username=quarkus", lr.getName());
-                        String password = String.format("quarkus.datasource.%s.password=quarkus", lr.getName());
                         String url = String.format(
-                                "quarkus.datasource.%s.jdbc.url=jdbc:postgresql://localhost:%d/quarkus", lr.getName(),
+                                "database.%s.url=jdbc:postgresql://localhost:%d/quarkus", lr.getName(),
                                 ports.get(lr.getName()));
+                        String username = String.format("database.%s.username=quarkus", lr.getName());
+                        String password = String.format("database.%s.password=quarkus", lr.getName());
 
-                        modifiedContent.add(kind);
+                        modifiedContent.add(url);
                         modifiedContent.add(username);
                         modifiedContent.add(password);
-                        modifiedContent.add(url);
                     }
                 }
             }
@@ -0,0 +1,184 @@
+package ch.elca.rovl.dsl.pipeline.deployment;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.elca.rovl.dsl.pipeline.templating.TemplatingConstants;
+import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableFunction;
+import ch.elca.rovl.dsl.pipeline.util.Constants;
+
+/**
+ * Keeps track of the content of the function projects that have been deployed, so that functions
+ * whose generated project did not change since the last deployment are not built and uploaded
+ * again. Hashes are written to a file that is read each time the pipeline is run.
+ */
+public final class BuildCache {
+
+    static final Logger LOG = LoggerFactory.getLogger("Deployment");
+
+    static final String BUILD_OUTPUT_DIR = "target";
+    static final String PARENT_POM = "../" + TemplatingConstants.POM_NAME;
+
+    final Map<String, String> deployedHashes;
+    final Map<String, String> previousHashes;
+    final File cacheFile;
+    final AtomicInteger hits;
+    final AtomicInteger misses;
+
+    /**
+     * Constructor.
+     *
+     * @throws IOException
+     */
+    BuildCache() throws IOException {
+        this.deployedHashes = new ConcurrentHashMap<>();
+        this.previousHashes = new ConcurrentHashMap<>();
+        this.cacheFile = new File(Constants.BUILD_CACHE_FILE);
+        this.hits = new AtomicInteger();
+        this.misses = new AtomicInteger();
+
+        if (cacheFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(cacheFile))) {
+                for (String line; (line = reader.readLine()) != null;) {
+                    String[] vals = line.split("=");
+                    if (vals.length != 2) {
+                        LOG.info(String.format("Skipping malformed build cache entry: '%s'", line));
+                    } else {
+                        previousHashes.put(vals[0], vals[1]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the hash of the generated project of the given function: its sources, pom,
+     * application properties and parent pom, together with the cloud resource it is deployed to.
+     * Build outputs are ignored.
+     *
+     * @param function
+     * @return hex-encoded hash of the project
+     * @throws IOException
+     */
+    public String hash(DeployableFunction function) throws IOException {
+        Path root = Path.of(function.getGeneratedPath());
+
+        // sort files so that the hash does not depend on the order of the file system
+        Map<String, Path> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path p : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                Path relative = root.relativize(p);
+                if (!relative.startsWith(BUILD_OUTPUT_DIR))
+                    files.put(relative.toString().replace(File.separatorChar, '/'), p);
+            }
+        }
+        Path parentPom = root.resolve(PARENT_POM).normalize();
+        if (Files.isRegularFile(parentPom))
+            files.put(PARENT_POM, parentPom);
+
+        MessageDigest digest = newDigest();
+        update(digest, function.getProvider() + ":" + function.getCloudName());
+        byte[] buffer = new byte[8192];
+        for (Map.Entry<String, Path> file : files.entrySet()) {
+            update(digest, file.getKey());
+            try (InputStream in = Files.newInputStream(file.getValue())) {
+                for (int n; (n = in.read(buffer)) != -1;) {
+                    digest.update(buffer, 0, n);
+                }
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Tells whether the build of the given function can be skipped, that is when its project has
+     * the same hash as the one of its last deployment and the function still exists in the cloud.
+     *
+     * @param function
+     * @param hash hash of the project, as returned by {@link #hash(DeployableFunction)}
+     * @param stillDeployed checks whether the function still exists in the cloud
+     * @return true if the function does not need to be built and uploaded again
+     */
+    public boolean isUpToDate(DeployableFunction function, String hash, BooleanSupplier stillDeployed) {
+        if (hash.equals(previousHashes.get(function.getName())) && stillDeployed.getAsBoolean()) {
+            hits.incrementAndGet();
+            LOG.info(String.format("%s: project unchanged, skipping build.", function.getName()));
+            return true;
+        }
+
+        // the deployed code is about to change, forget its hash until the deployment succeeds
+        previousHashes.remove(function.getName());
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Registers the hash of a function that was successfully deployed.
+     *
+     * @param function
+     * @param hash
+     */
+    public void deployed(DeployableFunction function, String hash) {
+        deployedHashes.put(function.getName(), hash);
+    }
+
+    /**
+     * Writes the hashes to the cache file. Functions that were not deployed in this run keep the
+     * hash of their last deployment.
+     *
+     * @throws IOException
+     */
+    synchronized void save() throws IOException {
+        Map<String, String> entries = new TreeMap<>(previousHashes);
+        entries.putAll(deployedHashes);
+
+        List<String> lines = entries.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.toList());
+        FileUtils.writeLines(cacheFile, StandardCharsets.UTF_8.name(), lines);
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // separator, so that consecutive entries cannot be confused
+        digest.update((byte) 0);
+    }
+
+}
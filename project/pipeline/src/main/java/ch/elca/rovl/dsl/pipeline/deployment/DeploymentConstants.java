@@ -12,9 +12,14 @@ public class DeploymentConstants {
     public static final String AZURE_NAMESPACE_SEND_SAS = "SendAccessKey";
     public static final String AZURE_NAMESPACE_RECV_SAS = "ListenAccessKey";
     public static final String AZURE_FUNCTION_URL_FORMAT = "https://%s/api/%s";
+    public static final String AZURE_CLAIM_CHECK_ACCOUNT = "dslengineclaimcheck";
+    public static final int AZURE_CONSUMPTION_MEMORY_MB = 1536;
+    public static final int AZURE_PGBOUNCER_PORT = 6432;
 
     public static final String AWS_SQS_SEND_POLICY_PREFIX = "dslengine-sqs-send-";
     public static final String AWS_SQS_RECV_POLICY_PREFIX = "dslengine-sqs-listen-";
+    public static final String AWS_S3_CLAIM_CHECK_POLICY_PREFIX = "dslengine-s3-claimcheck-";
+    public static final String AWS_CLAIM_CHECK_BUCKET_PREFIX = "agnostic-serverless-claimcheck-";
     public static final String AWS_LAMBDA_ROLE_POSTFIX = "-generated-role";
     public static final String AWS_REST_API_PREFIX = "rest-api-";
     public static final String AWS_REST_URL_FORMAT = "https://%s.execute-api.%s.amazonaws.com/%s";
@@ -29,5 +34,17 @@ public class DeploymentConstants {
     public static final String AWS_DB_SUBNET_ONE_CIDR = "10.180.0.64/28";
     public static final String AWS_DB_SUBNET_TWO_CIDR = "10.180.0.80/28";
     public static final String AWS_LAMBDA_VPC_POLICY = "LambdaJoinVpcPolicy";
+    public static final String AWS_DB_SECRET_PREFIX = "dslengine-db-credentials-";
+    public static final String AWS_DB_PROXY_ROLE_PREFIX = "dslengine-rds-proxy-";
+    public static final String AWS_DB_PROXY_SECRET_POLICY_PREFIX = "dslengine-rds-proxy-secret-";
+    public static final int AWS_DB_PROXY_MAX_CONNECTIONS_PERCENT = 90;
     public static final int AWS_LAMBDA_TIMEOUT = 20;
+    public static final int AWS_LAMBDA_MEMORY_MB = 128;
+    public static final String AWS_LAMBDA_ALIAS = "live";
+    public static final int AWS_SQS_BATCH_SIZE = 10;
+    public static final int AWS_SQS_BATCH_WINDOW_SECONDS = 0;
+    public static final String AWS_LAMBDA_APPCDS_OPTIONS =
+            "-XX:SharedArchiveFile=/var/task/app-cds.jsa -Xshare:auto";
+
+    public static final int MAX_CONCURRENT_DEPLOYMENTS_PER_PROVIDER = 4;
 }
@@ -2,19 +2,18 @@ package ch.elca.rovl.dsl.pipeline.deployment;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ch.elca.rovl.dsl.pipeline.deployment.helper.DeploymentHelper;
 import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedDatabase;
 import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedFunction;
 import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedQueue;
@@ -23,6 +22,7 @@ import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableDatabase;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableFunction;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableQueue;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableResource;
+import ch.elca.rovl.dsl.pipeline.util.Provider;
 import ch.elca.rovl.dsl.pipeline.util.RequiredData;
 import ch.elca.rovl.dsl.pipeline.util.ResourceType;
 
@@ -37,8 +37,8 @@ public final class DeploymentEngine {
     final List<DeployableFunction> functions;
     final List<DeployableDatabase> databases;
     final Map<String, DeployedResource> deployedMap;
-    final List<DeployedFunction> needsData;
     final DeploymentHelperFactory helperFactory;
+    final BuildCache buildCache;
 
     /**
      * Constructor.
@@ -50,9 +50,9 @@ public final class DeploymentEngine {
         this.queues = new ArrayList<>();
         this.functions = new ArrayList<>();
         this.databases = new ArrayList<>();
-        this.helperFactory = new DeploymentHelperFactory();
-        this.deployedMap = new HashMap<>();
-        this.needsData = new ArrayList<>();
+        this.buildCache = new BuildCache();
+        this.helperFactory = new DeploymentHelperFactory(buildCache);
+        this.deployedMap = new ConcurrentHashMap<>();
 
         // sort resources
         for (DeployableResource dr : deployableResources) {
@@ -68,141 +68,81 @@ public final class DeploymentEngine {
         }
     }
 
-    // TODO optimization:  deploy databases, rest APIs and queue in parallel
     /**
-     * Provisions servers and deploys databases to their target providers. Retrieves access perms
-     * for each database.
+     * Deploys all resources to their target providers and configures the functions with the data
+     * needed to access their linked resources.
+     * <p>
+     * Resources are deployed concurrently, with a limited number of concurrent deployments per
+     * provider. The functions of each provider are built together before being deployed. A
+     * function is configured as soon as the function itself and the resources it requires data
+     * from are deployed. If any deployment fails, the remaining ones are skipped and the whole
+     * deployment fails.
+     * <p>
+     * Functions whose generated project did not change since their last successful deployment
+     * are not built and uploaded again.
      * 
-     * @throws IOException
-     * @throws URISyntaxException
+     * @return map of deployed and configured resources
      * @throws InterruptedException
+     * @throws IOException
      */
-    public void deployDatabases() throws IOException, URISyntaxException, InterruptedException {
-        if (!databases.isEmpty()) {
+    public Map<ResourceType, List<DeployedResource>> deploy() throws InterruptedException, IOException {
+        DeploymentScheduler scheduler =
+                new DeploymentScheduler(DeploymentConstants.MAX_CONCURRENT_DEPLOYMENTS_PER_PROVIDER);
+
+        if (!databases.isEmpty())
             LOG.info("Provisioning databases, this might take a while...");
-            for (DeployableDatabase db : databases) {
-                //LOG.info(String.format("Deploying database %s...", db.toString()));
+
+        for (DeployableDatabase db : databases) {
+            scheduler.addTask(deployTaskId(db), db.getProvider(), () -> {
                 DeployedDatabase ddb = helperFactory.getHelper(db.getProvider()).deploy(db);
                 deployedMap.put(db.getName(), ddb);
-            }
-            LOG.info("Databases succesfully provisioned.");
-        } else {
-            LOG.info("No database to provision.");
+            }, List.of());
         }
-    }
 
-    /**
-     * Deploys queues to their target providers. Retrieves send and listen perms for each queue.
-     * 
-     * @throws IOException
-     * @throws URISyntaxException
-     */
-    public void deployQueues() throws IOException, URISyntaxException {
-        if (!queues.isEmpty()) {
-            LOG.info("Provisioning queues...");
-            for (DeployableQueue q : queues) {
-                //LOG.info(String.format("Deploying queue %s...", q.toString()));
+        for (DeployableQueue q : queues) {
+            scheduler.addTask(deployTaskId(q), q.getProvider(), () -> {
                 DeployedQueue dq = helperFactory.getHelper(q.getProvider()).deploy(q);
                 deployedMap.put(q.getName(), dq);
-            }
-            LOG.info("Queues succesfully provisioned.");
-        } else {
-            LOG.info("No queue to provision.");
+            }, List.of());
         }
-    }
 
-    /**
-     * Deploys functions to their target providers. Retrieves functions url of http-triggerable
-     * functions and generates JWT tokens for authorization of infra-provider communication.
-     * 
-     * @throws InterruptedException
-     * @throws IOException
-     * @throws URISyntaxException
-     */
-    public void deployFunctions() throws InterruptedException, IOException, URISyntaxException {
-        if (!functions.isEmpty()) {
-            LOG.info("Deploying functions...");
-        
-            List<DeployedFunction> deployedFunctions = Collections.synchronizedList(new ArrayList<>());
-            ExecutorService executor = Executors.newCachedThreadPool();
-
-            Map<Future<?>, DeployableFunction> deploymentTasks = new HashMap<>();
-
-            for (DeployableFunction fn : functions) {
-                DeploymentHelper dh = helperFactory.getHelper(fn.getProvider());
-
-                deploymentTasks.put(executor.submit(() -> {
-                    DeployedFunction dfn;
-                    try {
-                        dfn = dh.deploy(fn);
-                    } catch (InterruptedException e) {
-                        LOG.error(String.format("Deployment of function '%s' failed!", fn.getName()));
-                        e.printStackTrace();
-                        return;
-                    }
-                    deployedFunctions.add(dfn);
-                }), fn);
-            }
-
-            boolean deploymentHasFailed = false;
-
-            // wait until all tasks are done
-            for (Future<?> res : deploymentTasks.keySet()) {
-                try {
-                    res.get();
-                } catch (ExecutionException e) {
-                    deploymentHasFailed = true;
-                    LOG.error(String.format("Deployment failed for function %s",
-                            deploymentTasks.get(res).getName()), e);
-                }
-            }
-
-            executor.shutdown();
-
-            if (deploymentHasFailed) {
-                throw new IllegalStateException("Deployment of some functions failed.");
-            }
+        // the functions of a provider are built together, before being deployed
+        Map<Provider, List<DeployableFunction>> functionsByProvider = new EnumMap<>(Provider.class);
+        for (DeployableFunction fn : functions) {
+            functionsByProvider.computeIfAbsent(fn.getProvider(), p -> new ArrayList<>()).add(fn);
+        }
+        for (Map.Entry<Provider, List<DeployableFunction>> entry : functionsByProvider.entrySet()) {
+            scheduler.addTask(buildTaskId(entry.getKey()), entry.getKey(),
+                    () -> helperFactory.getHelper(entry.getKey()).buildFunctions(entry.getValue()),
+                    List.of());
+        }
 
-            for (DeployedFunction dfn : deployedFunctions) {
+        for (DeployableFunction fn : functions) {
+            scheduler.addTask(deployTaskId(fn), fn.getProvider(), () -> {
+                DeployedFunction dfn = helperFactory.getHelper(fn.getProvider()).deploy(fn);
                 deployedMap.put(dfn.getName(), dfn);
-
-                if (dfn.requiresData()) {
-                    needsData.add(dfn);
-                }
-            }
-
-            LOG.info("Functions succesfully deployed.");
-        } else {
-            LOG.info("No function to deploy.");
+            }, List.of(buildTaskId(fn.getProvider())));
         }
-    }
-
-    /**
-     * For all resources that needs additional configuration, it gathers the necessary data and
-     * update the cloud resource configuration.
-     * 
-     * @return map of deployed and configured resources
-     * @throws InterruptedException
-     * @throws IOException
-     * @throws URISyntaxException
-     */
-    public Map<ResourceType, List<DeployedResource>> configureDeployedResources()
-            throws InterruptedException, IOException, URISyntaxException {
-        for (DeployedFunction fn : needsData) {
-            UpdateInfo updateInfo = new UpdateInfo();
 
-            for (RequiredData rd : fn.getRequiredData()) {
-                updateInfo.addInfo(rd.getType(), deployedMap.get(rd.getResourceName()));
-            }
+        for (DeployableFunction fn : functions) {
+            scheduler.addTask("configure " + fn.getName(), fn.getProvider(),
+                    () -> configureFunction(fn), configurationDependencies(fn));
+        }
 
-            if (updateInfo.hasEntries()) {
-                helperFactory.getHelper(fn.getProvider()).configureFunction(fn, updateInfo);
+        try {
+            scheduler.run();
+        } finally {
+            Map<String, Duration> waitTimes = helperFactory.getReadinessWaitTimes();
+            for (DeployedResource dr : deployedMap.values()) {
+                Duration wait = waitTimes.get(dr.getCloudName());
+                if (wait != null)
+                    dr.setReadinessWait(wait);
             }
-
+            helperFactory.close();
+            // keep the hashes of the functions that were deployed, even if others failed
+            buildCache.save();
         }
 
-        helperFactory.close();
-
         Map<ResourceType, List<DeployedResource>> finalResources = new HashMap<>();
         for (ResourceType type : ResourceType.values()) {
             finalResources.put(type, new ArrayList<>());
@@ -225,5 +165,72 @@ public final class DeploymentEngine {
         return finalResources;
     }
 
+    /**
+     * Returns the cache used to skip the build of unchanged functions.
+     */
+    public BuildCache getBuildCache() {
+        return buildCache;
+    }
+
+    /**
+     * Gathers the data needed by a deployed function and updates its configuration.
+     * 
+     * @param fn function to configure
+     * @throws InterruptedException
+     * @throws IOException
+     * @throws URISyntaxException
+     */
+    private void configureFunction(DeployableFunction fn)
+            throws InterruptedException, IOException, URISyntaxException {
+        DeployedFunction dfn = (DeployedFunction) deployedMap.get(fn.getName());
+        if (!dfn.requiresData())
+            return;
+
+        UpdateInfo updateInfo = new UpdateInfo();
+        for (RequiredData rd : dfn.getRequiredData()) {
+            DeployedResource resource = deployedMap.get(rd.getResourceName());
+            if (resource == null)
+                throw new IllegalStateException(String.format(
+                        "Resource '%s' required by function '%s' is not deployed.",
+                        rd.getResourceName(), fn.getName()));
+            updateInfo.addInfo(rd.getType(), resource);
+        }
+
+        if (updateInfo.hasEntries()) {
+            helperFactory.getHelper(fn.getProvider()).configureFunction(dfn, updateInfo);
+        }
+    }
+
+    /**
+     * Returns the ids of the deployment tasks the configuration of the given function waits for:
+     * the function itself and the resources it requires data from.
+     */
+    private Set<String> configurationDependencies(DeployableFunction fn) {
+        Set<String> names = new LinkedHashSet<>();
+        names.add(fn.getName());
+        for (RequiredData rd : fn.getRequiredData()) {
+            names.add(rd.getResourceName());
+        }
+        // helpers add the shared key of the linked function once deployed
+        names.add(fn.getFunction().getName());
+
+        Set<String> dependencies = new LinkedHashSet<>();
+        for (String name : names) {
+            dependencies.add(deployTaskId(name));
+        }
+        return dependencies;
+    }
+
+    private static String buildTaskId(Provider provider) {
+        return "build " + provider;
+    }
+
+    private static String deployTaskId(DeployableResource resource) {
+        return deployTaskId(resource.getName());
+    }
+
+    private static String deployTaskId(String resourceName) {
+        return "deploy " + resourceName;
+    }
 
 }
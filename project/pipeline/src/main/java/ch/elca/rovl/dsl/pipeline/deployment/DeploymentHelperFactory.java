@@ -2,6 +2,7 @@ package ch.elca.rovl.dsl.pipeline.deployment;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -15,29 +16,31 @@ import ch.elca.rovl.dsl.pipeline.util.Provider;
  */
 public final class DeploymentHelperFactory {
     final Map<Provider, DeploymentHelper> helpers;
+    final BuildCache buildCache;
 
-    DeploymentHelperFactory() {
+    DeploymentHelperFactory(BuildCache buildCache) {
         this.helpers = new HashMap<>();
+        this.buildCache = buildCache;
     }
 
     /**
      * Returns the deployment helper for the given provider. Creates a new helper if it doesn't
-     * exist already.
+     * exist already. Helpers are shared by concurrent deployment tasks.
      * 
      * @param provider
      * @return deployment helper for the given provider
      * @throws IOException
      * @throws URISyntaxException
      */
-    DeploymentHelper getHelper(Provider provider) throws IOException, URISyntaxException {
+    synchronized DeploymentHelper getHelper(Provider provider) throws IOException, URISyntaxException {
         DeploymentHelper helper = helpers.get(provider);
         if (helper == null) {
             switch (provider) {
                 case AZURE:
-                    helper = new AzureDeploymentHelper();
+                    helper = new AzureDeploymentHelper(buildCache);
                     break;
                 case AWS:
-                    helper = new AwsDeploymentHelper();
+                    helper = new AwsDeploymentHelper(buildCache);
                     break;
                 default:
                     throw new IllegalArgumentException("Unsupported provider: " + provider);
@@ -49,6 +52,17 @@ public final class DeploymentHelperFactory {
         return helper;
     }
 
+    /**
+     * Returns the time spent waiting for resources to become ready, by cloud name of the resource.
+     */
+    synchronized Map<String, Duration> getReadinessWaitTimes() {
+        Map<String, Duration> waitTimes = new HashMap<>();
+        for (DeploymentHelper dh : helpers.values()) {
+            waitTimes.putAll(dh.getReadinessWaitTimes());
+        }
+        return waitTimes;
+    }
+
     void close() {
         for (DeploymentHelper dh : helpers.values()) {
             dh.close();
@@ -0,0 +1,245 @@
+package ch.elca.rovl.dsl.pipeline.deployment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.elca.rovl.dsl.pipeline.util.Provider;
+
+/**
+ * Runs deployment tasks as a dependency graph.
+ * <p>
+ * A task starts as soon as all of its dependencies completed, with at most a fixed number of tasks
+ * running at the same time for each provider. Once a task fails, tasks that did not start yet are
+ * skipped and the run fails after the running ones terminate.
+ */
+final class DeploymentScheduler {
+
+    static final Logger LOG = LoggerFactory.getLogger("Deployment");
+
+    private final Map<String, Task> tasks;
+    private final Map<Provider, Semaphore> limits;
+    private final int maxTasksPerProvider;
+    private final AtomicBoolean failed;
+
+    /**
+     * Constructor.
+     *
+     * @param maxTasksPerProvider max number of tasks running at the same time on each provider
+     */
+    DeploymentScheduler(int maxTasksPerProvider) {
+        if (maxTasksPerProvider < 1)
+            throw new IllegalArgumentException("Concurrency limit must be at least 1.");
+
+        this.tasks = new LinkedHashMap<>();
+        this.limits = new EnumMap<>(Provider.class);
+        this.maxTasksPerProvider = maxTasksPerProvider;
+        this.failed = new AtomicBoolean(false);
+    }
+
+    /**
+     * Registers a task.
+     *
+     * @param id           unique id of the task
+     * @param provider     provider the task operates on
+     * @param action       work of the task
+     * @param dependencies ids of the tasks that must complete before this one starts
+     */
+    void addTask(String id, Provider provider, Action action, Collection<String> dependencies) {
+        if (tasks.containsKey(id))
+            throw new IllegalArgumentException(String.format("Task '%s' is already registered.", id));
+
+        tasks.put(id, new Task(id, provider, action, new LinkedHashSet<>(dependencies)));
+        limits.computeIfAbsent(provider, p -> new Semaphore(maxTasksPerProvider));
+    }
+
+    /**
+     * Runs all registered tasks and waits for them to terminate.
+     *
+     * @throws InterruptedException
+     * @throws IllegalStateException if some task failed
+     */
+    void run() throws InterruptedException {
+        List<Task> order = sortTasks();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        long origin = System.nanoTime();
+
+        Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        for (Task task : order) {
+            CompletableFuture<?>[] dependencies = task.dependencies.stream().map(futures::get)
+                    .toArray(CompletableFuture[]::new);
+            // a failed dependency propagates to the task without running it
+            futures.put(task.id, CompletableFuture.allOf(dependencies)
+                    .thenRunAsync(() -> execute(task, origin), executor));
+        }
+
+        List<String> failedTasks = new ArrayList<>();
+        List<String> skippedTasks = new ArrayList<>();
+        for (Task task : order) {
+            try {
+                futures.get(task.id).get();
+            } catch (ExecutionException e) {
+                if (task.error != null) {
+                    failedTasks.add(task.id);
+                    LOG.error(String.format("Task '%s' failed.", task.id), task.error);
+                } else {
+                    skippedTasks.add(task.id);
+                }
+            }
+        }
+
+        executor.shutdown();
+
+        logCriticalPath();
+
+        if (!failedTasks.isEmpty()) {
+            if (!skippedTasks.isEmpty())
+                LOG.error(String.format("Skipped tasks: %s", skippedTasks));
+            throw new IllegalStateException("Deployment failed for tasks: " + failedTasks);
+        }
+    }
+
+    private void execute(Task task, long origin) {
+        if (failed.get())
+            throw new IllegalStateException("Skipped after a previous failure.");
+
+        Semaphore limit = limits.get(task.provider);
+        task.readyAt = System.nanoTime() - origin;
+        try {
+            limit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.error = e;
+            failed.set(true);
+            throw new CompletionException(e);
+        }
+
+        task.startedAt = System.nanoTime() - origin;
+        try {
+            task.action.run();
+        } catch (Exception e) {
+            task.error = e;
+            failed.set(true);
+            throw new CompletionException(e);
+        } finally {
+            task.endedAt = System.nanoTime() - origin;
+            limit.release();
+        }
+    }
+
+    /**
+     * Returns the tasks sorted so that each task comes after its dependencies.
+     */
+    private List<Task> sortTasks() {
+        List<Task> order = new ArrayList<>();
+        Set<String> visited = new LinkedHashSet<>();
+        Set<String> visiting = new LinkedHashSet<>();
+
+        for (Task task : tasks.values()) {
+            visit(task, visited, visiting, order);
+        }
+
+        return order;
+    }
+
+    private void visit(Task task, Set<String> visited, Set<String> visiting, List<Task> order) {
+        if (visited.contains(task.id))
+            return;
+        if (!visiting.add(task.id))
+            throw new IllegalStateException("Cyclic dependency between deployment tasks: " + visiting);
+
+        for (String dependency : task.dependencies) {
+            Task dep = tasks.get(dependency);
+            if (dep == null)
+                throw new IllegalStateException(String.format(
+                        "Task '%s' depends on unknown task '%s'.", task.id, dependency));
+            visit(dep, visited, visiting, order);
+        }
+
+        visiting.remove(task.id);
+        visited.add(task.id);
+        order.add(task);
+    }
+
+    /**
+     * Logs the chain of tasks that determined the total deployment time, with the time each of
+     * them waited for a free slot of its provider and the time it ran.
+     */
+    private void logCriticalPath() {
+        Task last = null;
+        for (Task task : tasks.values()) {
+            if (task.endedAt >= 0 && (last == null || task.endedAt > last.endedAt))
+                last = task;
+        }
+        if (last == null)
+            return;
+
+        List<Task> path = new ArrayList<>();
+        while (last != null) {
+            path.add(last);
+            Task previous = null;
+            for (String dependency : last.dependencies) {
+                Task dep = tasks.get(dependency);
+                if (dep.endedAt >= 0 && (previous == null || dep.endedAt > previous.endedAt))
+                    previous = dep;
+            }
+            last = previous;
+        }
+        Collections.reverse(path);
+
+        LOG.info(String.format("Critical path (%s):", seconds(path.get(path.size() - 1).endedAt)));
+        for (Task task : path) {
+            LOG.info(String.format("\t%s: waited %s, ran %s", task.id,
+                    seconds(task.startedAt - task.readyAt), seconds(task.endedAt - task.startedAt)));
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format("%.1fs", nanos / 1e9);
+    }
+
+    /**
+     * Work of a deployment task.
+     */
+    @FunctionalInterface
+    interface Action {
+        void run() throws Exception;
+    }
+
+    private static final class Task {
+        final String id;
+        final Provider provider;
+        final Action action;
+        final Set<String> dependencies;
+
+        volatile Exception error = null;
+        volatile long readyAt = -1;
+        volatile long startedAt = -1;
+        volatile long endedAt = -1;
+
+        Task(String id, Provider provider, Action action, Set<String> dependencies) {
+            this.id = id;
+            this.provider = provider;
+            this.action = action;
+            this.dependencies = dependencies;
+        }
+    }
+
+}
@@ -10,6 +10,8 @@ public class AwsQueueAccess extends QueueAccess {
     String queueArn;
     String sendPolicyArn;
     String listenPolicyArn;
+    String claimCheckBucket;
+    String claimCheckPolicyArn;
     final AwsSessionCredentials credentials;
 
     public AwsQueueAccess(AwsSessionCredentials credentials) {
@@ -32,6 +34,14 @@ public class AwsQueueAccess extends QueueAccess {
         this.queueArn = arn;
     }
 
+    public void setClaimCheckBucket(String bucket) {
+        this.claimCheckBucket = bucket;
+    }
+
+    public void setClaimCheckPolicyArn(String policyArn) {
+        this.claimCheckPolicyArn = policyArn;
+    }
+
     public String getQueueUrl() {
         return queueUrl;
     }
@@ -48,6 +58,18 @@ public class AwsQueueAccess extends QueueAccess {
         return listenPolicyArn;
     }
 
+    /**
+     * Returns the bucket storing the claim-check bodies of the queue, or null if the queue does
+     * not use claim-check.
+     */
+    public String getClaimCheckBucket() {
+        return claimCheckBucket;
+    }
+
+    public String getClaimCheckPolicyArn() {
+        return claimCheckPolicyArn;
+    }
+
     public AwsSessionCredentials getCredentials() {
         return credentials;
     }
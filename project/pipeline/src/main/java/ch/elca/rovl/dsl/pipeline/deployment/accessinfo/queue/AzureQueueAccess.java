@@ -6,6 +6,8 @@ package ch.elca.rovl.dsl.pipeline.deployment.accessinfo.queue;
 public class AzureQueueAccess extends QueueAccess {
     final String sendSAS;
     final String receiveSAS;
+    String claimCheckConnString;
+    String claimCheckContainer;
 
     public AzureQueueAccess(String sendSAS, String receiveSAS) {
         this.sendSAS = sendSAS;
@@ -14,4 +16,16 @@ public class AzureQueueAccess extends QueueAccess {
 
     public String getSendSAS() { return sendSAS; }
     public String getReceiveSAS() { return receiveSAS; }
+
+    public void setClaimCheckStore(String connString, String container) {
+        this.claimCheckConnString = connString;
+        this.claimCheckContainer = container;
+    }
+
+    /**
+     * Returns the connection string of the storage account holding the claim-check bodies of the
+     * queue, or null if the queue does not use claim-check.
+     */
+    public String getClaimCheckConnString() { return claimCheckConnString; }
+    public String getClaimCheckContainer() { return claimCheckContainer; }
 }
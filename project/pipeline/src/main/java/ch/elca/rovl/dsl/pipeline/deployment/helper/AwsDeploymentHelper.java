@@ -3,18 +3,23 @@ package ch.elca.rovl.dsl.pipeline.deployment.helper;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.crypto.SecretKey;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ch.elca.rovl.dsl.api.function.models.StartupOptimization;
 import ch.elca.rovl.dsl.api.function.models.functiontrigger.rest.FunctionHttpTrigger;
+import ch.elca.rovl.dsl.pipeline.deployment.BuildCache;
 import ch.elca.rovl.dsl.pipeline.deployment.DeploymentConstants;
 import ch.elca.rovl.dsl.pipeline.deployment.DeploymentEngine;
 import ch.elca.rovl.dsl.pipeline.deployment.UpdateInfo;
@@ -27,6 +32,7 @@ import ch.elca.rovl.dsl.pipeline.deployment.helper.aws.ApiHelper;
 import ch.elca.rovl.dsl.pipeline.deployment.helper.aws.IAMHelper;
 import ch.elca.rovl.dsl.pipeline.deployment.helper.aws.LambdaHelper;
 import ch.elca.rovl.dsl.pipeline.deployment.helper.aws.RdsHelper;
+import ch.elca.rovl.dsl.pipeline.deployment.helper.aws.ReadinessWaiter;
 import ch.elca.rovl.dsl.pipeline.deployment.helper.aws.SQSHelper;
 import ch.elca.rovl.dsl.pipeline.deployment.helper.aws.model.RestApiInfo;
 import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedDatabase;
@@ -36,11 +42,13 @@ import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedResource;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableDatabase;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableFunction;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableQueue;
+import ch.elca.rovl.dsl.pipeline.util.BuildExecutor;
 import ch.elca.rovl.dsl.pipeline.util.Provider;
 import ch.elca.rovl.dsl.pipeline.util.RequiredData;
 import ch.elca.rovl.dsl.pipeline.util.ResourceLoader;
 import ch.elca.rovl.dsl.pipeline.util.RequiredData.Type;
 import ch.elca.rovl.dsl.resource.function.Function.FunctionConfigType;
+import ch.elca.rovl.dsl.resource.queue.Queue.QueueConfigType;
 import io.jsonwebtoken.Jwts;
 import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
@@ -57,6 +65,10 @@ public class AwsDeploymentHelper implements DeploymentHelper {
     final LambdaHelper lambdaHelper;
     final ApiHelper apiHelper;
     final RdsHelper rdsHelper;
+    final ReadinessWaiter readiness;
+    final BuildCache buildCache;
+    final Map<String, String> projectHashes;
+    final Set<String> upToDateFunctions;
 
     final String sqsWritePolicy;
     final String sqsReadPolicy;
@@ -64,6 +76,9 @@ public class AwsDeploymentHelper implements DeploymentHelper {
     final String lambdaAssume;
     final String lambdaRestAssume;
     final String lambdaVpc;
+    final String s3ClaimCheckPolicy;
+    final String rdsProxyAssume;
+    final String rdsProxySecretPolicy;
 
     final String bucketName = "agnostic-serverless-functions";
     final String logPolicyName = "LambdaCloudWatchLogWriter";
@@ -75,10 +90,14 @@ public class AwsDeploymentHelper implements DeploymentHelper {
      * Constructor. It inizalizes SDK clients and creates the root resource group if it doesn't
      * exist already.
      */
-    public AwsDeploymentHelper() throws IOException, URISyntaxException {
+    public AwsDeploymentHelper(BuildCache buildCache) throws IOException, URISyntaxException {
+        this.buildCache = buildCache;
+        this.projectHashes = new ConcurrentHashMap<>();
+        this.upToDateFunctions = ConcurrentHashMap.newKeySet();
         sqsHelper = new SQSHelper();
+        readiness = new ReadinessWaiter();
         iamHelper = new IAMHelper();
-        lambdaHelper = new LambdaHelper(bucketName);
+        lambdaHelper = new LambdaHelper(bucketName, readiness);
         apiHelper = new ApiHelper();
         rdsHelper = new RdsHelper();
 
@@ -89,8 +108,11 @@ public class AwsDeploymentHelper implements DeploymentHelper {
         lambdaAssume = ResourceLoader.load("lambdaAssume.json", LOG);
         lambdaRestAssume = ResourceLoader.load("lambdaRestAssume.json", LOG);
         lambdaVpc = ResourceLoader.load("lambdaVpcPolicy.json", LOG);
+        s3ClaimCheckPolicy = ResourceLoader.load("s3ClaimCheckPolicy.json", LOG);
+        rdsProxyAssume = ResourceLoader.load("rdsProxyAssume.json", LOG);
+        rdsProxySecretPolicy = ResourceLoader.load("rdsProxySecretPolicy.json", LOG);
         
-        if (sqsWritePolicy ==  null || sqsReadPolicy == null || lambdaInvokePolicy == null || lambdaAssume == null || lambdaRestAssume == null || lambdaVpc == null)
+        if (sqsWritePolicy ==  null || sqsReadPolicy == null || lambdaInvokePolicy == null || lambdaAssume == null || lambdaRestAssume == null || lambdaVpc == null || s3ClaimCheckPolicy == null || rdsProxyAssume == null || rdsProxySecretPolicy == null)
             throw new Error("Failed to load AWS policy documents from classpath resources.");
         
         // create cloudwatch log writer role if not already existing
@@ -114,11 +136,30 @@ public class AwsDeploymentHelper implements DeploymentHelper {
         List<String> result = rdsHelper.createDatabaseIfNotExisting(database);
 
         DeployedDatabase ddb = new DeployedDatabase(database, result.get(0));
+        ddb.addReplicaEndpoints(rdsHelper.createReadReplicasIfNotExisting(database));
         AwsDatabaseAccess access = rdsHelper.getAccessRoles(database);
         access.addSubnetIds(subnetIds);
         access.addSecurityGroupIds(result.subList(1, result.size()));
         ddb.setAccessInfo(access);
 
+        if (database.hasConnectionProxy()) {
+            // the proxy connects to the database with credentials read from secrets manager
+            String secretArn = rdsHelper.getOrCreateCredentialsSecret(database);
+            String roleName = DeploymentConstants.AWS_DB_PROXY_ROLE_PREFIX + database.getCloudName();
+            String roleArn = iamHelper.getOrCreateRole(roleName, rdsProxyAssume);
+            String policyName =
+                    DeploymentConstants.AWS_DB_PROXY_SECRET_POLICY_PREFIX + database.getCloudName();
+            String policyArn = iamHelper.getOrCreatePolicyArn(policyName,
+                    "Policy that allows RDS Proxy to read the credentials of a database",
+                    String.format(rdsProxySecretPolicy, secretArn));
+            iamHelper.attachPolicyToRole(roleName, policyName, policyArn);
+            iamHelper.waitUntilRoleExists(roleName);
+
+            String proxyEndpoint = rdsHelper.createProxyIfNotExisting(database, secretArn, roleArn,
+                    access.getSubnetIds(), access.getSecurityGroupIds());
+            ddb.setProxy(proxyEndpoint, DeployedDatabase.POSTGRES_PORT);
+        }
+
         return ddb;
     }
 
@@ -157,12 +198,53 @@ public class AwsDeploymentHelper implements DeploymentHelper {
         accessInfo.setSendPolicyArn(sendPolicyArn);
         accessInfo.setReceivePolicyArn(receivePolicyArn);
 
+        // create bucket and policy for large message bodies
+        if (queue.getQueue().getQueue().getConfig()
+                .containsKey(QueueConfigType.CLAIM_CHECK_THRESHOLD)) {
+            // NOTE satisfy bucket name requirements
+            String bucket = DeploymentConstants.AWS_CLAIM_CHECK_BUCKET_PREFIX
+                    + queue.getName().toLowerCase().replace("_", "-");
+            lambdaHelper.createBucketIfMissing(bucket);
+
+            String claimCheckPolicyArn = iamHelper.getOrCreatePolicyArn(
+                    DeploymentConstants.AWS_S3_CLAIM_CHECK_POLICY_PREFIX + queue.getName(),
+                    String.format("Policy that allows access to the claim-check bucket of queue '%s",
+                            queue.getName()),
+                    String.format(s3ClaimCheckPolicy, bucket));
+
+            accessInfo.setClaimCheckBucket(bucket);
+            accessInfo.setClaimCheckPolicyArn(claimCheckPolicyArn);
+        }
+
         DeployedQueue dq = new DeployedQueue(queue);
         dq.setAccessInfo(accessInfo);
 
         return dq;
     }
 
+    /**
+     * Builds the Lambda zip of the given functions, skipping the ones whose project did not change
+     * since their last deployment.
+     */
+    @Override
+    public void buildFunctions(List<DeployableFunction> functions)
+            throws InterruptedException, IOException {
+        Map<String, String> projects = new LinkedHashMap<>();
+        for (DeployableFunction function : functions) {
+            String hash = buildCache.hash(function);
+            projectHashes.put(function.getName(), hash);
+
+            if (buildCache.isUpToDate(function, hash,
+                    () -> lambdaHelper.functionExists(function.getCloudName()))) {
+                upToDateFunctions.add(function.getName());
+            } else {
+                projects.put(function.getName(), function.getGeneratedPath());
+            }
+        }
+
+        BuildExecutor.get().build("aws", projects, "clean", "package", "-DskipTests");
+    }
+
     /**
      * Deploys a function on AWS using the SDK. Returns the function pipeline object containing
      * access info for the function.
@@ -171,27 +253,40 @@ public class AwsDeploymentHelper implements DeploymentHelper {
      * @return deployed function object
      */
     @Override
-    public DeployedFunction deploy(DeployableFunction function) throws InterruptedException {
+    public DeployedFunction deploy(DeployableFunction function)
+            throws InterruptedException, IOException {
         String bucketKey = function.getCloudName() + ".zip";
 
-        //LOG.info(String.format("%s: Generating zip...", function.getName()));
+        String hash = projectHashes.get(function.getName());
+        if (hash == null)
+            throw new IllegalStateException(
+                    String.format("Function '%s' has not been built.", function.getName()));
+        boolean upToDate = upToDateFunctions.contains(function.getName());
 
-        // generate zip and upload to s3
-        File zipFile = lambdaHelper.generateLambdaZip(function);
-        lambdaHelper.uploadZip(bucketKey, zipFile);
+        // upload zip to s3
+        if (!upToDate) {
+            File zipFile = lambdaHelper.getLambdaZip(function);
+            lambdaHelper.uploadZip(bucketKey, zipFile);
+        }
 
         //LOG.info(String.format("%s: Creating execution role for Lambda...", function.getName()));
 
         String roleName = function.getCloudName() + DeploymentConstants.AWS_LAMBDA_ROLE_POSTFIX;
         String roleArn = iamHelper.getOrCreateRole(roleName, lambdaAssume);
 
-        // NOTE need to wait a bit before attaching policies to new role
-        // TODO could avoid wait if role already exists
-        Thread.sleep(20000);
+        // a new role is not visible right away
+        readiness.await(function.getCloudName(), () -> iamHelper.waitUntilRoleExists(roleName));
 
         iamHelper.attachPolicyToRole(roleName, logPolicyName, logPolicyArn);
         String lambdaArn = lambdaHelper.createOrUpdateLambda(function, bucketKey, roleArn,
-                lambdaQuarkusHandler);
+                lambdaQuarkusHandler, !upToDate);
+
+        // with SnapStart, functions are invoked through an alias to their last published version
+        String qualifier = null;
+        if (function.getStartupOptimization() == StartupOptimization.SNAP_START) {
+            lambdaArn = lambdaHelper.getOrCreateAlias(function.getCloudName());
+            qualifier = DeploymentConstants.AWS_LAMBDA_ALIAS;
+        }
 
         DeployedFunction dfn = new DeployedFunction(function);
 
@@ -200,7 +295,7 @@ public class AwsDeploymentHelper implements DeploymentHelper {
             FunctionAccess access = new FunctionAccess();
 
             if (function.getFunction().requiresGlue()) {
-                String functionUrl = lambdaHelper.getOrCreateFunctionUrl(function.getCloudName());
+                String functionUrl = lambdaHelper.getOrCreateFunctionUrl(function.getCloudName(), qualifier);
                 access.setUrl(functionUrl);
             } else {
                 switch (function.getFunction().getTriggerType()) {
@@ -209,7 +304,7 @@ public class AwsDeploymentHelper implements DeploymentHelper {
                         if (function.getFunction().getTrigger() != null) {
                             functionUrl = createRestIntegration(function, lambdaArn);
                         } else {
-                            functionUrl = lambdaHelper.getOrCreateFunctionUrl(function.getCloudName());
+                            functionUrl = lambdaHelper.getOrCreateFunctionUrl(function.getCloudName(), qualifier);
                         }
                         access.setUrl(functionUrl);
                         break;
@@ -238,6 +333,7 @@ public class AwsDeploymentHelper implements DeploymentHelper {
         }
 
         dfn.addRequiredData(function.getRequiredData());
+        buildCache.deployed(function, hash);
 
         LOG.info(String.format("%s: Deployment completed.", dfn.getName()));
 
@@ -255,7 +351,7 @@ public class AwsDeploymentHelper implements DeploymentHelper {
         String roleName = lambdaHelper.getRoleNameOfFunction(function.getCloudName());
 
         Map<String, String> envVars = new HashMap<>();
-        List<String> triggerArns = new ArrayList<>();
+        Map<String, Map<QueueConfigType, Object>> triggers = new HashMap<>();
 
         // gather data
         for (RequiredData.Type type : updateInfo.getTypes()) {
@@ -280,6 +376,7 @@ public class AwsDeploymentHelper implements DeploymentHelper {
                             throw new IllegalArgumentException(String.format(
                                     "provider '%s' not yet supported", queue.getProvider()));
                         }
+                        configureClaimCheck(roleName, queue, envVars);
                     }
                     break;
                 case QUEUE_LISTEN:
@@ -291,7 +388,7 @@ public class AwsDeploymentHelper implements DeploymentHelper {
                                             DeploymentConstants.AWS_SQS_RECV_POLICY_PREFIX
                                                     + queue.getName(),
                                             access.getReceivePolicyArn());
-                            triggerArns.add(access.getQueueArn());
+                            triggers.put(access.getQueueArn(), queueConfig(queue));
                         } else if (queue.getProvider() == Provider.AZURE) {
                             AzureQueueAccess access = (AzureQueueAccess) queue.getAccessInfo();
                             envVars.put("CONN_STRING_" + queue.getName(), access.getReceiveSAS());
@@ -300,13 +397,19 @@ public class AwsDeploymentHelper implements DeploymentHelper {
                             throw new IllegalArgumentException(String.format(
                                     "provider '%s' not yet supported", queue.getProvider()));
                         }
+                        configureClaimCheck(roleName, queue, envVars);
+                    }
+                    break;
+                case QUEUE_CLAIM_CHECK:
+                    for (DeployedResource queue : resources) {
+                        configureClaimCheck(roleName, queue, envVars);
                     }
                     break;
                 case QUEUE_TRIGGER:
                     for (DeployedResource queue : resources) {
                         if (queue.getProvider() == Provider.AWS) {
                             AwsQueueAccess access = (AwsQueueAccess) queue.getAccessInfo();
-                            triggerArns.add(access.getQueueArn());
+                            triggers.put(access.getQueueArn(), queueConfig(queue));
                         } else {
                             close();
                             throw new IllegalArgumentException(String.format(
@@ -333,9 +436,11 @@ public class AwsDeploymentHelper implements DeploymentHelper {
                         envVars.put("PSQL_USER_" + db.getName(), access.superuser().username());
                         envVars.put("PSQL_PWD_" + db.getName(), access.superuser().password());
 
-                        String url = ((DeployedDatabase) db).getEndpoint();
-                        url = "jdbc:postgresql://" + url + ":5432/" + db.getName();
-                        envVars.put("PSQL_URL_" + db.getName(), url);
+                        envVars.put("PSQL_URL_" + db.getName(), ((DeployedDatabase) db).getJdbcUrl());
+
+                        List<String> replicaUrls = ((DeployedDatabase) db).getReplicaJdbcUrls();
+                        if (!replicaUrls.isEmpty())
+                            envVars.put("PSQL_READ_URLS_" + db.getName(), String.join(",", replicaUrls));
 
                         if (db.getProvider() == Provider.AWS) {
                             subnetGroupIds.addAll(((AwsDatabaseAccess) access).getSubnetIds());
@@ -352,11 +457,9 @@ public class AwsDeploymentHelper implements DeploymentHelper {
                         iamHelper.attachPolicyToRole(roleName,
                                 DeploymentConstants.AWS_LAMBDA_VPC_POLICY, policyArn);
 
-                        Thread.sleep(15000);
-                        // add subnets
+                        // add subnets, waits for the policy to apply and the vpc to be joined
                         lambdaHelper.updateConfigWithSubnetGroups(function.getCloudName(),
                                 new ArrayList<>(subnetGroupIds), new ArrayList<>(securityGroupIds));
-                        Thread.sleep(15000);
                     }
                     break;
                 case SHARED_KEY:
@@ -374,14 +477,63 @@ public class AwsDeploymentHelper implements DeploymentHelper {
         }
 
 
+        StartupOptimization startup = function.getFunction().getStartupOptimization();
+        // load classes from the archive added to the zip
+        if (startup == StartupOptimization.CLASS_DATA_SHARING)
+            envVars.put("JAVA_TOOL_OPTIONS", DeploymentConstants.AWS_LAMBDA_APPCDS_OPTIONS);
+
         // add env vars to function
         lambdaHelper.addEnvVarsToFunction(function.getCloudName(), envVars);
 
         // create event source mappings
-        if (!triggerArns.isEmpty()) {
-            // NOTE needed to delay creation of event source mapping
-            Thread.sleep(10000);
-            lambdaHelper.addEventSourceMappingsToFunction(function.getCloudName(), triggerArns);
+        if (!triggers.isEmpty()) {
+            String aliasTarget = function.getCloudName() + ":" + DeploymentConstants.AWS_LAMBDA_ALIAS;
+            String target = startup == StartupOptimization.SNAP_START
+                    ? aliasTarget
+                    : function.getCloudName();
+            String previousTarget = target.equals(aliasTarget) ? function.getCloudName() : aliasTarget;
+            lambdaHelper.addEventSourceMappingsToFunction(target, triggers);
+            // mappings of a previous deployment with or without SnapStart would consume the same queues
+            lambdaHelper.deleteEventSourceMappings(previousTarget, triggers.keySet());
+        }
+
+        // the alias must point to a version including the configuration
+        if (startup == StartupOptimization.SNAP_START)
+            lambdaHelper.publishToAlias(function.getCloudName());
+    }
+
+    /**
+     * Returns the DSL configuration of the given queue, used for its event source mappings.
+     */
+    private static Map<QueueConfigType, Object> queueConfig(DeployedResource queue) {
+        return ((DeployedQueue) queue).getQueue().getQueue().getQueue().getConfig();
+    }
+
+    /**
+     * Gives a function access to the claim-check store of the given queue, if the queue has one.
+     * 
+     * @param roleName execution role of the function
+     * @param queue    queue linked to the function
+     * @param envVars  environment variables of the function
+     */
+    private void configureClaimCheck(String roleName, DeployedResource queue,
+            Map<String, String> envVars) {
+        if (queue.getProvider() == Provider.AWS) {
+            AwsQueueAccess access = (AwsQueueAccess) queue.getAccessInfo();
+            if (access.getClaimCheckBucket() != null) {
+                iamHelper.attachPolicyToRole(roleName,
+                        DeploymentConstants.AWS_S3_CLAIM_CHECK_POLICY_PREFIX + queue.getName(),
+                        access.getClaimCheckPolicyArn());
+                envVars.put("CLAIM_CHECK_BUCKET_" + queue.getName(), access.getClaimCheckBucket());
+            }
+        } else if (queue.getProvider() == Provider.AZURE) {
+            AzureQueueAccess access = (AzureQueueAccess) queue.getAccessInfo();
+            if (access.getClaimCheckConnString() != null) {
+                envVars.put("CLAIM_CHECK_CONN_STRING_" + queue.getName(),
+                        access.getClaimCheckConnString());
+                envVars.put("CLAIM_CHECK_CONTAINER_" + queue.getName(),
+                        access.getClaimCheckContainer());
+            }
         }
     }
 
@@ -411,8 +563,9 @@ public class AwsDeploymentHelper implements DeploymentHelper {
                 DeploymentConstants.AWS_LAMBDA_INVOKE_ROLE_PREFIX + function.getCloudName(),
                 lambdaRestAssume);
 
-        // NOTE maybe we don't have to wait here
-        Thread.sleep(10000);
+        // a new role is not visible right away
+        readiness.await(function.getCloudName(), () -> iamHelper.waitUntilRoleExists(
+                DeploymentConstants.AWS_LAMBDA_INVOKE_ROLE_PREFIX + function.getCloudName()));
         // attach policy to role
         iamHelper.attachPolicyToRole(
                 DeploymentConstants.AWS_LAMBDA_INVOKE_ROLE_PREFIX + function.getCloudName(),
@@ -426,6 +579,11 @@ public class AwsDeploymentHelper implements DeploymentHelper {
         return restInfo.url();
     }
 
+    @Override
+    public Map<String, Duration> getReadinessWaitTimes() {
+        return readiness.getWaitTimes();
+    }
+
     @Override
     public void close() {
         sqsHelper.close();
@@ -1,9 +1,13 @@
 package ch.elca.rovl.dsl.pipeline.deployment.helper;
 
+import java.io.IOException;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.SecretKey;
 
@@ -18,6 +22,9 @@ import com.azure.resourcemanager.AzureResourceManager;
 import com.azure.resourcemanager.postgresqlflexibleserver.models.Server;
 import com.azure.resourcemanager.resources.models.ResourceGroups;
 import com.azure.resourcemanager.servicebus.models.ServiceBusNamespace;
+import com.azure.resourcemanager.storage.models.StorageAccount;
+import ch.elca.rovl.dsl.api.function.models.FunctionArchitecture;
+import ch.elca.rovl.dsl.pipeline.deployment.BuildCache;
 import ch.elca.rovl.dsl.pipeline.deployment.DeploymentConstants;
 import ch.elca.rovl.dsl.pipeline.deployment.DeploymentEngine;
 import ch.elca.rovl.dsl.pipeline.deployment.UpdateInfo;
@@ -29,6 +36,7 @@ import ch.elca.rovl.dsl.pipeline.deployment.accessinfo.queue.AzureQueueAccess;
 import ch.elca.rovl.dsl.pipeline.deployment.helper.azure.FlexibleServerHelper;
 import ch.elca.rovl.dsl.pipeline.deployment.helper.azure.FunctionAppHelper;
 import ch.elca.rovl.dsl.pipeline.deployment.helper.azure.ServiceBusHelper;
+import ch.elca.rovl.dsl.pipeline.deployment.helper.azure.StorageHelper;
 import ch.elca.rovl.dsl.pipeline.deployment.helper.azure.model.ServiceBusQueueKeys;
 import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedDatabase;
 import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedFunction;
@@ -37,9 +45,11 @@ import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedResource;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableDatabase;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableFunction;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableQueue;
+import ch.elca.rovl.dsl.pipeline.util.BuildExecutor;
 import ch.elca.rovl.dsl.pipeline.util.Provider;
 import ch.elca.rovl.dsl.pipeline.util.RequiredData;
 import ch.elca.rovl.dsl.pipeline.util.RequiredData.Type;
+import ch.elca.rovl.dsl.resource.queue.Queue.QueueConfigType;
 import io.jsonwebtoken.Jwts;
 
 /**
@@ -53,12 +63,19 @@ public class AzureDeploymentHelper implements DeploymentHelper {
     final ServiceBusHelper serviceBusHelper;
     final FunctionAppHelper functionAppHelper;
     final FlexibleServerHelper flexServerHelper;
+    final StorageHelper storageHelper;
+    final BuildCache buildCache;
+    final Map<String, String> projectHashes;
+    final Set<String> upToDateFunctions;
 
     /**
      * Constructor. It inizalizes SDK clients and creates the root resource group if it doesn't
      * exist already.
      */
-    public AzureDeploymentHelper() {
+    public AzureDeploymentHelper(BuildCache buildCache) {
+        this.buildCache = buildCache;
+        this.projectHashes = new ConcurrentHashMap<>();
+        this.upToDateFunctions = ConcurrentHashMap.newKeySet();
         AzureProfile profile = new AzureProfile(AzureEnvironment.AZURE);
         TokenCredential defaultCredential = new DefaultAzureCredentialBuilder().build();
 
@@ -68,6 +85,7 @@ public class AzureDeploymentHelper implements DeploymentHelper {
         serviceBusHelper = new ServiceBusHelper(resManager.serviceBusNamespaces());
         functionAppHelper = new FunctionAppHelper(resManager.functionApps());
         flexServerHelper = new FlexibleServerHelper(resManager);
+        storageHelper = new StorageHelper(resManager);
 
         // resource group creation
         ResourceGroups rgs = resManager.resourceGroups();
@@ -100,6 +118,10 @@ public class AzureDeploymentHelper implements DeploymentHelper {
         roles.setSuperUser(superuser);
 
         DeployedDatabase ddb = new DeployedDatabase(database, dbServer.fullyQualifiedDomainName());
+        ddb.addReplicaEndpoints(flexServerHelper.getOrCreateReplicas(dbServer, database));
+        if (database.hasConnectionProxy())
+            ddb.setProxy(dbServer.fullyQualifiedDomainName(),
+                    flexServerHelper.enablePgBouncer(dbServer, database));
         ddb.setAccessInfo(roles);
         return ddb;
     }
@@ -133,14 +155,50 @@ public class AzureDeploymentHelper implements DeploymentHelper {
         // LOG.info("Creating access rules...");
         ServiceBusQueueKeys keys = serviceBusHelper.createAccessKeys(ns);
 
+        AzureQueueAccess access =
+                new AzureQueueAccess(keys.sendConnectionString(), keys.listenConnectionString());
+
+        // create blob container for large message bodies
+        if (queue.getQueue().getQueue().getConfig()
+                .containsKey(QueueConfigType.CLAIM_CHECK_THRESHOLD)) {
+            // NOTE satisfy container name requirements
+            String container = queue.getName().toLowerCase().replace("_", "-");
+            StorageAccount account =
+                    storageHelper.getOrCreateAccount(DeploymentConstants.AZURE_CLAIM_CHECK_ACCOUNT);
+            storageHelper.createContainerIfMissing(account, container);
+            access.setClaimCheckStore(storageHelper.getConnectionString(account), container);
+        }
+
         DeployedQueue deployed = new DeployedQueue(queue);
-        deployed.setAccessInfo(
-                new AzureQueueAccess(keys.sendConnectionString(), keys.listenConnectionString()));
+        deployed.setAccessInfo(access);
 
         // LOG.info(String.format("Queue '%s' successfully deployed.", queue.getName()));
         return deployed;
     }
 
+    /**
+     * Packages the projects of the given functions, skipping the ones whose project did not change
+     * since their last deployment.
+     */
+    @Override
+    public void buildFunctions(List<DeployableFunction> functions)
+            throws InterruptedException, IOException {
+        Map<String, String> projects = new LinkedHashMap<>();
+        for (DeployableFunction function : functions) {
+            String hash = buildCache.hash(function);
+            projectHashes.put(function.getName(), hash);
+
+            if (buildCache.isUpToDate(function, hash,
+                    () -> functionAppHelper.functionAppExists(function.getCloudName()))) {
+                upToDateFunctions.add(function.getName());
+            } else {
+                projects.put(function.getName(), function.getGeneratedPath());
+            }
+        }
+
+        BuildExecutor.get().build("azure", projects, "clean", "package");
+    }
+
     /**
      * Deploys a function on Azure using the FunctionApp Maven plugin. Returns the function pipeline
      * object containing access info for the function.
@@ -149,12 +207,24 @@ public class AzureDeploymentHelper implements DeploymentHelper {
      * @return deployed function object
      */
     @Override
-    public DeployedFunction deploy(DeployableFunction function) {
+    public DeployedFunction deploy(DeployableFunction function)
+            throws IOException, InterruptedException {
         //LOG.info(String.format("Deploying function '%s' on Azure...", function.getName()));
+        if (function.getArchitecture() != FunctionArchitecture.X86_64)
+            LOG.warn(String.format("%s: architecture %s is not supported on Azure, using X86_64.",
+                    function.getName(), function.getArchitecture()));
+
+        String hash = projectHashes.get(function.getName());
+        if (hash == null)
+            throw new IllegalStateException(
+                    String.format("Function '%s' has not been built.", function.getName()));
+        boolean upToDate = upToDateFunctions.contains(function.getName());
 
         // deply
-        String generateDir = function.getGeneratedPath();
-        functionAppHelper.deployFunction(generateDir, function.getName());
+        if (!upToDate) {
+            String generateDir = function.getGeneratedPath();
+            functionAppHelper.deployFunction(generateDir, function.getName());
+        }
 
         DeployedFunction deployed = new DeployedFunction(function);
 
@@ -199,6 +269,7 @@ public class AzureDeploymentHelper implements DeploymentHelper {
 
         deployed.addRequiredData(function.getRequiredData());
         deployed.setFunctionApp(functionAppHelper.getFunctionApp(function.getCloudName()));
+        buildCache.deployed(function, hash);
 
         LOG.info(String.format("%s: Deployment completed.", function.getName()));
 
@@ -232,6 +303,7 @@ public class AzureDeploymentHelper implements DeploymentHelper {
                             throw new IllegalArgumentException(String.format(
                                     "provider '%s' not yet supported", queue.getProvider()));
                         }
+                        configureClaimCheck(queue, settings);
                     }
                     break;
                 case QUEUE_LISTEN:
@@ -247,6 +319,17 @@ public class AzureDeploymentHelper implements DeploymentHelper {
                             throw new IllegalArgumentException(String.format(
                                     "provider '%s' not yet supported", queue.getProvider()));
                         }
+                        configureClaimCheck(queue, settings);
+                    }
+                    break;
+                case QUEUE_CLAIM_CHECK:
+                    for (DeployedResource queue : resources) {
+                        if (queue.getProvider() == Provider.AWS) {
+                            AwsQueueAccess access = (AwsQueueAccess) queue.getAccessInfo();
+                            addAwsCredentialsToSettings(settings, access, awsCredentialsSet);
+                            awsCredentialsSet = true;
+                        }
+                        configureClaimCheck(queue, settings);
                     }
                     break;
                 case QUEUE_TRIGGER:
@@ -268,9 +351,11 @@ public class AzureDeploymentHelper implements DeploymentHelper {
                         settings.put("PSQL_USER_" + db.getName(), access.superuser().username());
                         settings.put("PSQL_PWD_" + db.getName(), access.superuser().password());
 
-                        String url = ((DeployedDatabase) db).getEndpoint();
-                        url = "jdbc:postgresql://" + url + ":5432/" + db.getName();
-                        settings.put("PSQL_URL_" + db.getName(), url);
+                        settings.put("PSQL_URL_" + db.getName(), ((DeployedDatabase) db).getJdbcUrl());
+
+                        List<String> replicaUrls = ((DeployedDatabase) db).getReplicaJdbcUrls();
+                        if (!replicaUrls.isEmpty())
+                            settings.put("PSQL_READ_URLS_" + db.getName(), String.join(",", replicaUrls));
                     }
                     break;
                 case SHARED_KEY:
@@ -286,12 +371,40 @@ public class AzureDeploymentHelper implements DeploymentHelper {
             }
         }
 
+        // closest equivalent of a reserved concurrency: cap the instances of the app
+        if (function.getFunction().getReservedConcurrency() >= 0)
+            settings.put("WEBSITE_MAX_DYNAMIC_APPLICATION_SCALE_OUT",
+                    String.valueOf(function.getFunction().getReservedConcurrency()));
+
         // update configuration
         function.setFunctionApp(
                 functionAppHelper.updateFunctionAppSettings(function.getFunctionApp(), settings));
         //LOG.info(String.format("Update successful", function.getName()));
     }
 
+    /**
+     * Adds to a configuration map the environment variables necessary to access the claim-check
+     * store of the given queue, if the queue has one.
+     * 
+     * @param queue queue linked to the function
+     * @param settings configuration map
+     */
+    private void configureClaimCheck(DeployedResource queue, Map<String, String> settings) {
+        if (queue.getProvider() == Provider.AWS) {
+            AwsQueueAccess access = (AwsQueueAccess) queue.getAccessInfo();
+            if (access.getClaimCheckBucket() != null)
+                settings.put("CLAIM_CHECK_BUCKET_" + queue.getName(), access.getClaimCheckBucket());
+        } else if (queue.getProvider() == Provider.AZURE) {
+            AzureQueueAccess access = (AzureQueueAccess) queue.getAccessInfo();
+            if (access.getClaimCheckConnString() != null) {
+                settings.put("CLAIM_CHECK_CONN_STRING_" + queue.getName(),
+                        access.getClaimCheckConnString());
+                settings.put("CLAIM_CHECK_CONTAINER_" + queue.getName(),
+                        access.getClaimCheckContainer());
+            }
+        }
+    }
+
     /**
      * Adds to a configuration map the environment variables necessary to authenticate to AWS.
      * 
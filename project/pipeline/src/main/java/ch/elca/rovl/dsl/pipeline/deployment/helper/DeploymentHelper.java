@@ -1,5 +1,10 @@
 package ch.elca.rovl.dsl.pipeline.deployment.helper;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
 import ch.elca.rovl.dsl.pipeline.deployment.UpdateInfo;
 import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedDatabase;
 import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedFunction;
@@ -15,12 +20,24 @@ public interface DeploymentHelper {
 
     DeployedQueue deploy(DeployableQueue queue);
 
-    DeployedFunction deploy(DeployableFunction function) throws InterruptedException;
+    /**
+     * Builds the projects of the given functions, before they are deployed.
+     */
+    void buildFunctions(List<DeployableFunction> functions) throws InterruptedException, IOException;
+
+    DeployedFunction deploy(DeployableFunction function) throws InterruptedException, IOException;
 
     DeployedDatabase deploy(DeployableDatabase database) throws InterruptedException;
 
     void configureFunction(DeployedFunction function, UpdateInfo updateInfo)
             throws InterruptedException;
 
+    /**
+     * Returns the time spent waiting for resources to become ready, by cloud name of the resource.
+     */
+    default Map<String, Duration> getReadinessWaitTimes() {
+        return Map.of();
+    }
+
     void close();
 }
@@ -8,20 +8,24 @@ import software.amazon.awssdk.services.iam.IamClient;
 import software.amazon.awssdk.services.iam.model.AttachRolePolicyRequest;
 import software.amazon.awssdk.services.iam.model.CreatePolicyRequest;
 import software.amazon.awssdk.services.iam.model.CreateRoleRequest;
+import software.amazon.awssdk.services.iam.model.EntityAlreadyExistsException;
 import software.amazon.awssdk.services.iam.model.GetRoleRequest;
 import software.amazon.awssdk.services.iam.model.ListAttachedRolePoliciesRequest;
 import software.amazon.awssdk.services.iam.model.NoSuchEntityException;
 import software.amazon.awssdk.services.iam.model.Policy;
+import software.amazon.awssdk.services.iam.waiters.IamWaiter;
 
 public class IAMHelper {
     
     IamClient client;
+    IamWaiter waiter;
     List<Policy> policies;
 
     public IAMHelper() {
         this.client =  IamClient.builder()
             .httpClientBuilder(ApacheHttpClient.builder())
             .build();
+        this.waiter = IamWaiter.builder().client(client).build();
     }
 
     /**
@@ -30,7 +34,7 @@ public class IAMHelper {
      * @param refresh whether to refresh the cached list of policies or not
      * @return the arn of the policy, or null if the policy does not exist
      */
-    public String getPolicyArn(String policyName, boolean refresh) {
+    public synchronized String getPolicyArn(String policyName, boolean refresh) {
         if (policies == null || refresh)
             policies = client.listPolicies().policies();
 
@@ -59,16 +63,26 @@ public class IAMHelper {
 
     /**
      * Gets the arn of the policy with the given name, or creates a new one if it does not exist.
+     * Synchronized, as functions are configured concurrently and may share policies.
      * @param policyName
      * @param policyDescription
      * @param policyContent
      * @return the arn or the given policy, or of the newly created one if it does not exist
      */
-    public String getOrCreatePolicyArn(String policyName, String policyDescription, String policyContent) {
+    public synchronized String getOrCreatePolicyArn(String policyName, String policyDescription, String policyContent) {
         String policyArn = getPolicyArn(policyName, true);
-        return policyArn != null ?
-            policyArn :
-            createPolicy(policyName, policyDescription, policyContent);
+        if (policyArn != null)
+            return policyArn;
+
+        try {
+            return createPolicy(policyName, policyDescription, policyContent);
+        } catch (EntityAlreadyExistsException e) {
+            // created in the meantime, e.g. by another deployment
+            policyArn = getPolicyArn(policyName, true);
+            if (policyArn == null)
+                throw e;
+            return policyArn;
+        }
     }
 
     /**
@@ -92,6 +106,16 @@ public class IAMHelper {
         }
     }
 
+    /**
+     * Waits until the role with the given name is visible, which takes a while after its creation.
+     * @param roleName
+     */
+    public void waitUntilRoleExists(String roleName) {
+        waiter.waitUntilRoleExists(GetRoleRequest.builder()
+            .roleName(roleName)
+            .build());
+    }
+
     /**
      * Attaches the given policy to the given role, if it isn't already attached
      * @param roleName
@@ -115,6 +139,7 @@ public class IAMHelper {
     }
 
     public void close() {
+        waiter.close();
         client.close();
     }
 }
@@ -3,7 +3,12 @@ package ch.elca.rovl.dsl.pipeline.deployment.helper.aws;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.HashSet;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -12,33 +17,53 @@ import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ch.elca.rovl.dsl.api.function.models.FunctionArchitecture;
+import ch.elca.rovl.dsl.api.function.models.StartupOptimization;
 import ch.elca.rovl.dsl.pipeline.deployment.DeploymentConstants;
+import ch.elca.rovl.dsl.pipeline.templating.TemplatingConstants;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableFunction;
 import ch.elca.rovl.dsl.pipeline.util.Constants;
 import ch.elca.rovl.dsl.resource.function.Function.FunctionConfigType;
+import ch.elca.rovl.dsl.resource.queue.Queue.QueueConfigType;
 import software.amazon.awssdk.arns.Arn;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.services.lambda.LambdaClient;
 import software.amazon.awssdk.services.lambda.model.AddPermissionRequest;
 import software.amazon.awssdk.services.lambda.model.Architecture;
+import software.amazon.awssdk.services.lambda.model.CreateAliasRequest;
 import software.amazon.awssdk.services.lambda.model.CreateEventSourceMappingRequest;
 import software.amazon.awssdk.services.lambda.model.CreateFunctionRequest;
 import software.amazon.awssdk.services.lambda.model.CreateFunctionUrlConfigRequest;
+import software.amazon.awssdk.services.lambda.model.DeleteEventSourceMappingRequest;
+import software.amazon.awssdk.services.lambda.model.DeleteFunctionConcurrencyRequest;
+import software.amazon.awssdk.services.lambda.model.EventSourceMappingConfiguration;
 import software.amazon.awssdk.services.lambda.model.Environment;
 import software.amazon.awssdk.services.lambda.model.FunctionCode;
+import software.amazon.awssdk.services.lambda.model.FunctionConfiguration;
+import software.amazon.awssdk.services.lambda.model.FunctionResponseType;
 import software.amazon.awssdk.services.lambda.model.FunctionUrlAuthType;
+import software.amazon.awssdk.services.lambda.model.GetAliasRequest;
 import software.amazon.awssdk.services.lambda.model.GetFunctionConfigurationRequest;
 import software.amazon.awssdk.services.lambda.model.GetFunctionRequest;
 import software.amazon.awssdk.services.lambda.model.GetFunctionUrlConfigRequest;
+import software.amazon.awssdk.services.lambda.model.InvalidParameterValueException;
 import software.amazon.awssdk.services.lambda.model.ListEventSourceMappingsRequest;
 import software.amazon.awssdk.services.lambda.model.PackageType;
+import software.amazon.awssdk.services.lambda.model.PublishVersionRequest;
+import software.amazon.awssdk.services.lambda.model.PutFunctionConcurrencyRequest;
 import software.amazon.awssdk.services.lambda.model.ResourceConflictException;
+import software.amazon.awssdk.services.lambda.model.ResourceInUseException;
 import software.amazon.awssdk.services.lambda.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.lambda.model.SnapStart;
+import software.amazon.awssdk.services.lambda.model.SnapStartApplyOn;
+import software.amazon.awssdk.services.lambda.model.UpdateAliasRequest;
+import software.amazon.awssdk.services.lambda.model.UpdateEventSourceMappingRequest;
 import software.amazon.awssdk.services.lambda.model.UpdateFunctionCodeRequest;
 import software.amazon.awssdk.services.lambda.model.UpdateFunctionConfigurationRequest;
 import software.amazon.awssdk.services.lambda.model.VpcConfig;
 import software.amazon.awssdk.services.lambda.model.Runtime;
+import software.amazon.awssdk.services.lambda.waiters.LambdaWaiter;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
 import software.amazon.awssdk.services.s3.model.ListBucketsResponse;
@@ -49,56 +74,31 @@ public class LambdaHelper {
 
     final LambdaClient lambdaClient;
     final S3Client s3Client;
+    final LambdaWaiter waiter;
+    final ReadinessWaiter readiness;
 
     final String bucketName;
 
-    public LambdaHelper(String bucketName) {
+    public LambdaHelper(String bucketName, ReadinessWaiter readiness) {
         lambdaClient = LambdaClient.builder().httpClientBuilder(ApacheHttpClient.builder()).build();
         s3Client = S3Client.builder().httpClientBuilder(ApacheHttpClient.builder()).build();
+        waiter = LambdaWaiter.builder().client(lambdaClient).build();
+        this.readiness = readiness;
 
         this.bucketName = bucketName;
 
-        // create bucket if it doesn't exist
-        ListBucketsResponse bucketsList = s3Client.listBuckets();
-        if (!bucketsList.buckets().stream().map(b -> b.name()).collect(Collectors.toList())
-                .contains(this.bucketName)) {
-            s3Client.createBucket(CreateBucketRequest.builder().bucket(this.bucketName).build());
-        }
-
-        // create log dir if it dosen't exist
-        File logDirectory = new File(Constants.LOGS_DIR);
-        if (!logDirectory.exists()) {
-            logDirectory.mkdirs();
-        }
+        createBucketIfMissing(this.bucketName);
     }
 
     /**
-     * Generates and renames the zip file with the code for Lambda, and returns the
+     * Renames the zip file with the code for Lambda built for the given function, and returns the
      * file
      * 
      * @param function
      * @return the zip file
+     * @throws IOException
      */
-    public File generateLambdaZip(DeployableFunction function) {
-        // generate zip
-        String mavenCmd = " & mvn clean package -DskipTests";
-        Process p;
-        int cmdResult;
-        try {
-            ProcessBuilder pb = new ProcessBuilder("cmd", "/c", "cd " + function.getGeneratedPath(), mavenCmd);
-            pb.redirectOutput(new File(Constants.LOGS_DIR + "deployment-" + function.getName() + ".txt"));
-
-            p = pb.start();
-            cmdResult = p.waitFor();
-            if (cmdResult != 0) {
-                throw new Error("Zip generation for lambda failed.");
-            }
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
-            throw new RuntimeException(String.format(
-                    "Failed to run deployment command for function '%s'", function.getName()));
-        }
-
+    public File getLambdaZip(DeployableFunction function) throws IOException {
         // rename zip to "<function-name>.zip"
         File functionZip = new File(function.getGeneratedPath() + "target/function.zip");
         File renamedFunctionZip = new File(
@@ -109,9 +109,46 @@ public class LambdaHelper {
             throw new IllegalStateException("Zip file for AWS Lambda function does not exist.");
         }
 
+        if (function.getStartupOptimization() == StartupOptimization.CLASS_DATA_SHARING)
+            addClassDataArchive(function, renamedFunctionZip);
+
         return renamedFunctionZip;
     }
 
+    /**
+     * Adds the class-data sharing archive built with the function to the root of its zip, where
+     * {@link DeploymentConstants#AWS_LAMBDA_APPCDS_OPTIONS} expects it.
+     * 
+     * @param function
+     * @param zipFile
+     * @throws IOException
+     */
+    private void addClassDataArchive(DeployableFunction function, File zipFile) throws IOException {
+        Path archive = Path.of(function.getGeneratedPath(), "target", "quarkus-app",
+                TemplatingConstants.APPCDS_ARCHIVE_NAME);
+        if (!Files.exists(archive))
+            throw new IllegalStateException(String.format(
+                    "Class-data sharing archive of function '%s' was not built.", function.getName()));
+
+        try (FileSystem zip = FileSystems.newFileSystem(zipFile.toPath())) {
+            Files.copy(archive, zip.getPath(TemplatingConstants.APPCDS_ARCHIVE_NAME),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Creates an S3 bucket with the given name if it doesn't exist.
+     * 
+     * @param bucket
+     */
+    public void createBucketIfMissing(String bucket) {
+        ListBucketsResponse bucketsList = s3Client.listBuckets();
+        if (!bucketsList.buckets().stream().map(b -> b.name()).collect(Collectors.toList())
+                .contains(bucket)) {
+            s3Client.createBucket(CreateBucketRequest.builder().bucket(bucket).build());
+        }
+    }
+
     /**
      * Upload the code zip to s3
      * 
@@ -123,6 +160,21 @@ public class LambdaHelper {
                 RequestBody.fromFile(zipFile));
     }
 
+    /**
+     * Tells whether a lambda function with the given name exists.
+     * 
+     * @param functionName
+     * @return true if the function exists
+     */
+    public boolean functionExists(String functionName) {
+        try {
+            lambdaClient.getFunction(GetFunctionRequest.builder().functionName(functionName).build());
+            return true;
+        } catch (ResourceNotFoundException e) {
+            return false;
+        }
+    }
+
     /**
      * Creates the lambda function or updates it if it already exists.
      * 
@@ -130,58 +182,173 @@ public class LambdaHelper {
      * @param bucketKey
      * @param lambdaRoleArn
      * @param handlerMethod
+     * @param updateCode whether the code of an existing function has to be updated
      * @return the arn of the function
      * @throws InterruptedException
      */
     public String createOrUpdateLambda(DeployableFunction function, String bucketKey,
-            String lambdaRoleArn, String handlerMethod) throws InterruptedException {
-
-        int timeout = (int) function.getFunction().getConfig().get(FunctionConfigType.EXEC_TIMEOUT);
-        timeout = timeout < 0 ? DeploymentConstants.AWS_LAMBDA_TIMEOUT : timeout; 
+            String lambdaRoleArn, String handlerMethod, boolean updateCode)
+            throws InterruptedException {
+
+        int execTimeout = (int) function.getFunction().getConfig().get(FunctionConfigType.EXEC_TIMEOUT);
+        int timeout = execTimeout < 0 ? DeploymentConstants.AWS_LAMBDA_TIMEOUT : execTimeout; 
+        int memory = function.getMemoryMB() < 0 ? DeploymentConstants.AWS_LAMBDA_MEMORY_MB
+                : function.getMemoryMB();
+        Architecture architecture = function.getArchitecture() == FunctionArchitecture.ARM64
+                ? Architecture.ARM64
+                : Architecture.X86_64;
+        // native executables run on the custom runtime, as the bootstrap of the zip
+        Runtime runtime = function.isNativeImage() ? Runtime.PROVIDED_AL2023 : Runtime.JAVA17;
+        // snapshots are taken when versions are published
+        SnapStart snapStart = SnapStart.builder()
+                .applyOn(function.getStartupOptimization() == StartupOptimization.SNAP_START
+                        ? SnapStartApplyOn.PUBLISHED_VERSIONS
+                        : SnapStartApplyOn.NONE)
+                .build();
         
         try {
             // get function if it exists
-            String functionArn = lambdaClient
+            FunctionConfiguration configuration = lambdaClient
                     .getFunction(GetFunctionRequest.builder()
                             .functionName(function.getCloudName()).build())
-                    .configuration().functionArn();
-
-            // update code
-            lambdaClient.updateFunctionCode(
-                    UpdateFunctionCodeRequest.builder().functionName(function.getCloudName())
-                            .s3Bucket(bucketName).s3Key(bucketKey).build());
+                    .configuration();
+            String functionArn = configuration.functionArn();
+
+            // update code, the architecture can only be changed together with the code
+            if (updateCode || !configuration.architectures().contains(architecture)) {
+                lambdaClient.updateFunctionCode(
+                        UpdateFunctionCodeRequest.builder().functionName(function.getCloudName())
+                                .s3Bucket(bucketName).s3Key(bucketKey)
+                                .architectures(architecture).build());
+            }
 
             // wait while code configuration is being updated
-            Thread.sleep(10000);
+            waitUntilUpdated(function.getCloudName());
 
             // update configuration
             lambdaClient.updateFunctionConfiguration(UpdateFunctionConfigurationRequest.builder()
                     .handler(handlerMethod)
                     .functionName(function.getCloudName())
-                    .runtime(Runtime.JAVA17)
+                    .runtime(runtime)
                     .role(lambdaRoleArn)
                     .timeout(timeout)
+                    .memorySize(memory)
+                    .snapStart(snapStart)
                     .build());
 
+            updateConcurrency(function);
+
             return functionArn;
 
         } catch (ResourceNotFoundException e) {
-            // create lambda
-            return lambdaClient.createFunction(CreateFunctionRequest.builder()
-                    .functionName(function.getCloudName())
-                    .packageType(PackageType.ZIP)
-                    .code(FunctionCode.builder()
-                        .s3Bucket(bucketName)
-                        .s3Key(bucketKey)
+            // create lambda, the execution role might not be assumable yet if just created
+            String functionArn = readiness.retry(function.getCloudName(),
+                    ex -> ex instanceof InvalidParameterValueException,
+                    () -> lambdaClient.createFunction(CreateFunctionRequest.builder()
+                        .functionName(function.getCloudName())
+                        .packageType(PackageType.ZIP)
+                        .code(FunctionCode.builder()
+                            .s3Bucket(bucketName)
+                            .s3Key(bucketKey)
+                            .build())
+                        .role(lambdaRoleArn)
+                        .handler(handlerMethod)
+                        .runtime(runtime)
+                        .architectures(architecture)
+                        .timeout(timeout)
+                        .memorySize(memory)
+                        .snapStart(snapStart)
                         .build())
-                    .role(lambdaRoleArn)
-                    .handler(handlerMethod)
-                    .runtime(Runtime.JAVA17)
-                    .architectures(Architecture.X86_64)
-                    .timeout(timeout)
-                    .build())
-                .functionArn();
+                    .functionArn());
+
+            // wait until the function can be configured and invoked
+            readiness.await(function.getCloudName(), () -> waiter.waitUntilFunctionActiveV2(
+                    GetFunctionRequest.builder().functionName(function.getCloudName()).build()));
+
+            updateConcurrency(function);
+
+            return functionArn;
+        }
+    }
+
+    /**
+     * Reserves the concurrency of the given function, or removes its reservation if the function
+     * does not cap its concurrency.
+     * 
+     * @param function
+     */
+    private void updateConcurrency(DeployableFunction function) {
+        if (function.getReservedConcurrency() < 0) {
+            lambdaClient.deleteFunctionConcurrency(DeleteFunctionConcurrencyRequest.builder()
+                    .functionName(function.getCloudName()).build());
+        } else {
+            lambdaClient.putFunctionConcurrency(PutFunctionConcurrencyRequest.builder()
+                    .functionName(function.getCloudName())
+                    .reservedConcurrentExecutions(function.getReservedConcurrency()).build());
+        }
+    }
+
+    /**
+     * Waits until the last update of the configuration or code of the given function is
+     * completed.
+     * 
+     * @param functionName
+     */
+    public void waitUntilUpdated(String functionName) {
+        readiness.await(functionName, () -> waiter.waitUntilFunctionUpdatedV2(
+                GetFunctionRequest.builder().functionName(functionName).build()));
+    }
+
+    /**
+     * Returns the ARN of the alias through which the given function is invoked, publishing a
+     * first version for it if the alias does not exist yet. Existing aliases are left unchanged.
+     * 
+     * @param functionName
+     * @return the arn of the alias
+     * @throws InterruptedException
+     */
+    public String getOrCreateAlias(String functionName) throws InterruptedException {
+        try {
+            return lambdaClient.getAlias(GetAliasRequest.builder().functionName(functionName)
+                    .name(DeploymentConstants.AWS_LAMBDA_ALIAS).build()).aliasArn();
+        } catch (ResourceNotFoundException e) {
+            return publishToAlias(functionName);
+        }
+    }
+
+    /**
+     * Publishes a version of the current code and configuration of the given function and points
+     * its alias to it. With SnapStart, the snapshot of the version is taken before it becomes
+     * active.
+     * 
+     * @param functionName
+     * @return the arn of the alias
+     * @throws InterruptedException
+     */
+    public String publishToAlias(String functionName) throws InterruptedException {
+        waitUntilUpdated(functionName);
+        String version = readiness.retry(functionName, e -> e instanceof ResourceConflictException,
+                () -> lambdaClient.publishVersion(
+                        PublishVersionRequest.builder().functionName(functionName).build())
+                        .version());
+
+        readiness.await(functionName, () -> waiter.waitUntilPublishedVersionActive(
+                GetFunctionConfigurationRequest.builder().functionName(functionName)
+                        .qualifier(version).build()));
+
+        String aliasArn;
+        try {
+            aliasArn = lambdaClient.updateAlias(UpdateAliasRequest.builder()
+                    .functionName(functionName).name(DeploymentConstants.AWS_LAMBDA_ALIAS)
+                    .functionVersion(version).build()).aliasArn();
+        } catch (ResourceNotFoundException e) {
+            aliasArn = lambdaClient.createAlias(CreateAliasRequest.builder()
+                    .functionName(functionName).name(DeploymentConstants.AWS_LAMBDA_ALIAS)
+                    .functionVersion(version).build()).aliasArn();
         }
+
+        LOG.info(String.format("%s: published version %s.", functionName, version));
+        return aliasArn;
     }
 
     /**
@@ -190,21 +357,23 @@ public class LambdaHelper {
      * the Lambda function url.
      * 
      * @param functionName
+     * @param qualifier alias the url invokes, or null for the unpublished function
      * @return function url
      */
-    public String getOrCreateFunctionUrl(String functionName) {
+    public String getOrCreateFunctionUrl(String functionName, String qualifier) {
         try {
-            return lambdaClient.getFunctionUrlConfig(
-                    GetFunctionUrlConfigRequest.builder().functionName(functionName).build())
+            return lambdaClient.getFunctionUrlConfig(GetFunctionUrlConfigRequest.builder()
+                    .functionName(functionName).qualifier(qualifier).build())
                     .functionUrl();
         } catch (ResourceNotFoundException e) {
             // create url for function
             String functionUrl = lambdaClient.createFunctionUrlConfig(CreateFunctionUrlConfigRequest
-                    .builder().functionName(functionName).authType(FunctionUrlAuthType.NONE)
-                    .build()).functionUrl();
+                    .builder().functionName(functionName).qualifier(qualifier)
+                    .authType(FunctionUrlAuthType.NONE).build()).functionUrl();
 
             // allow invocation of function
             lambdaClient.addPermission(AddPermissionRequest.builder().functionName(functionName)
+                    .qualifier(qualifier)
                     .functionUrlAuthType(FunctionUrlAuthType.NONE)
                     .action("lambda:InvokeFunctionUrl").principal("*")
                     .statementId("FunctionURLAllowPublicAccess").build());
@@ -235,19 +404,17 @@ public class LambdaHelper {
      * @throws InterruptedException 
      */
     public void addEnvVarsToFunction(String functionName, Map<String, String> envVars) throws InterruptedException {
-        int tries = 0;
-        while (tries < 3) {
-            try {
-                lambdaClient.updateFunctionConfiguration(
-                        UpdateFunctionConfigurationRequest.builder().functionName(functionName)
-                                .environment(Environment.builder().variables(envVars).build()).build());
-            } catch (ResourceConflictException e) {
-                tries++;
-                LOG.warn(String.format("lambda '%s' not ready for config update. Retrying in a while...", functionName));
-                Thread.sleep(20000 * (tries+1));
-                continue;
-            }
+        try {
+            waitUntilUpdated(functionName);
+            // another update might have started in the meantime
+            readiness.retry(functionName, e -> e instanceof ResourceConflictException,
+                    () -> lambdaClient.updateFunctionConfiguration(
+                            UpdateFunctionConfigurationRequest.builder().functionName(functionName)
+                                    .environment(Environment.builder().variables(envVars).build())
+                                    .build()));
             return;
+        } catch (ResourceConflictException e) {
+            LOG.warn(String.format("lambda '%s' not ready for config update.", functionName));
         }
 
         String filePath = Constants.DEPLOYMENT_DIR + "aws/" + functionName + "-envvars.txt";
@@ -263,48 +430,121 @@ public class LambdaHelper {
     }
 
     /**
-     * Adds the event mappings from the given list of source arns to the given
-     * function, skipping
-     * mappings that already exist.
+     * Adds the event mappings from the given queues to the given function, with the batching
+     * configuration of each queue. Mappings that already exist are updated.
      * 
      * @param functionName
-     * @param eventSourceArns list of arns of the event sources
+     * @param eventSources map {queue arn -> queue configuration} of the event sources
+     * @throws InterruptedException
      */
     public void addEventSourceMappingsToFunction(String functionName,
-            List<String> eventSourceArns) {
+            Map<String, Map<QueueConfigType, Object>> eventSources) throws InterruptedException {
 
-        List<String> existingMappings = lambdaClient
+        Map<String, String> existingMappings = lambdaClient
                 .listEventSourceMappings(
                         ListEventSourceMappingsRequest.builder().functionName(functionName).build())
-                .eventSourceMappings().stream().map(esm -> esm.eventSourceArn())
-                .collect(Collectors.toList());
-
-        for (String arn : new HashSet<>(eventSourceArns)) {
-            if (!existingMappings.contains(arn)) {
-                lambdaClient.createEventSourceMapping(CreateEventSourceMappingRequest.builder()
-                        .eventSourceArn(arn).functionName(functionName).build());
+                .eventSourceMappings().stream()
+                .collect(Collectors.toMap(esm -> esm.eventSourceArn(), esm -> esm.uuid(),
+                        (a, b) -> a));
+
+        for (Map.Entry<String, Map<QueueConfigType, Object>> source : eventSources.entrySet()) {
+            String arn = source.getKey();
+            Map<QueueConfigType, Object> config = source.getValue();
+            int batchSize = (int) config.getOrDefault(QueueConfigType.BATCH_SIZE,
+                    DeploymentConstants.AWS_SQS_BATCH_SIZE);
+            // mappings of FIFO queues do not support a batching window
+            Integer batchWindow = arn.endsWith(".fifo")
+                    ? null
+                    : (Integer) config.getOrDefault(QueueConfigType.BATCH_WINDOW_SECONDS,
+                            DeploymentConstants.AWS_SQS_BATCH_WINDOW_SECONDS);
+            // the handlers return the failed messages, they are ignored unless reported
+            List<FunctionResponseType> responseTypes =
+                    Boolean.FALSE.equals(config.get(QueueConfigType.REPORT_BATCH_ITEM_FAILURES))
+                            ? List.of()
+                            : List.of(FunctionResponseType.REPORT_BATCH_ITEM_FAILURES);
+
+            String uuid = existingMappings.get(arn);
+            if (uuid == null) {
+                // fails until the permissions to read from the source reach the execution role
+                readiness.retry(functionName, e -> e instanceof InvalidParameterValueException,
+                        () -> lambdaClient.createEventSourceMapping(
+                                CreateEventSourceMappingRequest.builder().eventSourceArn(arn)
+                                        .functionName(functionName).batchSize(batchSize)
+                                        .maximumBatchingWindowInSeconds(batchWindow)
+                                        .functionResponseTypes(responseTypes).build()));
+            } else {
+                // fails while a previous change of the mapping is in progress
+                readiness.retry(functionName, e -> e instanceof ResourceInUseException,
+                        () -> lambdaClient.updateEventSourceMapping(
+                                UpdateEventSourceMappingRequest.builder().uuid(uuid)
+                                        .functionName(functionName).batchSize(batchSize)
+                                        .maximumBatchingWindowInSeconds(batchWindow)
+                                        .functionResponseTypes(responseTypes).build()));
             }
         }
 
     }
 
+    /**
+     * Deletes the event mappings from the given queues to the given function, if any. Used when
+     * mappings move between the function and its alias, so that a queue is not consumed twice.
+     * 
+     * @param functionName name of the function, qualified with an alias or not
+     * @param eventSourceArns arns of the queues
+     * @throws InterruptedException
+     */
+    public void deleteEventSourceMappings(String functionName, Collection<String> eventSourceArns)
+            throws InterruptedException {
+        List<EventSourceMappingConfiguration> mappings;
+        try {
+            mappings = lambdaClient.listEventSourceMappings(
+                    ListEventSourceMappingsRequest.builder().functionName(functionName).build())
+                    .eventSourceMappings();
+        } catch (ResourceNotFoundException e) {
+            // the alias does not exist yet
+            return;
+        }
+
+        for (EventSourceMappingConfiguration esm : mappings) {
+            // only mappings of this exact qualifier
+            if (!eventSourceArns.contains(esm.eventSourceArn())
+                    || !esm.functionArn().endsWith(":" + functionName))
+                continue;
+
+            LOG.info(String.format("Deleting event source mapping of '%s' from %s.", functionName,
+                    esm.eventSourceArn()));
+            // fails while a previous change of the mapping is in progress
+            readiness.retry(functionName, e -> e instanceof ResourceInUseException,
+                    () -> lambdaClient.deleteEventSourceMapping(
+                            DeleteEventSourceMappingRequest.builder().uuid(esm.uuid()).build()));
+        }
+    }
+
     /**
      * Updates the configuration of the given Lambda by adding the given list of
      * subnet ids.
      * 
      * @param cloudFunctionName
      * @param subnetIds
+     * @throws InterruptedException
      */
     public void updateConfigWithSubnetGroups(String cloudFunctionName, List<String> subnetIds,
-            List<String> securityGroupIds) {
-        lambdaClient
-                .updateFunctionConfiguration(UpdateFunctionConfigurationRequest.builder()
-                        .functionName(cloudFunctionName).vpcConfig(VpcConfig.builder()
-                                .subnetIds(subnetIds).securityGroupIds(securityGroupIds).build())
-                        .build());
+            List<String> securityGroupIds) throws InterruptedException {
+        waitUntilUpdated(cloudFunctionName);
+        // fails until the permissions to join the vpc reach the execution role
+        readiness.retry(cloudFunctionName,
+                e -> e instanceof InvalidParameterValueException || e instanceof ResourceConflictException,
+                () -> lambdaClient
+                        .updateFunctionConfiguration(UpdateFunctionConfigurationRequest.builder()
+                                .functionName(cloudFunctionName).vpcConfig(VpcConfig.builder()
+                                        .subnetIds(subnetIds).securityGroupIds(securityGroupIds).build())
+                                .build()));
+        // attaching network interfaces takes a while
+        waitUntilUpdated(cloudFunctionName);
     }
 
     public void close() {
+        waiter.close();
         lambdaClient.close();
         s3Client.close();
     }
@@ -18,44 +18,71 @@ import software.amazon.awssdk.services.ec2.model.CreateSubnetResponse;
 import software.amazon.awssdk.services.ec2.model.CreateVpcRequest;
 import software.amazon.awssdk.services.ec2.model.CreateVpcResponse;
 import software.amazon.awssdk.services.rds.RdsClient;
+import software.amazon.awssdk.services.rds.model.AuthScheme;
+import software.amazon.awssdk.services.rds.model.ConnectionPoolConfiguration;
+import software.amazon.awssdk.services.rds.model.CreateDbInstanceReadReplicaRequest;
 import software.amazon.awssdk.services.rds.model.CreateDbInstanceRequest;
 import software.amazon.awssdk.services.rds.model.CreateDbInstanceResponse;
+import software.amazon.awssdk.services.rds.model.CreateDbProxyRequest;
 import software.amazon.awssdk.services.rds.model.CreateDbSubnetGroupRequest;
 import software.amazon.awssdk.services.rds.model.DBInstance;
+import software.amazon.awssdk.services.rds.model.DBProxy;
 import software.amazon.awssdk.services.rds.model.DbInstanceNotFoundException;
+import software.amazon.awssdk.services.rds.model.DbProxyNotFoundException;
+import software.amazon.awssdk.services.rds.model.DbProxyStatus;
 import software.amazon.awssdk.services.rds.model.DbSubnetGroupNotFoundException;
 import software.amazon.awssdk.services.rds.model.DescribeDbInstancesRequest;
 import software.amazon.awssdk.services.rds.model.DescribeDbInstancesResponse;
+import software.amazon.awssdk.services.rds.model.DescribeDbProxiesRequest;
 import software.amazon.awssdk.services.rds.model.DescribeDbSubnetGroupsRequest;
 import software.amazon.awssdk.services.rds.model.DescribeDbSubnetGroupsResponse;
+import software.amazon.awssdk.services.rds.model.EngineFamily;
+import software.amazon.awssdk.services.rds.model.IAMAuthMode;
+import software.amazon.awssdk.services.rds.model.ModifyDbProxyTargetGroupRequest;
+import software.amazon.awssdk.services.rds.model.RegisterDbProxyTargetsRequest;
+import software.amazon.awssdk.services.rds.model.UserAuthConfig;
 import software.amazon.awssdk.services.rds.model.VpcSecurityGroupMembership;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.model.CreateSecretRequest;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretRequest;
+import software.amazon.awssdk.services.secretsmanager.model.PutSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.ResourceNotFoundException;
 
 public class RdsHelper {
     static final Logger LOG = LoggerFactory.getLogger("Deployment (AWS)");
 
     final RdsClient rdsClient;
     final Ec2Client vpcClient;
+    final SecretsManagerClient secretsClient;
+    // ids of the subnets of the default subnet group, once checked or created
+    private List<String> subnetIds;
 
     public RdsHelper() {
         rdsClient = RdsClient.builder().httpClientBuilder(ApacheHttpClient.builder()).build();
         vpcClient = Ec2Client.builder().httpClientBuilder(ApacheHttpClient.builder()).build();
+        secretsClient = SecretsManagerClient.builder().httpClientBuilder(ApacheHttpClient.builder()).build();
     }
 
     /**
      * Checks whether the default subnet group exists, and creates it otherwise. In that case, it
-     * also creates a private vpc and two subnets.
+     * also creates a private vpc and two subnets. Synchronized, as databases are deployed
+     * concurrently and must not create the subnet group more than once.
      * 
      * @return ids of the subnets
      */
-    public List<String> createSubnetGroupIfNotExisting() {
+    public synchronized List<String> createSubnetGroupIfNotExisting() {
+        if (subnetIds != null)
+            return subnetIds;
+
         // check if subnet group exists
         try {
             DescribeDbSubnetGroupsResponse resp =
                     rdsClient.describeDBSubnetGroups(DescribeDbSubnetGroupsRequest.builder()
                             .dbSubnetGroupName(DeploymentConstants.AWS_DB_SUBNET_GROUP).build());
 
-            return resp.dbSubnetGroups().get(0).subnets().stream()
+            subnetIds = resp.dbSubnetGroups().get(0).subnets().stream()
                     .map(subnet -> subnet.subnetIdentifier()).collect(Collectors.toList());
+            return subnetIds;
         } catch (DbSubnetGroupNotFoundException e) {
             // create vpc and subnets
             CreateVpcResponse vpcResp = vpcClient.createVpc(CreateVpcRequest.builder()
@@ -69,15 +96,16 @@ public class RdsHelper {
                     .cidrBlock(DeploymentConstants.AWS_DB_SUBNET_TWO_CIDR)
                     .vpcId(vpcResp.vpc().vpcId()).build());
 
-            List<String> subnetIds =
+            List<String> ids =
                     List.of(subnetResp1.subnet().subnetId(), subnetResp2.subnet().subnetId());
 
             // create subnet group
             rdsClient.createDBSubnetGroup(CreateDbSubnetGroupRequest.builder()
                     .dbSubnetGroupName(DeploymentConstants.AWS_DB_SUBNET_GROUP)
                     .dbSubnetGroupDescription(DeploymentConstants.AWS_DB_SUBNET_GROUP_DESC)
-                    .subnetIds(subnetIds).build());
+                    .subnetIds(ids).build());
 
+            subnetIds = ids;
             return subnetIds;
         }
     }
@@ -128,6 +156,135 @@ public class RdsHelper {
         return result;
     }
 
+    /**
+     * Checks whether the read replicas of the given database already exist, and creates the
+     * missing ones. Returns the endpoint addresses of the replicas.
+     * 
+     * @param db
+     * @return the endpoint addresses of the replicas, empty if the database has none
+     * @throws InterruptedException
+     */
+    public List<String> createReadReplicasIfNotExisting(DeployableDatabase db) throws InterruptedException {
+        List<String> created = new ArrayList<>();
+        List<String> endpoints = new ArrayList<>();
+        String instanceClass = null;
+
+        for (int i = 1; i <= db.getReadReplicas(); i++) {
+            String replicaName = db.getCloudName() + "-replica-" + i;
+            try {
+                DescribeDbInstancesResponse response =
+                        rdsClient.describeDBInstances(DescribeDbInstancesRequest.builder()
+                                .dbInstanceIdentifier(replicaName).build());
+                endpoints.add(response.dbInstances().get(0).endpoint().address());
+
+                LOG.info(String.format("Read replica '%s' already exists, skipping provisioning.",
+                        replicaName));
+            } catch (DbInstanceNotFoundException e) {
+                // replicas serve the same reads as their source, use the same instance class
+                if (instanceClass == null)
+                    instanceClass = rdsClient.describeDBInstances(DescribeDbInstancesRequest.builder()
+                            .dbInstanceIdentifier(db.getCloudName()).build())
+                            .dbInstances().get(0).dbInstanceClass();
+
+                // replicas share the subnet group and security groups of their source
+                rdsClient.createDBInstanceReadReplica(CreateDbInstanceReadReplicaRequest.builder()
+                        .dbInstanceIdentifier(replicaName)
+                        .sourceDBInstanceIdentifier(db.getCloudName())
+                        .dbInstanceClass(instanceClass).build());
+                created.add(replicaName);
+            }
+        }
+
+        // replicas are created concurrently, then waited for
+        for (String replicaName : created) {
+            endpoints.add(waitForDatabaseAvailability(replicaName));
+        }
+
+        return endpoints;
+    }
+
+    /**
+     * Returns the arn of the secret holding the credentials of the root user of the given
+     * database, creating it if it doesn't exist and updating its credentials otherwise. RDS Proxy
+     * reads the credentials it connects with from this secret.
+     * 
+     * @param db
+     * @return the arn of the secret
+     */
+    public String getOrCreateCredentialsSecret(DeployableDatabase db) {
+        String secretName = DeploymentConstants.AWS_DB_SECRET_PREFIX + db.getCloudName();
+        String credentials = String.format("{\"username\":\"%s\",\"password\":\"%s\"}",
+                jsonEscape(db.getUsername()), jsonEscape(db.getPassword()));
+        try {
+            String arn = secretsClient.describeSecret(DescribeSecretRequest.builder()
+                    .secretId(secretName).build()).arn();
+            // the password may have changed since the secret was created
+            secretsClient.putSecretValue(PutSecretValueRequest.builder()
+                    .secretId(secretName)
+                    .secretString(credentials).build());
+            return arn;
+        } catch (ResourceNotFoundException e) {
+            return secretsClient.createSecret(CreateSecretRequest.builder()
+                    .name(secretName)
+                    .description("Credentials of database " + db.getName())
+                    .secretString(credentials).build()).arn();
+        }
+    }
+
+    /**
+     * Checks whether the connection proxy of the given database already exists. If it is not the
+     * case, it creates a proxy in the subnets of the database and registers the database as its
+     * target. Returns the endpoint address of the proxy.
+     * 
+     * @param db
+     * @param secretArn        arn of the secret holding the credentials of the database
+     * @param roleArn          arn of the role allowing the proxy to read the secret
+     * @param subnetIds        subnets of the database
+     * @param securityGroupIds security groups of the database
+     * @return the endpoint address of the proxy
+     * @throws InterruptedException
+     */
+    public String createProxyIfNotExisting(DeployableDatabase db, String secretArn, String roleArn,
+            List<String> subnetIds, List<String> securityGroupIds) throws InterruptedException {
+        String proxyName = db.getCloudName() + "-proxy";
+        try {
+            rdsClient.describeDBProxies(DescribeDbProxiesRequest.builder()
+                    .dbProxyName(proxyName).build());
+
+            LOG.info(String.format("Proxy of database '%s' already exists, skipping provisioning.",
+                    db.getName()));
+            // the proxy may still be creating or modifying from a previous run
+            return waitForProxyAvailability(proxyName);
+        } catch (DbProxyNotFoundException e) {
+            rdsClient.createDBProxy(CreateDbProxyRequest.builder()
+                    .dbProxyName(proxyName)
+                    .engineFamily(EngineFamily.POSTGRESQL)
+                    .auth(UserAuthConfig.builder()
+                            .authScheme(AuthScheme.SECRETS)
+                            .secretArn(secretArn)
+                            .iamAuth(IAMAuthMode.DISABLED).build())
+                    .roleArn(roleArn)
+                    .vpcSubnetIds(subnetIds)
+                    .vpcSecurityGroupIds(securityGroupIds)
+                    .requireTLS(true).build());
+
+            // keep a share of the database connections for direct access (e.g. migrations)
+            rdsClient.modifyDBProxyTargetGroup(ModifyDbProxyTargetGroupRequest.builder()
+                    .dbProxyName(proxyName)
+                    .targetGroupName("default")
+                    .connectionPoolConfig(ConnectionPoolConfiguration.builder()
+                            .maxConnectionsPercent(DeploymentConstants.AWS_DB_PROXY_MAX_CONNECTIONS_PERCENT)
+                            .build()).build());
+
+            rdsClient.registerDBProxyTargets(RegisterDbProxyTargetsRequest.builder()
+                    .dbProxyName(proxyName)
+                    .targetGroupName("default")
+                    .dbInstanceIdentifiers(db.getCloudName()).build());
+
+            return waitForProxyAvailability(proxyName);
+        }
+    }
+
     /**
      * Returns access roles to the given database
      * 
@@ -181,8 +338,32 @@ public class RdsHelper {
         return dbEndpoint;
     }
 
+    /**
+     * Regularly polls the proxy until its status is available, then returns its endpoint.
+     * 
+     * @param proxyName
+     * @return the proxy endpoint
+     * @throws InterruptedException
+     */
+    private String waitForProxyAvailability(String proxyName) throws InterruptedException {
+        DescribeDbProxiesRequest request =
+                DescribeDbProxiesRequest.builder().dbProxyName(proxyName).build();
+
+        while (true) {
+            DBProxy proxy = rdsClient.describeDBProxies(request).dbProxies().get(0);
+            if (proxy.status() == DbProxyStatus.AVAILABLE)
+                return proxy.endpoint();
+            Thread.sleep(20000);
+        }
+    }
+
+    private static String jsonEscape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
     public void close() {
         rdsClient.close();
         vpcClient.close();
+        secretsClient.close();
     }
 }
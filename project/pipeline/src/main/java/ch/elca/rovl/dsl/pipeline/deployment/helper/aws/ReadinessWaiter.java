@@ -0,0 +1,107 @@
+package ch.elca.rovl.dsl.pipeline.deployment.helper.aws;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Waits for AWS resources to be ready for the next deployment step by polling their actual state
+ * with exponential backoff, instead of sleeping for a fixed time. The time spent waiting is
+ * recorded for each resource.
+ */
+public class ReadinessWaiter {
+    static final Logger LOG = LoggerFactory.getLogger("Deployment (AWS)");
+
+    final long initialDelayMillis;
+    final long maxDelayMillis;
+    final long timeoutMillis;
+    final Map<String, Long> waitedMillis;
+
+    public ReadinessWaiter() {
+        this(Duration.ofMillis(500), Duration.ofSeconds(10), Duration.ofMinutes(3));
+    }
+
+    public ReadinessWaiter(Duration initialDelay, Duration maxDelay, Duration timeout) {
+        this.initialDelayMillis = initialDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.timeoutMillis = timeout.toMillis();
+        this.waitedMillis = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Runs the given call, retrying it with backoff as long as it fails with an exception telling
+     * that the resource is not ready yet.
+     *
+     * @param <T>
+     * @param resource name of the resource waited for
+     * @param notReady returns true for exceptions thrown while the resource is not ready
+     * @param call     call to run
+     * @return result of the call
+     * @throws InterruptedException
+     */
+    public <T> T retry(String resource, Predicate<RuntimeException> notReady, Supplier<T> call)
+            throws InterruptedException {
+        long start = System.currentTimeMillis();
+        long delay = initialDelayMillis;
+        boolean waited = false;
+
+        try {
+            while (true) {
+                try {
+                    return call.get();
+                } catch (RuntimeException e) {
+                    long elapsed = System.currentTimeMillis() - start;
+                    if (!notReady.test(e) || elapsed + delay > timeoutMillis)
+                        throw e;
+
+                    LOG.debug(String.format("%s: not ready (%s), retrying in %d ms.", resource,
+                            e.getMessage(), delay));
+                }
+
+                // jitter, so that concurrent deployments do not poll in lockstep
+                waited = true;
+                Thread.sleep(ThreadLocalRandom.current().nextLong(delay / 2, delay + 1));
+                delay = Math.min(delay * 2, maxDelayMillis);
+            }
+        } finally {
+            // only the time spent on retries counts as waiting
+            if (waited)
+                record(resource, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Runs a blocking wait, such as an SDK waiter, and records its duration.
+     *
+     * @param resource name of the resource waited for
+     * @param wait     blocking wait
+     */
+    public void await(String resource, Runnable wait) {
+        long start = System.currentTimeMillis();
+        try {
+            wait.run();
+        } finally {
+            record(resource, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Returns the total time spent waiting for each resource.
+     */
+    public Map<String, Duration> getWaitTimes() {
+        Map<String, Duration> waitTimes = new HashMap<>();
+        waitedMillis.forEach((resource, millis) -> waitTimes.put(resource, Duration.ofMillis(millis)));
+        return waitTimes;
+    }
+
+    private void record(String resource, long millis) {
+        waitedMillis.merge(resource, millis, Long::sum);
+    }
+}
@@ -1,5 +1,7 @@
 package ch.elca.rovl.dsl.pipeline.deployment.helper.azure;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -15,6 +17,7 @@ import com.azure.resourcemanager.postgresqlflexibleserver.models.ActiveDirectory
 import com.azure.resourcemanager.postgresqlflexibleserver.models.AuthConfig;
 import com.azure.resourcemanager.postgresqlflexibleserver.models.Backup;
 import com.azure.resourcemanager.postgresqlflexibleserver.models.CheckNameAvailabilityRequest;
+import com.azure.resourcemanager.postgresqlflexibleserver.models.Configuration;
 import com.azure.resourcemanager.postgresqlflexibleserver.models.CreateMode;
 import com.azure.resourcemanager.postgresqlflexibleserver.models.Database;
 import com.azure.resourcemanager.postgresqlflexibleserver.models.GeoRedundantBackupEnum;
@@ -135,8 +138,6 @@ public class FlexibleServerHelper {
                 default:
                     throw new IllegalArgumentException("Database workload type not supported: " + type);
             }
-            serverCreate = serverCreate.withSku(
-                new Sku().withName("Standard_B1ms").withTier(SkuTier.BURSTABLE));
         }
 
         // size config
@@ -166,6 +167,83 @@ public class FlexibleServerHelper {
         return server;
     }
 
+    /**
+     * Creates the read replicas of the given database, or retrieves them if already existing.
+     * Returns the domain names of the replicas.
+     * 
+     * @param server primary server of the database
+     * @param db
+     * @return the domain names of the replicas, empty if the database has none
+     */
+    public List<String> getOrCreateReplicas(Server server, DeployableDatabase db) {
+        List<String> endpoints = new ArrayList<>();
+        if (db.getReadReplicas() == 0)
+            return endpoints;
+
+        // burstable servers cannot be replicated
+        if (server.sku().tier() == SkuTier.BURSTABLE)
+            throw new IllegalStateException(String.format(
+                "Database '%s' has read replicas, which require a workload other than DEV on Azure.",
+                db.getName()));
+
+        for (int i = 1; i <= db.getReadReplicas(); i++) {
+            String replicaName = db.getCloudName() + "-replica-" + i;
+            Server replica;
+            try {
+                replica = client.servers().getByResourceGroup(
+                    DeploymentConstants.AZURE_DEFAULT_RESOURCE_GROUP, replicaName);
+                LOG.info(String.format("Read replica '%s' already exists. Skipping deployment.", replicaName));
+            } catch (ManagementException e) {
+                // the replica inherits sku, storage, credentials and databases of its source
+                replica = client.servers()
+                    .define(replicaName)
+                    .withRegion(server.regionName())
+                    .withExistingResourceGroup(DeploymentConstants.AZURE_DEFAULT_RESOURCE_GROUP)
+                    .withCreateMode(CreateMode.REPLICA)
+                    .withSourceServerResourceId(server.id())
+                    .create();
+
+                client.firewallRules().define("openaccess-" + replicaName)
+                    .withExistingFlexibleServer(DeploymentConstants.AZURE_DEFAULT_RESOURCE_GROUP, replica.name())
+                    .withStartIpAddress("0.0.0.0")
+                    .withEndIpAddress("255.255.255.255")
+                    .create();
+            }
+            endpoints.add(replica.fullyQualifiedDomainName());
+        }
+
+        return endpoints;
+    }
+
+    /**
+     * Enables the PgBouncer built into the given server, if not already enabled. Returns the port
+     * PgBouncer listens on.
+     * 
+     * @param server server of the database
+     * @param db
+     * @return the port of PgBouncer
+     */
+    public int enablePgBouncer(Server server, DeployableDatabase db) {
+        // burstable servers do not support pgbouncer
+        if (server.sku().tier() == SkuTier.BURSTABLE)
+            throw new IllegalStateException(String.format(
+                "Database '%s' has a connection proxy, which requires a workload other than DEV on Azure.",
+                db.getName()));
+
+        Configuration pgBouncer = client.configurations().get(
+            DeploymentConstants.AZURE_DEFAULT_RESOURCE_GROUP, server.name(), "pgbouncer.enabled");
+        if (!"true".equalsIgnoreCase(pgBouncer.value())) {
+            pgBouncer.update()
+                .withValue("true")
+                .withSource("user-override")
+                .apply();
+        } else {
+            LOG.info(String.format("PgBouncer of database '%s' already enabled.", db.getName()));
+        }
+
+        return DeploymentConstants.AZURE_PGBOUNCER_PORT;
+    }
+
     /**
      * Creates a database with the given name in the given server, or retrieves the 
      * database if it already exists.
@@ -1,52 +1,49 @@
 package ch.elca.rovl.dsl.pipeline.deployment.helper.azure;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 
+import com.azure.core.management.exception.ManagementException;
 import com.azure.resourcemanager.appservice.models.FunctionApp;
 import com.azure.resourcemanager.appservice.models.FunctionApps;
 import ch.elca.rovl.dsl.pipeline.deployment.DeploymentConstants;
-import ch.elca.rovl.dsl.pipeline.util.Constants;
+import ch.elca.rovl.dsl.pipeline.util.BuildExecutor;
 
 public class FunctionAppHelper {
     final FunctionApps client;
-    final String deployCmd = " & mvn clean package & mvn azure-functions:deploy";
 
     public FunctionAppHelper(FunctionApps functionApps) {
         this.client = functionApps;
-
-        // create log dir if it dosen't exist
-        File logDirectory = new File(Constants.LOGS_DIR);
-        if (!logDirectory.exists()) {
-            logDirectory.mkdirs();
-        }
     }
 
     /**
-     * Deploys the function to azure, reusing its FunctionApp if it already exists.
+     * Deploys the function to azure, reusing its FunctionApp if it already exists. The function
+     * project must already be packaged.
      * NOTE: uses maven azure-functions plugin instead of sdk
      * 
      * @param pathToFunctionDir path to the root directory of the Azure Function project
      * @param functionName
+     * @throws IOException
+     * @throws InterruptedException
      */
-    public void deployFunction(String pathToFunctionDir, String functionName) {
-        Process p;
-        int cmdResult;
-        try {
-            ProcessBuilder pb = new ProcessBuilder(
-                "cmd", "/c", "cd " + pathToFunctionDir, deployCmd);
-            pb.redirectOutput(new File(Constants.LOGS_DIR + "deployment-" + functionName + ".txt"));
+    public void deployFunction(String pathToFunctionDir, String functionName)
+            throws IOException, InterruptedException {
+        BuildExecutor.get().run("deployment-" + functionName, pathToFunctionDir,
+                "azure-functions:deploy");
+    }
 
-            p = pb.start();
-            cmdResult = p.waitFor();
-            if (cmdResult != 0) {
-                throw new Error("Maven archetype generation for azure-functions failed.");
-            }
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
-            throw new RuntimeException(String.format(
-                "Failed to run deployment command for function '%s'", functionName));
+    /**
+     * Tells whether a FunctionApp with the given name exists.
+     * @param functionAppName
+     * @return true if the FunctionApp exists
+     */
+    public boolean functionAppExists(String functionAppName) {
+        try {
+            return getFunctionApp(functionAppName) != null;
+        } catch (ManagementException e) {
+            if (e.getResponse().getStatusCode() != 404)
+                throw e;
+            return false;
         }
     }
 
@@ -0,0 +1,82 @@
+package ch.elca.rovl.dsl.pipeline.deployment.helper.azure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.azure.core.management.exception.ManagementException;
+import com.azure.resourcemanager.AzureResourceManager;
+import com.azure.resourcemanager.storage.models.BlobContainers;
+import com.azure.resourcemanager.storage.models.PublicAccess;
+import com.azure.resourcemanager.storage.models.StorageAccount;
+import com.azure.resourcemanager.storage.models.StorageAccounts;
+
+import ch.elca.rovl.dsl.pipeline.deployment.DeploymentConstants;
+
+public class StorageHelper {
+    static final Logger LOG = LoggerFactory.getLogger("Deployment (Azure)");
+
+    final StorageAccounts accounts;
+    final BlobContainers containers;
+
+    public StorageHelper(AzureResourceManager manager) {
+        this.accounts = manager.storageAccounts();
+        this.containers = manager.storageBlobContainers();
+    }
+
+    /**
+     * Creates a storage account with the given name in the default resource group and region, or
+     * retrieves it if already existing.
+     *
+     * @param accountName
+     * @return the storage account
+     */
+    public StorageAccount getOrCreateAccount(String accountName) {
+        try {
+            return accounts.getByResourceGroup(DeploymentConstants.AZURE_DEFAULT_RESOURCE_GROUP,
+                    accountName);
+        } catch (ManagementException e) {
+            if (e.getResponse().getStatusCode() != 404)
+                throw e;
+        }
+
+        return accounts.define(accountName).withRegion(DeploymentConstants.AZURE_DEFAULT_REGION)
+                .withExistingResourceGroup(DeploymentConstants.AZURE_DEFAULT_RESOURCE_GROUP)
+                .create();
+    }
+
+    /**
+     * Creates a private blob container with the given name in the given storage account if it
+     * does not already exist.
+     *
+     * @param account
+     * @param containerName
+     */
+    public void createContainerIfMissing(StorageAccount account, String containerName) {
+        try {
+            containers.get(DeploymentConstants.AZURE_DEFAULT_RESOURCE_GROUP, account.name(),
+                    containerName);
+
+            LOG.info(String.format("Container '%s' already exists, skipping provisioning.",
+                    containerName));
+        } catch (ManagementException e) {
+            if (e.getResponse().getStatusCode() == 404) {
+                containers.defineContainer(containerName).withExistingStorageAccount(account)
+                        .withPublicAccess(PublicAccess.NONE).create();
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the connection string of the given storage account, using its primary key.
+     *
+     * @param account
+     * @return connection string
+     */
+    public String getConnectionString(StorageAccount account) {
+        return String.format(
+                "DefaultEndpointsProtocol=https;AccountName=%s;AccountKey=%s;EndpointSuffix=core.windows.net",
+                account.name(), account.getKeys().get(0).value());
+    }
+}
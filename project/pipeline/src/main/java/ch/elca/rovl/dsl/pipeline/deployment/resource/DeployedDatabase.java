@@ -1,5 +1,8 @@
 package ch.elca.rovl.dsl.pipeline.deployment.resource;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import ch.elca.rovl.dsl.pipeline.deployment.accessinfo.database.DatabaseAccess;
 import ch.elca.rovl.dsl.pipeline.deployment.accessinfo.database.DatabaseRole;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableDatabase;
@@ -10,11 +13,17 @@ import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableDatabase;
  */
 public class DeployedDatabase extends DeployedResource {
 
+    public static final int POSTGRES_PORT = 5432;
+
     final String endpoint;
+    final List<String> replicaEndpoints;
+    String proxyEndpoint;
+    int proxyPort = POSTGRES_PORT;
 
     public DeployedDatabase(DeployableDatabase db, String endpoint) {
         super(db);
         this.endpoint = endpoint;
+        this.replicaEndpoints = new ArrayList<>();
     }
 
     public DeployableDatabase getDatabase() {
@@ -25,6 +34,64 @@ public class DeployedDatabase extends DeployedResource {
         return endpoint;
     }
 
+    public void addReplicaEndpoints(List<String> endpoints) {
+        replicaEndpoints.addAll(endpoints);
+    }
+
+    /**
+     * Endpoint urls of the read replicas of the database, empty if it has none.
+     */
+    public List<String> getReplicaEndpoints() {
+        return replicaEndpoints;
+    }
+
+    /**
+     * Sets the connection proxy in front of the database, used by the functions instead of the
+     * database endpoint.
+     * 
+     * @param endpoint endpoint address of the proxy
+     * @param port     port of the proxy
+     */
+    public void setProxy(String endpoint, int port) {
+        this.proxyEndpoint = endpoint;
+        this.proxyPort = port;
+    }
+
+    /**
+     * Endpoint address of the connection proxy, or null if the database has none.
+     */
+    public String getProxyEndpoint() {
+        return proxyEndpoint;
+    }
+
+    public int getProxyPort() {
+        return proxyPort;
+    }
+
+    /**
+     * JDBC url used by functions to connect to the database, through its proxy if it has one.
+     */
+    public String getJdbcUrl() {
+        if (proxyEndpoint != null)
+            return jdbcUrl(proxyEndpoint, proxyPort);
+        return jdbcUrl(endpoint, POSTGRES_PORT);
+    }
+
+    /**
+     * JDBC urls of the read replicas of the database, empty if it has none.
+     */
+    public List<String> getReplicaJdbcUrls() {
+        List<String> urls = new ArrayList<>();
+        for (String replica : replicaEndpoints) {
+            urls.add(jdbcUrl(replica, POSTGRES_PORT));
+        }
+        return urls;
+    }
+
+    private String jdbcUrl(String host, int port) {
+        return String.format("jdbc:postgresql://%s:%d/%s", host, port, getName());
+    }
+
     public DatabaseRole getSuperUser() {
         return ((DatabaseAccess) accessInfo).superuser();
     }
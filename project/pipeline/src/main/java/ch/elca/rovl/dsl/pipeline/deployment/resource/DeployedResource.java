@@ -1,5 +1,7 @@
 package ch.elca.rovl.dsl.pipeline.deployment.resource;
 
+import java.time.Duration;
+
 import ch.elca.rovl.dsl.pipeline.deployment.accessinfo.AccessInfo;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableResource;
 import ch.elca.rovl.dsl.pipeline.util.Provider;
@@ -11,6 +13,7 @@ import ch.elca.rovl.dsl.pipeline.util.Provider;
 public abstract class DeployedResource {
     final DeployableResource deployableResource;
     AccessInfo accessInfo;
+    Duration readinessWait = Duration.ZERO;
 
     DeployedResource(DeployableResource deployableResource) {
         this.deployableResource = deployableResource;
@@ -28,6 +31,10 @@ public abstract class DeployedResource {
         return deployableResource.getProvider();
     }
 
+    public void setReadinessWait(Duration wait) {
+        this.readinessWait = wait;
+    }
+
     public AccessInfo getAccessInfo() {
         return accessInfo;
     }
@@ -35,4 +42,11 @@ public abstract class DeployedResource {
     public String getCloudName() {
         return deployableResource.getCloudName();
     }
+
+    /**
+     * Returns the time the deployment spent waiting for this resource to become ready.
+     */
+    public Duration getReadinessWait() {
+        return readinessWait;
+    }
 }
@@ -1,6 +1,5 @@
 package ch.elca.rovl.dsl.pipeline.linking;
 
-import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -8,17 +7,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
-
-import org.apache.commons.io.FileUtils;
-import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
-import org.apache.velocity.runtime.RuntimeConstants;
-import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,10 +45,6 @@ public final class LinkerEngine {
     final List<Link> links;
     final FunctionConnections connections;
     final Map<String, LinkedResource> linkedResources;
-    List<String> execPlugin;
-
-    final VelocityEngine engine;
-    final VelocityContext context;
 
     // NOTE when number of supported resources grows, just pass a single map {name
     // -> dslresource}
@@ -78,10 +63,11 @@ public final class LinkerEngine {
      *                       parsed at the
      *                       previous pipeline step
      * @throws URISyntaxException if {@code providersFile} is not a valid URI
+     * @throws IOException if the link deduction cache cannot be created
      */
     public LinkerEngine(String providersFile, Map<String, DslFunction> nameToFunction,
             Map<String, DslQueue> nameToQueue, Map<String, DslDatabase> nameToDatabase)
-            throws URISyntaxException {
+            throws URISyntaxException, IOException {
         this.providerParser = new ProviderParser(providersFile);
         this.nameToFunction = nameToFunction;
         this.nameToQueue = nameToQueue;
@@ -90,106 +76,26 @@ public final class LinkerEngine {
         this.links = Collections.synchronizedList(new ArrayList<>());
         this.linkedResources = new HashMap<>();
 
-        // init templating engine for deduction
-        engine = new VelocityEngine();
-        engine.setProperty(RuntimeConstants.RESOURCE_LOADERS, "classpath");
-        engine.setProperty("resource.loader.classpath.class",
-                ClasspathResourceLoader.class.getName());
-        engine.init();
-        context = new VelocityContext();
-
         // init helper
-        this.deducerHelper = new DeducerHelper(context, engine);
+        this.deducerHelper = new DeducerHelper();
     }
 
     /**
      * Deduces the links between resources from the project code of the functions.
      * 
      * @throws IOException
+     * @throws IllegalStateException if the endpoints of a function cannot be deduced
      */
     public void deduceLinks() throws IOException {
-        // create temp folder
-        File tmp = new File(LinkingConstants.DEDUCTION_LOGS_DIR);
-        if (tmp.exists()) {
-            // clean
-            FileUtils.cleanDirectory(tmp);
-        } else {
-            // create
-            FileUtils.forceMkdir(tmp);
-        }
-
-        // parallel exec of link deduction
-        ExecutorService executor = Executors.newCachedThreadPool();
-        Map<Future<?>, LinkedFunction> deductionTasks = new HashMap<>();
-        AtomicInteger successfulCompletions = new AtomicInteger();
-        int functionsNb = 0;
-
         for (LinkedResource resource : linkedResources.values()) {
             if (resource instanceof LinkedFunction) {
                 LinkedFunction fn = (LinkedFunction) resource;
-                functionsNb++;
-
-                deductionTasks.put(executor.submit(() -> {
-                    String rootDir;
-                    // copy function project
-                    try {
-                        rootDir = deducerHelper.copyProject(fn.getFunction());
-                    } catch (IOException e) {
-                        LOG.error("Failed to copy function project.");
-                        e.printStackTrace();
-                        return;
-                    }
-                    // extend function project with class to extract endpoints from Camel route
-                    // definition
-                    try {
-                        deducerHelper.addEndpointExtractor(rootDir, fn.getFunction().getHandler());
-                    } catch (IOException e) {
-                        LOG.error("Failed to add extractor to project.");
-                        e.printStackTrace();
-                        return;
-                    }
-                    try {
-                        deducerHelper.extendPom(rootDir);
-                    } catch (IOException e) {
-                        LOG.error("Failed to extend pom.");
-                        e.printStackTrace();
-                        return;
-                    }
-                    // run endpoint extractor file
-                    File endpointsFile = deducerHelper.extractEndpoints(rootDir, fn.getName());
-                    // create links from output fo endpoint extractor
-                    try {
-                        links.addAll(deducerHelper.createLinks(fn.getName(), endpointsFile));
-                    } catch (IOException e) {
-                        LOG.error("Failed to create links.");
-                        e.printStackTrace();
-                        return;
-                    }
-
-                    successfulCompletions.incrementAndGet();
-                }), fn);
+                // extract endpoints from the Camel route definition and create links from them
+                List<String> endpoints = deducerHelper.extractEndpoints(fn.getFunction());
+                links.addAll(deducerHelper.createLinks(fn.getName(), endpoints));
             }
         }
 
-        boolean deductionHasFailed = false;
-
-        // wait until all tasks are done
-        for (Future<?> res : deductionTasks.keySet()) {
-            try {
-                res.get();
-            } catch (ExecutionException | InterruptedException e) {
-                deductionHasFailed = true;
-                LOG.error(String.format("Deduction failed for function %s",
-                        deductionTasks.get(res).getName()), e);
-            }
-        }
-
-        executor.shutdown();
-
-        if (deductionHasFailed || successfulCompletions.get() != functionsNb) {
-            throw new IllegalStateException("Link deduction of some functions failed.");
-        }
-
         // register inputs and outputs of the function
         registerFunctionConnections();
     }
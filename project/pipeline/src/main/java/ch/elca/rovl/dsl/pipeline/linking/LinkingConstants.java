@@ -1,10 +1,9 @@
 package ch.elca.rovl.dsl.pipeline.linking;
 
-import ch.elca.rovl.dsl.pipeline.util.Constants;
-
 public class LinkingConstants {
     /**
-     * Path to the directory where logs of link deduction are written to.
+     * Path to the directory where the endpoints deduced from each function are cached, by hash of
+     * the function route builder source.
      */
-    public static final String DEDUCTION_LOGS_DIR = Constants.GENERATED_DIR + "linking/link_deduction/";
+    public static final String DEDUCTION_CACHE_DIR = "deployment-info/link-deduction/";
 }
@@ -0,0 +1,224 @@
+package ch.elca.rovl.dsl.pipeline.linking.helper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Extracts the consumer and producer endpoints of an Apache Camel route builder from its source
+ * code, without compiling nor running it.
+ * <p>
+ * Endpoints are read from the {@code from(...)} and {@code .to(...)} calls of the source. Their
+ * URIs must be string literals or constants of the route builder class.
+ */
+final class RouteSourceParser {
+
+    final String source;
+    final List<Token> tokens;
+    final Map<String, String> constants;
+
+    /**
+     * Constructor.
+     *
+     * @param source source code of the route builder class
+     */
+    RouteSourceParser(String source) {
+        this.source = source;
+        this.tokens = new ArrayList<>();
+        this.constants = new HashMap<>();
+        tokenize();
+        collectConstants();
+    }
+
+    /**
+     * Returns the input and output endpoints of the routes, in the format "input=&lt;uri&gt;" and
+     * "output=&lt;uri&gt;". Query parameters are removed from URIs, and direct endpoints that are
+     * both consumed and produced to are considered internal to the function.
+     *
+     * @return endpoint entries
+     * @throws IllegalStateException if an endpoint URI cannot be resolved or if routes consume
+     *         from more than one source
+     */
+    List<String> parseEndpoints() {
+        Set<String> inputs = new TreeSet<>();
+        Set<String> outputs = new TreeSet<>();
+
+        for (int i = 0; i < tokens.size() - 1; i++) {
+            Token token = tokens.get(i);
+            if (token.kind != Kind.IDENTIFIER || !tokens.get(i + 1).is("("))
+                continue;
+
+            boolean qualified = i > 0 && tokens.get(i - 1).is(".");
+            if (token.value.equals("from") && !qualified) {
+                inputs.addAll(readUris(i + 2, token.value));
+            } else if (token.value.equals("to") && qualified) {
+                outputs.addAll(readUris(i + 2, token.value));
+            }
+        }
+
+        // validate -> only one effective producer
+        Set<String> internal = new TreeSet<>();
+        for (String input : inputs) {
+            if (input.startsWith("direct") && outputs.contains(input))
+                internal.add(input);
+        }
+        inputs.removeAll(internal);
+        outputs.removeAll(internal);
+
+        if (inputs.size() > 1)
+            throw new IllegalStateException(
+                    "Pipeline does not support a route builder with multiple input sources. Sources detected: "
+                            + inputs);
+
+        List<String> endpoints = new ArrayList<>();
+        for (String input : inputs) {
+            endpoints.add("input=" + input);
+        }
+        for (String output : outputs) {
+            endpoints.add("output=" + output);
+        }
+        return endpoints;
+    }
+
+    /**
+     * Reads the URIs passed to a call, starting at the first token after the opening parenthesis.
+     */
+    private List<String> readUris(int start, String method) {
+        List<String> uris = new ArrayList<>();
+
+        for (int i = start; i < tokens.size(); i += 2) {
+            Token arg = tokens.get(i);
+            String uri;
+            if (arg.kind == Kind.STRING) {
+                uri = arg.value;
+            } else if (arg.kind == Kind.IDENTIFIER && constants.containsKey(arg.value)) {
+                uri = constants.get(arg.value);
+            } else {
+                throw new IllegalStateException(String.format(
+                        "Cannot resolve endpoint URI of '%s(...)' at line %d: URIs must be string literals or constants.",
+                        method, line(arg)));
+            }
+            uris.add(uri.split("\\?")[0]);
+
+            Token next = i + 1 < tokens.size() ? tokens.get(i + 1) : null;
+            if (next != null && next.is(")"))
+                return uris;
+            if (next == null || !next.is(","))
+                throw new IllegalStateException(String.format(
+                        "Cannot resolve endpoint URI of '%s(...)' at line %d: URIs must be string literals or constants.",
+                        method, line(arg)));
+        }
+
+        throw new IllegalStateException(String.format("Unterminated call to '%s(...)'.", method));
+    }
+
+    /**
+     * Registers the string constants of the form {@code NAME = "value";}.
+     */
+    private void collectConstants() {
+        for (int i = 0; i + 3 < tokens.size(); i++) {
+            if (tokens.get(i).kind == Kind.IDENTIFIER && tokens.get(i + 1).is("=")
+                    && tokens.get(i + 2).kind == Kind.STRING && tokens.get(i + 3).is(";")) {
+                constants.put(tokens.get(i).value, tokens.get(i + 2).value);
+            }
+        }
+    }
+
+    private void tokenize() {
+        int i = 0;
+        int length = source.length();
+
+        while (i < length) {
+            char c = source.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (source.startsWith("//", i)) {
+                int end = source.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (source.startsWith("/*", i)) {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (source.startsWith("\"\"\"", i)) {
+                // text block
+                int end = source.indexOf("\"\"\"", i + 3);
+                end = end < 0 ? length : end;
+                tokens.add(new Token(Kind.STRING, source.substring(i + 3, end), i));
+                i = Math.min(end + 3, length);
+            } else if (c == '"' || c == '\'') {
+                StringBuilder value = new StringBuilder();
+                int start = i++;
+                while (i < length && source.charAt(i) != c) {
+                    char ch = source.charAt(i++);
+                    if (ch == '\\' && i < length) {
+                        value.append(unescape(source.charAt(i++)));
+                    } else {
+                        value.append(ch);
+                    }
+                }
+                i++;
+                tokens.add(new Token(c == '"' ? Kind.STRING : Kind.CHARACTER, value.toString(), start));
+            } else if (Character.isJavaIdentifierPart(c)) {
+                // identifiers, keywords and numbers
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.IDENTIFIER, source.substring(start, i), start));
+            } else {
+                tokens.add(new Token(Kind.SYMBOL, String.valueOf(c), i));
+                i++;
+            }
+        }
+    }
+
+    private static char unescape(char c) {
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 't':
+                return '\t';
+            case 'r':
+                return '\r';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            default:
+                return c;
+        }
+    }
+
+    private int line(Token token) {
+        int line = 1;
+        for (int i = 0; i < token.position; i++) {
+            if (source.charAt(i) == '\n')
+                line++;
+        }
+        return line;
+    }
+
+    private enum Kind {
+        IDENTIFIER, STRING, CHARACTER, SYMBOL
+    }
+
+    private static final class Token {
+        final Kind kind;
+        final String value;
+        final int position;
+
+        Token(Kind kind, String value, int position) {
+            this.kind = kind;
+            this.value = value;
+            this.position = position;
+        }
+
+        boolean is(String symbol) {
+            return kind == Kind.SYMBOL && value.equals(symbol);
+        }
+    }
+
+}
@@ -36,6 +36,21 @@ public final class LinkedDatabase extends LinkedResource {
         return getDatabase().getConfig();
     }
 
+    /**
+     * Number of read replicas of the database, 0 if it has none.
+     */
+    public int getReadReplicas() {
+        Object replicas = getConfig().get(DatabaseConfigType.READ_REPLICAS);
+        return replicas == null ? 0 : (int) replicas;
+    }
+
+    /**
+     * Whether the database is accessed through a connection proxy.
+     */
+    public boolean hasConnectionProxy() {
+        return Boolean.TRUE.equals(getConfig().get(DatabaseConfigType.CONNECTION_PROXY));
+    }
+
     @Override
     public String toString() {
         return String.format("LinkedDatabase[name=%s, provider=%s]", dslResource.getName(), provider);
@@ -4,8 +4,8 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
@@ -15,6 +15,8 @@ import ch.elca.rovl.dsl.pipeline.util.Constants;
 /**
  * Data strcture to keep track of names of resources that have already been deployed. It writes
  * entries to a file that is read each time the pipeline is run.
+ * <p>
+ * Safe to use from the threads generating the functions.
  */
 public class ResourceNameMemory {
 
@@ -29,7 +31,7 @@ public class ResourceNameMemory {
      * @throws IOException
      */
     ResourceNameMemory() throws IOException {
-        memory = new HashMap<>();
+        memory = new ConcurrentHashMap<>();
 
         memoryFile = new File(Constants.DEPLOYMENT_MEMORY_FILE);
         if (!memoryFile.exists()) {
@@ -69,7 +71,7 @@ public class ResourceNameMemory {
      * @param cloudResName name of the corresponding resource in the cloud
      * @throws IOException
      */
-    public void addNewMemory(String resName, String cloudResName) throws IOException {
+    public synchronized void addNewMemory(String resName, String cloudResName) throws IOException {
         memory.put(resName, cloudResName);
         FileUtils.writeStringToFile(memoryFile, resName + "=" + cloudResName + "\n", "utf8", true);
     }
@@ -24,18 +24,9 @@ public class TemplatingConstants {
 
     // maven dependency tags
 
-    public static final List<String> JDBC_TAG = Arrays.asList("\t<dependency>", "\t\t<groupId>org.apache.camel.quarkus</groupId>",
-                "\t\t<artifactId>camel-quarkus-jdbc</artifactId>", "\t\t<version>3.6.0</version>",
-                "\t</dependency>");
     public static final List<String> POSTGRES_TAG = Arrays.asList("\t<dependency>", "\t\t<groupId>io.quarkus</groupId>",
                 "\t\t<artifactId>quarkus-jdbc-postgresql</artifactId>",
                 "\t\t<version>3.6.4</version>", "\t</dependency>");
-    public static final List<String> COMMONS_DBCP_TAG = Arrays.asList("\t<dependency>", "\t\t<groupId>commons-dbcp</groupId>",
-                "\t\t<artifactId>commons-dbcp</artifactId>", "\t\t<version>1.4</version>",
-                "\t</dependency>");
-    public static final List<String> COMMONS_POOL_TAG = Arrays.asList("\t<dependency>", "\t\t<groupId>commons-pool</groupId>",
-                "\t\t<artifactId>commons-pool</artifactId>", "\t\t<version>1.5.4</version>",
-                "\t</dependency>");
     public static final List<String> JACKSON_TAG = Arrays.asList("\t<dependency>", "\t\t<groupId>com.fasterxml.jackson.jr</groupId>",
                 "\t\t<artifactId>jackson-jr-objects</artifactId>", "\t\t<version>2.16.1</version>",
                 "\t</dependency>");
@@ -50,62 +41,77 @@ public class TemplatingConstants {
                 "\t\t<artifactId>jjwt-jackson</artifactId>", "\t\t<version>0.12.3</version>",
                 "\t\t<scope>runtime</scope>",
                 "\t</dependency>");
+    public static final List<String> CRAC_TAG = Arrays.asList("\t<dependency>", "\t\t<groupId>io.github.crac</groupId>",
+                "\t\t<artifactId>org-crac</artifactId>", "\t\t<version>0.1.3</version>",
+                "\t</dependency>");
 
     // configuration property names
 
     public static final String DATABASE_PROPERTY = "database.%s.provider=%s\n";
+    /**
+     * Connection of the database component, resolved from the environment variables set at
+     * deployment
+     */
+    public static final String DATABASE_CONNECTION_PROPERTIES = """
+        database.%1$s.url={{env:PSQL_URL_%1$s}}
+        database.%1$s.username={{env:PSQL_USER_%1$s}}
+        database.%1$s.password={{env:PSQL_PWD_%1$s}}
+        database.%1$s.sslmode=require
+        """;
+    /**
+     * Comma-separated urls of the read replicas of the database, only written for databases with
+     * replicas
+     */
+    public static final String DATABASE_REPLICA_PROPERTY = "database.%1$s.readUrls={{env:PSQL_READ_URLS_%1$s}}\n";
+    /**
+     * Pool size of the database component, always written so that the pipeline knows how many
+     * connections each function instance may open. Replicas get pools of the same size.
+     */
+    public static final String DATABASE_POOL_PROPERTIES = """
+        database.%1$s.pool.maxSize=%2$d
+        database.%1$s.pool.replicaMaxSize=%2$d
+        """;
+    /**
+     * Configuration of the database component when connecting through a connection proxy.
+     * Server-side prepared statements are disabled, as they are bound to a database connection that
+     * the proxy does not keep for the client (RDS Proxy pins it, PgBouncer in transaction mode
+     * breaks them).
+     */
+    public static final String DATABASE_PROXY_PROPERTIES = "database.%1$s.prepareThreshold=0\n";
+    /**
+     * Connections kept by each function instance towards a connection proxy: the proxy multiplexes
+     * the connections, so that each instance only needs a few of them
+     */
+    public static final int DATABASE_PROXY_POOL_SIZE = 2;
+    /** Connections kept by each function instance towards a database, without proxy */
+    public static final int DATABASE_POOL_SIZE = 10;
     public static final String QUEUE_PROPERTY = "queue.%s.provider=%s\n";
+    public static final String QUEUE_CLAIM_CHECK_PROPERTY = "queue.%s.claimCheckThreshold=%s\n";
     public static final String FUNCTION_PROPERTY = "function.%s.provider=%s\n";
+    public static final String NATIVE_IMAGE_PROPERTIES = """
+        quarkus.package.type=native
+        quarkus.native.container-build=true
+        quarkus.native.additional-build-args=-H:ReflectionConfigurationFiles=%s
+        """;
+    public static final String SNAP_START_PROPERTIES = """
+        quarkus.snapstart.enable=true
+        """;
+    public static final String APPCDS_PROPERTIES = """
+        quarkus.package.create-appcds=true
+        quarkus.package.appcds-builder-image=%s
+        """;
+    /**
+     * Image whose JVM generates the class-data sharing archive, it must match the JVM of the
+     * Lambda runtime
+     */
+    public static final String APPCDS_BUILDER_IMAGE = "amazoncorretto:17";
 
     // file names
 
     public static final String POM_NAME = "pom.xml";
     public static final String APP_PROPERTIES_NAME = "application.properties";
     public static final String HANDLER_NAME = "TriggerHandler.java";
-
-    // code blocks to be merged in templates
-
-    public static final String AWS_DB_IMPORTS = """
-        import org.apache.commons.dbcp.BasicDataSource;
-        import jakarta.inject.Named;
-        import jakarta.enterprise.inject.Produces;
-        """;
-
-    public static final String AWS_DB_DATASOURCE_BLOCK = """
-        \t@Produces
-        \t@Named("%s")
-        \tpublic BasicDataSource %sDatasource() {
-        \t    BasicDataSource ds = new BasicDataSource();
-        \t    ds.setUsername(System.getenv("PSQL_USER_%s"));
-        \t    ds.setDriverClassName("org.postgresql.Driver");
-        \t    ds.setPassword(System.getenv("PSQL_PWD_%s"));
-        \t    ds.setUrl(System.getenv("PSQL_URL_%s"));
-        \t    ds.addConnectionProperty("sslmode", "require");
-        \t    return ds;
-        \t}
-        """;
-
-    public static final String AZURE_DB_IMPORTS = """
-        import org.apache.commons.dbcp.BasicDataSource;
-        import java.util.List;
-            """;
-
-    public static final String AZURE_REGISTER_DBS = """
-        \t\t\tList<String> dbs = List.of(%s);
-        \t\t\tfor (String dbName : dbs) {
-        \t\t\t\tcamelContext.getRegistry().bind(dbName, setupDataSource(dbName));
-        \t\t\t}
-            """;
-
-    public static final String AZURE_DATASOURCE_METHOD = """
-        \tprivate static BasicDataSource setupDataSource(String dbName) {
-        \t\tBasicDataSource ds = new BasicDataSource();
-        \t\tds.setUsername(System.getenv("PSQL_USER_" + dbName));
-        \t\tds.setDriverClassName("org.postgresql.Driver");
-        \t\tds.setPassword(System.getenv("PSQL_PWD_" + dbName));
-        \t\tds.setUrl(System.getenv("PSQL_URL_" + dbName));
-        \t\tds.addConnectionProperty("sslmode", "require");
-        \t\treturn ds;
-        \t}
-            """;
+    public static final String REFLECTION_CONFIG_NAME = "reflection-config.json";
+    public static final String SNAP_START_RESOURCE_NAME = "SnapStartResource.java";
+    public static final String APPCDS_ARCHIVE_NAME = "app-cds.jsa";
 }
@@ -6,6 +6,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
@@ -30,6 +34,12 @@ public final class TemplatingEngine {
 
     static final Logger LOG = LoggerFactory.getLogger("Templates gen");
 
+    /**
+     * System property with the maximum number of functions generated in parallel, defaults to the
+     * number of available processors.
+     */
+    public static final String THREADS_PROPERTY = "pipeline.templating.threads";
+
     final TemplatingHelperFactory helperFactory;
     final Map<String, LinkedResource> linkedResouces;
     final ResourceNameMemory resourceMemory;
@@ -146,7 +156,7 @@ public final class TemplatingEngine {
     /**
      * For each function generates a new project that can be built and deployed to the target
      * provider, and then extends the function pipeline object with the information eneded for
-     * deployment.
+     * deployment. Functions are generated in parallel, each with its own templating context.
      * 
      * @param functions list of functions
      * @return list of functions extended with the required information for deployment
@@ -156,23 +166,79 @@ public final class TemplatingEngine {
     private List<DeployableFunction> processFunctions(List<LinkedFunction> functions)
             throws IOException, InterruptedException {
         List<DeployableFunction> deployableFunctions = new ArrayList<>();
+        if (functions.isEmpty())
+            return deployableFunctions;
+
+        int threads = Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is needed for templating.");
+
+        // create the helpers up front, as they write the shared context and parent poms
+        for (LinkedFunction fn : functions) {
+            helperFactory.getHelper(fn.getProvider());
+            if (fn.requiresGlue())
+                helperFactory.getHelper(fn.getInputQueue().getProvider());
+        }
 
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(functions.size(), threads));
+        List<Future<List<DeployableFunction>>> tasks = new ArrayList<>();
         for (LinkedFunction fn : functions) {
-            //LOG.info(String.format("Generating function %s...", fn.toString()));
-            // generate project for the target provider
-            DeployableFunction dfn = helperFactory.getHelper(fn.getProvider()).generateFunction(fn);
-            deployableFunctions.add(dfn);
-
-            // if glue is required, generate the additional function project to be deployed on the
-            // same provider as the input queue
-            if (fn.requiresGlue()) {
-                LOG.info(String.format("Function '%s' requires glue...", fn.getName()));
-                deployableFunctions.add(helperFactory.getHelper(fn.getInputQueue().getProvider())
-                        .generateGlue(dfn));
+            tasks.add(executor.submit(() -> processFunction(fn)));
+        }
+        executor.shutdown();
+
+        try {
+            // collect in submission order so that the output does not depend on scheduling
+            for (Future<List<DeployableFunction>> task : tasks) {
+                deployableFunctions.addAll(task.get());
             }
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof InterruptedException)
+                throw (InterruptedException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new IllegalStateException("Function generation failed.", cause);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            throw e;
         }
 
         return deployableFunctions;
     }
 
+    /**
+     * Generates the project of a single function, followed by the project of its glue function if
+     * it requires one.
+     * 
+     * @param fn function
+     * @return the function and its glue function extended with the information for deployment
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private List<DeployableFunction> processFunction(LinkedFunction fn)
+            throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        List<DeployableFunction> generated = new ArrayList<>();
+
+        // generate project for the target provider
+        DeployableFunction dfn = helperFactory.getHelper(fn.getProvider()).generateFunction(fn);
+        generated.add(dfn);
+
+        // if glue is required, generate the additional function project to be deployed on the
+        // same provider as the input queue
+        if (fn.requiresGlue()) {
+            LOG.info(String.format("Function '%s' requires glue...", fn.getName()));
+            generated.add(helperFactory.getHelper(fn.getInputQueue().getProvider())
+                    .generateGlue(dfn));
+        }
+
+        LOG.info(String.format("Generated function '%s' in %d ms.", fn.getName(),
+                System.currentTimeMillis() - start));
+        return generated;
+    }
+
 }
@@ -47,13 +47,14 @@ public final class TemplatingHelperFactory {
     }
 
     /**
-     * Returns the helper for the given provider. It creates it if not already existing.
+     * Returns the helper for the given provider. It creates it if not already existing. Helpers
+     * are shared by the threads generating the functions.
      * 
      * @param provider
      * @return TemplatingHelper for the given provider
      * @throws IOException
      */
-    public TemplatingHelper getHelper(Provider provider) throws IOException {
+    public synchronized TemplatingHelper getHelper(Provider provider) throws IOException {
         TemplatingHelper helper = helpers.get(provider);
         if (helper == null) {
             switch (provider) {
@@ -5,12 +5,13 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.StringJoiner;
+import java.util.Set;
 import static java.util.Map.entry;
 
 import org.apache.commons.io.FileUtils;
@@ -18,6 +19,7 @@ import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
 
+import ch.elca.rovl.dsl.api.function.models.StartupOptimization;
 import ch.elca.rovl.dsl.pipeline.linking.resource.LinkedDatabase;
 import ch.elca.rovl.dsl.pipeline.linking.resource.LinkedFunction;
 import ch.elca.rovl.dsl.pipeline.linking.resource.LinkedQueue;
@@ -26,9 +28,13 @@ import ch.elca.rovl.dsl.pipeline.templating.ResourceNameMemory;
 import ch.elca.rovl.dsl.pipeline.templating.TemplatingConstants;
 import ch.elca.rovl.dsl.pipeline.templating.TemplatingEngine;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableFunction;
+import ch.elca.rovl.dsl.pipeline.util.BuildExecutor;
 import ch.elca.rovl.dsl.pipeline.util.IdGenerator;
+import ch.elca.rovl.dsl.pipeline.util.ProjectMaterializer;
 import ch.elca.rovl.dsl.pipeline.util.Provider;
 import ch.elca.rovl.dsl.pipeline.util.RequiredData.Type;
+import ch.elca.rovl.dsl.resource.function.Function.FunctionConfigType;
+import ch.elca.rovl.dsl.resource.queue.Queue.QueueConfigType;
 
 /**
  * Helper class of {@link TemplatingEngine TemplatingEngine} to generate
@@ -41,6 +47,8 @@ public class AwsTemplatingHelper implements TemplatingHelper {
     final String dockerTemplatesDir = templatesDir + "docker/";
     final String triggerTemplatesDir = templatesDir + "handler/";
     final String glueTemplatesDir = templatesDir + "glue/";
+    final String nativeTemplatesDir = templatesDir + "native/";
+    final String snapStartTemplatesDir = templatesDir + "snapstart/";
     final String dockerignoreVM = "aws-dockerignore.vm";
     final String gitignoreVM = "aws-gitignore.vm";
     final String mvnwVM = "aws-mvnw.vm";
@@ -56,12 +64,15 @@ public class AwsTemplatingHelper implements TemplatingHelper {
     final String forglueHandlerVM = "forglue.vm";
     final String glueHandlerVM = "gluehandler.vm";
     final String gluePomVM = "gluepom.vm";
+    final String reflectionConfigVM = "reflection-config.vm";
+    final String snapStartResourceVM = "snapstartresource.vm";
 
     final VelocityEngine engine;
-    final VelocityContext context;
+    final VelocityContext baseContext;
     final ResourceNameMemory namesMemory;
     final Random rng;
     final List<String> parentTag;
+    final Set<String> rewrittenFiles;
 
     final String outputDir;
 
@@ -69,7 +80,8 @@ public class AwsTemplatingHelper implements TemplatingHelper {
      * Templating helper for AWS constructor.
      * 
      * @param engine      Velocity templating engine
-     * @param context     Velocity templating context
+     * @param context     Velocity templating context holding the values shared by all
+     *                    functions, extended by a new context for each function
      * @param outputDir   path to the directory where to generate function projects
      * @param packageName package name of the generated projects
      * @param namesMemory data structure containing cloud names of already deployed
@@ -79,12 +91,12 @@ public class AwsTemplatingHelper implements TemplatingHelper {
     public AwsTemplatingHelper(VelocityEngine engine, VelocityContext context, String outputDir,
             ResourceNameMemory namesMemory) throws IOException {
         this.engine = engine;
-        this.context = context;
+        this.baseContext = context;
         this.outputDir = outputDir + "aws/";
         this.namesMemory = namesMemory;
         this.rng = new Random();
 
-        this.context.put("package", TemplatingConstants.PACKAGE_NAME);
+        context.put("package", TemplatingConstants.PACKAGE_NAME);
 
         // create generated aws dir
         File awsDir = new File(this.outputDir);
@@ -105,6 +117,18 @@ public class AwsTemplatingHelper implements TemplatingHelper {
                 String.format("\t\t<groupId>%s</groupId>", TemplatingConstants.PACKAGE_NAME),
                 "\t\t<artifactId>generated-aws-functions</artifactId>",
                 "\t\t<version>1.0.0</version>", "\t</parent>");
+
+        // files of the user project written by the generation, relative to the project root
+        String codeDir = "src/main/java/" + TemplatingConstants.PACKAGE_NAME.replace('.', '/') + "/";
+        String resourcesDir = "src/main/resources/";
+        rewrittenFiles = Set.of(TemplatingConstants.POM_NAME, ".gitignore", ".dockerignore",
+                "mvnw", "mvnw.cmd", "src/main/docker/Dockerfile.jvm",
+                "src/main/docker/Dockerfile.legacy-jar", "src/main/docker/Dockerfile.native",
+                "src/main/docker/Dockerfile.native-micro",
+                resourcesDir + TemplatingConstants.APP_PROPERTIES_NAME,
+                resourcesDir + TemplatingConstants.REFLECTION_CONFIG_NAME,
+                codeDir + TemplatingConstants.HANDLER_NAME,
+                codeDir + TemplatingConstants.SNAP_START_RESOURCE_NAME);
     }
 
     /**
@@ -118,7 +142,8 @@ public class AwsTemplatingHelper implements TemplatingHelper {
      */
     @Override
     public DeployableFunction generateFunction(LinkedFunction function) throws IOException {
-        String cloudName = setContext(function);
+        VelocityContext context = new VelocityContext(baseContext);
+        String cloudName = setContext(function, context);
 
         String rootPath = outputDir + function.getName() + "/";
         String mainPath = rootPath + "src/main/";
@@ -126,18 +151,30 @@ public class AwsTemplatingHelper implements TemplatingHelper {
         String resourcesPath = mainPath + "resources/";
         String dockerPath = mainPath + "docker/";
 
+        // create deployable function
+        DeployableFunction dfn = new DeployableFunction(function, rootPath);
+        dfn.setCloudName(cloudName);
+        StartupOptimization startup = dfn.getStartupOptimization();
+
         copyProject(function, rootPath);
         removeDebuggingProperties(resourcesPath);
-        writeLambdaFiles(rootPath, dockerPath);
-        writeHandler(function, codePath);
+        writeLambdaFiles(rootPath, dockerPath, context);
+        writeHandler(function, codePath, context);
         extendPom(rootPath, function.hasDatabaseOutput(),
                 function.requiresGlue() || function.getInputQueue() != null,
-                function.requiresGlue());
+                function.requiresGlue(), startup == StartupOptimization.SNAP_START);
         writeProperties(function, resourcesPath);
 
-        // create deployable function
-        DeployableFunction dfn = new DeployableFunction(function, rootPath);
-        dfn.setCloudName(cloudName);
+        if (dfn.isNativeImage())
+            writeNativeImageConfig(resourcesPath, context);
+        if (startup == StartupOptimization.SNAP_START)
+            writeSnapStartResource(function, codePath, resourcesPath, context);
+        else if (startup == StartupOptimization.CLASS_DATA_SHARING)
+            FileUtils.writeStringToFile(
+                    new File(resourcesPath + TemplatingConstants.APP_PROPERTIES_NAME),
+                    String.format(TemplatingConstants.APPCDS_PROPERTIES,
+                            TemplatingConstants.APPCDS_BUILDER_IMAGE),
+                    "utf8", true);
 
         // if function has queue input and it is not a glue function, register for queue
         // listen
@@ -146,6 +183,13 @@ public class AwsTemplatingHelper implements TemplatingHelper {
             dfn.require(Type.QUEUE_LISTEN, function.getInputQueue().getName());
         }
 
+        // messages forwarded by a glue function may reference bodies in the claim-check
+        // store of the queue
+        if (function.getInputQueue() != null && function.requiresGlue() && function.getInputQueue()
+                .getQueue().getConfig().containsKey(QueueConfigType.CLAIM_CHECK_THRESHOLD)) {
+            dfn.require(Type.QUEUE_CLAIM_CHECK, function.getInputQueue().getName());
+        }
+
         for (LinkedResource lr : function.getOutput()) {
             // if has function output, register for target function url
             if (lr instanceof LinkedFunction)
@@ -177,7 +221,8 @@ public class AwsTemplatingHelper implements TemplatingHelper {
     @Override
     public DeployableFunction generateGlue(DeployableFunction function)
             throws IOException, InterruptedException {
-        String fnCloudName = setGlueContext(function);
+        VelocityContext context = new VelocityContext(baseContext);
+        String fnCloudName = setGlueContext(function, context);
         String fnName = function.getName() + "-glue";
 
         String rootPath = outputDir + fnName + "/";
@@ -186,8 +231,8 @@ public class AwsTemplatingHelper implements TemplatingHelper {
 
         generateGlueArchetype(fnName);
         clenaupGlueArchetype(rootPath, codePath, testPath);
-        writeGluePom(rootPath);
-        writeGlueHandler(codePath);
+        writeGluePom(rootPath, context);
+        writeGlueHandler(codePath, context);
 
         // create function object for next pipeline step
         DeployableFunction dfn = new DeployableFunction(function.getFunction(), rootPath);
@@ -210,7 +255,7 @@ public class AwsTemplatingHelper implements TemplatingHelper {
      * @return function cloud name
      * @throws IOException
      */
-    private String setContext(LinkedFunction function) throws IOException {
+    private String setContext(LinkedFunction function, VelocityContext context) throws IOException {
         String memoryName = namesMemory.get(function.getName());
 
         if (memoryName == null) {
@@ -221,28 +266,25 @@ public class AwsTemplatingHelper implements TemplatingHelper {
         context.put("functionName", function.getName());
         if (function.getInputQueue() != null)
             context.put("queueName", function.getInputQueue().getName());
+        context.put("batchParallelism",
+                function.getConfig().getOrDefault(FunctionConfigType.BATCH_PARALLELISM, 1));
 
         return memoryName;
     }
 
     /**
-     * Copied the function project to the folder containing the deployable projects.
+     * Materializes the function project in the folder containing the deployable projects. Only
+     * the files rewritten by the generation are copied.
      * 
      * @param function
      * @param rootPath path to the root directory containing functions deployable on
-     *                 Azure
+     *                 AWS
      * @throws IOException
      */
     private void copyProject(LinkedFunction function, String rootPath) throws IOException {
-        File generatedDir = new File(rootPath);
-        if (generatedDir.exists())
-            throw new IllegalStateException(String.format(
-                    "Error generating function code, dir for function '%s' already exists.",
-                    rootPath));
-
-        FileUtils.copyDirectory(
-                new File(function.getFunction().getPathToProject() + function.getName()),
-                generatedDir);
+        ProjectMaterializer.materialize(
+                Path.of(function.getFunction().getPathToProject() + function.getName()),
+                Path.of(rootPath), rewrittenFiles);
     }
 
     private void removeDebuggingProperties(String resourcesPath) throws IOException {
@@ -268,6 +310,7 @@ public class AwsTemplatingHelper implements TemplatingHelper {
 
             if (insideGeneratedBlock && (line.contains("function.name") ||
                     line.contains("function.trigger") ||
+                    line.startsWith("database.") ||
                     line.contains("quarkus.datasource") ||
                     line.contains("# GENERATED - DO NOT EDIT") ||
                     line.contains("# END GENERATED"))) {
@@ -289,7 +332,8 @@ public class AwsTemplatingHelper implements TemplatingHelper {
      * @param dockerOath path to the docker directory of the generated project
      * @throws IOException
      */
-    private void writeLambdaFiles(String rootPath, String dockerPath) throws IOException {
+    private void writeLambdaFiles(String rootPath, String dockerPath, VelocityContext context)
+            throws IOException {
         Map<String, String> files = Map.ofEntries(entry(rootPath + ".gitignore", templatesDir + gitignoreVM),
                 entry(rootPath + ".dockerignore", templatesDir + dockerignoreVM),
                 entry(rootPath + "mvnw", templatesDir + mvnwVM),
@@ -321,7 +365,8 @@ public class AwsTemplatingHelper implements TemplatingHelper {
      * @param codePath path to the code directory
      * @throws IOException
      */
-    private void writeHandler(LinkedFunction function, String codePath) throws IOException {
+    private void writeHandler(LinkedFunction function, String codePath, VelocityContext context)
+            throws IOException {
         // create dir
         File handlerFile = new File(codePath + TemplatingConstants.HANDLER_NAME);
         FileUtils.forceMkdirParent(handlerFile);
@@ -350,8 +395,6 @@ public class AwsTemplatingHelper implements TemplatingHelper {
             }
         }
 
-        setDatabaseSourcesInContext(function);
-
         t.merge(context, fileWriter);
         fileWriter.flush();
         fileWriter.close();
@@ -369,23 +412,23 @@ public class AwsTemplatingHelper implements TemplatingHelper {
      * @param addJacksonDependencies whether to add dependencies for exchange
      *                               deserialization
      * @param addJwtDependencies     whether to add dependencies for Java JWT
+     * @param addCracDependencies    whether to add dependencies for CRaC
      * @throws IOException
      */
     private void extendPom(String rootPath, boolean addDBDependencies,
-            boolean addJacksonDependencies, boolean addJwtDependencies) throws IOException {
+            boolean addJacksonDependencies, boolean addJwtDependencies,
+            boolean addCracDependencies) throws IOException {
         File pom = new File(rootPath + TemplatingConstants.POM_NAME);
         FileReader fReader = new FileReader(pom);
         BufferedReader reader = new BufferedReader(fReader);
         List<String> modifiedPomContent = new ArrayList<>();
 
-        boolean alreadyContainsJDBC = false;
         boolean alreadyContainsPostgreSQL = false;
-        boolean alreadyContainsCommmonsDBCP = false;
-        boolean alreadyContainsCommonsPool = false;
         boolean alreadyContainsJackson = false;
         boolean alreadyContainsJjwtApi = false;
         boolean alreadyContainsJjwtImpl = false;
         boolean alreadyContainsJjwtJackson = false;
+        boolean alreadyContainsCrac = false;
         boolean inDependencyMgmt = false;
 
         for (String line; (line = reader.readLine()) != null;) {
@@ -393,14 +436,8 @@ public class AwsTemplatingHelper implements TemplatingHelper {
                 inDependencyMgmt = true;
             if (line.contains("</dependencyManagement>"))
                 inDependencyMgmt = false;
-            if (line.contains("camel-quarkus-jdbc"))
-                alreadyContainsJDBC = true;
             if (line.contains("quarkus-jdbc-postgresql"))
                 alreadyContainsPostgreSQL = true;
-            if (line.contains("commons-dbcp"))
-                alreadyContainsCommmonsDBCP = true;
-            if (line.contains("commons-pool"))
-                alreadyContainsCommonsPool = true;
             if (line.contains("jackson-jr-objects"))
                 alreadyContainsJackson = true;
             if (line.contains("jjwt-api"))
@@ -409,6 +446,8 @@ public class AwsTemplatingHelper implements TemplatingHelper {
                 alreadyContainsJjwtImpl = true;
             if (line.contains("jjwt-jackson"))
                 alreadyContainsJjwtJackson = true;
+            if (line.contains("org-crac"))
+                alreadyContainsCrac = true;
 
             if (inDependencyMgmt) {
                 modifiedPomContent.add(line);
@@ -419,19 +458,8 @@ public class AwsTemplatingHelper implements TemplatingHelper {
             if (line.trim().startsWith("<modelVersion>")) {
                 modifiedPomContent.addAll(parentTag);
             } else if (line.trim().startsWith("</dependencies>") && !inDependencyMgmt) {
-                if (addDBDependencies) {
-                    if (!alreadyContainsJDBC) {
-                        modifiedPomContent.addAll(TemplatingConstants.JDBC_TAG);
-                    }
-                    if (!alreadyContainsPostgreSQL) {
-                        modifiedPomContent.addAll(TemplatingConstants.POSTGRES_TAG);
-                    }
-                    if (!alreadyContainsCommmonsDBCP) {
-                        modifiedPomContent.addAll(TemplatingConstants.COMMONS_DBCP_TAG);
-                    }
-                    if (!alreadyContainsCommonsPool) {
-                        modifiedPomContent.addAll(TemplatingConstants.COMMONS_POOL_TAG);
-                    }
+                if (addDBDependencies && !alreadyContainsPostgreSQL) {
+                    modifiedPomContent.addAll(TemplatingConstants.POSTGRES_TAG);
                 }
 
                 if (addJacksonDependencies && !alreadyContainsJackson) {
@@ -448,6 +476,9 @@ public class AwsTemplatingHelper implements TemplatingHelper {
                         modifiedPomContent.addAll(TemplatingConstants.JJWT_JACKSON_TAG);
                     }
                 }
+                if (addCracDependencies && !alreadyContainsCrac) {
+                    modifiedPomContent.addAll(TemplatingConstants.CRAC_TAG);
+                }
 
             }
 
@@ -493,6 +524,28 @@ public class AwsTemplatingHelper implements TemplatingHelper {
 
             FileUtils.writeStringToFile(appPropeties,
                     String.format(entry, lr.getName(), lr.getProvider()), "utf8", true);
+
+            if (lr instanceof LinkedQueue)
+                writeQueueConfig(appPropeties, (LinkedQueue) lr);
+            else if (lr instanceof LinkedDatabase) {
+                FileUtils.writeStringToFile(appPropeties,
+                        String.format(TemplatingConstants.DATABASE_CONNECTION_PROPERTIES, lr.getName()),
+                        "utf8", true);
+                if (((LinkedDatabase) lr).getReadReplicas() > 0)
+                    FileUtils.writeStringToFile(appPropeties,
+                            String.format(TemplatingConstants.DATABASE_REPLICA_PROPERTY, lr.getName()),
+                            "utf8", true);
+                boolean proxy = ((LinkedDatabase) lr).hasConnectionProxy();
+                FileUtils.writeStringToFile(appPropeties,
+                        String.format(TemplatingConstants.DATABASE_POOL_PROPERTIES, lr.getName(),
+                                proxy ? TemplatingConstants.DATABASE_PROXY_POOL_SIZE
+                                        : TemplatingConstants.DATABASE_POOL_SIZE),
+                        "utf8", true);
+                if (proxy)
+                    FileUtils.writeStringToFile(appPropeties,
+                            String.format(TemplatingConstants.DATABASE_PROXY_PROPERTIES, lr.getName()),
+                            "utf8", true);
+            }
         }
 
         // add inputs
@@ -501,6 +554,7 @@ public class AwsTemplatingHelper implements TemplatingHelper {
             FileUtils.writeStringToFile(appPropeties,
                     String.format(TemplatingConstants.QUEUE_PROPERTY, inputQ.getName(), function.getProvider()), "utf8",
                     true);
+            writeQueueConfig(appPropeties, inputQ);
         }
         // provider of this function
         FileUtils.writeStringToFile(appPropeties,
@@ -509,12 +563,80 @@ public class AwsTemplatingHelper implements TemplatingHelper {
     }
 
     /**
-     * Same as {@link #setContext(LinkedFunction) setContext} but for a glue
+     * Configures the project to be packaged as a native executable, which the Quarkus Lambda
+     * extension zips as the bootstrap of a custom runtime. Classes of the framework components and
+     * of jackson-jr that are loaded by reflection are registered for the native image.
+     * 
+     * @param resourcesPath path to the resources directory of the generated project
+     * @throws IOException
+     */
+    private void writeNativeImageConfig(String resourcesPath, VelocityContext context)
+            throws IOException {
+        FileWriter fileWriter =
+                new FileWriter(resourcesPath + TemplatingConstants.REFLECTION_CONFIG_NAME);
+        Template t = engine.getTemplate(nativeTemplatesDir + reflectionConfigVM);
+        t.merge(context, fileWriter);
+        fileWriter.flush();
+        fileWriter.close();
+
+        FileUtils.writeStringToFile(
+                new File(resourcesPath + TemplatingConstants.APP_PROPERTIES_NAME),
+                String.format(TemplatingConstants.NATIVE_IMAGE_PROPERTIES,
+                        TemplatingConstants.REFLECTION_CONFIG_NAME),
+                "utf8", true);
+    }
+
+    /**
+     * Adds to the generated project the CRaC resource priming the function before its SnapStart
+     * snapshot is taken, and enables the SnapStart support of Quarkus.
+     * 
+     * @param function
+     * @param codePath      path to the code directory
+     * @param resourcesPath path to the resources directory
+     * @throws IOException
+     */
+    private void writeSnapStartResource(LinkedFunction function, String codePath,
+            String resourcesPath, VelocityContext context) throws IOException {
+        context.put("hasDatabaseOutput", function.hasDatabaseOutput());
+        context.put("hasFunctionOutput",
+                function.getOutput().stream().anyMatch(lr -> lr instanceof LinkedFunction));
+
+        FileWriter fileWriter =
+                new FileWriter(codePath + TemplatingConstants.SNAP_START_RESOURCE_NAME);
+        Template t = engine.getTemplate(snapStartTemplatesDir + snapStartResourceVM);
+        t.merge(context, fileWriter);
+        fileWriter.flush();
+        fileWriter.close();
+
+        FileUtils.writeStringToFile(
+                new File(resourcesPath + TemplatingConstants.APP_PROPERTIES_NAME),
+                TemplatingConstants.SNAP_START_PROPERTIES, "utf8", true);
+    }
+
+    /**
+     * Writes the optional configuration of a queue used by the queue component.
+     * 
+     * @param appPropeties properties file
+     * @param queue        queue linked to the function
+     * @throws IOException
+     */
+    private void writeQueueConfig(File appPropeties, LinkedQueue queue) throws IOException {
+        Object threshold = queue.getQueue().getConfig().get(QueueConfigType.CLAIM_CHECK_THRESHOLD);
+        if (threshold != null) {
+            FileUtils.writeStringToFile(appPropeties,
+                    String.format(TemplatingConstants.QUEUE_CLAIM_CHECK_PROPERTY, queue.getName(), threshold),
+                    "utf8", true);
+        }
+    }
+
+    /**
+     * Same as {@link #setContext(LinkedFunction, VelocityContext) setContext} but for a glue
      * function.
      * 
      * @throws IOException
      */
-    private String setGlueContext(DeployableFunction function) throws IOException {
+    private String setGlueContext(DeployableFunction function, VelocityContext context)
+            throws IOException {
         String glueFunctionName = function.getName() + "-glue";
         String cloudGlueName;
         String memoryName = namesMemory.get(glueFunctionName);
@@ -545,16 +667,10 @@ public class AwsTemplatingHelper implements TemplatingHelper {
      */
     private void generateGlueArchetype(String functionName)
             throws IOException, InterruptedException {
-        // TODO platform dependent!
-        String archetypeCmd = "cmd.exe /c cd %s & " + "mvn io.quarkus.platform:quarkus-maven-plugin:3.5.1:create "
-                + "-DprojectGroupId=%s -DprojectArtifactId=%s -DprojectVersion=1.0";
-
-        String cmd = String.format(archetypeCmd, outputDir, TemplatingConstants.PACKAGE_NAME, functionName);
-
-        Process p = Runtime.getRuntime().exec(cmd);
-        if (p.waitFor() != 0) {
-            throw new Error("Maven archetype generation for quarkus aws lambda failed.");
-        }
+        BuildExecutor.get().run("archetype-" + functionName, outputDir,
+                "io.quarkus.platform:quarkus-maven-plugin:3.5.1:create",
+                "-DprojectGroupId=" + TemplatingConstants.PACKAGE_NAME,
+                "-DprojectArtifactId=" + functionName, "-DprojectVersion=1.0");
     }
 
     /**
@@ -583,7 +699,7 @@ public class AwsTemplatingHelper implements TemplatingHelper {
      * @param codeDir path to the code directory of the generated project
      * @throws IOException
      */
-    private void writeGlueHandler(String codeDir) throws IOException {
+    private void writeGlueHandler(String codeDir, VelocityContext context) throws IOException {
         FileWriter fileWriter = new FileWriter(codeDir + TemplatingConstants.HANDLER_NAME);
         Template t = engine.getTemplate(glueTemplatesDir + glueHandlerVM);
 
@@ -598,7 +714,7 @@ public class AwsTemplatingHelper implements TemplatingHelper {
      * @param rootDir path to the root directory of the generated project
      * @throws IOException
      */
-    private void writeGluePom(String rootDir) throws IOException {
+    private void writeGluePom(String rootDir, VelocityContext context) throws IOException {
         FileWriter fileWriter = new FileWriter(rootDir + TemplatingConstants.POM_NAME);
         Template t = engine.getTemplate(glueTemplatesDir + gluePomVM);
 
@@ -607,32 +723,4 @@ public class AwsTemplatingHelper implements TemplatingHelper {
         fileWriter.close();
     }
 
-    /**
-     * Builds the DataSource producers for the output databases to be put in trigger
-     * handler template.
-     * 
-     * @param function
-     */
-    private void setDatabaseSourcesInContext(LinkedFunction function) {
-        if (!function.hasDatabaseOutput()) {
-            context.put("dbImports", "");
-            context.put("databaseSources", "");
-        } else {
-            List<String> databases = new ArrayList<>();
-            for (LinkedResource lr : function.getOutput()) {
-                if (lr instanceof LinkedDatabase) {
-                    databases.add(lr.getName());
-                }
-            }
-            StringJoiner sj = new StringJoiner("\n");
-            for (String dbName : databases) {
-                sj.add(String.format(TemplatingConstants.AWS_DB_DATASOURCE_BLOCK, dbName, dbName,
-                        dbName, dbName, dbName));
-            }
-
-            context.put("dbImports", TemplatingConstants.AWS_DB_IMPORTS);
-            context.put("databaseSources", sj.toString());
-        }
-    }
-
 }
@@ -5,10 +5,12 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 import java.util.StringJoiner;
 
 import org.apache.commons.io.FileUtils;
@@ -26,9 +28,12 @@ import ch.elca.rovl.dsl.pipeline.templating.TemplatingConstants;
 import ch.elca.rovl.dsl.pipeline.templating.TemplatingEngine;
 import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableFunction;
 import ch.elca.rovl.dsl.pipeline.util.IdGenerator;
+import ch.elca.rovl.dsl.pipeline.util.ProjectMaterializer;
 import ch.elca.rovl.dsl.pipeline.util.Provider;
 import ch.elca.rovl.dsl.pipeline.util.RequiredData.Type;
 import ch.elca.rovl.dsl.resource.function.HttpMethod;
+import ch.elca.rovl.dsl.resource.function.Function.FunctionConfigType;
+import ch.elca.rovl.dsl.resource.queue.Queue.QueueConfigType;
 
 /**
  * Helper class of {@link TemplatingEngine TemplatingEngine} to generate
@@ -37,7 +42,7 @@ import ch.elca.rovl.dsl.resource.function.HttpMethod;
  */
 public final class AzureTemplatingHelper implements TemplatingHelper {
 
-    final VelocityContext context;
+    final VelocityContext baseContext;
     final VelocityEngine engine;
     final Random rng;
     final String outputDir;
@@ -47,8 +52,8 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
     String defaultResourceGroup = DeploymentConstants.AZURE_DEFAULT_RESOURCE_GROUP;
     String defaultRegion = DeploymentConstants.AZURE_DEFAULT_REGION_STR;
 
-    List<String> properties;
     final List<String> parentTag;
+    final Set<String> rewrittenFiles;
 
     final String hostJsonName = "host.json";
     final String localSettingsName = "local.settings.json";
@@ -68,7 +73,8 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
      * Templating helper for Azure constructor.
      * 
      * @param engine      Velocity templating engine
-     * @param context     Velocity templating context
+     * @param context     Velocity templating context holding the values shared by all
+     *                    functions, extended by a new context for each function
      * @param outputDir   path to the directory where to generate function projects
      * @param namesMemory data structure containing cloud names of already deployed
      *                    resources.
@@ -76,7 +82,7 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
      */
     public AzureTemplatingHelper(VelocityEngine engine, VelocityContext context, String outputDir,
             ResourceNameMemory namesMemory) throws IOException {
-        this.context = context;
+        this.baseContext = context;
         this.engine = engine;
         this.outputDir = outputDir + "azure/";
         this.rng = new Random();
@@ -102,6 +108,12 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
                 String.format("\t\t<groupId>%s</groupId>", TemplatingConstants.PACKAGE_NAME),
                 "\t\t<artifactId>generated-azure-functions</artifactId>",
                 "\t\t<version>1.0.0</version>", "\t</parent>");
+
+        // files of the user project written by the generation, relative to the project root
+        rewrittenFiles = Set.of(TemplatingConstants.POM_NAME, hostJsonName, localSettingsName,
+                "src/main/resources/" + TemplatingConstants.APP_PROPERTIES_NAME,
+                "src/main/java/" + TemplatingConstants.PACKAGE_NAME.replace('.', '/') + "/"
+                        + TemplatingConstants.HANDLER_NAME);
     }
 
     /**
@@ -115,7 +127,8 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
      */
     @Override
     public DeployableFunction generateFunction(LinkedFunction function) throws IOException {
-        String functionAppName = setContext(function);
+        VelocityContext context = new VelocityContext(baseContext);
+        String functionAppName = setContext(function, context);
 
         String rootPath = outputDir + function.getName() + "/";
         String resourcesPath = rootPath + "src/main/resources/";
@@ -126,12 +139,12 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
 
         copyFunctionProject(function, rootPath);
         removeDebuggingProperties(resourcesPath);
-        writeHandler(function, handlerPath);
-        extendPom(pomPath, function.hasDatabaseOutput(),
+        writeHandler(function, handlerPath, context);
+        extendPom(pomPath, pomProperties(function, functionAppName), function.hasDatabaseOutput(),
                 function.requiresGlue() || function.getInputQueue() != null,
                 function.requiresGlue());
         setProperties(function, appPropertiesPath);
-        writeAdditionalProviderFile(rootPath);
+        writeAdditionalProviderFile(rootPath, context);
 
         DeployableFunction dfn = new DeployableFunction(function, rootPath);
         dfn.setCloudName(functionAppName);
@@ -143,6 +156,13 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
             dfn.require(Type.QUEUE_LISTEN, function.getInputQueue().getName());
         }
 
+        // messages forwarded by a glue function may reference bodies in the claim-check
+        // store of the queue
+        if (function.getInputQueue() != null && function.requiresGlue() && function.getInputQueue()
+                .getQueue().getConfig().containsKey(QueueConfigType.CLAIM_CHECK_THRESHOLD)) {
+            dfn.require(Type.QUEUE_CLAIM_CHECK, function.getInputQueue().getName());
+        }
+
         for (LinkedResource lr : function.getOutput()) {
             // if has function output, register for target function url
             if (lr instanceof LinkedFunction)
@@ -174,7 +194,8 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
     @Override
     public DeployableFunction generateGlue(DeployableFunction function)
             throws IOException, InterruptedException {
-        String functionAppName = setGlueContext(function);
+        VelocityContext context = new VelocityContext(baseContext);
+        String functionAppName = setGlueContext(function, context);
         String fnName = function.getName() + "-glue";
 
         String rootDir = outputDir + fnName + "/";
@@ -182,9 +203,9 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
         String testDir = rootDir + "src/main/test/";
 
         generateGlueProject(rootDir, codeDir, testDir);
-        writeGluePom(rootDir);
-        writeGlueHandler(codeDir);
-        writeAdditionalProviderFile(rootDir);
+        writeGluePom(rootDir, context);
+        writeGlueHandler(codeDir, context);
+        writeAdditionalProviderFile(rootDir, context);
 
         // create function object for next pipeline step
         DeployableFunction dfn = new DeployableFunction(function.getFunction(), rootDir);
@@ -206,7 +227,7 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
      * @return name of the cloud function corresponding to the given function
      * @throws IOException
      */
-    private String setContext(LinkedFunction function) throws IOException {
+    private String setContext(LinkedFunction function, VelocityContext context) throws IOException {
         String memoryName = namesMemory.get(function.getName());
         String functionAppName;
 
@@ -222,21 +243,56 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
         if (function.getInputQueue() != null)
             context.put("queueName", function.getInputQueue().getName());
 
+        return functionAppName;
+    }
+
+    /**
+     * Returns the properties to add to the pom of the project generated for the given function.
+     * 
+     * @param function
+     * @param functionAppName name of the cloud function app
+     * @return pom property tags
+     */
+    private List<String> pomProperties(LinkedFunction function, String functionAppName) {
         String resourceGroup = function.getResourceGroupName();
         resourceGroup = resourceGroup == null ? defaultResourceGroup : resourceGroup;
         String region = function.getRegion();
         region = region == null ? defaultRegion : region;
 
-        properties = Arrays.asList(
+        List<String> properties = new ArrayList<>(Arrays.asList(
                 String.format("\t\t<functionAppName>%s</functionAppName>", functionAppName),
                 String.format("\t\t<resourceGroupName>%s</resourceGroupName>", resourceGroup),
-                String.format("\t\t<region>%s</region>", region));
+                String.format("\t\t<region>%s</region>", region)));
 
-        return functionAppName;
+        Object memory = function.getConfig().get(FunctionConfigType.MEMORY_MB);
+        String pricingTier = memory == null ? null : pricingTierFor((int) memory);
+        if (pricingTier != null)
+            properties.add(String.format("\t\t<pricingTier>%s</pricingTier>", pricingTier));
+
+        return properties;
     }
 
     /**
-     * Copied the function project to the folder containing the deployable projects.
+     * Returns the smallest Elastic Premium plan offering the given memory, or null if the
+     * consumption plan is enough.
+     * 
+     * @param memoryMB memory of the function, -1 for the default
+     * @return the pricing tier of the app service plan
+     */
+    private static String pricingTierFor(int memoryMB) {
+        if (memoryMB <= DeploymentConstants.AZURE_CONSUMPTION_MEMORY_MB)
+            return null;
+        else if (memoryMB <= 3584)
+            return "EP1";
+        else if (memoryMB <= 7168)
+            return "EP2";
+        else
+            return "EP3";
+    }
+
+    /**
+     * Materializes the function project in the folder containing the deployable projects. Only
+     * the files rewritten by the generation are copied.
      * 
      * @param function
      * @param rootPath path to the root directory containing functions deployable on
@@ -244,15 +300,9 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
      * @throws IOException
      */
     private void copyFunctionProject(LinkedFunction function, String rootPath) throws IOException {
-        File generatedDir = new File(rootPath);
-        if (generatedDir.exists())
-            throw new IllegalStateException(String.format(
-                    "Error generating function code, dir for function '%s' already exists.",
-                    rootPath));
-
-        FileUtils.copyDirectory(
-                new File(function.getFunction().getPathToProject() + function.getName()),
-                generatedDir);
+        ProjectMaterializer.materialize(
+                Path.of(function.getFunction().getPathToProject() + function.getName()),
+                Path.of(rootPath), rewrittenFiles);
     }
 
     /**
@@ -284,6 +334,7 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
 
             if (insideGeneratedBlock && (line.contains("function.name") ||
                     line.contains("function.trigger") ||
+                    line.startsWith("database.") ||
                     line.contains("quarkus.datasource") ||
                     line.contains("# GENERATED - DO NOT EDIT") ||
                     line.contains("# END GENERATED"))) {
@@ -305,7 +356,8 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
      * @param handlerPath path to the location where the handler needs to be written
      * @throws IOException
      */
-    private void writeHandler(LinkedFunction function, String handlerPath) throws IOException {
+    private void writeHandler(LinkedFunction function, String handlerPath, VelocityContext context)
+            throws IOException {
         // create dir
         File handlerFile = new File(handlerPath);
         FileUtils.forceMkdirParent(handlerFile);
@@ -322,7 +374,7 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
                         t = engine.getTemplate(handlerVMDir + httpHandlerVM);
                     } else {
                         t = engine.getTemplate(handlerVMDir + restHandlerVM);
-                        setTriggerInContext((FunctionHttpTrigger) function.getTrigger());
+                        setTriggerInContext((FunctionHttpTrigger) function.getTrigger(), context);
                     }
                     break;
                 case QUEUE:
@@ -336,8 +388,6 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
             }
         }
 
-        setDatabaseNamesInContext(function);
-
         t.merge(context, fileWriter);
         fileWriter.flush();
         fileWriter.close();
@@ -350,6 +400,7 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
      * is the command 'quarkus ext add' were to be used instead.
      * 
      * @param pomPath                 path to the generated pom
+     * @param properties              property tags to add to the pom
      * @param addDBDependencies       whether to add dependencies to support
      *                                database interactions
      * @param addExchangeDependencies whether to add dependencies for Apache Camel
@@ -358,17 +409,14 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
      * @param addJwtDependencies      whether to add dependencies for Java JWT
      * @throws IOException
      */
-    private void extendPom(String pomPath, boolean addDBDependencies,
+    private void extendPom(String pomPath, List<String> properties, boolean addDBDependencies,
             boolean addExchangeDependencies, boolean addJwtDependencies) throws IOException {
         File pom = new File(pomPath);
         FileReader fReader = new FileReader(pom);
         BufferedReader reader = new BufferedReader(fReader);
         List<String> modifiedPomContent = new ArrayList<>();
 
-        boolean alreadyContainsJDBC = false;
         boolean alreadyContainsPostgreSQL = false;
-        boolean alreadyContainsCommmonsDBCP = false;
-        boolean alreadyContainsCommonsPool = false;
         boolean alreadyContainsJackson = false;
         boolean alreadyContainsJjwtApi = false;
         boolean alreadyContainsJjwtImpl = false;
@@ -380,14 +428,8 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
                 inDependencyMgmt = true;
             if (line.contains("</dependencyManagement>"))
                 inDependencyMgmt = false;
-            if (line.contains("camel-quarkus-jdbc"))
-                alreadyContainsJDBC = true;
             if (line.contains("quarkus-jdbc-postgresql"))
                 alreadyContainsPostgreSQL = true;
-            if (line.contains("commons-dbcp"))
-                alreadyContainsCommmonsDBCP = true;
-            if (line.contains("commons-pool"))
-                alreadyContainsCommonsPool = true;
             if (line.contains("jackson-jr-objects"))
                 alreadyContainsJackson = true;
             if (line.contains("jjwt-api"))
@@ -408,19 +450,8 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
             } else if (line.trim().startsWith("</properties>")) {
                 modifiedPomContent.addAll(properties);
             } else if (line.trim().startsWith("</dependencies>")) {
-                if (addDBDependencies) {
-                    if (!alreadyContainsJDBC) {
-                        modifiedPomContent.addAll(TemplatingConstants.JDBC_TAG);
-                    }
-                    if (!alreadyContainsPostgreSQL) {
-                        modifiedPomContent.addAll(TemplatingConstants.POSTGRES_TAG);
-                    }
-                    if (!alreadyContainsCommmonsDBCP) {
-                        modifiedPomContent.addAll(TemplatingConstants.COMMONS_DBCP_TAG);
-                    }
-                    if (!alreadyContainsCommonsPool) {
-                        modifiedPomContent.addAll(TemplatingConstants.COMMONS_POOL_TAG);
-                    }
+                if (addDBDependencies && !alreadyContainsPostgreSQL) {
+                    modifiedPomContent.addAll(TemplatingConstants.POSTGRES_TAG);
                 }
                 if (addExchangeDependencies && !alreadyContainsJackson) {
                     modifiedPomContent.addAll(TemplatingConstants.JACKSON_TAG);
@@ -479,6 +510,28 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
 
             FileUtils.writeStringToFile(appPropeties,
                     String.format(entry, lr.getName(), lr.getProvider()), "utf8", true);
+
+            if (lr instanceof LinkedQueue)
+                writeQueueConfig(appPropeties, (LinkedQueue) lr);
+            else if (lr instanceof LinkedDatabase) {
+                FileUtils.writeStringToFile(appPropeties,
+                        String.format(TemplatingConstants.DATABASE_CONNECTION_PROPERTIES, lr.getName()),
+                        "utf8", true);
+                if (((LinkedDatabase) lr).getReadReplicas() > 0)
+                    FileUtils.writeStringToFile(appPropeties,
+                            String.format(TemplatingConstants.DATABASE_REPLICA_PROPERTY, lr.getName()),
+                            "utf8", true);
+                boolean proxy = ((LinkedDatabase) lr).hasConnectionProxy();
+                FileUtils.writeStringToFile(appPropeties,
+                        String.format(TemplatingConstants.DATABASE_POOL_PROPERTIES, lr.getName(),
+                                proxy ? TemplatingConstants.DATABASE_PROXY_POOL_SIZE
+                                        : TemplatingConstants.DATABASE_POOL_SIZE),
+                        "utf8", true);
+                if (proxy)
+                    FileUtils.writeStringToFile(appPropeties,
+                            String.format(TemplatingConstants.DATABASE_PROXY_PROPERTIES, lr.getName()),
+                            "utf8", true);
+            }
         }
 
         // add inputs
@@ -487,19 +540,37 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
             FileUtils.writeStringToFile(appPropeties,
                     String.format(TemplatingConstants.QUEUE_PROPERTY, inputQ.getName(), function.getProvider()), "utf8",
                     true);
+            writeQueueConfig(appPropeties, inputQ);
         }
         // provider of this function
         FileUtils.writeStringToFile(appPropeties,
                 String.format(TemplatingConstants.FUNCTION_PROPERTY, "trigger", function.getProvider()), "utf8", true);
     }
 
+    /**
+     * Writes the optional configuration of a queue used by the queue component.
+     * 
+     * @param appPropeties properties file
+     * @param queue        queue linked to the function
+     * @throws IOException
+     */
+    private void writeQueueConfig(File appPropeties, LinkedQueue queue) throws IOException {
+        Object threshold = queue.getQueue().getConfig().get(QueueConfigType.CLAIM_CHECK_THRESHOLD);
+        if (threshold != null) {
+            FileUtils.writeStringToFile(appPropeties,
+                    String.format(TemplatingConstants.QUEUE_CLAIM_CHECK_PROPERTY, queue.getName(), threshold),
+                    "utf8", true);
+        }
+    }
+
     /**
      * Writes additional project files needed for building and deploying on Azure.
      * 
      * @param rootPath path to the root directory of the generated project
      * @throws IOException
      */
-    private void writeAdditionalProviderFile(String rootPath) throws IOException {
+    private void writeAdditionalProviderFile(String rootPath, VelocityContext context)
+            throws IOException {
         // host.json
         FileWriter fileWriter = new FileWriter(rootPath + hostJsonName);
         Template t = engine.getTemplate(hostJsonVM);
@@ -516,10 +587,11 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
     }
 
     /**
-     * Same as {@link #setContext(LinkedFunction) setContext} but for a glue
+     * Same as {@link #setContext(LinkedFunction, VelocityContext) setContext} but for a glue
      * function.
      */
-    private String setGlueContext(DeployableFunction function) throws IOException {
+    private String setGlueContext(DeployableFunction function, VelocityContext context)
+            throws IOException {
         String memoryName = namesMemory.get(function.getName() + "-glue");
         String functionAppName;
         if (memoryName != null) {
@@ -564,7 +636,7 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
      * @param rootDir path to the root directory of the generated project
      * @throws IOException
      */
-    private void writeGluePom(String rootDir) throws IOException {
+    private void writeGluePom(String rootDir, VelocityContext context) throws IOException {
         FileWriter fileWriter = new FileWriter(rootDir + TemplatingConstants.POM_NAME);
         Template t = engine.getTemplate(glueVMDir + gluePomVM);
 
@@ -579,7 +651,7 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
      * @param rootDir path to the root directory of the generated project
      * @throws IOException
      */
-    private void writeGlueHandler(String srcDir) throws IOException {
+    private void writeGlueHandler(String srcDir, VelocityContext context) throws IOException {
         FileWriter fileWriter = new FileWriter(srcDir + TemplatingConstants.HANDLER_NAME);
         Template t = engine.getTemplate(glueVMDir + glueHandlerVM);
 
@@ -593,7 +665,7 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
      * 
      * @param trigger http trigger
      */
-    private void setTriggerInContext(FunctionHttpTrigger trigger) {
+    private void setTriggerInContext(FunctionHttpTrigger trigger, VelocityContext context) {
         StringJoiner sj = new StringJoiner(", ");
         for (HttpMethod http : trigger.getHttpMethods()) {
             switch (http) {
@@ -626,29 +698,4 @@ public final class AzureTemplatingHelper implements TemplatingHelper {
         }
     }
 
-    /**
-     * Puts in the templating context values necessary to register databases in the
-     * camel context.
-     * 
-     * @param function
-     */
-    private void setDatabaseNamesInContext(LinkedFunction function) {
-        if (!function.hasDatabaseOutput()) {
-            context.put("dbImports", "");
-            context.put("registerDatabases", "");
-            context.put("datasourceMethod", "");
-        } else {
-            StringJoiner sj = new StringJoiner(", ");
-            for (LinkedResource lr : function.getOutput()) {
-                if (lr instanceof LinkedDatabase) {
-                    sj.add("\"" + lr.getName() + "\"");
-                }
-            }
-
-            context.put("dbImports", TemplatingConstants.AZURE_DB_IMPORTS);
-            context.put("registerDatabases", String.format(TemplatingConstants.AZURE_REGISTER_DBS, sj.toString()));
-            context.put("datasourceMethod", TemplatingConstants.AZURE_DATASOURCE_METHOD);
-        }
-    }
-
 }
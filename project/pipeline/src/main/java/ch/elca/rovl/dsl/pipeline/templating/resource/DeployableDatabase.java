@@ -36,6 +36,14 @@ public final class DeployableDatabase extends DeployableResource {
         return getDatabase().getConfig();
     }
 
+    public int getReadReplicas() {
+        return getDatabase().getReadReplicas();
+    }
+
+    public boolean hasConnectionProxy() {
+        return getDatabase().hasConnectionProxy();
+    }
+
     @Override
     public String toString() {
         return String.format("DeployableDatabase[name=%s, provider=%s, cloud-name=%s]", getName(),
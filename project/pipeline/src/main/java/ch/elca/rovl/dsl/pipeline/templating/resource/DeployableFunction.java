@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import ch.elca.rovl.dsl.api.function.models.FunctionArchitecture;
+import ch.elca.rovl.dsl.api.function.models.StartupOptimization;
 import ch.elca.rovl.dsl.pipeline.linking.resource.LinkedFunction;
 import ch.elca.rovl.dsl.pipeline.util.Provider;
 import ch.elca.rovl.dsl.pipeline.util.RequiredData;
@@ -66,6 +68,50 @@ public final class DeployableFunction extends DeployableResource {
         return getFunction().getConfig();
     }
 
+    /**
+     * Returns true if the function is packaged as a native executable. Glue functions are always
+     * packaged for the JVM.
+     */
+    public boolean isNativeImage() {
+        return !isGlue && Boolean.TRUE.equals(getConfig().get(FunctionConfigType.NATIVE_IMAGE));
+    }
+
+    /**
+     * Returns the technique used to reduce the cold start time of the function. Glue functions
+     * are not optimized.
+     */
+    public StartupOptimization getStartupOptimization() {
+        Object optimization = getConfig().get(FunctionConfigType.STARTUP_OPTIMIZATION);
+        return isGlue || optimization == null ? StartupOptimization.NONE
+                : (StartupOptimization) optimization;
+    }
+
+    /**
+     * Returns the memory of the function in MB, or -1 if it uses the default of the provider.
+     * Glue functions, as for the other settings of the function, use the defaults.
+     */
+    public int getMemoryMB() {
+        return intConfig(FunctionConfigType.MEMORY_MB);
+    }
+
+    public FunctionArchitecture getArchitecture() {
+        Object architecture = getConfig().get(FunctionConfigType.ARCHITECTURE);
+        return isGlue || architecture == null ? FunctionArchitecture.X86_64
+                : (FunctionArchitecture) architecture;
+    }
+
+    /**
+     * Returns the max number of concurrent executions of the function, or -1 if it is not capped.
+     */
+    public int getReservedConcurrency() {
+        return intConfig(FunctionConfigType.RESERVED_CONCURRENCY);
+    }
+
+    private int intConfig(FunctionConfigType type) {
+        Object value = getConfig().get(type);
+        return isGlue || value == null ? -1 : (int) value;
+    }
+
     @Override
     public String getName() {
         return isGlue ? glueName : super.getName();
@@ -0,0 +1,263 @@
+package ch.elca.rovl.dsl.pipeline.tuning;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.crypto.SecretKey;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.elca.rovl.dsl.api.function.models.FunctionArchitecture;
+import ch.elca.rovl.dsl.pipeline.deployment.DeploymentConstants;
+import ch.elca.rovl.dsl.pipeline.deployment.accessinfo.function.FunctionAccess;
+import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedFunction;
+import ch.elca.rovl.dsl.pipeline.deployment.resource.DeployedResource;
+import ch.elca.rovl.dsl.pipeline.templating.resource.DeployableFunction;
+import ch.elca.rovl.dsl.pipeline.util.Constants;
+import ch.elca.rovl.dsl.pipeline.util.Provider;
+import io.jsonwebtoken.Jwts;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.model.GetFunctionRequest;
+import software.amazon.awssdk.services.lambda.model.InvokeRequest;
+import software.amazon.awssdk.services.lambda.model.InvokeResponse;
+import software.amazon.awssdk.services.lambda.model.LogType;
+import software.amazon.awssdk.services.lambda.model.UpdateFunctionConfigurationRequest;
+import software.amazon.awssdk.services.lambda.waiters.LambdaWaiter;
+
+/**
+ * Measures the latency and cost of deployed AWS Lambda functions at several memory sizes, by
+ * replaying a sample event against each of them.
+ * <p>
+ * The sample event of a function is read from "{@value #SAMPLES_DIR}&lt;function name&gt;.json"
+ * and must be the event its trigger sends, for instance an API Gateway proxy request for a
+ * function called through its URL. The placeholder {@value #TOKEN_PLACEHOLDER} is replaced with a
+ * token signed with the shared key of the function. Functions without a sample are skipped.
+ * <p>
+ * The first invocation after each memory update is a cold start. Results are logged and written
+ * to "{@value #RESULTS_DIR}&lt;function name&gt;.csv", then the configured memory is restored.
+ * Functions using SnapStart are measured on their unpublished version.
+ */
+public class TuningEngine {
+
+    static final Logger LOG = LoggerFactory.getLogger("Tuning");
+
+    /**
+     * System property with the comma-separated memory sizes to measure, in MB.
+     */
+    public static final String MEMORY_PROPERTY = "pipeline.tuning.memory";
+    /**
+     * System property with the number of warm invocations at each memory size.
+     */
+    public static final String INVOCATIONS_PROPERTY = "pipeline.tuning.invocations";
+
+    static final String SAMPLES_DIR = "tuning/";
+    static final String RESULTS_DIR = Constants.GENERATED_DIR + "tuning/";
+    static final String TOKEN_PLACEHOLDER = "${token}";
+    static final String DEFAULT_MEMORY_SIZES = "128,256,512,1024,1769,3008";
+    static final int DEFAULT_INVOCATIONS = 10;
+
+    // on-demand prices in USD
+    static final double PRICE_PER_GB_SECOND_X86 = 0.0000166667;
+    static final double PRICE_PER_GB_SECOND_ARM = 0.0000133334;
+    static final double PRICE_PER_REQUEST = 0.0000002;
+
+    static final Pattern DURATION = Pattern.compile("\\tDuration: ([0-9.]+) ms");
+    static final Pattern BILLED_DURATION = Pattern.compile("Billed Duration: ([0-9]+) ms");
+    static final Pattern INIT_DURATION = Pattern.compile("Init Duration: ([0-9.]+) ms");
+
+    final List<DeployedFunction> functions;
+    final List<Integer> memorySizes;
+    final int invocations;
+    final LambdaClient lambdaClient;
+    final LambdaWaiter waiter;
+
+    /**
+     * Constructor.
+     *
+     * @param functions deployed functions
+     */
+    public TuningEngine(List<DeployedResource> functions) {
+        this.functions = new ArrayList<>();
+        for (DeployedResource dr : functions) {
+            DeployedFunction fn = (DeployedFunction) dr;
+            if (fn.getProvider() == Provider.AWS && !fn.getFunction().isGlue())
+                this.functions.add(fn);
+        }
+
+        this.memorySizes = Arrays
+                .stream(System.getProperty(MEMORY_PROPERTY, DEFAULT_MEMORY_SIZES).split(","))
+                .map(m -> Integer.parseInt(m.trim())).collect(Collectors.toList());
+        this.invocations =
+                Integer.getInteger(INVOCATIONS_PROPERTY, DEFAULT_INVOCATIONS);
+        if (invocations < 1)
+            throw new IllegalArgumentException("At least one invocation is needed for tuning.");
+
+        this.lambdaClient = LambdaClient.builder().httpClientBuilder(ApacheHttpClient.builder()).build();
+        this.waiter = LambdaWaiter.builder().client(lambdaClient).build();
+    }
+
+    /**
+     * Measures every function that has a sample event.
+     *
+     * @throws IOException
+     */
+    public void run() throws IOException {
+        try {
+            for (DeployedFunction fn : functions) {
+                File sample = new File(SAMPLES_DIR + fn.getName() + ".json");
+                if (!sample.exists()) {
+                    LOG.info(String.format("%s: no sample event in '%s', skipping.", fn.getName(),
+                            sample.getPath()));
+                    continue;
+                }
+
+                String payload = FileUtils.readFileToString(sample, StandardCharsets.UTF_8);
+                List<MemoryResult> results = tune(fn, payload);
+                report(fn, results);
+            }
+        } finally {
+            waiter.close();
+            lambdaClient.close();
+        }
+    }
+
+    /**
+     * Replays the sample at each memory size, then restores the configured memory.
+     */
+    private List<MemoryResult> tune(DeployedFunction fn, String payload) {
+        DeployableFunction function = fn.getFunction();
+        int configuredMemory = function.getMemoryMB() < 0 ? DeploymentConstants.AWS_LAMBDA_MEMORY_MB
+                : function.getMemoryMB();
+        double pricePerGbSecond = function.getArchitecture() == FunctionArchitecture.ARM64
+                ? PRICE_PER_GB_SECOND_ARM
+                : PRICE_PER_GB_SECOND_X86;
+
+        List<MemoryResult> results = new ArrayList<>();
+        try {
+            for (int memory : memorySizes) {
+                LOG.info(String.format("%s: measuring at %d MB...", fn.getName(), memory));
+                updateMemory(fn.getCloudName(), memory);
+
+                Invocation cold = invoke(fn, payload);
+                List<Invocation> warm = new ArrayList<>();
+                for (int i = 0; i < invocations; i++) {
+                    warm.add(invoke(fn, payload));
+                }
+
+                results.add(MemoryResult.of(memory, cold, warm, pricePerGbSecond));
+            }
+        } finally {
+            updateMemory(fn.getCloudName(), configuredMemory);
+        }
+
+        return results;
+    }
+
+    private void updateMemory(String functionName, int memory) {
+        GetFunctionRequest request = GetFunctionRequest.builder().functionName(functionName).build();
+        waiter.waitUntilFunctionUpdatedV2(request);
+        lambdaClient.updateFunctionConfiguration(UpdateFunctionConfigurationRequest.builder()
+                .functionName(functionName).memorySize(memory).build());
+        waiter.waitUntilFunctionUpdatedV2(request);
+    }
+
+    private Invocation invoke(DeployedFunction fn, String payload) {
+        long start = System.nanoTime();
+        InvokeResponse response = lambdaClient.invoke(InvokeRequest.builder()
+                .functionName(fn.getCloudName())
+                .payload(SdkBytes.fromUtf8String(withToken(fn, payload)))
+                .logType(LogType.TAIL).build());
+        double latencyMs = (System.nanoTime() - start) / 1e6;
+
+        // the tail of the log ends with the report of the invocation
+        String log = response.logResult() == null ? ""
+                : new String(Base64.getDecoder().decode(response.logResult()), StandardCharsets.UTF_8);
+        boolean failed = response.functionError() != null;
+        if (failed)
+            LOG.warn(String.format("%s: invocation failed: %s", fn.getName(),
+                    response.payload().asUtf8String()));
+
+        return new Invocation(latencyMs, find(DURATION, log), find(BILLED_DURATION, log),
+                find(INIT_DURATION, log), failed);
+    }
+
+    private static String withToken(DeployedFunction fn, String payload) {
+        if (!payload.contains(TOKEN_PLACEHOLDER))
+            return payload;
+
+        SecretKey key = ((FunctionAccess) fn.getAccessInfo()).getAuthKey();
+        long now = System.currentTimeMillis();
+        String token = Jwts.builder().subject(fn.getName()).issuedAt(new Date(now))
+                .expiration(new Date(now + 300_000)).signWith(key).compact();
+        return payload.replace(TOKEN_PLACEHOLDER, token);
+    }
+
+    private static double find(Pattern pattern, String log) {
+        Matcher m = pattern.matcher(log);
+        return m.find() ? Double.parseDouble(m.group(1)) : 0;
+    }
+
+    private static void report(DeployedFunction fn, List<MemoryResult> results) throws IOException {
+        LOG.info(String.format("%s:", fn.getName()));
+        LOG.info(String.format("\t%8s %10s %10s %10s %10s %14s %7s", "memory", "cold (ms)",
+                "p50 (ms)", "p90 (ms)", "billed", "USD / 1M inv.", "errors"));
+        List<String> lines = new ArrayList<>();
+        lines.add("memory_mb,cold_ms,p50_ms,p90_ms,billed_ms,usd_per_million,errors");
+        for (MemoryResult r : results) {
+            LOG.info(String.format("\t%5d MB %10.1f %10.1f %10.1f %10.1f %14.2f %7d", r.memoryMB(),
+                    r.coldMs(), r.p50Ms(), r.p90Ms(), r.billedMs(), r.usdPerMillion(), r.errors()));
+            lines.add(String.format("%d,%.1f,%.1f,%.1f,%.1f,%.4f,%d", r.memoryMB(), r.coldMs(),
+                    r.p50Ms(), r.p90Ms(), r.billedMs(), r.usdPerMillion(), r.errors()));
+        }
+        FileUtils.writeLines(new File(RESULTS_DIR + fn.getName() + ".csv"),
+                StandardCharsets.UTF_8.name(), lines);
+    }
+
+    /**
+     * Measures of a single invocation, durations are in milliseconds.
+     */
+    private record Invocation(double latencyMs, double durationMs, double billedMs,
+            double initMs, boolean failed) {
+    }
+
+    /**
+     * Measures at one memory size, durations are in milliseconds.
+     */
+    private record MemoryResult(int memoryMB, double coldMs, double p50Ms, double p90Ms,
+            double billedMs, double usdPerMillion, int errors) {
+
+        static MemoryResult of(int memoryMB, Invocation cold, List<Invocation> warm,
+                double pricePerGbSecond) {
+            List<Double> latencies = warm.stream().map(Invocation::latencyMs).sorted()
+                    .collect(Collectors.toList());
+            double billedMs = warm.stream().mapToDouble(Invocation::billedMs).average().orElse(0);
+            double usdPerMillion = 1_000_000
+                    * (billedMs / 1000 * memoryMB / 1024 * pricePerGbSecond + PRICE_PER_REQUEST);
+            int errors = (cold.failed() ? 1 : 0)
+                    + (int) warm.stream().filter(Invocation::failed).count();
+
+            return new MemoryResult(memoryMB, cold.initMs() + cold.durationMs(),
+                    percentile(latencies, 0.5), percentile(latencies, 0.9), billedMs, usdPerMillion,
+                    errors);
+        }
+
+        private static double percentile(List<Double> sorted, double p) {
+            int index = (int) Math.ceil(p * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+        }
+    }
+
+}
@@ -0,0 +1,264 @@
+package ch.elca.rovl.dsl.pipeline.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * Runs the Maven builds of the pipeline.
+ * <p>
+ * In reactor mode, the projects built together are aggregated by a generated pom and built by a
+ * single parallel Maven invocation, instead of starting a Maven JVM and resolving dependencies for
+ * each of them. The output of the build is kept in a single log, as the outputs of projects built in
+ * parallel are interleaved. In isolated mode, each project is built by its own Maven invocation,
+ * with its own log. The mode is read from the
+ * {@value #MODE_PROPERTY} system property and defaults to reactor.
+ * <p>
+ * The Maven daemon (mvnd) is used instead of Maven when available on the path.
+ */
+public final class BuildExecutor {
+
+    static final Logger LOG = LoggerFactory.getLogger("Build");
+
+    /**
+     * System property selecting the build mode, either "reactor" or "isolated".
+     */
+    public static final String MODE_PROPERTY = "pipeline.build.mode";
+
+    static final String REACTOR_DIR = Constants.GENERATED_DIR + "build/";
+
+    public enum Mode {
+        ISOLATED, REACTOR
+    }
+
+    private static BuildExecutor instance;
+
+    final Mode mode;
+    final String maven;
+    final boolean daemon;
+
+    private BuildExecutor(Mode mode) {
+        this.mode = mode;
+
+        String daemonExecutable = findExecutable("mvnd");
+        this.daemon = daemonExecutable != null;
+        if (daemon) {
+            this.maven = daemonExecutable;
+        } else {
+            String mavenExecutable = findExecutable("mvn");
+            this.maven = mavenExecutable != null ? mavenExecutable : "mvn";
+        }
+
+        new File(Constants.LOGS_DIR).mkdirs();
+    }
+
+    public static synchronized BuildExecutor get() {
+        if (instance == null) {
+            String mode = System.getProperty(MODE_PROPERTY, Mode.REACTOR.name());
+            instance = new BuildExecutor(Mode.valueOf(mode.toUpperCase(Locale.ROOT)));
+        }
+
+        return instance;
+    }
+
+    /**
+     * Runs Maven with the given arguments in the given directory.
+     *
+     * @param logName name of the log file the output is written to
+     * @param dir working directory
+     * @param args Maven arguments
+     * @throws IOException
+     * @throws InterruptedException
+     * @throws IllegalStateException if the Maven invocation fails
+     */
+    public void run(String logName, String dir, String... args)
+            throws IOException, InterruptedException {
+        File log = logFile(logName);
+        ProcessBuilder pb = new ProcessBuilder(command(args)).directory(new File(dir))
+                .redirectErrorStream(true).redirectOutput(log);
+
+        if (pb.start().waitFor() != 0)
+            throw new IllegalStateException(
+                    String.format("Maven invocation failed, see '%s'.", log.getPath()));
+    }
+
+    /**
+     * Runs the given goals on each of the given projects. In isolated mode, logs are written per
+     * project, to "build-&lt;project name&gt;.txt". In reactor mode, the log of the whole build is
+     * written to "build-&lt;build name&gt;-reactor.txt".
+     *
+     * @param buildName name of the build, unique among concurrent builds
+     * @param projects map {name -> directory} of the projects to build
+     * @param goals Maven goals and arguments
+     * @throws IOException
+     * @throws InterruptedException
+     * @throws IllegalStateException if the build of some project fails
+     */
+    public void build(String buildName, Map<String, String> projects, String... goals)
+            throws IOException, InterruptedException {
+        if (projects.isEmpty())
+            return;
+
+        if (mode == Mode.REACTOR && projects.size() > 1) {
+            buildReactor(buildName, projects, goals);
+        } else {
+            buildIsolated(projects, goals);
+        }
+    }
+
+    private void buildIsolated(Map<String, String> projects, String... goals)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(projects.size(), Runtime.getRuntime().availableProcessors()));
+        Map<String, Future<?>> builds = new HashMap<>();
+        for (Map.Entry<String, String> project : projects.entrySet()) {
+            builds.put(project.getKey(), executor.submit(() -> {
+                run(projectLogName(project.getKey()), project.getValue(), goals);
+                return null;
+            }));
+        }
+        executor.shutdown();
+
+        List<String> failed = new ArrayList<>();
+        for (Map.Entry<String, Future<?>> build : builds.entrySet()) {
+            try {
+                build.getValue().get();
+            } catch (ExecutionException e) {
+                LOG.error(String.format("Build of '%s' failed.", build.getKey()), e.getCause());
+                failed.add(build.getKey());
+            }
+        }
+
+        if (!failed.isEmpty())
+            throw new IllegalStateException("Build failed for projects: " + failed);
+    }
+
+    private void buildReactor(String buildName, Map<String, String> projects, String... goals)
+            throws IOException, InterruptedException {
+        Path reactorDir = Path.of(REACTOR_DIR, buildName).toAbsolutePath();
+        Files.createDirectories(reactorDir);
+
+        // the reactor identifies projects by artifact id
+        Set<String> artifactIds = new HashSet<>();
+        List<String> modules = new ArrayList<>();
+        for (Map.Entry<String, String> project : projects.entrySet()) {
+            Path projectDir = Path.of(project.getValue()).toAbsolutePath();
+            String artifactId = readArtifactId(projectDir.resolve("pom.xml"));
+            if (!artifactIds.add(artifactId)) {
+                LOG.warn(String.format(
+                        "Artifact id '%s' is used by several projects, building them separately.",
+                        artifactId));
+                buildIsolated(projects, goals);
+                return;
+            }
+            modules.add(reactorDir.relativize(projectDir).toString().replace(File.separatorChar, '/'));
+        }
+
+        Path reactorPom = reactorDir.resolve("pom.xml");
+        Files.write(reactorPom, aggregatorPom(buildName, modules), StandardCharsets.UTF_8);
+
+        List<String> args = new ArrayList<>(List.of("-T", "1C", "-f", reactorPom.toString()));
+        args.addAll(List.of(goals));
+
+        LOG.info(String.format("Building %d projects in a single Maven reactor...", projects.size()));
+
+        // outputs of the projects are interleaved, the reactor summary gives the result of each one
+        File reactorLog = logFile("build-" + buildName + "-reactor");
+        ProcessBuilder pb = new ProcessBuilder(command(args.toArray(new String[0])))
+                .directory(reactorDir.toFile()).redirectErrorStream(true).redirectOutput(reactorLog);
+
+        if (pb.start().waitFor() != 0)
+            throw new IllegalStateException(
+                    String.format("Maven reactor build failed, see '%s'.", reactorLog.getPath()));
+    }
+
+    private List<String> command(String... args) {
+        List<String> command = new ArrayList<>(List.of(maven, "-B"));
+        if (daemon)
+            command.add("-Dmvnd.rawStreams=true");
+        command.addAll(List.of(args));
+        return command;
+    }
+
+    private static List<String> aggregatorPom(String name, List<String> modules) {
+        List<String> pom = new ArrayList<>();
+        pom.add("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        pom.add("<project xmlns=\"http://maven.apache.org/POM/4.0.0\"");
+        pom.add("\txmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"");
+        pom.add("\txsi:schemaLocation=\"http://maven.apache.org/POM/4.0.0 https://maven.apache.org/xsd/maven-4.0.0.xsd\">");
+        pom.add("\t<modelVersion>4.0.0</modelVersion>");
+        pom.add("\t<groupId>generated.build</groupId>");
+        pom.add(String.format("\t<artifactId>%s-reactor</artifactId>", name));
+        pom.add("\t<version>1.0.0</version>");
+        pom.add("\t<packaging>pom</packaging>");
+        pom.add("\t<modules>");
+        for (String module : modules) {
+            pom.add(String.format("\t\t<module>%s</module>", module));
+        }
+        pom.add("\t</modules>");
+        pom.add("</project>");
+        return pom;
+    }
+
+    private static String readArtifactId(Path pom) throws IOException {
+        try {
+            Element project = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                    .parse(pom.toFile()).getDocumentElement();
+            for (Node n = project.getFirstChild(); n != null; n = n.getNextSibling()) {
+                if (n.getNodeType() == Node.ELEMENT_NODE && n.getNodeName().equals("artifactId"))
+                    return n.getTextContent().trim();
+            }
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Failed to parse " + pom, e);
+        }
+        throw new IllegalStateException("No artifact id in " + pom);
+    }
+
+    private static String findExecutable(String name) {
+        String path = System.getenv("PATH");
+        if (path == null)
+            return null;
+
+        boolean windows = System.getProperty("os.name").toLowerCase(Locale.ROOT).startsWith("windows");
+        List<String> candidates = windows ? List.of(name + ".exe", name + ".cmd") : List.of(name);
+        for (String dir : path.split(File.pathSeparator)) {
+            for (String candidate : candidates) {
+                File executable = new File(dir, candidate);
+                if (executable.isFile() && executable.canExecute())
+                    return executable.getPath();
+            }
+        }
+        return null;
+    }
+
+    private static String projectLogName(String project) {
+        return "build-" + project;
+    }
+
+    private static File logFile(String logName) {
+        return new File(Constants.LOGS_DIR + logName + ".txt");
+    }
+
+}
@@ -31,5 +31,10 @@ public class Constants {
      */
     public final static String DEPLOYMENT_MEMORY_FILE =
             "deployment-info/resource-names.txt";
+    /**
+     * Name of the file where the content hashes of deployed function projects are written to, to
+     * skip the build of functions that did not change since their last deployment.
+     */
+    public final static String BUILD_CACHE_FILE = "deployment-info/build-hashes.txt";
 
 }
@@ -1,21 +1,25 @@
 package ch.elca.rovl.dsl.pipeline.util;
 
+import java.util.HashSet;
 import java.util.Random;
+import java.util.Set;
 
 /**
- * Utility class to generate Ids for cloud resource names
+ * Utility class to generate Ids for cloud resource names. Safe to use from several threads.
  */
 public final class IdGenerator {
     private static IdGenerator instance;
     private static int MAX = 100000000;
     private static int MIN = 10000000;
     private Random rng;
+    private final Set<Integer> generated;
 
     private IdGenerator() {
         this.rng = new Random();
+        this.generated = new HashSet<>();
     }
 
-    public static IdGenerator get() {
+    public static synchronized IdGenerator get() {
         if (instance == null) {
             instance = new IdGenerator();
         }
@@ -27,13 +31,16 @@ public final class IdGenerator {
      * Generates an Id between 10000000 and 99999999.
      * <p>
      * Not supposed to be a uniform distribution on the interval, but just an helper to get a
-     * somewhat random integer in range.
+     * somewhat random integer in range. Ids are not repeated within a run.
      * 
      * @return random integer between 10000000 and 99999999
      */
-    public int generate() {
-        int next = rng.nextInt(MAX);
-        next = next < MIN ? next + MIN : next;
+    public synchronized int generate() {
+        int next;
+        do {
+            next = rng.nextInt(MAX);
+            next = next < MIN ? next + MIN : next;
+        } while (!generated.add(next));
 
         return next;
     }
@@ -0,0 +1,115 @@
+package ch.elca.rovl.dsl.pipeline.util;
+
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Materializes the project of a user function in the directory of the generated projects.
+ * <p>
+ * Files are hard linked to the ones of the user project instead of being copied, so that large
+ * projects do not have to be duplicated on each run. Files that are rewritten by the templating
+ * step must be given as copied files: writing to a linked file would modify the user project.
+ * Files are copied when the file system does not support hard links, for instance when the
+ * projects are on different volumes.
+ * <p>
+ * Entries named as in {@link #IGNORED} are not materialized.
+ */
+public final class ProjectMaterializer {
+
+    static final Logger LOG = LoggerFactory.getLogger("Templates gen");
+
+    /**
+     * Names of the files and directories that are not materialized.
+     */
+    public static final Set<String> IGNORED = Set.of("target", ".git");
+
+    private static volatile boolean linksSupported = true;
+
+    private ProjectMaterializer() {
+    }
+
+    /**
+     * Materializes the given project in the given directory, which must not exist.
+     *
+     * @param source root directory of the user project
+     * @param target root directory of the generated project
+     * @param copied paths relative to the root directory, with '/' separators, of the files that
+     *               must be copied instead of linked
+     * @throws IOException
+     */
+    public static void materialize(Path source, Path target, Set<String> copied)
+            throws IOException {
+        if (Files.exists(target))
+            throw new IllegalStateException(String.format(
+                    "Error generating function code, dir '%s' already exists.", target));
+
+        int[] counts = new int[2];
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                    throws IOException {
+                if (!dir.equals(source) && IGNORED.contains(dir.getFileName().toString()))
+                    return FileVisitResult.SKIP_SUBTREE;
+
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                    throws IOException {
+                if (IGNORED.contains(file.getFileName().toString()))
+                    return FileVisitResult.CONTINUE;
+
+                Path relative = source.relativize(file);
+                Path dest = target.resolve(relative);
+                String key = relative.toString().replace(file.getFileSystem().getSeparator(), "/");
+                if (attrs.isSymbolicLink()) {
+                    Files.copy(file, dest, LinkOption.NOFOLLOW_LINKS);
+                    counts[1]++;
+                } else if (copied.contains(key) || !link(file, dest)) {
+                    Files.copy(file, dest, StandardCopyOption.COPY_ATTRIBUTES);
+                    counts[1]++;
+                } else {
+                    counts[0]++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        LOG.info(String.format("Materialized '%s': %d files linked, %d copied.",
+                source.getFileName(), counts[0], counts[1]));
+    }
+
+    /**
+     * Hard links the given file, returns false if links are not supported.
+     */
+    private static boolean link(Path file, Path dest) throws IOException {
+        if (!linksSupported)
+            return false;
+
+        try {
+            Files.createLink(dest, file);
+            return true;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            // the destination may have been partially created
+            Files.deleteIfExists(dest);
+            linksSupported = false;
+            LOG.warn(String.format("Cannot hard link project files (%s), copying them instead.",
+                    e.getMessage()));
+            return false;
+        }
+    }
+
+}
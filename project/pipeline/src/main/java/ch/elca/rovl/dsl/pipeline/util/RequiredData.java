@@ -25,7 +25,7 @@ public class RequiredData {
      * Possible types of requried data.
      */
     public static enum Type {
-        QUEUE_SEND, QUEUE_LISTEN, FUNCTION_URL, QUEUE_TRIGGER, DATABASE_CONNECTION, SHARED_KEY
+        QUEUE_SEND, QUEUE_LISTEN, FUNCTION_URL, QUEUE_TRIGGER, DATABASE_CONNECTION, SHARED_KEY, QUEUE_CLAIM_CHECK
     }
 
     @Override
@@ -9,5 +9,7 @@ public enum RunTarget {
     // generates config and provisions local databases necessary for local debugging
     DEBUG,
     // deploys the application to the chosen platforms
-    DEPLOY
+    DEPLOY,
+    // deploys the application, then measures the functions at several memory sizes
+    TUNE
 }
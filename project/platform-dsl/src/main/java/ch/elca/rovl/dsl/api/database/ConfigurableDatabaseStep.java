@@ -46,4 +46,29 @@ public class ConfigurableDatabaseStep {
         fdb.withSize(size);
         return this;
     }
+
+    /**
+     * Sets the number of read replicas provisioned alongside the database. Read-only
+     * queries of the database component are sent to the replicas, other queries to the
+     * primary instance.
+     * 
+     * @param count
+     * @return this
+     */
+    public ConfigurableDatabaseStep readReplicas(int count) {
+        fdb.withReadReplicas(count);
+        return this;
+    }
+
+    /**
+     * Puts a connection proxy in front of the database (RDS Proxy on AWS, the built-in
+     * PgBouncer on Azure), so that the connections of many function instances are
+     * multiplexed over a few database connections.
+     * 
+     * @return this
+     */
+    public ConfigurableDatabaseStep connectionProxy() {
+        fdb.withConnectionProxy(true);
+        return this;
+    }
 }
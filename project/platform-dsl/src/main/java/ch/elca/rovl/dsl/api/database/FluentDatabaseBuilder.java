@@ -15,6 +15,9 @@ import ch.elca.rovl.dsl.resource.database.Database.DatabaseSize;
  */
 public class FluentDatabaseBuilder implements FluentResourceBuilder {
 
+    // lowest replica limit of the supported providers (RDS and Azure flexible servers)
+    static final int MAX_READ_REPLICAS = 5;
+
     // required values
     String name;
     String rootUserName;
@@ -23,6 +26,8 @@ public class FluentDatabaseBuilder implements FluentResourceBuilder {
     // optional values
     WorkloadType workload;
     int sizeGB = 0; // NOTE if 0, use provider min. if -1, user provider max
+    int readReplicas = 0;
+    boolean connectionProxy = false;
 
     protected FluentDatabaseBuilder(String name) {
         this.name = name;
@@ -58,6 +63,16 @@ public class FluentDatabaseBuilder implements FluentResourceBuilder {
         return this;
     }
 
+    public FluentDatabaseBuilder withReadReplicas(int count) {
+        this.readReplicas = count;
+        return this;
+    }
+
+    public FluentDatabaseBuilder withConnectionProxy(boolean enabled) {
+        this.connectionProxy = enabled;
+        return this;
+    }
+
     @Override
     public void validate() {
         if (name == null)
@@ -70,6 +85,11 @@ public class FluentDatabaseBuilder implements FluentResourceBuilder {
         if (engine == null)
             throw new IllegalStateException(String.format(
                     "Database '%s' is missing the mandatory field 'engine'.", name));
+
+        if (readReplicas < 0 || readReplicas > MAX_READ_REPLICAS)
+            throw new IllegalStateException(String.format(
+                    "Database '%s' must have between 0 and %d read replicas, got %d.", name,
+                    MAX_READ_REPLICAS, readReplicas));
     }
 
     @Override
@@ -83,6 +103,8 @@ public class FluentDatabaseBuilder implements FluentResourceBuilder {
             config.put(DatabaseConfigType.WORKLOAD_TYPE, workload);
 
         config.put(DatabaseConfigType.SIZE_GB, sizeGB);
+        config.put(DatabaseConfigType.READ_REPLICAS, readReplicas);
+        config.put(DatabaseConfigType.CONNECTION_PROXY, connectionProxy);
 
         db.addConfig(config);
         return db;
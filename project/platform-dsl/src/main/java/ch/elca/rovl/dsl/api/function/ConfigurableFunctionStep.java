@@ -1,5 +1,7 @@
 package ch.elca.rovl.dsl.api.function;
 
+import ch.elca.rovl.dsl.api.function.models.FunctionArchitecture;
+import ch.elca.rovl.dsl.api.function.models.StartupOptimization;
 import ch.elca.rovl.dsl.api.function.models.functiontrigger.FunctionTrigger;
 
 public class ConfigurableFunctionStep {
@@ -15,6 +17,62 @@ public class ConfigurableFunctionStep {
         return this;
     }
 
+    /**
+     * Sets the memory of the function. On AWS, the CPU share of the function is proportional to
+     * its memory. On Azure, memory above what the consumption plan offers selects an Elastic
+     * Premium plan.
+     */
+    public ConfigurableFunctionStep memory(int megabytes) {
+        ffb.withMemory(megabytes);
+        return this;
+    }
+
+    /**
+     * Sets the architecture of the machines running the function. ARM64 is only supported on AWS,
+     * ignored on other providers.
+     */
+    public ConfigurableFunctionStep architecture(FunctionArchitecture architecture) {
+        ffb.withArchitecture(architecture);
+        return this;
+    }
+
+    /**
+     * Caps the number of concurrent executions of the function, and reserves them for it on AWS.
+     * On Azure, caps the number of instances the function scales out to.
+     */
+    public ConfigurableFunctionStep reservedConcurrency(int executions) {
+        ffb.withReservedConcurrency(executions);
+        return this;
+    }
+
+    /**
+     * Sets the number of messages of a queue batch processed concurrently by the function.
+     * Messages of the same group of a FIFO queue are still processed in order. Only supported on
+     * AWS, ignored on other providers.
+     */
+    public ConfigurableFunctionStep batchParallelism(int parallelism) {
+        ffb.withBatchParallelism(parallelism);
+        return this;
+    }
+
+    /**
+     * Packages the function as a GraalVM native executable instead of a JVM application, to reduce
+     * its cold start time. Only supported on AWS, ignored on other providers.
+     */
+    public ConfigurableFunctionStep nativeImage() {
+        ffb.withNativeImage();
+        return this;
+    }
+
+    /**
+     * Sets the technique used to reduce the cold start time of the function. Cannot be combined
+     * with a native image. Only supported on AWS, ignored on other providers.
+     */
+    public ConfigurableFunctionStep startup(StartupOptimization optimization) {
+        ffb.withStartupOptimization(optimization);
+        return this;
+    }
+
     public ConfigurableFunctionStep rest(FunctionTrigger trigger) {
         ffb.withTrigger(trigger);
         return this;
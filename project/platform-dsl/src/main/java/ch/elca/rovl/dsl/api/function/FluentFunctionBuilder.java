@@ -2,7 +2,9 @@ package ch.elca.rovl.dsl.api.function;
 
 import java.io.File;
 import ch.elca.rovl.dsl.api.FluentResourceBuilder;
+import ch.elca.rovl.dsl.api.function.models.FunctionArchitecture;
 import ch.elca.rovl.dsl.api.function.models.FunctionRuntime;
+import ch.elca.rovl.dsl.api.function.models.StartupOptimization;
 import ch.elca.rovl.dsl.api.function.models.functiontrigger.FunctionTrigger;
 import ch.elca.rovl.dsl.resource.function.Function;
 import ch.elca.rovl.dsl.resource.function.Function.FunctionConfigType;
@@ -18,6 +20,12 @@ public class FluentFunctionBuilder implements FluentResourceBuilder {
     // optional
     FunctionTrigger trigger = null;
     int execTimeoutSeconds = -1;
+    boolean nativeImage = false;
+    StartupOptimization startupOptimization = StartupOptimization.NONE;
+    int memoryMB = -1;
+    FunctionArchitecture architecture = FunctionArchitecture.X86_64;
+    int reservedConcurrency = -1;
+    int batchParallelism = 1;
 
     protected FluentFunctionBuilder(String name) {
         this.name = name;
@@ -51,6 +59,36 @@ public class FluentFunctionBuilder implements FluentResourceBuilder {
         return this;
     }
 
+    protected FluentFunctionBuilder withNativeImage() {
+        this.nativeImage = true;
+        return this;
+    }
+
+    protected FluentFunctionBuilder withStartupOptimization(StartupOptimization optimization) {
+        this.startupOptimization = optimization;
+        return this;
+    }
+
+    protected FluentFunctionBuilder withMemory(int megabytes) {
+        this.memoryMB = megabytes;
+        return this;
+    }
+
+    protected FluentFunctionBuilder withArchitecture(FunctionArchitecture architecture) {
+        this.architecture = architecture;
+        return this;
+    }
+
+    protected FluentFunctionBuilder withReservedConcurrency(int executions) {
+        this.reservedConcurrency = executions;
+        return this;
+    }
+
+    protected FluentFunctionBuilder withBatchParallelism(int parallelism) {
+        this.batchParallelism = parallelism;
+        return this;
+    }
+
     @Override
     public void validate() {
         if (name == null || name.isEmpty())
@@ -73,6 +111,35 @@ public class FluentFunctionBuilder implements FluentResourceBuilder {
             throw new IllegalStateException(String.format(
                     "Function '%s' is missing the mandatory field 'handler'.", name));
 
+        if (startupOptimization == null)
+            throw new IllegalStateException(String.format(
+                    "Function '%s' has a null startup optimization.", name));
+
+        if (nativeImage && startupOptimization != StartupOptimization.NONE)
+            throw new IllegalStateException(String.format(
+                    "Function '%s' cannot combine a native image with a JVM startup optimization.", name));
+
+        if (memoryMB != -1 && memoryMB <= 0)
+            throw new IllegalStateException(String.format(
+                    "The memory of function '%s' must be positive.", name));
+
+        if (reservedConcurrency != -1 && reservedConcurrency < 0)
+            throw new IllegalStateException(String.format(
+                    "The reserved concurrency of function '%s' cannot be negative.", name));
+
+        if (batchParallelism < 1)
+            throw new IllegalStateException(String.format(
+                    "The batch parallelism of function '%s' must be positive.", name));
+
+        if (architecture == null)
+            throw new IllegalStateException(String.format(
+                    "Function '%s' has a null architecture.", name));
+
+        // native executables are built for the architecture of the build container
+        if (nativeImage && architecture != FunctionArchitecture.X86_64)
+            throw new IllegalStateException(String.format(
+                    "Native image of function '%s' can only be built for X86_64.", name));
+
         // just to avoid silly mistakes
         String[] splitHandler = handler.split("[.]");
         if (splitHandler.length > 0 && splitHandler[splitHandler.length - 1].equals("java")) {
@@ -87,6 +154,12 @@ public class FluentFunctionBuilder implements FluentResourceBuilder {
         Function fn = new Function(name, pathToProject, runtime, handler);
 
         fn.addConfig(FunctionConfigType.EXEC_TIMEOUT, execTimeoutSeconds);
+        fn.addConfig(FunctionConfigType.NATIVE_IMAGE, nativeImage);
+        fn.addConfig(FunctionConfigType.STARTUP_OPTIMIZATION, startupOptimization);
+        fn.addConfig(FunctionConfigType.MEMORY_MB, memoryMB);
+        fn.addConfig(FunctionConfigType.ARCHITECTURE, architecture);
+        fn.addConfig(FunctionConfigType.RESERVED_CONCURRENCY, reservedConcurrency);
+        fn.addConfig(FunctionConfigType.BATCH_PARALLELISM, batchParallelism);
 
         if (trigger != null) {
             fn.addConfig(FunctionConfigType.TRIGGER, trigger);
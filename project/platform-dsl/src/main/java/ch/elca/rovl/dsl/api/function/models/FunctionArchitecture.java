@@ -0,0 +1,9 @@
+package ch.elca.rovl.dsl.api.function.models;
+
+/**
+ * Instruction set architecture of the machines running a function.
+ */
+public enum FunctionArchitecture {
+    X86_64,
+    ARM64
+}
@@ -0,0 +1,19 @@
+package ch.elca.rovl.dsl.api.function.models;
+
+/**
+ * Technique used to reduce the cold start time of a JVM function.
+ */
+public enum StartupOptimization {
+    /**
+     * The function starts from scratch on each cold start.
+     */
+    NONE,
+    /**
+     * Cold starts resume from a snapshot of the initialized function (AWS Lambda SnapStart).
+     */
+    SNAP_START,
+    /**
+     * Classes are loaded from a class-data sharing archive built with the function (AppCDS).
+     */
+    CLASS_DATA_SHARING
+}
@@ -1,7 +1,11 @@
 package ch.elca.rovl.dsl.api.queue;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import ch.elca.rovl.dsl.api.FluentResourceBuilder;
 import ch.elca.rovl.dsl.resource.queue.Queue;
+import ch.elca.rovl.dsl.resource.queue.Queue.QueueConfigType;
 
 /**
  * Builder for a queue resource.
@@ -10,6 +14,12 @@ public class FluentQueueBuilder implements FluentResourceBuilder {
 
     String name;
 
+    // optional
+    long claimCheckThresholdBytes = -1;
+    int batchSize = -1;
+    int batchWindowSeconds = -1;
+    boolean reportBatchItemFailures = true;
+
     protected FluentQueueBuilder(String name) {
         this.name = name;
     }
@@ -18,16 +28,66 @@ public class FluentQueueBuilder implements FluentResourceBuilder {
         throw new UnsupportedOperationException("Not implemented");
     }
 
+    protected FluentQueueBuilder withClaimCheckThresholdKB(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Claim-check threshold must be positive");
+
+        this.claimCheckThresholdBytes = size * 1024L;
+        return this;
+    }
+
+    protected FluentQueueBuilder withBatchSize(int size) {
+        this.batchSize = size;
+        return this;
+    }
+
+    protected FluentQueueBuilder withBatchWindowSeconds(int seconds) {
+        this.batchWindowSeconds = seconds;
+        return this;
+    }
+
+    protected FluentQueueBuilder withReportBatchItemFailures(boolean report) {
+        this.reportBatchItemFailures = report;
+        return this;
+    }
+
     @Override
     public void validate() {
         if (name == null || name.isEmpty())
             throw new IllegalStateException("Queue is missing the mandatory field 'name'");
+
+        if (batchSize != -1 && (batchSize < 1 || batchSize > 10000))
+            throw new IllegalStateException(String.format(
+                    "The batch size of queue '%s' must be between 1 and 10000.", name));
+
+        if (batchWindowSeconds != -1 && (batchWindowSeconds < 0 || batchWindowSeconds > 300))
+            throw new IllegalStateException(String.format(
+                    "The batch window of queue '%s' must be between 0 and 300 seconds.", name));
+
+        // messages are only gathered for more than 10 per batch if the window is set
+        if (batchSize > 10 && batchWindowSeconds < 1)
+            throw new IllegalStateException(String.format(
+                    "Queue '%s' needs a batch window of at least one second for batches larger than 10.",
+                    name));
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public Queue build() {
-        return new Queue(name);
+        Queue queue = new Queue(name);
+        Map<QueueConfigType, Object> config = new HashMap<>();
+
+        if (claimCheckThresholdBytes > 0)
+            config.put(QueueConfigType.CLAIM_CHECK_THRESHOLD, claimCheckThresholdBytes);
+        if (batchSize > 0)
+            config.put(QueueConfigType.BATCH_SIZE, batchSize);
+        if (batchWindowSeconds >= 0)
+            config.put(QueueConfigType.BATCH_WINDOW_SECONDS, batchWindowSeconds);
+        config.put(QueueConfigType.REPORT_BATCH_ITEM_FAILURES, reportBatchItemFailures);
+
+        queue.addConfig(config);
+
+        return queue;
     }
     
 }
@@ -29,4 +29,55 @@ public class QueueEntryPoint {
         return this;
     }
 
+    /**
+     * Enables the claim-check pattern on the queue. Message bodies larger than
+     * the threshold are stored in a blob store of the provider of the queue, and
+     * only a reference to them is sent through the queue.
+     * 
+     * @param size threshold in KB
+     * @return this
+     */
+    public QueueEntryPoint claimCheckThresholdKB(int size) {
+        this.fqb.withClaimCheckThresholdKB(size);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of messages delivered together to a function triggered by the
+     * queue. Batches larger than 10 messages require a batch window. Only supported on AWS,
+     * ignored on other providers.
+     * 
+     * @param size number of messages, between 1 and 10000
+     * @return this
+     */
+    public QueueEntryPoint batchSize(int size) {
+        this.fqb.withBatchSize(size);
+        return this;
+    }
+
+    /**
+     * Sets how long messages are gathered before a batch is delivered to a function triggered by
+     * the queue. Only supported on AWS, ignored on other providers.
+     * 
+     * @param seconds window in seconds, between 0 and 300
+     * @return this
+     */
+    public QueueEntryPoint batchWindowSeconds(int seconds) {
+        this.fqb.withBatchWindowSeconds(seconds);
+        return this;
+    }
+
+    /**
+     * Sets whether a function triggered by the queue reports the messages of a batch that failed,
+     * so that only those are delivered again. Otherwise a failed message is not delivered again
+     * unless the whole invocation fails. Enabled by default, only supported on AWS.
+     * 
+     * @param report whether to report failed messages
+     * @return this
+     */
+    public QueueEntryPoint reportBatchItemFailures(boolean report) {
+        this.fqb.withReportBatchItemFailures(report);
+        return this;
+    }
+
 }
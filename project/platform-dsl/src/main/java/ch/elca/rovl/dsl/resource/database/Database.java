@@ -51,7 +51,7 @@ public final class Database extends Resource {
 
     // NOTE expand to support more configuration
     public enum DatabaseConfigType {
-        WORKLOAD_TYPE, SIZE_GB
+        WORKLOAD_TYPE, SIZE_GB, READ_REPLICAS, CONNECTION_PROXY
     }
 
     public enum DatabaseSize {
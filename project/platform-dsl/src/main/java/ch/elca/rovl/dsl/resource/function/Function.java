@@ -53,7 +53,8 @@ public final class Function extends Resource {
 
     // NOTE expand to support more configuration
     public enum FunctionConfigType {
-        TRIGGER, EXEC_TIMEOUT
+        TRIGGER, EXEC_TIMEOUT, NATIVE_IMAGE, STARTUP_OPTIMIZATION, MEMORY_MB, ARCHITECTURE,
+        RESERVED_CONCURRENCY, BATCH_PARALLELISM
     }
 
 }
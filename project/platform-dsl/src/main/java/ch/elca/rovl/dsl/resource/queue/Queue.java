@@ -33,7 +33,11 @@ public final class Queue extends Resource {
 
     // NOTE expand to support more configuration
     public enum QueueConfigType {
-        MAX_SIZE
+        MAX_SIZE,
+        CLAIM_CHECK_THRESHOLD,
+        BATCH_SIZE,
+        BATCH_WINDOW_SECONDS,
+        REPORT_BATCH_ITEM_FAILURES
     }
     
 }